@@ -30,11 +30,10 @@ import java.util.Set;
 import javax.xml.namespace.QName;
 
 import org.switchyard.annotations.Requires;
-import org.switchyard.common.type.classpath.ClasspathScanner;
-import org.switchyard.common.type.classpath.IsAnnotationPresentFilter;
 import org.switchyard.component.bean.Reference;
 import org.switchyard.component.bean.Service;
 import org.switchyard.component.bean.config.model.v1.V1BeanComponentImplementationModel;
+import org.switchyard.component.common.scan.AnnotationIndexer;
 import org.switchyard.config.model.Scanner;
 import org.switchyard.config.model.ScannerInput;
 import org.switchyard.config.model.ScannerOutput;
@@ -208,16 +207,9 @@ public class BeanSwitchYardScanner implements Scanner<SwitchYardModel> {
         String componentName = service.componentName();
         return Service.EMPTY.equals(componentName) ? serviceName : componentName;
     }
+    @SuppressWarnings("unchecked")
     private List<Class<?>> scanForServiceBeans(List<URL> urls) throws IOException {
-        IsAnnotationPresentFilter filter = new IsAnnotationPresentFilter(Service.class);
-        filter.addType(Reference.class);
-        ClasspathScanner serviceScanner = new ClasspathScanner(filter);
-
-        for (URL url : urls) {
-            serviceScanner.scan(url);
-        }
-
-        return filter.getMatchedTypes();
+        return AnnotationIndexer.getDefault().index(urls).getAnnotatedTypes(Service.class, Reference.class);
     }
     
     /**
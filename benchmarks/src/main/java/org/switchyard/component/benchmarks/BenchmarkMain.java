@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks;
+
+import java.io.File;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks, writing machine-readable results.
+ * <p/>
+ * Accepts the usual JMH command line (for example a benchmark regex, or -p size=1KB to limit the payload
+ * sizes); -h and listing options such as -l and -lprof are handed to JMH as they are. Unless -rf/-rff
+ * say otherwise, results are written as JSON to target/jmh-result.json, so runs before and after a
+ * change can be compared:
+ * <pre>
+ * java -jar target/benchmarks.jar "Composition|Dispatch" -p size=1KB -rff target/before.json
+ * </pre>
+ */
+public final class BenchmarkMain {
+
+    /** The default result file. */
+    public static final String DEFAULT_RESULT = "target" + File.separator + "jmh-result.json";
+
+    private BenchmarkMain() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     * @param args the JMH command line
+     * @throws Exception if the benchmarks could not be run
+     */
+    public static void main(String... args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+            || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            // nothing is run, so there are no results to write
+            Main.main(args);
+            return;
+        }
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cli);
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            File result = new File(DEFAULT_RESULT);
+            if (result.getParentFile() != null) {
+                result.getParentFile().mkdirs();
+            }
+            options.result(result.getPath());
+        }
+        new Runner(options.build()).run();
+    }
+
+}
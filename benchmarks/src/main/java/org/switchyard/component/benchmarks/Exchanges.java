@@ -0,0 +1,86 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks;
+
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.switchyard.BaseHandler;
+import org.switchyard.Context;
+import org.switchyard.Exchange;
+import org.switchyard.HandlerException;
+import org.switchyard.Scope;
+import org.switchyard.ServiceDomain;
+import org.switchyard.deploy.ServiceDomainManager;
+import org.switchyard.metadata.InOutService;
+
+/**
+ * Creates SwitchYard exchanges for the binding benchmarks.
+ */
+public final class Exchanges {
+
+    /** The namespace of the services the benchmarks register. */
+    public static final String NAMESPACE = "urn:switchyard-component-benchmarks";
+
+    private Exchanges() {
+    }
+
+    /**
+     * Creates a service domain.
+     * @return the domain
+     */
+    public static ServiceDomain newDomain() {
+        return new ServiceDomainManager().createDomain();
+    }
+
+    /**
+     * Creates an in-out exchange, as seen by the provider, whose message has the specified content and whose
+     * context has the headers as properties in the EXCHANGE and OUT scopes, which is where the context mappers
+     * of the different bindings look for them.
+     * @param name the local name of the service
+     * @param content the message content
+     * @param headers the headers
+     * @return the exchange
+     */
+    public static Exchange newProviderExchange(String name, Object content, Map<String, String> headers) {
+        ServiceDomain domain = newDomain();
+        QName serviceName = new QName(NAMESPACE, name);
+        final Exchange[] provided = new Exchange[1];
+        domain.registerService(serviceName, new InOutService(Payloads.OPERATION), new BaseHandler() {
+            @Override
+            public void handleMessage(Exchange exchange) throws HandlerException {
+                provided[0] = exchange;
+            }
+        });
+        Exchange exchange = domain.registerServiceReference(serviceName, new InOutService(Payloads.OPERATION))
+            .createExchange(Payloads.OPERATION, new BaseHandler());
+        exchange.send(exchange.createMessage().setContent(content));
+        if (provided[0] == null) {
+            throw new IllegalStateException("Exchange was not delivered to the provider");
+        }
+        Context context = provided[0].getContext();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            context.setProperty(header.getKey(), header.getValue(), Scope.EXCHANGE);
+            context.setProperty(header.getKey(), header.getValue(), Scope.OUT);
+        }
+        return provided[0];
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Payloads and headers of representative sizes, shared by all binding benchmarks.
+ * <p/>
+ * Payloads are XML documents carrying the operation name up front, followed by filler data up to the
+ * requested size, so that both the XPath and the regex operation selectors have something to match.
+ */
+public final class Payloads {
+
+    /** The operation name carried by every payload. */
+    public static final String OPERATION = "echo";
+
+    /** An XPath expression selecting the operation name from a payload. */
+    public static final String OPERATION_XPATH = "/benchmark/operation";
+
+    /** A regular expression matching the operation name in a payload. */
+    public static final String OPERATION_REGEX = "echo";
+
+    private static final String HEAD = "<benchmark><operation>" + OPERATION + "</operation><data>";
+    private static final String TAIL = "</data></benchmark>";
+    private static final String FILLER = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    private Payloads() {
+    }
+
+    /**
+     * Gets the number of bytes of a size such as "1KB", "100KB" or "10MB".
+     * @param size the size
+     * @return the number of bytes
+     */
+    public static int toBytes(String size) {
+        String s = size.trim().toUpperCase();
+        if (s.endsWith("MB")) {
+            return Integer.parseInt(s.substring(0, s.length() - 2).trim()) * 1024 * 1024;
+        } else if (s.endsWith("KB")) {
+            return Integer.parseInt(s.substring(0, s.length() - 2).trim()) * 1024;
+        } else if (s.endsWith("B")) {
+            return Integer.parseInt(s.substring(0, s.length() - 1).trim());
+        }
+        return Integer.parseInt(s);
+    }
+
+    /**
+     * Creates an XML payload of the specified size (in ASCII characters, so also in bytes).
+     * @param size the size, such as "1KB", "100KB" or "10MB"
+     * @return the payload
+     */
+    public static String xml(String size) {
+        int bytes = Math.max(toBytes(size), HEAD.length() + TAIL.length());
+        StringBuilder xml = new StringBuilder(bytes);
+        xml.append(HEAD);
+        int data = bytes - HEAD.length() - TAIL.length();
+        while (data > 0) {
+            int n = Math.min(data, FILLER.length());
+            xml.append(FILLER, 0, n);
+            data -= n;
+        }
+        return xml.append(TAIL).toString();
+    }
+
+    /**
+     * Gets the name of a header; names are valid Java identifiers and XML names, as JMS and SOAP require.
+     * @param index the index of the header
+     * @return the name
+     */
+    public static String headerName(int index) {
+        return "benchmarkHeader" + index;
+    }
+
+    /**
+     * Creates the specified number of headers, in a stable order.
+     * @param count the number of headers
+     * @return the headers
+     */
+    public static Map<String, String> headers(int count) {
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        for (int i = 0; i < count; i++) {
+            headers.put(headerName(i), "value-" + i);
+        }
+        return headers;
+    }
+
+}
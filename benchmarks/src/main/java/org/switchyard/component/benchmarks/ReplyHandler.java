@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.switchyard.BaseHandler;
+import org.switchyard.Exchange;
+import org.switchyard.HandlerException;
+
+/**
+ * Receives the reply of a single in-out exchange, whether it arrives on the sending thread or another one.
+ */
+public final class ReplyHandler extends BaseHandler {
+
+    private static final long TIMEOUT = 10000L;
+
+    private final BlockingQueue<Object> _reply = new ArrayBlockingQueue<Object>(1);
+
+    @Override
+    public void handleMessage(Exchange exchange) throws HandlerException {
+        _reply.offer(content(exchange));
+    }
+
+    @Override
+    public void handleFault(Exchange exchange) {
+        Object fault = content(exchange);
+        _reply.offer(fault instanceof Throwable ? fault : new IllegalStateException("Fault: " + fault));
+    }
+
+    /**
+     * Waits for the reply.
+     * @return the reply content
+     * @throws Exception if the reply is a fault, or does not arrive in time
+     */
+    public Object await() throws Exception {
+        Object reply = _reply.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        if (reply == null) {
+            throw new IllegalStateException("No reply within " + TIMEOUT + "ms");
+        } else if (reply instanceof Exception) {
+            throw (Exception)reply;
+        } else if (reply instanceof Throwable) {
+            throw new IllegalStateException((Throwable)reply);
+        }
+        return reply;
+    }
+
+    private static Object content(Exchange exchange) {
+        Object content = exchange.getMessage().getContent();
+        // the queue does not take nulls
+        return content != null ? content : Boolean.FALSE;
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.bean;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.switchyard.Exchange;
+import org.switchyard.ServiceDomain;
+import org.switchyard.ServiceReference;
+import org.switchyard.component.bean.BeanServiceMetadata;
+import org.switchyard.component.bean.ServiceProxyHandler;
+import org.switchyard.component.bean.deploy.BeanDeploymentMetaData;
+import org.switchyard.component.benchmarks.Exchanges;
+import org.switchyard.component.benchmarks.Payloads;
+import org.switchyard.component.benchmarks.ReplyHandler;
+import org.switchyard.metadata.java.JavaService;
+
+/**
+ * Measures an in-out invocation of a bean service through the service domain, from creating the
+ * exchange to receiving the reply: operation to method resolution, the reflective call and the reply.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BeanDispatchBenchmark {
+
+    /** The payload size (JMH requires parameters to be public). */
+    @Param({"1KB", "100KB", "10MB"})
+    public String size;
+
+    private ServiceReference _reference;
+    private String _payload;
+
+    /**
+     * Registers the bean service.
+     */
+    @Setup
+    public void setup() {
+        ServiceDomain domain = Exchanges.newDomain();
+        QName serviceName = new QName(Exchanges.NAMESPACE, getClass().getSimpleName());
+        JavaService contract = JavaService.fromClass(Echo.class);
+        domain.registerService(serviceName, contract,
+            new ServiceProxyHandler(new EchoBean(), new BeanServiceMetadata(Echo.class), new BeanDeploymentMetaData()));
+        _reference = domain.registerServiceReference(serviceName, contract);
+        _payload = Payloads.xml(size);
+    }
+
+    /**
+     * Invokes the bean.
+     * @return the reply
+     * @throws Exception oops
+     */
+    @Benchmark
+    public Object dispatch() throws Exception {
+        ReplyHandler reply = new ReplyHandler();
+        Exchange exchange = _reference.createExchange(Payloads.OPERATION, reply);
+        exchange.send(exchange.createMessage().setContent(_payload));
+        return reply.await();
+    }
+
+    /**
+     * The bean service contract.
+     */
+    public interface Echo {
+        /**
+         * Echoes the payload.
+         * @param payload the payload
+         * @return the payload
+         */
+        String echo(String payload);
+    }
+
+    /**
+     * The bean service implementation.
+     */
+    public static final class EchoBean implements Echo {
+        @Override
+        public String echo(String payload) {
+            return payload;
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.camel;
+
+import java.util.Map;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Message;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.switchyard.component.benchmarks.composer.SelectableCompositionBenchmark;
+import org.switchyard.component.camel.common.composer.CamelBindingData;
+
+/**
+ * Composition and operation selection of Camel messages.
+ */
+public class CamelCompositionBenchmark extends SelectableCompositionBenchmark<CamelBindingData> {
+
+    private final CamelContext _camelContext = new DefaultCamelContext();
+
+    @Override
+    protected Class<CamelBindingData> getBindingDataType() {
+        return CamelBindingData.class;
+    }
+
+    @Override
+    protected CamelBindingData newSource(String payload, Map<String, String> headerMap) throws Exception {
+        Message message = new DefaultExchange(_camelContext).getIn();
+        message.setBody(payload);
+        for (Map.Entry<String, String> header : headerMap.entrySet()) {
+            message.setHeader(header.getKey(), header.getValue());
+        }
+        return new CamelBindingData(message);
+    }
+
+    @Override
+    protected CamelBindingData newTarget() throws Exception {
+        return new CamelBindingData(new DefaultExchange(_camelContext).getIn());
+    }
+
+}
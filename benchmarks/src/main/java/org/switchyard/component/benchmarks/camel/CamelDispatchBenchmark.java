@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.camel;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.builder.RouteBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.switchyard.BaseHandler;
+import org.switchyard.Exchange;
+import org.switchyard.ExchangePhase;
+import org.switchyard.HandlerException;
+import org.switchyard.ServiceDomain;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.benchmarks.Exchanges;
+import org.switchyard.component.benchmarks.Payloads;
+import org.switchyard.component.camel.common.CamelConstants;
+import org.switchyard.metadata.InOutService;
+
+/**
+ * Measures an in-out invocation of a SwitchYard service from a Camel route through the switchyard://
+ * endpoint: Camel to SwitchYard composition, the exchange, and the reply back into the Camel exchange.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CamelDispatchBenchmark {
+
+    private static final String ROUTE = "direct:benchmark";
+
+    /** The payload size (JMH requires parameters to be public). */
+    @Param({"1KB", "100KB", "10MB"})
+    public String size;
+
+    private SwitchYardCamelContext _camelContext;
+    private ProducerTemplate _producer;
+    private String _payload;
+
+    /**
+     * Registers an echo service and starts a route to it.
+     * @throws Exception oops
+     */
+    @Setup
+    public void setup() throws Exception {
+        ServiceDomain domain = Exchanges.newDomain();
+        final String name = getClass().getSimpleName();
+        QName serviceName = new QName(Exchanges.NAMESPACE, name);
+        domain.registerService(serviceName, new InOutService(Payloads.OPERATION), new BaseHandler() {
+            @Override
+            public void handleMessage(Exchange exchange) throws HandlerException {
+                if (exchange.getPhase() == ExchangePhase.IN) {
+                    exchange.send(exchange.createMessage().setContent(exchange.getMessage().getContent()));
+                }
+            }
+        });
+        domain.registerServiceReference(serviceName, new InOutService(Payloads.OPERATION));
+        _camelContext = new SwitchYardCamelContext(false);
+        _camelContext.getWritebleRegistry().put(CamelConstants.SERVICE_DOMAIN, domain);
+        _camelContext.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from(ROUTE).to("switchyard://" + name + "?namespace=" + Exchanges.NAMESPACE + "&operationName=" + Payloads.OPERATION);
+            }
+        });
+        _camelContext.start();
+        _producer = _camelContext.createProducerTemplate();
+        _payload = Payloads.xml(size);
+    }
+
+    /**
+     * Stops the route.
+     * @throws Exception oops
+     */
+    @TearDown
+    public void tearDown() throws Exception {
+        _producer.stop();
+        _camelContext.stop();
+    }
+
+    /**
+     * Invokes the service from the route.
+     * @return the reply
+     */
+    @Benchmark
+    public Object dispatch() {
+        return _producer.requestBody(ROUTE, _payload);
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.composer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.switchyard.Context;
+import org.switchyard.Exchange;
+import org.switchyard.Message;
+import org.switchyard.component.benchmarks.Exchanges;
+import org.switchyard.component.benchmarks.Payloads;
+import org.switchyard.component.common.composer.BindingData;
+import org.switchyard.component.common.composer.Composition;
+import org.switchyard.component.common.composer.ContextMapper;
+import org.switchyard.component.common.composer.MessageComposer;
+
+/**
+ * Measures the default message composer and context mapper of a binding, as resolved through
+ * {@link Composition} the way the binding itself resolves them.
+ * <p/>
+ * compose and mapFrom read a prepared source; decompose and mapTo write into a new target, as a binding
+ * does for every reply or outbound message, so their cost includes creating it.
+ *
+ * @param <D> the binding data type
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public abstract class CompositionBenchmark<D extends BindingData> {
+
+    /** The payload size (JMH requires parameters to be public). */
+    @Param({"1KB", "100KB", "10MB"})
+    public String size;
+
+    /** The number of headers, or context properties. */
+    @Param({"4", "32"})
+    public int headers;
+
+    private MessageComposer<D> _composer;
+    private ContextMapper<D> _contextMapper;
+    private Exchange _exchange;
+    private D _source;
+
+    /**
+     * Resolves the composer and mapper, and creates the exchange and source.
+     * @throws Exception oops
+     */
+    @Setup
+    public void setupComposition() throws Exception {
+        String payload = Payloads.xml(size);
+        Map<String, String> headerMap = Payloads.headers(headers);
+        _composer = Composition.getMessageComposer(getBindingDataType());
+        _contextMapper = _composer.getContextMapper();
+        _exchange = Exchanges.newProviderExchange(getClass().getSimpleName(), newContent(payload), headerMap);
+        _source = newSource(payload, headerMap);
+    }
+
+    /**
+     * Binding data to SwitchYard message.
+     * @return the message
+     * @throws Exception oops
+     */
+    @Benchmark
+    public Message compose() throws Exception {
+        return _composer.compose(getSource(), _exchange, true);
+    }
+
+    /**
+     * SwitchYard message to new binding data.
+     * @return the binding data
+     * @throws Exception oops
+     */
+    @Benchmark
+    public Object decompose() throws Exception {
+        return _composer.decompose(_exchange, newTarget());
+    }
+
+    /**
+     * Binding data headers to context properties.
+     * @return the context
+     * @throws Exception oops
+     */
+    @Benchmark
+    public Context mapFrom() throws Exception {
+        Context context = _exchange.getContext();
+        _contextMapper.mapFrom(getSource(), context);
+        return context;
+    }
+
+    /**
+     * Context properties to new binding data headers.
+     * @return the binding data
+     * @throws Exception oops
+     */
+    @Benchmark
+    public Object mapTo() throws Exception {
+        D target = newTarget();
+        _contextMapper.mapTo(_exchange.getContext(), target);
+        return target;
+    }
+
+    /**
+     * Gets the binding data type.
+     * @return the type
+     */
+    protected abstract Class<D> getBindingDataType();
+
+    /**
+     * Creates the source binding data, read by every compose and mapFrom.
+     * @param payload the payload
+     * @param headerMap the headers
+     * @return the binding data
+     * @throws Exception oops
+     */
+    protected abstract D newSource(String payload, Map<String, String> headerMap) throws Exception;
+
+    /**
+     * Creates the target binding data for a decompose or mapTo.
+     * @return the binding data
+     * @throws Exception oops
+     */
+    protected abstract D newTarget() throws Exception;
+
+    /**
+     * Creates the content of the exchange's message, in the form the binding's decompose expects.
+     * @param payload the payload
+     * @return the content
+     * @throws Exception oops
+     */
+    protected Object newContent(String payload) throws Exception {
+        return payload;
+    }
+
+    /**
+     * Gets the source binding data; bindings whose source is consumed by reading override this to rewind it.
+     * @return the source
+     * @throws Exception oops
+     */
+    protected D getSource() throws Exception {
+        return _source;
+    }
+
+    /**
+     * Gets the exchange.
+     * @return the exchange
+     */
+    protected Exchange getExchange() {
+        return _exchange;
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.composer;
+
+import javax.xml.namespace.QName;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.switchyard.component.benchmarks.Payloads;
+import org.switchyard.component.common.composer.BindingData;
+import org.switchyard.component.common.selector.OperationSelectorFactory;
+import org.switchyard.config.model.selector.RegexOperationSelectorModel;
+import org.switchyard.config.model.selector.XPathOperationSelectorModel;
+import org.switchyard.config.model.selector.v1.V1RegexOperationSelectorModel;
+import org.switchyard.config.model.selector.v1.V1XPathOperationSelectorModel;
+import org.switchyard.selector.OperationSelector;
+
+/**
+ * Adds the XPath and regex operation selectors to the composition benchmarks of a binding that has an
+ * {@link OperationSelectorFactory} for its binding data.
+ *
+ * @param <D> the binding data type
+ */
+public abstract class SelectableCompositionBenchmark<D extends BindingData> extends CompositionBenchmark<D> {
+
+    private OperationSelector<D> _xpathSelector;
+    private OperationSelector<D> _regexSelector;
+
+    /**
+     * Creates the operation selectors.
+     */
+    @Setup
+    public void setupSelectors() {
+        OperationSelectorFactory<D> factory = OperationSelectorFactory.getOperationSelectorFactory(getBindingDataType());
+        if (factory == null) {
+            throw new IllegalStateException("No OperationSelectorFactory for " + getBindingDataType().getName());
+        }
+        XPathOperationSelectorModel xpath = new V1XPathOperationSelectorModel();
+        xpath.setExpression(Payloads.OPERATION_XPATH);
+        _xpathSelector = factory.newOperationSelector(xpath);
+        RegexOperationSelectorModel regex = new V1RegexOperationSelectorModel();
+        regex.setExpression(Payloads.OPERATION_REGEX);
+        _regexSelector = factory.newOperationSelector(regex);
+    }
+
+    /**
+     * Operation selection by XPath.
+     * @return the operation
+     * @throws Exception oops
+     */
+    @Benchmark
+    public QName selectOperationXPath() throws Exception {
+        return _xpathSelector.selectOperation(getSource());
+    }
+
+    /**
+     * Operation selection by regex.
+     * @return the operation
+     * @throws Exception oops
+     */
+    @Benchmark
+    public QName selectOperationRegex() throws Exception {
+        return _regexSelector.selectOperation(getSource());
+    }
+
+}
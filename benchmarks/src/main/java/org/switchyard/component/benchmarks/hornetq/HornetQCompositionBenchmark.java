@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.hornetq;
+
+import java.util.Map;
+
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.core.client.impl.ClientMessageImpl;
+import org.switchyard.component.benchmarks.composer.SelectableCompositionBenchmark;
+import org.switchyard.component.hornetq.composer.HornetQBindingData;
+
+/**
+ * Composition and operation selection of HornetQ core messages.
+ */
+public class HornetQCompositionBenchmark extends SelectableCompositionBenchmark<HornetQBindingData> {
+
+    private static final byte PRIORITY = (byte)4;
+    private static final int INITIAL_BUFFER_SIZE = 1500;
+
+    private HornetQBindingData _source;
+
+    @Override
+    protected Class<HornetQBindingData> getBindingDataType() {
+        return HornetQBindingData.class;
+    }
+
+    @Override
+    protected HornetQBindingData newSource(String payload, Map<String, String> headerMap) throws Exception {
+        ClientMessage message = newMessage();
+        message.getBodyBuffer().writeBytes(payload.getBytes("UTF-8"));
+        message.getBodyBuffer().markReaderIndex();
+        for (Map.Entry<String, String> header : headerMap.entrySet()) {
+            message.putStringProperty(header.getKey(), header.getValue());
+        }
+        _source = new HornetQBindingData(message);
+        return _source;
+    }
+
+    @Override
+    protected HornetQBindingData newTarget() throws Exception {
+        return new HornetQBindingData(newMessage());
+    }
+
+    @Override
+    protected Object newContent(String payload) throws Exception {
+        return payload.getBytes("UTF-8");
+    }
+
+    @Override
+    protected HornetQBindingData getSource() throws Exception {
+        // every read consumes the body buffer
+        _source.getClientMessage().getBodyBuffer().resetReaderIndex();
+        return _source;
+    }
+
+    private static ClientMessage newMessage() {
+        return new ClientMessageImpl((byte)0, false, 0, System.currentTimeMillis(), PRIORITY, INITIAL_BUFFER_SIZE);
+    }
+
+}
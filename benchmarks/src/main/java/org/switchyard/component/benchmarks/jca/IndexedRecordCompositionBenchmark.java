@@ -0,0 +1,59 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.jca;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.switchyard.component.benchmarks.composer.CompositionBenchmark;
+import org.switchyard.component.jca.composer.IndexedRecordBindingData;
+
+/**
+ * Composition of CCI IndexedRecords.
+ */
+public class IndexedRecordCompositionBenchmark extends CompositionBenchmark<IndexedRecordBindingData> {
+
+    @Override
+    protected Class<IndexedRecordBindingData> getBindingDataType() {
+        return IndexedRecordBindingData.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected IndexedRecordBindingData newSource(String payload, Map<String, String> headerMap) throws Exception {
+        Records.Indexed record = new Records.Indexed();
+        record.setRecordName(getClass().getSimpleName());
+        record.add(payload);
+        for (Map.Entry<String, String> header : headerMap.entrySet()) {
+            record.add(header.getKey() + "=" + header.getValue());
+        }
+        return new IndexedRecordBindingData(record);
+    }
+
+    @Override
+    protected IndexedRecordBindingData newTarget() throws Exception {
+        return new IndexedRecordBindingData(new Records.Indexed());
+    }
+
+    @Override
+    protected Object newContent(String payload) throws Exception {
+        return Collections.singletonList(payload);
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.jca;
+
+import java.util.Map;
+
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.core.client.impl.ClientMessageImpl;
+import org.hornetq.jms.client.HornetQObjectMessage;
+import org.hornetq.jms.client.HornetQTextMessage;
+import org.switchyard.component.benchmarks.composer.SelectableCompositionBenchmark;
+import org.switchyard.component.jca.composer.JMSBindingData;
+
+/**
+ * Composition and operation selection of JMS messages delivered through JCA, using HornetQ's JMS
+ * message implementation.
+ */
+public class JMSCompositionBenchmark extends SelectableCompositionBenchmark<JMSBindingData> {
+
+    private static final byte PRIORITY = (byte)4;
+    private static final int INITIAL_BUFFER_SIZE = 1500;
+
+    @Override
+    protected Class<JMSBindingData> getBindingDataType() {
+        return JMSBindingData.class;
+    }
+
+    @Override
+    protected JMSBindingData newSource(String payload, Map<String, String> headerMap) throws Exception {
+        HornetQTextMessage message = new HornetQTextMessage(newMessage(HornetQTextMessage.TYPE), null);
+        message.setText(payload);
+        for (Map.Entry<String, String> header : headerMap.entrySet()) {
+            message.setStringProperty(header.getKey(), header.getValue());
+        }
+        return new JMSBindingData(message);
+    }
+
+    @Override
+    protected JMSBindingData newTarget() throws Exception {
+        // decompose writes an ObjectMessage
+        return new JMSBindingData(new HornetQObjectMessage(newMessage(HornetQObjectMessage.TYPE), null));
+    }
+
+    private static ClientMessage newMessage(byte type) {
+        return new ClientMessageImpl(type, false, 0, System.currentTimeMillis(), PRIORITY, INITIAL_BUFFER_SIZE);
+    }
+
+}
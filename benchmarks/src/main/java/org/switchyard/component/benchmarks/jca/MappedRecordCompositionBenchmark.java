@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.jca;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.switchyard.component.benchmarks.composer.SelectableCompositionBenchmark;
+import org.switchyard.component.jca.composer.MappedRecordBindingData;
+import org.switchyard.component.jca.selector.CCIOperationSelector;
+
+/**
+ * Composition and operation selection of CCI MappedRecords.
+ */
+public class MappedRecordCompositionBenchmark extends SelectableCompositionBenchmark<MappedRecordBindingData> {
+
+    @Override
+    protected Class<MappedRecordBindingData> getBindingDataType() {
+        return MappedRecordBindingData.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected MappedRecordBindingData newSource(String payload, Map<String, String> headerMap) throws Exception {
+        Records.Mapped record = new Records.Mapped();
+        record.setRecordName(getClass().getSimpleName());
+        record.put(CCIOperationSelector.KEY, payload);
+        record.putAll(headerMap);
+        return new MappedRecordBindingData(record);
+    }
+
+    @Override
+    protected MappedRecordBindingData newTarget() throws Exception {
+        return new MappedRecordBindingData(new Records.Mapped());
+    }
+
+    @Override
+    protected Object newContent(String payload) throws Exception {
+        Map<String, Object> content = new HashMap<String, Object>();
+        content.put(CCIOperationSelector.KEY, payload);
+        return content;
+    }
+
+}
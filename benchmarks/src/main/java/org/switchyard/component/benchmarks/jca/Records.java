@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.jca;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import javax.resource.cci.IndexedRecord;
+import javax.resource.cci.MappedRecord;
+
+/**
+ * Minimal CCI records, standing in for the ones a resource adapter's RecordFactory creates.
+ */
+public final class Records {
+
+    private Records() {
+    }
+
+    /**
+     * A MappedRecord backed by a HashMap.
+     */
+    @SuppressWarnings("rawtypes")
+    public static final class Mapped extends HashMap implements MappedRecord {
+
+        private static final long serialVersionUID = 1L;
+
+        private String _recordName;
+        private String _recordShortDescription;
+
+        @Override
+        public String getRecordName() {
+            return _recordName;
+        }
+
+        @Override
+        public void setRecordName(String recordName) {
+            _recordName = recordName;
+        }
+
+        @Override
+        public String getRecordShortDescription() {
+            return _recordShortDescription;
+        }
+
+        @Override
+        public void setRecordShortDescription(String recordShortDescription) {
+            _recordShortDescription = recordShortDescription;
+        }
+
+    }
+
+    /**
+     * An IndexedRecord backed by an ArrayList.
+     */
+    @SuppressWarnings("rawtypes")
+    public static final class Indexed extends ArrayList implements IndexedRecord {
+
+        private static final long serialVersionUID = 1L;
+
+        private String _recordName;
+        private String _recordShortDescription;
+
+        @Override
+        public String getRecordName() {
+            return _recordName;
+        }
+
+        @Override
+        public void setRecordName(String recordName) {
+            _recordName = recordName;
+        }
+
+        @Override
+        public String getRecordShortDescription() {
+            return _recordShortDescription;
+        }
+
+        @Override
+        public void setRecordShortDescription(String recordShortDescription) {
+            _recordShortDescription = recordShortDescription;
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.jca;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+
+import org.switchyard.component.benchmarks.composer.CompositionBenchmark;
+import org.switchyard.component.jca.composer.StreamableRecordBindingData;
+import org.switchyard.component.jca.processor.cci.StreamableRecord;
+
+/**
+ * Composition of CCI StreamableRecords.
+ */
+public class StreamableRecordCompositionBenchmark extends CompositionBenchmark<StreamableRecordBindingData> {
+
+    private ByteArrayInputStream _content;
+
+    @Override
+    protected Class<StreamableRecordBindingData> getBindingDataType() {
+        return StreamableRecordBindingData.class;
+    }
+
+    @Override
+    protected StreamableRecordBindingData newSource(String payload, Map<String, String> headerMap) throws Exception {
+        StreamableRecord record = new StreamableRecord();
+        record.setRecordName(getClass().getSimpleName());
+        record.read(new ByteArrayInputStream(payload.getBytes("UTF-8")));
+        return new StreamableRecordBindingData(record);
+    }
+
+    @Override
+    protected StreamableRecordBindingData newTarget() throws Exception {
+        // decompose reads the content stream, so rewind it for the next one
+        _content.reset();
+        return new StreamableRecordBindingData(new StreamableRecord());
+    }
+
+    @Override
+    protected Object newContent(String payload) throws Exception {
+        _content = new ByteArrayInputStream(payload.getBytes("UTF-8"));
+        return _content;
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.knowledge;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.switchyard.BaseHandler;
+import org.switchyard.Exchange;
+import org.switchyard.HandlerException;
+import org.switchyard.Scope;
+import org.switchyard.ServiceDomain;
+import org.switchyard.component.common.knowledge.exchange.KnowledgeAction;
+import org.switchyard.component.common.knowledge.expression.ExpressionFactory;
+import org.switchyard.component.common.knowledge.expression.ExpressionMapping;
+import org.switchyard.component.common.knowledge.expression.ExpressionType;
+import org.switchyard.component.common.knowledge.util.Mappings;
+import org.switchyard.deploy.ServiceDomainManager;
+import org.switchyard.metadata.InOnlyService;
+
+/**
+ * Measures the per-exchange overhead of evaluating knowledge action mappings.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingsBenchmark {
+
+    private static final String OPERATION = "process";
+
+    /** The number of mappings per action (JMH requires parameters to be public). */
+    @Param({"1", "4", "16"})
+    public int mappings;
+
+    private Exchange _exchange;
+    private KnowledgeAction _action;
+
+    /**
+     * Creates an exchange, as seen by a provider, and an action with the configured number of mappings.
+     * @throws Exception oops
+     */
+    @Setup
+    public void setup() throws Exception {
+        ServiceDomain domain = new ServiceDomainManager().createDomain();
+        QName serviceName = new QName("urn:switchyard-component-benchmarks", "MappingsBenchmark");
+        final Exchange[] provided = new Exchange[1];
+        domain.registerService(serviceName, new InOnlyService(OPERATION), new BaseHandler() {
+            @Override
+            public void handleMessage(Exchange exchange) throws HandlerException {
+                provided[0] = exchange;
+            }
+        });
+        Exchange exchange = domain.registerServiceReference(serviceName, new InOnlyService(OPERATION)).createExchange(OPERATION);
+        exchange.getContext().setProperty("foo", "bar", Scope.EXCHANGE);
+        exchange.send(exchange.createMessage().setContent(new Holder("content")));
+        _exchange = provided[0];
+        _action = new KnowledgeAction(null, null);
+        ExpressionFactory factory = ExpressionFactory.instance();
+        for (int i = 0; i < mappings; i++) {
+            String expression = i % 2 == 0 ? "message.content.value" : "context['foo']";
+            Scope scope = i % 2 == 0 ? Scope.IN : Scope.EXCHANGE;
+            ExpressionMapping mapping = new ExpressionMapping(factory.create(expression, ExpressionType.MVEL), scope, "var" + i);
+            _action.getInputExpressionMappings().add(mapping);
+            _action.getGlobalExpressionMappings().add(mapping);
+        }
+        _action.compileExpressionMappings();
+    }
+
+    /**
+     * The per-mapping list map path, which rebuilds the evaluation context for every mapping.
+     * @return the result
+     */
+    @Benchmark
+    public Map<String, List<Object>> listMap() {
+        return Mappings.getListMap(_exchange, _action.getInputExpressionMappings(), false, Mappings.toVariable(_exchange));
+    }
+
+    /**
+     * Input map through the compiled evaluator.
+     * @return the result
+     */
+    @Benchmark
+    public Map<String, Object> inputMap() {
+        return Mappings.getInputMap(_exchange, _action);
+    }
+
+    /**
+     * Input list through the compiled evaluator.
+     * @return the result
+     */
+    @Benchmark
+    public List<Object> inputList() {
+        return Mappings.getInputList(_exchange, _action);
+    }
+
+    /**
+     * Global map through the compiled evaluator.
+     * @return the result
+     */
+    @Benchmark
+    public Map<String, Object> globalMap() {
+        return Mappings.getGlobalMap(_exchange, _action);
+    }
+
+    /**
+     * A simple content bean.
+     */
+    public static final class Holder {
+        private final String _value;
+        /**
+         * Creates a new Holder.
+         * @param value the value
+         */
+        public Holder(String value) {
+            _value = value;
+        }
+        /**
+         * Gets the value.
+         * @return the value
+         */
+        public String getValue() {
+            return _value;
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.resteasy;
+
+import java.util.Map;
+
+import org.switchyard.component.benchmarks.composer.CompositionBenchmark;
+import org.switchyard.component.resteasy.composer.RESTEasyBindingData;
+
+/**
+ * Composition of RESTEasy invocations.
+ */
+public class RESTEasyCompositionBenchmark extends CompositionBenchmark<RESTEasyBindingData> {
+
+    @Override
+    protected Class<RESTEasyBindingData> getBindingDataType() {
+        return RESTEasyBindingData.class;
+    }
+
+    @Override
+    protected RESTEasyBindingData newSource(String payload, Map<String, String> headerMap) throws Exception {
+        RESTEasyBindingData data = new RESTEasyBindingData(payload);
+        for (Map.Entry<String, String> header : headerMap.entrySet()) {
+            data.addHeader(header.getKey(), header.getValue());
+        }
+        return data;
+    }
+
+    @Override
+    protected RESTEasyBindingData newTarget() throws Exception {
+        return new RESTEasyBindingData();
+    }
+
+}
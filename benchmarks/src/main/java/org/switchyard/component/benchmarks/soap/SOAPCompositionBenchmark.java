@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.benchmarks.soap;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.soap.SOAPHeader;
+import javax.xml.soap.SOAPMessage;
+import javax.xml.ws.soap.SOAPBinding;
+
+import org.switchyard.component.benchmarks.Exchanges;
+import org.switchyard.component.benchmarks.composer.CompositionBenchmark;
+import org.switchyard.component.soap.composer.SOAPBindingData;
+import org.switchyard.component.soap.util.SOAPUtil;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * Composition of SOAP 1.1 messages, with the headers as SOAP headers.
+ */
+public class SOAPCompositionBenchmark extends CompositionBenchmark<SOAPBindingData> {
+
+    @Override
+    protected Class<SOAPBindingData> getBindingDataType() {
+        return SOAPBindingData.class;
+    }
+
+    @Override
+    protected SOAPBindingData newSource(String payload, Map<String, String> headerMap) throws Exception {
+        SOAPMessage message = SOAPUtil.createMessage(SOAPBinding.SOAP11HTTP_BINDING);
+        SOAPHeader header = message.getSOAPHeader();
+        for (Map.Entry<String, String> entry : headerMap.entrySet()) {
+            header.addChildElement(new QName(Exchanges.NAMESPACE, entry.getKey())).setValue(entry.getValue());
+        }
+        message.getSOAPBody().addDocument(parse(payload));
+        message.saveChanges();
+        return new SOAPBindingData(message);
+    }
+
+    @Override
+    protected SOAPBindingData newTarget() throws Exception {
+        return new SOAPBindingData(SOAPUtil.createMessage(SOAPBinding.SOAP11HTTP_BINDING));
+    }
+
+    @Override
+    protected Object newContent(String payload) throws Exception {
+        // a service replies with DOM, which is what decompose imports into the SOAP body
+        return parse(payload).getDocumentElement();
+    }
+
+    private static Document parse(String payload) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(payload)));
+    }
+
+}
@@ -0,0 +1,102 @@
+/* 
+ * JBoss, Home of Professional Open Source 
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved. 
+ * See the copyright.txt in the distribution for a 
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, 
+ * modify, copy, or redistribute it subject to the terms and conditions 
+ * of the GNU Lesser General Public License, v. 2.1. 
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details. 
+ * You should have received a copy of the GNU Lesser General Public License, 
+ * v.2.1 along with this distribution; if not, write to the Free Software 
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.bpel.riftsaw;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Invocation latency counters for one operation of a BPEL process service.
+ *
+ */
+public class BPELOperationMetrics {
+
+    private final String _operation;
+    private final AtomicLong _invocations = new AtomicLong();
+    private final AtomicLong _faults = new AtomicLong();
+    private final AtomicLong _totalNanos = new AtomicLong();
+    private final AtomicLong _maxNanos = new AtomicLong();
+
+    /**
+     * Constructs the counters for an operation.
+     * 
+     * @param operation The operation name
+     */
+    public BPELOperationMetrics(String operation) {
+        _operation = operation;
+    }
+
+    /**
+     * This method returns the operation name.
+     * 
+     * @return The operation name
+     */
+    public String getOperation() {
+        return (_operation);
+    }
+
+    /**
+     * This method returns the number of invocations, including those that faulted.
+     * 
+     * @return The number of invocations
+     */
+    public long getInvocations() {
+        return (_invocations.get());
+    }
+
+    /**
+     * This method returns the number of invocations that faulted, either with
+     * a fault response declared by the process or with an engine failure.
+     * 
+     * @return The number of faults
+     */
+    public long getFaults() {
+        return (_faults.get());
+    }
+
+    /**
+     * This method returns the average invocation latency.
+     * 
+     * @return The average latency in milliseconds
+     */
+    public double getAverageLatency() {
+        long invocations=_invocations.get();
+        return (invocations > 0 ? (_totalNanos.get() / 1000000d) / invocations : 0d);
+    }
+
+    /**
+     * This method returns the highest invocation latency.
+     * 
+     * @return The maximum latency in milliseconds
+     */
+    public long getMaxLatency() {
+        return (_maxNanos.get() / 1000000L);
+    }
+
+    void record(long nanos, boolean fault) {
+        _invocations.incrementAndGet();
+        if (fault) {
+            _faults.incrementAndGet();
+        }
+        _totalNanos.addAndGet(nanos);
+        long max=_maxNanos.get();
+        while (nanos > max && !_maxNanos.compareAndSet(max, nanos)) {
+            max = _maxNanos.get();
+        }
+    }
+}
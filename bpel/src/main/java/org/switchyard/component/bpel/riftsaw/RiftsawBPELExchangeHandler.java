@@ -18,10 +18,16 @@
  */
 package org.switchyard.component.bpel.riftsaw;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.namespace.QName;
 import javax.xml.soap.Detail;
@@ -70,12 +76,23 @@ public class RiftsawBPELExchangeHandler extends BaseHandler implements BPELExcha
     private javax.wsdl.PortType _portType = null;
     private long _undeployDelay=UNDEPLOY_DELAY;
     
+    private Map<String, OperationInfo> _operations=new HashMap<String, OperationInfo>();
+    
     private static java.util.Map<QName, QName> _serviceRefToCompositeMap=
-                new java.util.HashMap<QName, QName>();
+                new ConcurrentHashMap<QName, QName>();
     private static java.util.Map<QName, DeploymentRef> _deployed=
-                        new java.util.HashMap<QName, DeploymentRef>();
-    private static java.util.Timer _timer=new java.util.Timer();
-    private static java.util.List<QName> _undeployed=new java.util.ArrayList<QName>();
+                        new ConcurrentHashMap<QName, DeploymentRef>();
+    private static Set<QName> _undeployed=
+                        Collections.newSetFromMap(new ConcurrentHashMap<QName, Boolean>());
+    private static final Object DEPLOY_LOCK=new Object();
+    private static final ScheduledExecutorService UNDEPLOYER=
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread=new Thread(r, "BPEL-undeployer");
+                    thread.setDaemon(true);
+                    return (thread);
+                }
+            });
 
     /**
      * Constructs a new RiftSaw BPEL ExchangeHandler within the specified ServiceDomain.
@@ -102,6 +119,14 @@ public class RiftsawBPELExchangeHandler extends BaseHandler implements BPELExcha
         _wsdlServiceName = service.getQName();
         _serviceName = qname;
         
+        // Resolve the operation and request part metadata once, rather than per message
+        Map<String, OperationInfo> operations=new HashMap<String, OperationInfo>();
+        for (Object o : _portType.getOperations()) {
+            javax.wsdl.Operation operation=(javax.wsdl.Operation)o;
+            operations.put(operation.getName(), new OperationInfo(operation));
+        }
+        _operations = operations;
+        
         // Setup configuration
         if (config.containsKey("bpel.undeploy.delay")) {
             try {
@@ -121,23 +146,39 @@ public class RiftsawBPELExchangeHandler extends BaseHandler implements BPELExcha
         // Check if composite is already been initialized for BPEL processes
         QName compositeName = model.getComponent().getComposite().getQName();
 
-        if (!_serviceRefToCompositeMap.containsValue(compositeName)) {
-            try {
-                java.io.File deployFile=getDeployment();
-    
-                DeploymentRef ref=engine.deploy(getDeploymentName(), deployFile);
-    
-                _deployed.put(qname, ref);
-                
-                // Remove, in case marked for undeployment as part
-                // of replacing an existing deployed jar
-                _undeployed.remove(qname);
-            } catch (Exception e) {
-                throw new SwitchYardException(e);
+        synchronized (DEPLOY_LOCK) {
+            if (!_serviceRefToCompositeMap.containsValue(compositeName)) {
+                try {
+                    java.io.File deployFile=getDeployment();
+        
+                    DeploymentRef ref=engine.deploy(getDeploymentName(), deployFile);
+        
+                    _deployed.put(qname, ref);
+                    
+                    // Remove, in case marked for undeployment as part
+                    // of replacing an existing deployed jar
+                    _undeployed.remove(qname);
+                } catch (Exception e) {
+                    throw new SwitchYardException(e);
+                }
             }
+    
+            _serviceRefToCompositeMap.put(qname, compositeName);
         }
+    }
 
-        _serviceRefToCompositeMap.put(qname, compositeName);
+    /**
+     * This method returns the invocation latency counters for each operation
+     * of the process service.
+     * 
+     * @return The counters, keyed by operation name
+     */
+    public Map<String, BPELOperationMetrics> getOperationMetrics() {
+        Map<String, BPELOperationMetrics> ret=new HashMap<String, BPELOperationMetrics>();
+        for (OperationInfo info : _operations.values()) {
+            ret.put(info._operation.getName(), info._metrics);
+        }
+        return (ret);
     }
 
     /**
@@ -252,6 +293,8 @@ public class RiftsawBPELExchangeHandler extends BaseHandler implements BPELExcha
      */
     public void handleMessage(final Exchange exchange) throws HandlerException {
         Node request = exchange.getMessage().getContent(Node.class);
+        String operationName=exchange.getContract().getProviderOperation().getName();
+        OperationInfo info=_operations.get(operationName);
 
         java.util.Map<String, Object> headers = new HashMap<String, Object>();
         Iterator<Property> h = exchange.getContext().getProperties(Scope.EXCHANGE).iterator();
@@ -262,22 +305,23 @@ public class RiftsawBPELExchangeHandler extends BaseHandler implements BPELExcha
             }
         }
         
+        long start=System.nanoTime();
+        boolean failed=true;
         try {
-            // Find part name associated with operation on port type
-            javax.wsdl.Operation operation =
-                    _portType.getOperation(exchange.getContract().
-                            getProviderOperation().getName(),
-                                null, null);
-
-            Element newreq =
-                    WSDLHelper.wrapRequestMessagePart((Element) request,
+            Element newreq;
+            if (info != null && info._requestPartName != null) {
+                newreq = WSDLHelper.wrapMessagePart((Element) request, info._requestPartName);
+            } else {
+                // Not resolvable up front, so let the helper report the problem
+                javax.wsdl.Operation operation =
+                        _portType.getOperation(operationName, null, null);
+                newreq = WSDLHelper.wrapRequestMessagePart((Element) request,
                                     operation);
+            }
 
             // Invoke the operation on the BPEL process
             Element response = _engine.invoke(_wsdlServiceName, null,
-                    exchange.getContract().
-                    getProviderOperation().getName(),
-                            newreq, headers);
+                    operationName, newreq, headers);
 
             if (exchange.getContract().getProviderOperation().
                     getExchangePattern().equals(ExchangePattern.IN_OUT)) {
@@ -296,7 +340,10 @@ public class RiftsawBPELExchangeHandler extends BaseHandler implements BPELExcha
 
                 exchange.send(message);
             }
+            failed = false;
         } catch (Fault f) {
+            // A fault response declared by the process is counted as a fault,
+            // as well as a failure of the engine itself
             SOAPFault fault = null;
 
             try {
@@ -315,6 +362,10 @@ public class RiftsawBPELExchangeHandler extends BaseHandler implements BPELExcha
             
         } catch (Exception e) {
             throw new HandlerException(e);
+        } finally {
+            if (info != null) {
+                info._metrics.record(System.nanoTime()-start, failed);
+            }
         }
     }
 
@@ -329,12 +380,12 @@ public class RiftsawBPELExchangeHandler extends BaseHandler implements BPELExcha
         _undeployed.add(_serviceName);
         
         if (_undeployDelay > 0) {
-            _timer.schedule(new TimerTask() {
+            UNDEPLOYER.schedule(new Runnable() {
                 public void run() {
                     undeploy();
                 }
                 
-            }, _undeployDelay);
+            }, _undeployDelay, TimeUnit.MILLISECONDS);
         } else {
             undeploy();
         }
@@ -343,7 +394,7 @@ public class RiftsawBPELExchangeHandler extends BaseHandler implements BPELExcha
     }
     
     private void undeploy() {
-        synchronized (_undeployed) {
+        synchronized (DEPLOY_LOCK) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Checking whether to undeploy '"
                             +_serviceName+"'");
@@ -381,4 +432,19 @@ public class RiftsawBPELExchangeHandler extends BaseHandler implements BPELExcha
         }
     }
 
+    /**
+     * Metadata and counters for one operation of the port type.
+     */
+    private static final class OperationInfo {
+        private final javax.wsdl.Operation _operation;
+        private final String _requestPartName;
+        private final BPELOperationMetrics _metrics;
+
+        private OperationInfo(javax.wsdl.Operation operation) {
+            _operation = operation;
+            _requestPartName = WSDLHelper.getRequestPartName(operation);
+            _metrics = new BPELOperationMetrics(operation.getName());
+        }
+    }
+
 }
@@ -173,6 +173,39 @@ public final class WSDLHelper {
         return (wrapMessagePart(content, operation, operation.getInput().getMessage().getParts(), false));
     }
 
+    /**
+     * This method returns the name of the single part of an operation's request message,
+     * so that it can be looked up once rather than for every request.
+     * 
+     * @param operation The operation
+     * @return The part name, or null if the request message does not have exactly one part
+     */
+    public static String getRequestPartName(javax.wsdl.Operation operation) {
+        if (operation.getInput() == null || operation.getInput().getMessage() == null) {
+            return (null);
+        }
+        java.util.Map<?, ?> parts=operation.getInput().getMessage().getParts();
+        if (parts == null || parts.size() != 1) {
+            return (null);
+        }
+        return ((String)parts.keySet().iterator().next());
+    }
+
+    /**
+     * This method wraps a message content in a wrapper for a known part.
+     * 
+     * @param content The message
+     * @param partName The part name
+     * @return The part wrapper
+     */
+    public static org.w3c.dom.Element wrapMessagePart(org.w3c.dom.Element content, String partName) {
+        org.w3c.dom.Element ret=content.getOwnerDocument().createElement("message");
+        Element part=ret.getOwnerDocument().createElement(partName);
+        ret.appendChild(part);
+        part.appendChild(content);        
+        return (ret);
+    }
+
     /**
      * This method wraps a response message content in a part wrapper.
      * 
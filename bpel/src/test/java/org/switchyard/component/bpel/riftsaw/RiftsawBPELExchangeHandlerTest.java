@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.bpel.riftsaw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import javax.xml.namespace.QName;
+
+import org.apache.ode.utils.DOMUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.riftsaw.engine.BPELEngine;
+import org.riftsaw.engine.DeploymentRef;
+import org.riftsaw.engine.Fault;
+import org.switchyard.Exchange;
+import org.switchyard.ExchangePattern;
+import org.switchyard.Property;
+import org.switchyard.Scope;
+import org.switchyard.component.bpel.BPELFault;
+import org.switchyard.component.bpel.config.model.BPELComponentImplementationModel;
+import org.w3c.dom.Element;
+
+public class RiftsawBPELExchangeHandlerTest {
+
+    private static final String INTERFACE = "tests/wsdl/LoanService.wsdl#wsdl.porttype(loanServicePT)";
+    private static final String OPERATION = "request";
+
+    private BPELEngine _engine;
+    private RiftsawBPELExchangeHandler _handler;
+
+    @Before
+    public void init() throws Exception {
+        _engine = mock(BPELEngine.class);
+        when(_engine.deploy(anyString(), any(java.io.File.class))).thenReturn(mock(DeploymentRef.class));
+
+        BPELComponentImplementationModel model=mock(BPELComponentImplementationModel.class, RETURNS_DEEP_STUBS);
+        when(model.getComponent().getComposite().getQName()).thenReturn(new QName("urn:test", "LoanComposite"));
+
+        java.util.Properties config=new java.util.Properties();
+        config.setProperty("bpel.undeploy.delay", "0");
+
+        _handler = new RiftsawBPELExchangeHandler();
+        _handler.init(new QName("urn:test", "loanService"), model, INTERFACE, _engine, config);
+    }
+
+    @After
+    public void close() {
+        _handler.stop();
+    }
+
+    @Test
+    public void testResponseCountedAsInvocation() throws Exception {
+        when(_engine.invoke(any(QName.class), anyString(), eq(OPERATION), any(Element.class),
+                anyMapOf(String.class, Object.class))).thenReturn(
+                DOMUtils.stringToDOM("<message><resppart><accept>yes</accept></resppart></message>"));
+
+        _handler.handleMessage(exchange());
+
+        BPELOperationMetrics metrics=_handler.getOperationMetrics().get(OPERATION);
+        assertEquals(1, metrics.getInvocations());
+        assertEquals(0, metrics.getFaults());
+    }
+
+    @Test
+    public void testFaultResponseCountedAsFault() throws Exception {
+        Element faultMessage=DOMUtils.stringToDOM(
+                "<message><errorCode><integer xmlns=\"http://example.com/loan-approval/xsd/error-messages/\">1"
+                + "</integer></errorCode></message>");
+        when(_engine.invoke(any(QName.class), anyString(), eq(OPERATION), any(Element.class),
+                anyMapOf(String.class, Object.class))).thenThrow(
+                new Fault(new QName("http://example.com/loan-approval/loanService/", "unableToHandleRequest"),
+                        faultMessage));
+
+        try {
+            _handler.handleMessage(exchange());
+            fail("Expected the BPEL fault to be thrown");
+        } catch (BPELFault f) {
+            // expected
+        }
+
+        BPELOperationMetrics metrics=_handler.getOperationMetrics().get(OPERATION);
+        assertEquals(1, metrics.getInvocations());
+        assertEquals(1, metrics.getFaults());
+    }
+
+    @Test
+    public void testEngineFailureCountedAsFault() throws Exception {
+        when(_engine.invoke(any(QName.class), anyString(), eq(OPERATION), any(Element.class),
+                anyMapOf(String.class, Object.class))).thenThrow(new RuntimeException("engine failure"));
+
+        try {
+            _handler.handleMessage(exchange());
+            fail("Expected the engine failure to be thrown");
+        } catch (org.switchyard.HandlerException he) {
+            // expected
+        }
+
+        BPELOperationMetrics metrics=_handler.getOperationMetrics().get(OPERATION);
+        assertEquals(1, metrics.getInvocations());
+        assertEquals(1, metrics.getFaults());
+    }
+
+    private Exchange exchange() throws Exception {
+        Exchange exchange=mock(Exchange.class, RETURNS_DEEP_STUBS);
+        when(exchange.getMessage().getContent(org.w3c.dom.Node.class)).thenReturn(
+                DOMUtils.stringToDOM("<request><firstName>Fred</firstName></request>"));
+        when(exchange.getContract().getProviderOperation().getName()).thenReturn(OPERATION);
+        when(exchange.getContract().getProviderOperation().getExchangePattern()).thenReturn(ExchangePattern.IN_OUT);
+        when(exchange.getContext().getProperties(Scope.EXCHANGE)).thenReturn(Collections.<Property>emptySet());
+        return (exchange);
+    }
+}
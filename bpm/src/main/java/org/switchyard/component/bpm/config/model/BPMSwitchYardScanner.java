@@ -25,12 +25,10 @@ import static org.switchyard.component.common.knowledge.config.model.MappingsMod
 
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.net.URL;
 import java.util.List;
 
 import org.jbpm.process.workitem.wsht.AbstractHTWorkItemHandler;
 import org.switchyard.common.lang.Strings;
-import org.switchyard.common.type.classpath.ClasspathScanner;
 import org.switchyard.common.type.classpath.IsAnnotationPresentFilter;
 import org.switchyard.component.bpm.BPMActionType;
 import org.switchyard.component.bpm.annotation.AbortProcessInstance;
@@ -75,8 +73,6 @@ public class BPMSwitchYardScanner extends KnowledgeSwitchYardScanner {
     private static final IsAnnotationPresentFilter SIGNAL_EVENT_FILTER = new IsAnnotationPresentFilter(SignalEvent.class);
     private static final IsAnnotationPresentFilter ABORT_PROCESS_INSTANCE_FILTER = new IsAnnotationPresentFilter(AbortProcessInstance.class);
 
-    private final IsAnnotationPresentFilter _bpmFilter = new IsAnnotationPresentFilter(BPM.class);
-
     /**
      * {@inheritDoc}
      */
@@ -85,11 +81,7 @@ public class BPMSwitchYardScanner extends KnowledgeSwitchYardScanner {
         SwitchYardModel switchyardModel = new V1SwitchYardModel();
         CompositeModel compositeModel = new V1CompositeModel();
         compositeModel.setName(input.getName());
-        ClasspathScanner bpmScanner = new ClasspathScanner(_bpmFilter);
-        for (URL url : input.getURLs()) {
-            bpmScanner.scan(url);
-        }
-        List<Class<?>> bpmClasses = _bpmFilter.getMatchedTypes();
+        List<Class<?>> bpmClasses = scanForAnnotatedTypes(input.getURLs(), BPM.class);
         for (Class<?> bpmClass : bpmClasses) {
             compositeModel.addComponent(scan(bpmClass));
         }
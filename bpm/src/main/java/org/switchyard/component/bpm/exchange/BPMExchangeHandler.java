@@ -36,6 +36,7 @@ import org.jbpm.persistence.JpaProcessPersistenceContextManager;
 import org.jbpm.workflow.instance.impl.WorkflowProcessInstanceImpl;
 import org.kie.runtime.EnvironmentName;
 import org.kie.runtime.process.ProcessInstance;
+import org.kie.runtime.process.ProcessRuntime;
 import org.switchyard.Context;
 import org.switchyard.Exchange;
 import org.switchyard.ExchangePattern;
@@ -47,6 +48,7 @@ import org.switchyard.component.bpm.BPMActionType;
 import org.switchyard.component.bpm.BPMConstants;
 import org.switchyard.component.bpm.config.model.BPMComponentImplementationModel;
 import org.switchyard.component.bpm.transaction.AS7TransactionHelper;
+import org.switchyard.component.bpm.work.ProcessRuntimeLock;
 import org.switchyard.component.bpm.work.WorkItemHandlers;
 import org.switchyard.component.common.knowledge.KnowledgeConstants;
 import org.switchyard.component.common.knowledge.exchange.KnowledgeAction;
@@ -152,63 +154,74 @@ public class BPMExchangeHandler extends KnowledgeExchangeHandler<BPMComponentImp
         AS7TransactionHelper utx = new AS7TransactionHelper(_persistent);
         ExchangePattern exchangePattern = exchange.getContract().getProviderOperation().getExchangePattern();
         BPMActionType actionType = (BPMActionType)action.getType();
-        switch (actionType) {
-            case START_PROCESS: {
-                try {
-                    utx.begin();
-                    KnowledgeSession session = getBPMSession(exchange);
-                    ProcessInstance processInstance = session.getStateful().startProcess(_processId, getInputMap(exchange, action));
-                    if (ExchangePattern.IN_OUT.equals(exchangePattern)) {
-                        outputMessage = handleOutput(exchange, action, session, processInstance);
+        // held until after the commit, so that async work item replies are completed on this thread or after it
+        ProcessRuntimeLock lock = null;
+        try {
+            switch (actionType) {
+                case START_PROCESS: {
+                    try {
+                        utx.begin();
+                        KnowledgeSession session = getBPMSession(exchange);
+                        lock = lockBPMSession(session);
+                        ProcessInstance processInstance = session.getStateful().startProcess(_processId, getInputMap(exchange, action));
+                        if (ExchangePattern.IN_OUT.equals(exchangePattern)) {
+                            outputMessage = handleOutput(exchange, action, session, processInstance);
+                        }
+                        utx.commit();
+                    } catch (RuntimeException re) {
+                        utx.rollback();
+                        throw re;
                     }
-                    utx.commit();
-                } catch (RuntimeException re) {
-                    utx.rollback();
-                    throw re;
+                    break;
                 }
-                break;
-            }
-            case SIGNAL_EVENT: {
-                try {
-                    utx.begin();
-                    KnowledgeSession session = getBPMSession(exchange);
-                    Long processInstanceId = getProcessInstanceId(exchange);
-                    Object signalEvent = getSignalEvent(exchange);
-                    String signalId = getSignalId(exchange, action);
-                    if (processInstanceId != null) {
-                        session.getStateful().signalEvent(signalId, signalEvent, processInstanceId);
-                    } else {
-                        session.getStateful().signalEvent(signalId, signalEvent);
+                case SIGNAL_EVENT: {
+                    try {
+                        utx.begin();
+                        KnowledgeSession session = getBPMSession(exchange);
+                        lock = lockBPMSession(session);
+                        Long processInstanceId = getProcessInstanceId(exchange);
+                        Object signalEvent = getSignalEvent(exchange);
+                        String signalId = getSignalId(exchange, action);
+                        if (processInstanceId != null) {
+                            session.getStateful().signalEvent(signalId, signalEvent, processInstanceId);
+                        } else {
+                            session.getStateful().signalEvent(signalId, signalEvent);
+                        }
+                        if (ExchangePattern.IN_OUT.equals(exchangePattern)) {
+                            ProcessInstance processInstance = session.getStateful().getProcessInstance(processInstanceId);
+                            outputMessage = handleOutput(exchange, action, session, processInstance);
+                        }
+                        utx.commit();
+                    } catch (RuntimeException re) {
+                        utx.rollback();
+                        throw re;
                     }
-                    if (ExchangePattern.IN_OUT.equals(exchangePattern)) {
-                        ProcessInstance processInstance = session.getStateful().getProcessInstance(processInstanceId);
-                        outputMessage = handleOutput(exchange, action, session, processInstance);
-                    }
-                    utx.commit();
-                } catch (RuntimeException re) {
-                    utx.rollback();
-                    throw re;
+                    break;
                 }
-                break;
-            }
-            case ABORT_PROCESS_INSTANCE: {
-                try {
-                    utx.begin();
-                    KnowledgeSession session = getBPMSession(exchange);
-                    Long processInstanceId = getProcessInstanceId(exchange);
-                    session.getStateful().abortProcessInstance(processInstanceId);
-                    if (ExchangePattern.IN_OUT.equals(exchangePattern)) {
-                        outputMessage = handleOutput(exchange, action, session, null);
+                case ABORT_PROCESS_INSTANCE: {
+                    try {
+                        utx.begin();
+                        KnowledgeSession session = getBPMSession(exchange);
+                        lock = lockBPMSession(session);
+                        Long processInstanceId = getProcessInstanceId(exchange);
+                        session.getStateful().abortProcessInstance(processInstanceId);
+                        if (ExchangePattern.IN_OUT.equals(exchangePattern)) {
+                            outputMessage = handleOutput(exchange, action, session, null);
+                        }
+                        utx.commit();
+                    } catch (RuntimeException re) {
+                        utx.rollback();
+                        throw re;
                     }
-                    utx.commit();
-                } catch (RuntimeException re) {
-                    utx.rollback();
-                    throw re;
+                    break;
+                }
+                default: {
+                    throw new HandlerException("Unsupported action type: " + actionType);
                 }
-                break;
             }
-            default: {
-                throw new HandlerException("Unsupported action type: " + actionType);
+        } finally {
+            if (lock != null) {
+                lock.unlock();
             }
         }
         if (outputMessage != null) {
@@ -224,10 +237,24 @@ public class BPMExchangeHandler extends KnowledgeExchangeHandler<BPMComponentImp
         } else {
             session = getStatefulSession();
         }
-        WorkItemHandlers.registerWorkItemHandlers(getModel(), getLoader(), session.getStateful(), getDomain());
         return session;
     }
 
+    private ProcessRuntimeLock lockBPMSession(KnowledgeSession session) {
+        ProcessRuntimeLock lock = ProcessRuntimeLock.get(session);
+        if (_persistent && session.getId() != null) {
+            lock.setReloader(new PersistentSessionReloader(session.getId()));
+        }
+        lock.lock();
+        try {
+            WorkItemHandlers.registerWorkItemHandlers(getModel(), getLoader(), session.getStateful(), getDomain());
+        } catch (RuntimeException re) {
+            lock.unlock();
+            throw re;
+        }
+        return lock;
+    }
+
     private Long getProcessInstanceId(Exchange exchange) {
         return getLong(exchange, BPMConstants.PROCESSS_INSTANCE_ID_PROPERTY);
     }
@@ -283,4 +310,49 @@ public class BPMExchangeHandler extends KnowledgeExchangeHandler<BPMComponentImp
         return outputMessage;
     }
 
+    /**
+     * Runs work that arrives after a persistent session has been disposed (typically a late async work item reply,
+     * once a request for another session id has replaced it) against a copy of the session reloaded by its id,
+     * within a transaction of its own. Concurrent copies of one session rely on the engine's optimistic locking.
+     */
+    private final class PersistentSessionReloader implements ProcessRuntimeLock.Reloader {
+
+        private final Integer _sessionId;
+
+        private PersistentSessionReloader(Integer sessionId) {
+            _sessionId = sessionId;
+        }
+
+        @Override
+        public void reload(ProcessRuntimeLock.Work work) throws HandlerException {
+            AS7TransactionHelper utx = new AS7TransactionHelper(true);
+            KnowledgeSession session = null;
+            ProcessRuntimeLock lock = null;
+            try {
+                try {
+                    utx.begin();
+                    session = loadPersistentSession(_sessionId);
+                    lock = lockBPMSession(session);
+                    ProcessRuntime runtime = session.getStateful();
+                    work.run(runtime);
+                    utx.commit();
+                } catch (RuntimeException re) {
+                    utx.rollback();
+                    throw re;
+                }
+            } finally {
+                try {
+                    if (lock != null) {
+                        lock.unlock();
+                    }
+                } finally {
+                    if (session != null) {
+                        session.dispose();
+                    }
+                }
+            }
+        }
+
+    }
+
 }
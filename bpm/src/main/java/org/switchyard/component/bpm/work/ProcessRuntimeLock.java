@@ -0,0 +1,201 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.bpm.work;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+import org.kie.runtime.process.ProcessRuntime;
+import org.switchyard.component.common.knowledge.session.KnowledgeDisposal;
+import org.switchyard.component.common.knowledge.session.KnowledgeSession;
+
+/**
+ * Serializes use of a process runtime, which is not thread-safe, between the threads driving the engine and
+ * the threads delivering asynchronous work item replies.
+ * <p/>
+ * Engine threads hold the lock while they use the runtime. Reply threads never block on it: they submit their
+ * work, which runs straight away if the runtime is free, or otherwise on the engine thread holding the lock,
+ * just before that thread releases it. Work submitted once the runtime's session has been disposed is handed to
+ * the lock's {@link Reloader}, which runs it against a reloaded copy of the session; without one it is dropped.
+ */
+public final class ProcessRuntimeLock implements KnowledgeDisposal {
+
+    private static final Logger LOGGER = Logger.getLogger(ProcessRuntimeLock.class);
+    private static final Map<ProcessRuntime, ProcessRuntimeLock> LOCKS = new WeakHashMap<ProcessRuntime, ProcessRuntimeLock>();
+
+    private final WeakReference<ProcessRuntime> _runtime;
+    private final ReentrantLock _lock = new ReentrantLock();
+    private final Queue<Work> _pending = new ConcurrentLinkedQueue<Work>();
+    private volatile boolean _disposed = false;
+    private volatile Reloader _reloader;
+
+    private ProcessRuntimeLock(ProcessRuntime runtime) {
+        // the runtime is the key of the weak map, so it must not be strongly reachable from its value
+        _runtime = new WeakReference<ProcessRuntime>(runtime);
+    }
+
+    /**
+     * Gets the lock for a process runtime.
+     * @param runtime the process runtime
+     * @return the lock
+     */
+    public static ProcessRuntimeLock get(ProcessRuntime runtime) {
+        synchronized (LOCKS) {
+            ProcessRuntimeLock lock = LOCKS.get(runtime);
+            if (lock == null) {
+                lock = new ProcessRuntimeLock(runtime);
+                LOCKS.put(runtime, lock);
+            }
+            return lock;
+        }
+    }
+
+    /**
+     * Gets the lock for a stateful knowledge session, which disposes the lock when it is itself disposed.
+     * @param session the session
+     * @return the lock
+     */
+    public static ProcessRuntimeLock get(KnowledgeSession session) {
+        ProcessRuntimeLock lock = get(session.getStateful());
+        session.addDisposals(lock);
+        return lock;
+    }
+
+    /**
+     * Sets the reloader used to run work submitted after the runtime's session has been disposed.
+     * @param reloader the reloader, or null to drop such work
+     */
+    public void setReloader(Reloader reloader) {
+        _reloader = reloader;
+    }
+
+    /**
+     * Acquires the lock, for an engine thread about to use the runtime.
+     */
+    public void lock() {
+        _lock.lock();
+    }
+
+    /**
+     * Runs any submitted work, then releases the lock.
+     */
+    public void unlock() {
+        if (_lock.getHoldCount() > 1) {
+            _lock.unlock();
+            return;
+        }
+        while (true) {
+            try {
+                runPending();
+            } finally {
+                _lock.unlock();
+            }
+            // work submitted between the last run and the release would otherwise wait for the next engine call
+            if (_pending.isEmpty() || !_lock.tryLock()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Submits work that uses the runtime, without blocking.
+     * @param work the work
+     */
+    public void submit(Work work) {
+        if (_disposed) {
+            reload(work);
+            return;
+        }
+        _pending.add(work);
+        if (_lock.tryLock()) {
+            unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispose() {
+        // stays mapped (weakly) to its runtime, so that late replies still find it and are reloaded or dropped
+        _disposed = true;
+    }
+
+    private void runPending() {
+        Work work;
+        while ((work = _pending.poll()) != null) {
+            ProcessRuntime runtime = _runtime.get();
+            if (_disposed || runtime == null) {
+                reload(work);
+                continue;
+            }
+            try {
+                work.run(runtime);
+            } catch (RuntimeException re) {
+                LOGGER.error("Problem running work against the process runtime: " + re.getMessage(), re);
+            }
+        }
+    }
+
+    private void reload(Work work) {
+        Reloader reloader = _reloader;
+        if (reloader == null) {
+            LOGGER.warn("Process runtime already disposed; dropping " + work);
+            return;
+        }
+        try {
+            reloader.reload(work);
+        } catch (Exception e) {
+            LOGGER.error("Problem running " + work + " against a reloaded process runtime: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Work that uses a process runtime.
+     */
+    public static interface Work {
+
+        /**
+         * Runs the work.
+         * @param runtime the process runtime, which is either the locked one or a reloaded copy of it
+         */
+        public void run(ProcessRuntime runtime);
+
+    }
+
+    /**
+     * Runs work against a reloaded copy of a disposed runtime, as is possible for persistent sessions.
+     */
+    public static interface Reloader {
+
+        /**
+         * Reloads the runtime and runs the work against it.
+         * @param work the work
+         * @throws Exception if the runtime could not be reloaded or the work failed
+         */
+        public void reload(Work work) throws Exception;
+
+    }
+
+}
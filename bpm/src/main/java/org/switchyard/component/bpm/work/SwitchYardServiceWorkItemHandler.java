@@ -21,17 +21,24 @@ package org.switchyard.component.bpm.work;
 import static org.switchyard.component.common.knowledge.KnowledgeConstants.CONTENT_INPUT;
 import static org.switchyard.component.common.knowledge.KnowledgeConstants.CONTENT_OUTPUT;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.namespace.QName;
 
 import org.apache.log4j.Logger;
+import org.kie.runtime.process.ProcessRuntime;
 import org.kie.runtime.process.WorkItem;
 import org.kie.runtime.process.WorkItemManager;
+import org.switchyard.BaseHandler;
 import org.switchyard.Context;
 import org.switchyard.Exchange;
+import org.switchyard.ExchangeHandler;
 import org.switchyard.ExchangePattern;
+import org.switchyard.HandlerException;
 import org.switchyard.Message;
 import org.switchyard.Property;
 import org.switchyard.Scope;
@@ -66,6 +73,12 @@ public class SwitchYardServiceWorkItemHandler extends BaseSwitchYardWorkItemHand
     public static final String FAULT_SIGNAL_ID = "FaultSignalId";
     /** FaultWorkItemAction. */
     public static final String FAULT_WORK_ITEM_ACTION = "FaultWorkItemAction";
+    /** Async. */
+    public static final String ASYNC = "Async";
+
+    private static final Set<String> CONTROL_PARAMETERS = new HashSet<String>(Arrays.asList(
+        SERVICE_NAME, SERVICE_OPERATION_NAME, CONTENT_INPUT_NAME, CONTENT_OUTPUT_NAME,
+        FAULT_RESULT_NAME, FAULT_SIGNAL_ID, FAULT_WORK_ITEM_ACTION, ASYNC));
 
     /**
      * Constructs a new SwitchYardServiceWorkItemHandler with the name "SwitchYard Service".
@@ -84,49 +97,19 @@ public class SwitchYardServiceWorkItemHandler extends BaseSwitchYardWorkItemHand
         if (results == null) {
             results = new HashMap<String, Object>();
         }
+        if (isAsync(parameters)) {
+            executeWorkItemAsync(workItem, manager, parameters, results);
+            return;
+        }
         Object fault = null;
         try {
-            QName serviceName = getServiceName(parameters);
-            if (serviceName == null) {
-                throw new IllegalStateException(SERVICE_NAME + " == null");
-            }
-            ServiceReference serviceRef = getServiceDomain().getServiceReference(serviceName);
-            if (serviceRef == null) {
-                throw new IllegalStateException("ServiceReference [" + serviceName + "] == null");
-            }
-            String operation = getServiceOperationName(parameters);
-            final Exchange exchangeIn;
             FaultHandler handler = new FaultHandler();
-            if (operation != null) {
-                exchangeIn = serviceRef.createExchange(operation, handler);
-            } else {
-                exchangeIn = serviceRef.createExchange(handler);
-            }
-            Context contextIn = exchangeIn.getContext();
-            for (Map.Entry<String,Object> entry : parameters.entrySet()) {
-                contextIn.setProperty(entry.getKey(), entry.getValue(), Scope.IN);
-            }
-            Message messageIn = exchangeIn.createMessage();
-            String contentInputName = getContentInputName(parameters);
-            if (contentInputName != null) {
-                Object contentInput = parameters.get(contentInputName);
-                if (contentInput != null) {
-                    messageIn.setContent(contentInput);
-                }
-            }
+            Exchange exchangeIn = createExchange(parameters, handler);
+            Message messageIn = createMessage(exchangeIn, parameters);
             if (ExchangePattern.IN_OUT.equals(exchangeIn.getContract().getConsumerOperation().getExchangePattern())) {
                 exchangeIn.send(messageIn);
                 Exchange exchangeOut = handler.waitForOut();
-                Message messageOut = exchangeOut.getMessage();
-                String contentOutputName = getContentOutputName(parameters);
-                if (contentOutputName != null) {
-                    Object contentOutput = messageOut.getContent();
-                    results.put(contentOutputName, contentOutput);
-                }
-                Context contextOut = exchangeOut.getContext();
-                for (Property property : contextOut.getProperties(Scope.OUT)) {
-                    results.put(property.getName(), property.getValue());
-                }
+                collectResults(exchangeOut, parameters, results);
             } else {
                 exchangeIn.send(messageIn);
             }
@@ -134,6 +117,79 @@ public class SwitchYardServiceWorkItemHandler extends BaseSwitchYardWorkItemHand
         } catch (Throwable t) {
             fault = t;
         }
+        finishWorkItem(workItem, manager, getProcessRuntime(), parameters, results, fault);
+    }
+
+    private void executeWorkItemAsync(WorkItem workItem, WorkItemManager manager, Map<String,Object> parameters, Map<String,Object> results) {
+        AsyncHandler handler = new AsyncHandler(workItem, manager, parameters, results);
+        try {
+            Exchange exchangeIn = createExchange(parameters, handler);
+            Message messageIn = createMessage(exchangeIn, parameters);
+            boolean inOut = ExchangePattern.IN_OUT.equals(exchangeIn.getContract().getConsumerOperation().getExchangePattern());
+            exchangeIn.send(messageIn);
+            if (!inOut) {
+                // no reply will come, so the work item is done once the message is sent
+                handler.reply(null);
+            }
+        } catch (Throwable t) {
+            handler.reply(t);
+        }
+        handler.sent();
+    }
+
+    private Exchange createExchange(Map<String, Object> parameters, ExchangeHandler handler) {
+        QName serviceName = getServiceName(parameters);
+        if (serviceName == null) {
+            throw new IllegalStateException(SERVICE_NAME + " == null");
+        }
+        ServiceReference serviceRef = getServiceDomain().getServiceReference(serviceName);
+        if (serviceRef == null) {
+            throw new IllegalStateException("ServiceReference [" + serviceName + "] == null");
+        }
+        String operation = getServiceOperationName(parameters);
+        final Exchange exchangeIn;
+        if (operation != null) {
+            exchangeIn = serviceRef.createExchange(operation, handler);
+        } else {
+            exchangeIn = serviceRef.createExchange(handler);
+        }
+        return exchangeIn;
+    }
+
+    private Message createMessage(Exchange exchangeIn, Map<String, Object> parameters) {
+        Context contextIn = exchangeIn.getContext();
+        for (Map.Entry<String,Object> entry : parameters.entrySet()) {
+            // the handler's own control parameters are of no use to the service
+            if (!CONTROL_PARAMETERS.contains(entry.getKey())) {
+                contextIn.setProperty(entry.getKey(), entry.getValue(), Scope.IN);
+            }
+        }
+        Message messageIn = exchangeIn.createMessage();
+        String contentInputName = getContentInputName(parameters);
+        if (contentInputName != null) {
+            Object contentInput = parameters.get(contentInputName);
+            if (contentInput != null) {
+                messageIn.setContent(contentInput);
+            }
+        }
+        return messageIn;
+    }
+
+    private void collectResults(Exchange exchangeOut, Map<String, Object> parameters, Map<String, Object> results) {
+        Message messageOut = exchangeOut.getMessage();
+        String contentOutputName = getContentOutputName(parameters);
+        if (contentOutputName != null) {
+            Object contentOutput = messageOut.getContent();
+            results.put(contentOutputName, contentOutput);
+        }
+        Context contextOut = exchangeOut.getContext();
+        for (Property property : contextOut.getProperties(Scope.OUT)) {
+            results.put(property.getName(), property.getValue());
+        }
+    }
+
+    private void finishWorkItem(WorkItem workItem, WorkItemManager manager, ProcessRuntime runtime,
+            Map<String, Object> parameters, Map<String, Object> results, Object fault) {
         if (fault == null) {
             manager.completeWorkItem(workItem.getId(), results);
         } else {
@@ -149,7 +205,7 @@ public class SwitchYardServiceWorkItemHandler extends BaseSwitchYardWorkItemHand
             }
             String faultSignalId = getFaultSignalId(parameters);
             if (faultSignalId != null) {
-                getProcessRuntime().signalEvent(faultSignalId, fault, workItem.getProcessInstanceId());
+                runtime.signalEvent(faultSignalId, fault, workItem.getProcessInstanceId());
             }
             FaultWorkItemAction faultWorkItemAction = getFaultWorkItemAction(parameters);
             if (faultWorkItemAction != null) {
@@ -165,6 +221,10 @@ public class SwitchYardServiceWorkItemHandler extends BaseSwitchYardWorkItemHand
         }
     }
 
+    private boolean isAsync(Map<String, Object> parameters) {
+        return Boolean.parseBoolean(getString(ASYNC, parameters, Boolean.FALSE.toString()));
+    }
+
     private QName getServiceName(Map<String, Object> parameters) {
         QName serviceName = null;
         Object p = parameters.get(SERVICE_NAME);
@@ -238,6 +298,119 @@ public class SwitchYardServiceWorkItemHandler extends BaseSwitchYardWorkItemHand
         }
     }
 
+    /**
+     * Completes the work item from the reply, rather than blocking the process engine thread waiting for it.
+     * <p/>
+     * If the reply arrives before executeWorkItem has returned (for example, when the service runs on the
+     * same thread), the work item is completed with the engine-supplied manager once the send returns, just
+     * as in the synchronous case. If it arrives later, on another thread, the engine's manager can no longer
+     * be used (for persistent sessions it is bound to the original command and transaction), so the work item
+     * is completed through the process runtime's own WorkItemManager. That completion is handed to the
+     * runtime's {@link ProcessRuntimeLock}, so it never runs while an engine thread is using the session. If
+     * the session has been disposed in the meantime, the lock runs it against a reloaded copy of a persistent
+     * session, or drops it otherwise.
+     */
+    private final class AsyncHandler extends BaseHandler {
+
+        private final WorkItem _workItem;
+        private final WorkItemManager _manager;
+        private final Map<String, Object> _parameters;
+        private final Map<String, Object> _results;
+        private boolean _sent = false;
+        private boolean _replied = false;
+        private Object _fault;
+
+        private AsyncHandler(WorkItem workItem, WorkItemManager manager, Map<String, Object> parameters, Map<String, Object> results) {
+            _workItem = workItem;
+            _manager = manager;
+            _parameters = parameters;
+            _results = results;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void handleMessage(Exchange exchange) throws HandlerException {
+            Object fault = null;
+            try {
+                collectResults(exchange, _parameters, _results);
+            } catch (Throwable t) {
+                fault = t;
+            }
+            reply(fault);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void handleFault(Exchange exchange) {
+            reply(exchange.getMessage().getContent());
+        }
+
+        private void reply(Object fault) {
+            synchronized (this) {
+                if (_replied) {
+                    return;
+                }
+                _replied = true;
+                _fault = fault;
+                if (!_sent) {
+                    // executeWorkItem is still on the stack; it will finish the work item in sent()
+                    return;
+                }
+            }
+            ProcessRuntime processRuntime = getProcessRuntime();
+            if (processRuntime != null) {
+                ProcessRuntimeLock.get(processRuntime).submit(new Completion(fault));
+            } else {
+                finishWorkItem(_workItem, _manager, getProcessRuntime(), _parameters, _results, fault);
+            }
+        }
+
+        private void sent() {
+            Object fault;
+            synchronized (this) {
+                _sent = true;
+                if (!_replied) {
+                    return;
+                }
+                fault = _fault;
+            }
+            finishWorkItem(_workItem, _manager, getProcessRuntime(), _parameters, _results, fault);
+        }
+
+        /**
+         * Finishes the work item on behalf of a late reply, while holding the process runtime.
+         */
+        private final class Completion implements ProcessRuntimeLock.Work {
+
+            private final Object _fault;
+
+            private Completion(Object fault) {
+                _fault = fault;
+            }
+
+            @Override
+            public void run(ProcessRuntime runtime) {
+                try {
+                    finishWorkItem(_workItem, runtime.getWorkItemManager(), runtime, _parameters, _results, _fault);
+                } catch (RuntimeException re) {
+                    // typically the session was disposed without its lock knowing
+                    LOGGER.warn("Could not finish " + this + ": " + re.getMessage());
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "async completion of work item " + _workItem.getId();
+            }
+
+        }
+
+    }
+
     private static enum FaultWorkItemAction {
         ABORT,
         COMPLETE;
@@ -20,6 +20,9 @@ package org.switchyard.component.bpm.work;
 
 import static org.switchyard.component.bpm.BPMConstants.PROCESSS_INSTANCE_ID_PROPERTY;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import javax.xml.namespace.QName;
 
 import org.junit.Assert;
@@ -51,6 +54,7 @@ import org.switchyard.component.bpm.exchange.BPMExchangeHandler;
 import org.switchyard.component.common.knowledge.annotation.Manifest;
 import org.switchyard.component.common.knowledge.annotation.Mapping;
 import org.switchyard.component.common.knowledge.annotation.Resource;
+import org.switchyard.component.common.knowledge.session.KnowledgeSession;
 import org.switchyard.metadata.InOnlyService;
 import org.switchyard.metadata.InOutService;
 import org.switchyard.test.SwitchYardRunner;
@@ -63,6 +67,7 @@ import org.switchyard.test.SwitchYardRunner;
 @RunWith(SwitchYardRunner.class)
 public class BPMWorkTests {
 
+    private static final String ASYNC_CALL_SERVICE_BPMN = "org/switchyard/component/bpm/work/BPMWorkTests-AsyncCallService.bpmn";
     private static final String CALL_SERVICE_BPMN = "org/switchyard/component/bpm/work/BPMWorkTests-CallService.bpmn";
     private static final String CONTROL_PROCESS_BPMN = "org/switchyard/component/bpm/work/BPMWorkTests-ControlProcess.bpmn";
     private static final String FAULT_RESULT_PROCESS_BPMN = "org/switchyard/component/bpm/work/BPMWorkTests-FaultResultProcess.bpmn";
@@ -96,6 +101,150 @@ public class BPMWorkTests {
         Assert.assertEquals("message handled", holder.getValue());
     }
 
+    @Test
+    public void testAsyncCallServiceSameThread() throws Exception {
+        final Holder holder = new Holder();
+        serviceDomain.registerService(new QName("AsyncService"), new InOutService(), new BaseHandler(){
+            public void handleMessage(Exchange exchange) throws HandlerException {
+                exchange.send(exchange.createMessage().setContent("async result"));
+            }
+        });
+        registerResultService(holder, null);
+        KieSession ksession = newAsyncCallServiceSession();
+        ksession.startProcess("AsyncCallService");
+        ksession.dispose();
+        Assert.assertEquals("async result", holder.getValue());
+    }
+
+    @Test
+    public void testAsyncCallServiceLateReply() throws Exception {
+        final Holder holder = new Holder();
+        final CountDownLatch send = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        ReplyThread replyThread = registerAsyncService(send);
+        registerResultService(holder, done);
+        KieSession ksession = newAsyncCallServiceSession();
+        ProcessRuntimeLock lock = ProcessRuntimeLock.get(ksession);
+        lock.lock();
+        try {
+            ksession.startProcess("AsyncCallService");
+            send.countDown();
+            replyThread.join(5000);
+            // the reply arrived while this thread held the session, so it must not have been applied yet
+            Assert.assertNull(replyThread._error);
+            Assert.assertNull(holder.getValue());
+        } finally {
+            lock.unlock();
+        }
+        // ... but it must have been applied, on this thread, on the way out
+        Assert.assertTrue(done.await(0, TimeUnit.SECONDS));
+        Assert.assertEquals("async result", holder.getValue());
+        ksession.dispose();
+    }
+
+    @Test
+    public void testAsyncCallServiceReplyAfterDispose() throws Exception {
+        final Holder holder = new Holder();
+        final CountDownLatch send = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        ReplyThread replyThread = registerAsyncService(send);
+        registerResultService(holder, done);
+        final KieSession ksession = newAsyncCallServiceSession();
+        ProcessRuntimeLock lock = ProcessRuntimeLock.get(ksession);
+        final Holder reloaded = new Holder();
+        lock.setReloader(new ProcessRuntimeLock.Reloader() {
+            public void reload(ProcessRuntimeLock.Work work) {
+                // the still-running ksession stands in for the copy a persistent session reloads from its store
+                reloaded.setValue(work.toString());
+                work.run(ksession);
+            }
+        });
+        long processInstanceId = ksession.startProcess("AsyncCallService").getId();
+        // as the session's disposal does, e.g. when a request for another persistent session id replaces it
+        lock.dispose();
+        send.countDown();
+        replyThread.join(5000);
+        Assert.assertFalse(replyThread.isAlive());
+        Assert.assertNull(replyThread._error);
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertNotNull(reloaded.getValue());
+        Assert.assertEquals("async result", holder.getValue());
+        Assert.assertNull(ksession.getProcessInstance(processInstanceId));
+        ksession.dispose();
+    }
+
+    @Test
+    public void testAsyncCallServiceReplyAfterDisposeWithoutReloader() throws Exception {
+        final Holder holder = new Holder();
+        final CountDownLatch send = new CountDownLatch(1);
+        ReplyThread replyThread = registerAsyncService(send);
+        registerResultService(holder, null);
+        KieSession ksession = newAsyncCallServiceSession();
+        KnowledgeSession session = new KnowledgeSession(ksession, false);
+        ProcessRuntimeLock.get(session);
+        ksession.startProcess("AsyncCallService");
+        session.dispose();
+        send.countDown();
+        replyThread.join(5000);
+        Assert.assertFalse(replyThread.isAlive());
+        Assert.assertNull(replyThread._error);
+        // a non-persistent session cannot be reloaded, so the reply is dropped
+        Assert.assertNull(holder.getValue());
+    }
+
+    private ReplyThread registerAsyncService(CountDownLatch send) {
+        final ReplyThread replyThread = new ReplyThread(send);
+        serviceDomain.registerService(new QName("AsyncService"), new InOutService(), new BaseHandler(){
+            public void handleMessage(Exchange exchange) throws HandlerException {
+                replyThread._exchange = exchange;
+                replyThread.start();
+            }
+        });
+        return replyThread;
+    }
+
+    private void registerResultService(final Holder holder, final CountDownLatch done) {
+        serviceDomain.registerService(new QName("ResultService"), new InOnlyService(), new BaseHandler(){
+            public void handleMessage(Exchange exchange) throws HandlerException {
+                holder.setValue(exchange.getMessage().getContent(String.class));
+                if (done != null) {
+                    done.countDown();
+                }
+            }
+        });
+        serviceDomain.registerServiceReference(new QName("ResultService"), new InOnlyService());
+    }
+
+    private KieSession newAsyncCallServiceSession() {
+        serviceDomain.registerServiceReference(new QName("AsyncService"), new InOutService());
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add(ResourceFactory.newClassPathResource(ASYNC_CALL_SERVICE_BPMN), ResourceType.BPMN2);
+        KieBase kbase = kbuilder.newKnowledgeBase();
+        KieSession ksession = kbase.newKieSession();
+        SwitchYardServiceWorkItemHandler sswih = new SwitchYardServiceWorkItemHandler();
+        sswih.setProcessRuntime(ksession);
+        sswih.setServiceDomain(serviceDomain);
+        ksession.getWorkItemManager().registerWorkItemHandler(sswih.getName(), sswih);
+        return ksession;
+    }
+
+    private static final class ReplyThread extends Thread {
+        private final CountDownLatch _send;
+        private volatile Exchange _exchange;
+        private volatile Throwable _error;
+        private ReplyThread(CountDownLatch send) {
+            _send = send;
+        }
+        public void run() {
+            try {
+                _send.await();
+                _exchange.send(_exchange.createMessage().setContent("async result"));
+            } catch (Throwable t) {
+                _error = t;
+            }
+        }
+    }
+
     @BPM(processId="ControlProcess", manifest=@Manifest(resources=@Resource(location=CONTROL_PROCESS_BPMN, type="BPMN2")))
     public interface ControlProcess {
         @StartProcess
@@ -18,8 +18,11 @@
  */
 package org.switchyard.component.camel.amqp.deploy;
 
+import org.switchyard.common.camel.SwitchYardCamelContext;
 import org.switchyard.component.camel.amqp.model.v1.V1CamelAmqpBindingModel;
+import org.switchyard.component.camel.common.deploy.BaseBindingActivator;
 import org.switchyard.component.camel.common.deploy.BaseBindingComponent;
+import org.switchyard.component.camel.jms.deploy.CamelJmsActivator;
 
 /**
  * AMQP binding component.
@@ -33,4 +36,9 @@ public class CamelAmqpComponent extends BaseBindingComponent {
         super("CamelAmqpComponent", V1CamelAmqpBindingModel.AMQP);
     }
 
+    @Override
+    protected BaseBindingActivator createActivator(SwitchYardCamelContext context, String... types) {
+        return new CamelJmsActivator(context, types);
+    }
+
 }
@@ -18,6 +18,8 @@
  */
 package org.switchyard.component.camel.file.deploy;
 
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.common.deploy.BaseBindingActivator;
 import org.switchyard.component.camel.common.deploy.BaseBindingComponent;
 import org.switchyard.component.camel.file.model.v1.V1CamelFileBindingModel;
 
@@ -33,4 +35,9 @@ public class CamelFileComponent extends BaseBindingComponent {
         super("CamelFileComponent", V1CamelFileBindingModel.FILE);
     }
 
+    @Override
+    protected BaseBindingActivator createActivator(SwitchYardCamelContext context, String... types) {
+        return new CamelFileActivator(context, types);
+    }
+
 }
@@ -0,0 +1,186 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.file.deploy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+import javax.xml.namespace.QName;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.ThreadPoolRejectedPolicy;
+import org.apache.camel.model.ProcessorDefinition;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.spi.Synchronization;
+import org.apache.log4j.Logger;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.common.lang.Strings;
+import org.switchyard.component.camel.common.SwitchYardRouteDefinition;
+import org.switchyard.component.camel.common.handler.GenericFileInboundHandler;
+import org.switchyard.component.camel.common.handler.MessageComposerProcessor;
+import org.switchyard.component.camel.common.handler.OperationSelectorProcessor;
+import org.switchyard.component.camel.file.model.CamelFileBindingModel;
+import org.switchyard.component.camel.file.model.CamelFileConsumerBindingModel;
+
+/**
+ * Inbound handler for file binding. Adds bounded concurrent processing and streaming of polled files
+ * to the route when configured on the consumer, keeping the transaction policy of the default route.
+ */
+public class CamelFileInboundHandler extends GenericFileInboundHandler<CamelFileBindingModel> {
+
+    private static final Logger LOGGER = Logger.getLogger(CamelFileInboundHandler.class);
+
+    /**
+     * Sole constructor.
+     * 
+     * @param camelBindingModel The CamelBindingModel.
+     * @param camelContext The camel context instance.
+     * @param serviceName The target service name.
+     */
+    public CamelFileInboundHandler(CamelFileBindingModel camelBindingModel,
+        SwitchYardCamelContext camelContext, QName serviceName) {
+        super(camelBindingModel, camelContext, serviceName);
+    }
+
+    @Override
+    protected RouteDefinition createRouteDefinition() {
+        CamelFileConsumerBindingModel consumer = getConsumer();
+        int maxConcurrentFiles = getMaxConcurrentFiles(consumer);
+        boolean streaming = consumer != null && Boolean.TRUE.equals(consumer.isStreaming());
+        if (maxConcurrentFiles == 0 && !streaming) {
+            return super.createRouteDefinition();
+        }
+
+        // resolve the uri, which may fail, before registering the repositories it references
+        String uri = getComponentUri().toString();
+        registerRepositories();
+        try {
+            return createConcurrentRouteDefinition(uri, maxConcurrentFiles, streaming);
+        } catch (RuntimeException re) {
+            unregisterRepositories();
+            throw re;
+        }
+    }
+
+    private RouteDefinition createConcurrentRouteDefinition(String uri, int maxConcurrentFiles, boolean streaming) {
+        SwitchYardRouteDefinition route = new SwitchYardRouteDefinition(getServiceName());
+        ProcessorDefinition<?> tail = route.routeId(getRouteId()).from(uri);
+        if (maxConcurrentFiles > 0) {
+            // the poll thread only queues files; once the queue is full it processes one itself, which
+            // throttles polling to the rate the pool keeps up with
+            tail = route.threads(maxConcurrentFiles, maxConcurrentFiles)
+                .maxQueueSize(maxConcurrentFiles)
+                .rejectedPolicy(ThreadPoolRejectedPolicy.CallerRuns)
+                .threadName("SwitchYard file " + getServiceName().getLocalPart());
+        }
+        // after threads(), so each file is processed in a transaction of its own on the worker thread
+        tail = addTransacted(tail);
+        if (streaming) {
+            tail = tail.process(new StreamingProcessor());
+        }
+        tail.process(new MessageComposerProcessor(getBindingModel()))
+            .process(new OperationSelectorProcessor(getServiceName(), getBindingModel()))
+            .to(getSwitchyardEndpointUri());
+        // nested outputs are not routed through SwitchYardRouteDefinition, so add the namespace here
+        SwitchYardRouteDefinition.addNamespaceParameter(route, getServiceName().getNamespaceURI());
+        return route;
+    }
+
+    @Override
+    protected void registerRepositories() {
+        super.registerRepositories();
+        if (isInFlightRepositoryUsed()) {
+            getCamelContext().getWritebleRegistry().put(getInProgressRepositoryName(), new InFlightFileRepository());
+        }
+    }
+
+    @Override
+    protected void unregisterRepositories() {
+        super.unregisterRepositories();
+        if (isInFlightRepositoryUsed()) {
+            getCamelContext().getWritebleRegistry().remove(getInProgressRepositoryName());
+        }
+    }
+
+    @Override
+    protected URI getComponentUri() {
+        URI uri = super.getComponentUri();
+        if (isInFlightRepositoryUsed()) {
+            uri = addParameter(uri, "inProgressRepository", "%23" + getInProgressRepositoryName());
+        }
+        return uri;
+    }
+
+    @Override
+    protected CamelFileConsumerBindingModel getConsumer() {
+        return (CamelFileConsumerBindingModel) super.getConsumer();
+    }
+
+    private boolean isInFlightRepositoryUsed() {
+        CamelFileConsumerBindingModel consumer = getConsumer();
+        return getMaxConcurrentFiles(consumer) > 0 && Strings.trimToNull(consumer.getInProgressRepository()) == null;
+    }
+
+    private int getMaxConcurrentFiles(CamelFileConsumerBindingModel consumer) {
+        Integer maxConcurrentFiles = consumer != null ? consumer.getMaxConcurrentFiles() : null;
+        return maxConcurrentFiles != null && maxConcurrentFiles.intValue() > 1 ? maxConcurrentFiles.intValue() : 0;
+    }
+
+    private String getInProgressRepositoryName() {
+        return "switchyard.file.inProgress." + getRouteId().replaceAll("[^A-Za-z0-9_.]", "_");
+    }
+
+    /**
+     * Replaces the polled file body by a stream opened on it, closed when the exchange completes.
+     */
+    private static final class StreamingProcessor implements Processor {
+
+        @Override
+        public void process(Exchange exchange) throws Exception {
+            Message in = exchange.getIn();
+            final InputStream stream = in.getBody(InputStream.class);
+            if (stream != null) {
+                in.setBody(stream);
+                exchange.addOnCompletion(new Synchronization() {
+                    @Override
+                    public void onComplete(Exchange exchange) {
+                        close(stream);
+                    }
+                    @Override
+                    public void onFailure(Exchange exchange) {
+                        close(stream);
+                    }
+                });
+            }
+        }
+
+        private static void close(InputStream stream) {
+            try {
+                stream.close();
+            } catch (IOException ioe) {
+                LOGGER.debug("Problem closing file stream", ioe);
+            }
+        }
+
+    }
+
+}
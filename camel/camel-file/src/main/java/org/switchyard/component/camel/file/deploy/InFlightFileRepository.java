@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.file.deploy;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.camel.spi.IdempotentRepository;
+import org.apache.camel.support.ServiceSupport;
+
+/**
+ * In-progress repository for file bindings processing files concurrently.
+ * <p/>
+ * Camel's default in-progress repository is an LRU cache of a fixed size, which can forget a file that
+ * is still being processed once enough files are in flight, letting the next poll pick it up again.
+ * Entries here are only removed when processing of the file completes, so the repository holds exactly
+ * the files in flight, however many that is.
+ */
+public class InFlightFileRepository extends ServiceSupport implements IdempotentRepository<String> {
+
+    private final Set<String> _files = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    @Override
+    public boolean add(String key) {
+        return _files.add(key);
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return _files.contains(key);
+    }
+
+    @Override
+    public boolean remove(String key) {
+        return _files.remove(key);
+    }
+
+    @Override
+    public boolean confirm(String key) {
+        return true;
+    }
+
+    /**
+     * Get the number of files in flight.
+     * 
+     * @return the number of files
+     */
+    public int size() {
+        return _files.size();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        _files.clear();
+    }
+
+}
@@ -27,4 +27,40 @@ import org.switchyard.component.camel.common.model.file.GenericFileConsumerBindi
  */
 public interface CamelFileConsumerBindingModel extends GenericFileConsumerBindingModel {
 
+    /**
+     * Maximum number of polled files processed concurrently.
+     * 
+     * @return the maximum number of files, or null to process files on the poll thread
+     */
+    Integer getMaxConcurrentFiles();
+
+    /**
+     * Specify the maximum number of polled files processed concurrently. Files
+     * are handed off to a bounded pool instead of being processed one after the
+     * other on the poll thread.
+     * 
+     * @param maxConcurrentFiles
+     *            the maximum number of files
+     * @return a reference to this Camel File binding model
+     */
+    CamelFileConsumerBindingModel setMaxConcurrentFiles(Integer maxConcurrentFiles);
+
+    /**
+     * Whether file contents are passed to the service as a stream.
+     * 
+     * @return true if streaming; false otherwise
+     */
+    Boolean isStreaming();
+
+    /**
+     * Specify whether file contents are passed to the service as a stream
+     * opened on the file, rather than loaded into memory. The stream is closed
+     * when processing of the file completes.
+     * 
+     * @param streaming
+     *            true to stream file contents; false otherwise
+     * @return a reference to this Camel File binding model
+     */
+    CamelFileConsumerBindingModel setStreaming(Boolean streaming);
+
 }
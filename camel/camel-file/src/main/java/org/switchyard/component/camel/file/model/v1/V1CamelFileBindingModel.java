@@ -135,7 +135,9 @@ public class V1CamelFileBindingModel extends V1GenericFileBindingModel
         List<Configuration> children = modelConfiguration.getChildren();
 
         QueryString queryString = new QueryString();
-        traverseConfiguration(children, queryString, DIRECTORY);
+        // options handled by the binding itself are not passed on to the file endpoint
+        traverseConfiguration(children, queryString, DIRECTORY, V1CamelFileConsumerBindingModel.IDEMPOTENT_STORE,
+            V1CamelFileConsumerBindingModel.MAX_CONCURRENT_FILES, V1CamelFileConsumerBindingModel.STREAMING);
 
         URI newURI = URI.create(FILE + "://" + getDirectory() + queryString);
         return newURI;
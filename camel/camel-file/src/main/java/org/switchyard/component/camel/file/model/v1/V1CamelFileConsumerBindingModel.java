@@ -33,11 +33,23 @@ import org.switchyard.config.model.Descriptor;
 public class V1CamelFileConsumerBindingModel extends V1GenericFileConsumerBindingModel
     implements CamelFileConsumerBindingModel {
 
+    /**
+     * The name of the 'maxConcurrentFiles' element.
+     */
+    public static final String MAX_CONCURRENT_FILES = "maxConcurrentFiles";
+
+    /**
+     * The name of the 'streaming' element.
+     */
+    public static final String STREAMING = "streaming";
+
     /**
      * Create a new V1CamelFileConsumerBindingModel.
      */
     public V1CamelFileConsumerBindingModel() {
         super(V1CamelFileBindingModel.CONSUME, FILE_NAMESPACE_V1);
+
+        setModelChildrenOrder(MAX_CONCURRENT_FILES, STREAMING);
     }
 
     /**
@@ -51,4 +63,24 @@ public class V1CamelFileConsumerBindingModel extends V1GenericFileConsumerBindin
         super(config, desc);
     }
 
+    @Override
+    public Integer getMaxConcurrentFiles() {
+        return getIntegerConfig(MAX_CONCURRENT_FILES);
+    }
+
+    @Override
+    public V1CamelFileConsumerBindingModel setMaxConcurrentFiles(Integer maxConcurrentFiles) {
+        return setConfig(MAX_CONCURRENT_FILES, maxConcurrentFiles);
+    }
+
+    @Override
+    public Boolean isStreaming() {
+        return getBooleanConfig(STREAMING);
+    }
+
+    @Override
+    public V1CamelFileConsumerBindingModel setStreaming(Boolean streaming) {
+        return setConfig(STREAMING, streaming);
+    }
+
 }
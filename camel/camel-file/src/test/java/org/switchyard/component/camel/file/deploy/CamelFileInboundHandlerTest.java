@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.file.deploy;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.io.File;
+import java.net.URI;
+
+import javax.xml.namespace.QName;
+
+import org.apache.camel.model.ProcessorDefinition;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.model.ThreadsDefinition;
+import org.apache.camel.model.TransactedDefinition;
+import org.apache.camel.spring.spi.SpringTransactionPolicy;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.common.CamelConstants;
+import org.switchyard.component.camel.file.model.v1.V1CamelFileBindingModel;
+import org.switchyard.component.camel.file.model.v1.V1CamelFileConsumerBindingModel;
+import org.switchyard.exception.SwitchYardException;
+
+/**
+ * Test for the concurrent and streaming routes of {@link CamelFileInboundHandler}.
+ */
+public class CamelFileInboundHandlerTest {
+
+    private static final QName SERVICE = new QName("urn:file", "FileService");
+
+    private SwitchYardCamelContext _camelContext;
+
+    @Before
+    public void setUp() {
+        _camelContext = new SwitchYardCamelContext(false);
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        _camelContext.getWritebleRegistry().put("jtaTransactionManager", transactionManager);
+        _camelContext.getWritebleRegistry().put(CamelConstants.TRANSACTED_REF, new SpringTransactionPolicy(transactionManager));
+    }
+
+    @Test
+    public void concurrentRouteIsTransactedOnWorkerThreads() {
+        RouteDefinition route = createHandler(new V1CamelFileConsumerBindingModel()
+            .setMaxConcurrentFiles(4)).createRouteDefinition();
+        assertEquals(1, route.getOutputs().size());
+        ProcessorDefinition<?> threads = route.getOutputs().get(0);
+        assertTrue(threads instanceof ThreadsDefinition);
+        assertTrue(threads.getOutputs().get(0) instanceof TransactedDefinition);
+    }
+
+    @Test
+    public void streamingRouteIsTransacted() {
+        RouteDefinition route = createHandler(new V1CamelFileConsumerBindingModel()
+            .setStreaming(true)).createRouteDefinition();
+        assertEquals(1, route.getOutputs().size());
+        assertTrue(route.getOutputs().get(0) instanceof TransactedDefinition);
+    }
+
+    @Test
+    public void rejectedBindingHoldsNoRepository() {
+        assertNoRepositoryHeld(new V1CamelFileConsumerBindingModel());
+    }
+
+    @Test
+    public void rejectedConcurrentBindingHoldsNoRepository() {
+        assertNoRepositoryHeld(new V1CamelFileConsumerBindingModel().setMaxConcurrentFiles(4));
+    }
+
+    private void assertNoRepositoryHeld(V1CamelFileConsumerBindingModel consumer) {
+        File store = new File("target/rejected-" + System.nanoTime() + ".store");
+        consumer.setIdempotentStore(store.getPath());
+        consumer.setIdempotentRepository("#otherRepository");
+        try {
+            createHandler(consumer);
+            fail("idempotentStore and idempotentRepository together should be rejected");
+        } catch (SwitchYardException sye) {
+            // expected
+        }
+        // the store is created when its repository is registered, which must not have happened
+        assertFalse(store.exists());
+    }
+
+    private CamelFileInboundHandler createHandler(V1CamelFileConsumerBindingModel consumer) {
+        V1CamelFileBindingModel bindingModel = new V1CamelFileBindingModel() {
+            @Override
+            public URI getComponentURI() {
+                return URI.create("file://target/input?transactionManager=%23jtaTransactionManager");
+            }
+        };
+        bindingModel.setConsumer(consumer);
+        return new CamelFileInboundHandler(bindingModel, _camelContext, SERVICE);
+    }
+
+}
@@ -50,6 +50,7 @@ public class V1CamelFileConsumerBindingModelTest extends V1BaseCamelServiceBindi
     private static final String INCLUDE = "*.csv";
     private static final String EXCLUDE = "*.xml";
     private static final Boolean IDEMPOTENT = true;
+    private static final String IDEMPOTENT_STORE = "/data/idempotent.idx";
     private static final String SORT_BY = "file:name";
     private static final String READ_LOCK = "fileLock";
     private static final Long READ_LOCK_TIMEOUT = 10L;
@@ -57,6 +58,8 @@ public class V1CamelFileConsumerBindingModelTest extends V1BaseCamelServiceBindi
     private static final Boolean STARTING_DIRECTORY_MUST_EXIST = false;
     private static final Boolean DIRECTORY_MUST_EXIST = Boolean.TRUE;
     private static final String DONE_FILE_NAME = "done";
+    private static final Integer MAX_CONCURRENT_FILES = 8;
+    private static final Boolean STREAMING = true;
     private static final String CAMEL_URI = "file:///input/directory?delay=1000&initialDelay=500&maxMessagesPerPoll=100&delete=false&" +
         "recursive=true&noop=false&preMove=.inProgress&move=.done&moveFailed=.failed&" +
         "include=*.csv&exclude=*.xml&idempotent=true&sortBy=file:name&" +
@@ -85,6 +88,7 @@ public class V1CamelFileConsumerBindingModelTest extends V1BaseCamelServiceBindi
             .setInclude(INCLUDE)
             .setExclude(EXCLUDE)
             .setIdempotent(IDEMPOTENT)
+            .setIdempotentStore(IDEMPOTENT_STORE)
             .setSortBy(SORT_BY)
             .setReadLock(READ_LOCK)
             .setReadLockTimeout(READ_LOCK_TIMEOUT)
@@ -92,6 +96,8 @@ public class V1CamelFileConsumerBindingModelTest extends V1BaseCamelServiceBindi
             .setStartingDirectoryMustExist(STARTING_DIRECTORY_MUST_EXIST)
             .setDirectoryMustExist(DIRECTORY_MUST_EXIST)
             .setDoneFileName(DONE_FILE_NAME);
+        model.setMaxConcurrentFiles(MAX_CONCURRENT_FILES)
+            .setStreaming(STREAMING);
         return fileModel.setConsumer(model);
     }
 
@@ -111,6 +117,7 @@ public class V1CamelFileConsumerBindingModelTest extends V1BaseCamelServiceBindi
         assertEquals(INCLUDE, consumer.getInclude());
         assertEquals(EXCLUDE, consumer.getExclude());
         assertEquals(IDEMPOTENT, consumer.isIdempotent());
+        assertEquals(IDEMPOTENT_STORE, consumer.getIdempotentStore());
         assertEquals(SORT_BY, consumer.getSortBy());
         assertEquals(READ_LOCK, consumer.getReadLock());
         assertEquals(READ_LOCK_TIMEOUT, consumer.getReadLockTimeout());
@@ -118,6 +125,8 @@ public class V1CamelFileConsumerBindingModelTest extends V1BaseCamelServiceBindi
         assertEquals(STARTING_DIRECTORY_MUST_EXIST, consumer.isStartingDirectoryMustExist());
         assertEquals(DIRECTORY_MUST_EXIST, consumer.isDirectoryMustExist());
         assertEquals(DONE_FILE_NAME, consumer.getDoneFileName());
+        assertEquals(MAX_CONCURRENT_FILES, consumer.getMaxConcurrentFiles());
+        assertEquals(STREAMING, consumer.isStreaming());
     }
 
     @Override
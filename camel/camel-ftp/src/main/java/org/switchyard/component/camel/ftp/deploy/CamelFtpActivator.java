@@ -0,0 +1,51 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.ftp.deploy;
+
+import javax.xml.namespace.QName;
+
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.common.deploy.BaseBindingActivator;
+import org.switchyard.component.camel.common.handler.GenericFileInboundHandler;
+import org.switchyard.component.camel.common.handler.InboundHandler;
+import org.switchyard.component.camel.common.model.CamelBindingModel;
+import org.switchyard.component.camel.common.model.remote.CamelRemoteFileBindingModel;
+
+/**
+ * Ftp/ftps/sftp binding activator.
+ */
+public class CamelFtpActivator extends BaseBindingActivator {
+
+    /**
+     * Creates new activator instance.
+     * 
+     * @param context Camel context.
+     * @param types Activation types.
+     */
+    public CamelFtpActivator(SwitchYardCamelContext context, String[] types) {
+        super(context, types);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T extends CamelBindingModel> InboundHandler<T> createInboundHandler(QName serviceName, T binding) {
+        return (InboundHandler<T>) new GenericFileInboundHandler<CamelRemoteFileBindingModel>(
+            (CamelRemoteFileBindingModel) binding, getCamelContext(), serviceName);
+    }
+
+}
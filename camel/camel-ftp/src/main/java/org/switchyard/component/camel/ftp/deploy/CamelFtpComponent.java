@@ -18,6 +18,8 @@
  */
 package org.switchyard.component.camel.ftp.deploy;
 
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.common.deploy.BaseBindingActivator;
 import org.switchyard.component.camel.common.deploy.BaseBindingComponent;
 import org.switchyard.component.camel.ftp.model.v1.V1CamelFtpBindingModel;
 import org.switchyard.component.camel.ftps.model.v1.V1CamelFtpsBindingModel;
@@ -39,4 +41,9 @@ public class CamelFtpComponent extends BaseBindingComponent {
         );
     }
 
+    @Override
+    protected BaseBindingActivator createActivator(SwitchYardCamelContext context, String... types) {
+        return new CamelFtpActivator(context, types);
+    }
+
 }
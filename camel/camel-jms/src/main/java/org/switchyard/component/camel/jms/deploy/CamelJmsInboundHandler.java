@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.jms.deploy;
+
+import javax.xml.namespace.QName;
+
+import org.apache.camel.model.RouteDefinition;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.switchyard.ExchangePattern;
+import org.switchyard.ServiceDomain;
+import org.switchyard.ServiceReference;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.common.CamelConstants;
+import org.switchyard.component.camel.common.SwitchYardRouteDefinition;
+import org.switchyard.component.camel.common.handler.InboundHandler;
+import org.switchyard.component.camel.common.handler.MessageComposerProcessor;
+import org.switchyard.component.camel.common.handler.OperationSelectorProcessor;
+import org.switchyard.component.camel.common.transaction.TransactionManagerFactory;
+import org.switchyard.component.camel.jms.model.CamelJmsBindingModel;
+import org.switchyard.exception.SwitchYardException;
+import org.switchyard.metadata.ServiceOperation;
+
+/**
+ * Inbound handler for JMS binding. When a batch size greater than one is configured, messages are
+ * consumed by a {@link JmsBatchConsumer}, which commits them in transacted batches, instead of by the
+ * Camel JMS consumer, which commits every message on its own. Batches have nobody to reply to, so a
+ * batched binding refuses to start for a service with InOut operations.
+ */
+public class CamelJmsInboundHandler extends InboundHandler<CamelJmsBindingModel> {
+
+    private final JmsBatchConsumer _batchConsumer;
+
+    /**
+     * Sole constructor.
+     * 
+     * @param camelBindingModel The CamelBindingModel.
+     * @param camelContext The camel context instance.
+     * @param serviceName The target service name.
+     */
+    public CamelJmsInboundHandler(CamelJmsBindingModel camelBindingModel,
+        SwitchYardCamelContext camelContext, QName serviceName) {
+        super(camelBindingModel, camelContext, serviceName);
+        if (isBatched()) {
+            _batchConsumer = new JmsBatchConsumer(camelContext, getComponentUri().toString(), getBatchEndpointUri(),
+                camelBindingModel.getBatchSize().intValue(), camelBindingModel.getBatchTimeout(), getBatchTransactionManager());
+        } else {
+            _batchConsumer = null;
+        }
+    }
+
+    @Override
+    protected RouteDefinition createRouteDefinition() {
+        if (!isBatched()) {
+            return super.createRouteDefinition();
+        }
+        // the batch consumer owns the transaction, so the route itself is not transacted
+        SwitchYardRouteDefinition route = new SwitchYardRouteDefinition(getServiceName());
+        route.routeId(getRouteId()).from(getBatchEndpointUri())
+            .process(new MessageComposerProcessor(getBindingModel()))
+            .process(new OperationSelectorProcessor(getServiceName(), getBindingModel()))
+            .to(getSwitchyardEndpointUri());
+        return route;
+    }
+
+    /**
+     * Get the metrics of the transacted-batch consumer.
+     * 
+     * @return The metrics, or null if the binding does not consume in batches.
+     */
+    public JmsBatchMetrics getBatchMetrics() {
+        return _batchConsumer != null ? _batchConsumer.getMetrics() : null;
+    }
+
+    @Override
+    public void start() {
+        if (_batchConsumer != null) {
+            checkInOnly();
+        }
+        super.start();
+        if (_batchConsumer != null) {
+            try {
+                _batchConsumer.start();
+            } catch (Exception e) {
+                throw new SwitchYardException("Failed to start JMS batch consumer for service " + getServiceName(), e);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (_batchConsumer != null) {
+            _batchConsumer.stop();
+        }
+        super.stop();
+    }
+
+    private void checkInOnly() {
+        ServiceDomain domain = (ServiceDomain) getCamelContext().getRegistry().lookup(CamelConstants.SERVICE_DOMAIN);
+        ServiceReference service = domain != null ? domain.getServiceReference(getServiceName()) : null;
+        if (service == null) {
+            return;
+        }
+        for (ServiceOperation operation : service.getInterface().getOperations()) {
+            if (operation.getExchangePattern() == ExchangePattern.IN_OUT) {
+                throw new SwitchYardException("JMS batch consumption (batchSize > 1) only supports InOnly operations, but operation '"
+                    + operation.getName() + "' of service " + getServiceName() + " is InOut");
+            }
+        }
+    }
+
+    private boolean isBatched() {
+        Integer batchSize = getBindingModel().getBatchSize();
+        return batchSize != null && batchSize.intValue() > 1;
+    }
+
+    private String getBatchEndpointUri() {
+        return "direct:switchyard.jms.batch." + getRouteId().replaceAll("[^A-Za-z0-9_.]", "_");
+    }
+
+    private PlatformTransactionManager getBatchTransactionManager() {
+        if (!hasTransactionManager()) {
+            return null;
+        }
+        String name = getTransactionManagerName();
+        PlatformTransactionManager tm = getCamelContext().getRegistry().lookup(name, PlatformTransactionManager.class);
+        if (tm == null && TransactionManagerFactory.TM.equals(name)) {
+            tm = TransactionManagerFactory.getInstance().create();
+            getCamelContext().getWritebleRegistry().put(name, tm);
+        }
+        if (tm == null) {
+            throw new SwitchYardException("Transaction manager '" + name + "' not found for JMS batch consumer of service " + getServiceName());
+        }
+        return tm;
+    }
+
+}
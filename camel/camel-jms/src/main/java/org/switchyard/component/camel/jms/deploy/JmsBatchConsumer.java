@@ -0,0 +1,379 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.jms.deploy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import javax.jms.Topic;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.jms.JmsConfiguration;
+import org.apache.camel.component.jms.JmsEndpoint;
+import org.apache.camel.component.jms.JmsMessage;
+import org.apache.camel.util.ServiceHelper;
+import org.apache.log4j.Logger;
+import org.springframework.jms.support.destination.DestinationResolver;
+import org.springframework.jms.support.destination.DynamicDestinationResolver;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+/**
+ * Consumes messages from a JMS destination in transacted batches and feeds them, one by one, into
+ * a Camel route.
+ * <p/>
+ * A batch is closed once it holds batchSize messages, or batchTimeout milliseconds after its first
+ * message arrived, and is then committed as a whole. If any message of the batch fails, the whole
+ * batch is rolled back and every message in it is redelivered by the broker; the broker's
+ * redelivery limits and dead letter handling apply as usual.
+ * <p/>
+ * Without a transaction manager each consumer keeps one locally transacted session, so a batch
+ * costs a single session commit. With a transaction manager each batch runs in one JTA transaction,
+ * which the service invocations join; the connection factory must then be a JTA-aware one (such
+ * as java:/JmsXA) so its sessions are enlisted. As each wait for a first message then costs a
+ * transaction and a session, an idle consumer doubles its wait, up to a few seconds, until a
+ * message arrives; a message arriving during a wait is still received at once.
+ * <p/>
+ * Messages are delivered as InOnly exchanges, so the service operations must be InOnly.
+ */
+public class JmsBatchConsumer {
+
+    /** The default time a batch is kept open waiting for more messages. */
+    public static final long DEFAULT_BATCH_TIMEOUT = 1000L;
+
+    private static final Logger LOGGER = Logger.getLogger(JmsBatchConsumer.class);
+    private static final long RECEIVE_TIMEOUT = 1000L;
+    private static final long MAX_IDLE_RECEIVE_TIMEOUT = 8000L;
+    private static final long RECOVERY_INTERVAL = 5000L;
+
+    private final CamelContext _camelContext;
+    private final String _endpointUri;
+    private final String _routeUri;
+    private final int _batchSize;
+    private final long _batchTimeoutNanos;
+    private final PlatformTransactionManager _transactionManager;
+    private final JmsBatchMetrics _metrics = new JmsBatchMetrics();
+    private final List<Thread> _threads = new ArrayList<Thread>();
+    private volatile boolean _running;
+    private JmsEndpoint _endpoint;
+    private ProducerTemplate _producer;
+
+    /**
+     * Creates a new batch consumer.
+     *
+     * @param camelContext The camel context.
+     * @param endpointUri The URI of the JMS endpoint to consume from.
+     * @param routeUri The URI of the route the messages are delivered to.
+     * @param batchSize The maximum number of messages per batch.
+     * @param batchTimeout The maximum time in milliseconds a batch is kept open, or null for the default.
+     * @param transactionManager The transaction manager batches run in, or null to use local JMS transactions.
+     */
+    public JmsBatchConsumer(CamelContext camelContext, String endpointUri, String routeUri,
+        int batchSize, Long batchTimeout, PlatformTransactionManager transactionManager) {
+        _camelContext = camelContext;
+        _endpointUri = endpointUri;
+        _routeUri = routeUri;
+        _batchSize = batchSize;
+        long timeout = batchTimeout != null && batchTimeout.longValue() > 0 ? batchTimeout.longValue() : DEFAULT_BATCH_TIMEOUT;
+        _batchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+        _transactionManager = transactionManager;
+    }
+
+    /**
+     * Get the batch metrics.
+     *
+     * @return The metrics.
+     */
+    public JmsBatchMetrics getMetrics() {
+        return _metrics;
+    }
+
+    /**
+     * Starts the consumer threads, one per configured concurrent consumer.
+     *
+     * @throws Exception If the endpoint or producer cannot be created.
+     */
+    public synchronized void start() throws Exception {
+        if (_running) {
+            return;
+        }
+        _endpoint = _camelContext.getEndpoint(_endpointUri, JmsEndpoint.class);
+        _producer = _camelContext.createProducerTemplate();
+        _running = true;
+        // concurrent subscribers of a topic would each receive every message
+        int consumers = _endpoint.isPubSubDomain() ? 1 : Math.max(1, _endpoint.getConfiguration().getConcurrentConsumers());
+        for (int i = 1; i <= consumers; i++) {
+            Thread thread = new Thread(new Worker(), "SwitchYard JMS batch " + _endpoint.getDestinationName() + "-" + i);
+            thread.setDaemon(true);
+            _threads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the consumer threads; batches in progress are committed once their current message is delivered.
+     */
+    public synchronized void stop() {
+        _running = false;
+        for (Thread thread : _threads) {
+            try {
+                thread.join(MAX_IDLE_RECEIVE_TIMEOUT + RECOVERY_INTERVAL);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        _threads.clear();
+        try {
+            ServiceHelper.stopService(_producer);
+        } catch (Exception e) {
+            LOGGER.debug("Problem stopping JMS batch producer", e);
+        }
+        _producer = null;
+    }
+
+    /**
+     * A consumer thread, with its own connection.
+     */
+    private final class Worker implements Runnable {
+
+        private Connection _connection;
+        private Session _session;
+        private MessageConsumer _consumer;
+        private int _size;
+        private long _idleTimeout = RECEIVE_TIMEOUT;
+
+        @Override
+        public void run() {
+            while (_running) {
+                try {
+                    open();
+                    consumeBatch();
+                } catch (Exception e) {
+                    if (_running) {
+                        LOGGER.warn("Problem consuming JMS batch from " + _endpoint.getDestinationName()
+                            + ", reconnecting in " + RECOVERY_INTERVAL + "ms: " + e.getMessage());
+                        close();
+                        if (!pause()) {
+                            break;
+                        }
+                    }
+                }
+            }
+            close();
+        }
+
+        private void open() throws JMSException {
+            if (_connection != null) {
+                return;
+            }
+            JmsConfiguration config = _endpoint.getConfiguration();
+            _connection = config.getListenerConnectionFactory().createConnection();
+            if (config.getClientId() != null) {
+                _connection.setClientID(config.getClientId());
+            }
+            _connection.start();
+            if (_transactionManager == null) {
+                _session = _connection.createSession(true, Session.SESSION_TRANSACTED);
+                _consumer = createConsumer(_session);
+            }
+        }
+
+        private MessageConsumer createConsumer(Session session) throws JMSException {
+            JmsConfiguration config = _endpoint.getConfiguration();
+            DestinationResolver resolver = config.getDestinationResolver() != null
+                ? config.getDestinationResolver() : new DynamicDestinationResolver();
+            Destination destination = resolver.resolveDestinationName(session, _endpoint.getDestinationName(), _endpoint.isPubSubDomain());
+            String subscription = config.getDurableSubscriptionName();
+            if (destination instanceof Topic && subscription != null) {
+                return session.createDurableSubscriber((Topic)destination, subscription, _endpoint.getSelector(), false);
+            }
+            return session.createConsumer(destination, _endpoint.getSelector());
+        }
+
+        private void consumeBatch() throws JMSException {
+            TransactionStatus status = null;
+            Session session = _session;
+            MessageConsumer consumer = _consumer;
+            if (_transactionManager != null) {
+                // the session is created inside the transaction so that it is enlisted in it
+                status = _transactionManager.getTransaction(new DefaultTransactionDefinition());
+            }
+            try {
+                if (status != null) {
+                    session = _connection.createSession(true, Session.SESSION_TRANSACTED);
+                    consumer = createConsumer(session);
+                }
+                boolean delivered = false;
+                try {
+                    delivered = receiveBatch(consumer);
+                } finally {
+                    if (!delivered) {
+                        rollback(status, session);
+                    }
+                }
+                if (delivered) {
+                    commit(status, session);
+                }
+            } finally {
+                if (status != null) {
+                    if (!status.isCompleted()) {
+                        _transactionManager.rollback(status);
+                    }
+                    closeQuietly(consumer, session);
+                }
+            }
+        }
+
+        private boolean receiveBatch(MessageConsumer consumer) throws JMSException {
+            _size = 0;
+            long deadline = 0L;
+            while (_size < _batchSize && _running) {
+                long wait = _size == 0 ? _idleTimeout : TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (wait <= 0) {
+                    break;
+                }
+                Message message = consumer.receive(wait);
+                if (message == null) {
+                    if (_size == 0) {
+                        // nothing arrived; an idle consumer does not hold a transaction open
+                        if (_transactionManager != null) {
+                            _idleTimeout = Math.min(_idleTimeout * 2, MAX_IDLE_RECEIVE_TIMEOUT);
+                        }
+                        break;
+                    }
+                    continue;
+                }
+                if (_size == 0) {
+                    deadline = System.nanoTime() + _batchTimeoutNanos;
+                    _idleTimeout = RECEIVE_TIMEOUT;
+                }
+                _size++;
+                if (message.getJMSRedelivered()) {
+                    _metrics.redelivered();
+                }
+                if (!deliver(message)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean deliver(Message message) {
+            Exchange exchange = _endpoint.createExchange(ExchangePattern.InOnly);
+            exchange.setIn(new JmsMessage(message, _endpoint.getBinding()));
+            _producer.send(_routeUri, exchange);
+            if (exchange.getException() != null) {
+                LOGGER.warn("Rolling back JMS batch of " + _size + " message(s) from " + _endpoint.getDestinationName()
+                    + ": " + exchange.getException().getMessage());
+                return false;
+            }
+            return true;
+        }
+
+        private void commit(TransactionStatus status, Session session) throws JMSException {
+            if (_size == 0) {
+                if (status != null) {
+                    _transactionManager.commit(status);
+                }
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                if (status != null) {
+                    _transactionManager.commit(status);
+                } else {
+                    session.commit();
+                }
+            } catch (JMSException jmse) {
+                _metrics.rolledBack(_size);
+                throw jmse;
+            } catch (RuntimeException re) {
+                _metrics.rolledBack(_size);
+                throw re;
+            }
+            _metrics.committed(_size, System.nanoTime() - start);
+        }
+
+        private void rollback(TransactionStatus status, Session session) {
+            if (_size > 0) {
+                _metrics.rolledBack(_size);
+            }
+            try {
+                if (status != null) {
+                    _transactionManager.rollback(status);
+                } else if (session != null) {
+                    session.rollback();
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Problem rolling back JMS batch", e);
+            }
+        }
+
+        private void close() {
+            closeQuietly(_consumer, _session);
+            _consumer = null;
+            _session = null;
+            if (_connection != null) {
+                try {
+                    _connection.close();
+                } catch (JMSException jmse) {
+                    LOGGER.debug("Problem closing JMS batch connection", jmse);
+                }
+                _connection = null;
+            }
+        }
+
+        private void closeQuietly(MessageConsumer consumer, Session session) {
+            try {
+                if (consumer != null) {
+                    consumer.close();
+                }
+                if (session != null) {
+                    session.close();
+                }
+            } catch (JMSException jmse) {
+                LOGGER.debug("Problem closing JMS batch session", jmse);
+            }
+        }
+
+        private boolean pause() {
+            try {
+                Thread.sleep(RECOVERY_INTERVAL);
+                return true;
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.jms.deploy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics for the transacted-batch consumers of a JMS service binding.
+ */
+public class JmsBatchMetrics {
+
+    private final AtomicLong _batches = new AtomicLong();
+    private final AtomicLong _messages = new AtomicLong();
+    private final AtomicLong _maxBatchSize = new AtomicLong();
+    private final AtomicLong _rollbacks = new AtomicLong();
+    private final AtomicLong _rolledBackMessages = new AtomicLong();
+    private final AtomicLong _redeliveries = new AtomicLong();
+    private final AtomicLong _commitNanos = new AtomicLong();
+    private final AtomicLong _maxCommitNanos = new AtomicLong();
+
+    /**
+     * Gets the number of committed batches.
+     * @return the count
+     */
+    public long getBatches() {
+        return _batches.get();
+    }
+
+    /**
+     * Gets the number of messages delivered in committed batches.
+     * @return the count
+     */
+    public long getMessages() {
+        return _messages.get();
+    }
+
+    /**
+     * Gets the average number of messages per committed batch.
+     * @return the average batch size
+     */
+    public double getAverageBatchSize() {
+        long batches = getBatches();
+        return batches > 0 ? (double)getMessages() / batches : 0d;
+    }
+
+    /**
+     * Gets the largest number of messages committed in one batch.
+     * @return the maximum batch size
+     */
+    public long getMaxBatchSize() {
+        return _maxBatchSize.get();
+    }
+
+    /**
+     * Gets the number of batches rolled back.
+     * @return the count
+     */
+    public long getRollbacks() {
+        return _rollbacks.get();
+    }
+
+    /**
+     * Gets the number of messages returned to the destination by rolled back batches.
+     * @return the count
+     */
+    public long getRolledBackMessages() {
+        return _rolledBackMessages.get();
+    }
+
+    /**
+     * Gets the number of received messages flagged as redelivered by the broker.
+     * @return the count
+     */
+    public long getRedeliveries() {
+        return _redeliveries.get();
+    }
+
+    /**
+     * Gets the average time taken by a batch commit.
+     * @return the time in milliseconds
+     */
+    public double getAverageCommitLatency() {
+        long batches = getBatches();
+        return batches > 0 ? _commitNanos.get() / (batches * 1000000d) : 0d;
+    }
+
+    /**
+     * Gets the longest time taken by a batch commit.
+     * @return the time in milliseconds
+     */
+    public double getMaxCommitLatency() {
+        return _maxCommitNanos.get() / 1000000d;
+    }
+
+    void committed(int size, long commitNanos) {
+        _batches.incrementAndGet();
+        _messages.addAndGet(size);
+        _commitNanos.addAndGet(commitNanos);
+        max(_maxBatchSize, size);
+        max(_maxCommitNanos, commitNanos);
+    }
+
+    void rolledBack(int size) {
+        _rollbacks.incrementAndGet();
+        _rolledBackMessages.addAndGet(size);
+    }
+
+    void redelivered() {
+        _redeliveries.incrementAndGet();
+    }
+
+    private static void max(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+}
@@ -366,4 +366,36 @@ public interface CamelJmsBindingModel extends CamelBindingModel {
      */
     CamelJmsBindingModel setTransactionManager(String transactionManager);
 
+    /**
+     * Number of messages consumed in one transaction. Values greater than one switch the
+     * service binding to transacted-batch consumption.
+     * 
+     * @return Batch size.
+     */
+    Integer getBatchSize();
+
+    /**
+     * Specifies the number of messages consumed in one transaction.
+     * 
+     * @param batchSize Batch size.
+     * @return a reference to this Camel binding model
+     */
+    CamelJmsBindingModel setBatchSize(Integer batchSize);
+
+    /**
+     * Maximum time in milliseconds a batch is kept open waiting for more messages before
+     * it is committed.
+     * 
+     * @return Batch timeout.
+     */
+    Long getBatchTimeout();
+
+    /**
+     * Specifies the maximum time a batch is kept open before it is committed.
+     * 
+     * @param batchTimeout Batch timeout in milliseconds.
+     * @return a reference to this Camel binding model
+     */
+    CamelJmsBindingModel setBatchTimeout(Long batchTimeout);
+
 }
@@ -61,6 +61,8 @@ public class V1CamelJmsBindingModel extends V1BaseCamelBindingModel
     private static final String TIME_TO_LIVE = "timeToLive";
     private static final String TRANSACTED = "transacted";
     private static final String TRANSACTION_MANAGER = "transactionManager";
+    private static final String BATCH_SIZE = "batchSize";
+    private static final String BATCH_TIMEOUT = "batchTimeout";
 
     /**
      * Create a new CamelJmsBindingModel.
@@ -72,7 +74,7 @@ public class V1CamelJmsBindingModel extends V1BaseCamelBindingModel
             CLIENT_ID, DURABLE_SUBSCRIPTION_NAME, CONCURRENT_CONSUMERS, MAX_CONCURRENT_CONSUMERS,
             DISABLE_REPLY_TO, PRESERVE_MESSAGE_QOS, DELIVERY_PERSISTENT, PRIORITY,
             EXPLICIT_QOS_ENABLED, REPLY_TO, REPLY_TO_TYPE, REQUEST_TIMEOUT, SELECTOR,
-            TIME_TO_LIVE, TRANSACTED, TRANSACTION_MANAGER);
+            TIME_TO_LIVE, TRANSACTED, TRANSACTION_MANAGER, BATCH_SIZE, BATCH_TIMEOUT);
     }
 
     /**
@@ -305,6 +307,26 @@ public class V1CamelJmsBindingModel extends V1BaseCamelBindingModel
         return setConfig(TRANSACTION_MANAGER, transactionManager);
     }
 
+    @Override
+    public Integer getBatchSize() {
+        return getIntegerConfig(BATCH_SIZE);
+    }
+
+    @Override
+    public V1CamelJmsBindingModel setBatchSize(Integer batchSize) {
+        return setConfig(BATCH_SIZE, batchSize);
+    }
+
+    @Override
+    public Long getBatchTimeout() {
+        return getLongConfig(BATCH_TIMEOUT);
+    }
+
+    @Override
+    public V1CamelJmsBindingModel setBatchTimeout(Long batchTimeout) {
+        return setConfig(BATCH_TIMEOUT, batchTimeout);
+    }
+
     @Override
     public URI getComponentURI() {
         return getComponentURI(JMS);
@@ -322,7 +344,7 @@ public class V1CamelJmsBindingModel extends V1BaseCamelBindingModel
         }
 
         QueryString queryStr = new QueryString();
-        traverseConfiguration(children, queryStr, QUEUE, TOPIC);
+        traverseConfiguration(children, queryStr, QUEUE, TOPIC, BATCH_SIZE, BATCH_TIMEOUT);
 
         return URI.create(baseUri + queryStr.toString());
     }
@@ -0,0 +1,206 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.jms.deploy;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.Destination;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Queue;
+import javax.jms.Session;
+
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.jms.JmsConfiguration;
+import org.apache.camel.component.jms.JmsEndpoint;
+import org.apache.camel.component.jms.JmsMessage;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ * Test for {@link JmsBatchConsumer}, against mocked JMS resources.
+ */
+public class JmsBatchConsumerTest {
+
+    private static final String JMS_URI = "jms:queue:batch";
+    private static final String ROUTE_URI = "direct:batch";
+
+    private final BlockingQueue<Message> _queue = new LinkedBlockingQueue<Message>();
+    private final List<Message> _delivered = new CopyOnWriteArrayList<Message>();
+    private DefaultCamelContext _camelContext;
+    private JmsEndpoint _endpoint;
+    private Connection _connection;
+    private Session _session;
+    private MessageConsumer _consumer;
+    private Message _poison;
+    private JmsBatchConsumer _batchConsumer;
+
+    @Before
+    public void setUp() throws Exception {
+        _consumer = mock(MessageConsumer.class);
+        when(_consumer.receive(anyLong())).thenAnswer(new Answer<Message>() {
+            @Override
+            public Message answer(InvocationOnMock invocation) throws Exception {
+                return _queue.poll((Long)invocation.getArguments()[0], TimeUnit.MILLISECONDS);
+            }
+        });
+        _session = mock(Session.class);
+        Queue queue = mock(Queue.class);
+        when(_session.createQueue(anyString())).thenReturn(queue);
+        when(_session.createConsumer(any(Destination.class), anyString())).thenReturn(_consumer);
+        _connection = mock(Connection.class);
+        when(_connection.createSession(anyBoolean(), anyInt())).thenReturn(_session);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.createConnection()).thenReturn(_connection);
+
+        JmsConfiguration configuration = new JmsConfiguration(connectionFactory);
+        _endpoint = mock(JmsEndpoint.class);
+        when(_endpoint.getConfiguration()).thenReturn(configuration);
+        when(_endpoint.getDestinationName()).thenReturn("batch");
+        _camelContext = new DefaultCamelContext() {
+            @Override
+            public <T extends Endpoint> T getEndpoint(String name, Class<T> endpointType) {
+                return JMS_URI.equals(name) ? endpointType.cast(_endpoint) : super.getEndpoint(name, endpointType);
+            }
+        };
+        when(_endpoint.createExchange(ExchangePattern.InOnly)).thenAnswer(new Answer<Exchange>() {
+            @Override
+            public Exchange answer(InvocationOnMock invocation) {
+                return new DefaultExchange(_camelContext, ExchangePattern.InOnly);
+            }
+        });
+        _poison = mock(Message.class);
+        _camelContext.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                errorHandler(noErrorHandler());
+                from(ROUTE_URI).process(new Processor() {
+                    @Override
+                    public void process(Exchange exchange) {
+                        Message message = exchange.getIn(JmsMessage.class).getJmsMessage();
+                        if (message == _poison) {
+                            throw new IllegalStateException("poison message");
+                        }
+                        _delivered.add(message);
+                    }
+                });
+            }
+        });
+        _camelContext.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (_batchConsumer != null) {
+            _batchConsumer.stop();
+        }
+        _camelContext.stop();
+    }
+
+    @Test
+    public void commitsFullBatch() throws Exception {
+        _batchConsumer = new JmsBatchConsumer(_camelContext, JMS_URI, ROUTE_URI, 3, 60000L, null);
+        send(3);
+        _batchConsumer.start();
+
+        verify(_session, timeout(5000)).commit();
+        assertEquals(3, _delivered.size());
+        assertEquals(1, _batchConsumer.getMetrics().getBatches());
+        assertEquals(3, _batchConsumer.getMetrics().getMessages());
+    }
+
+    @Test
+    public void commitsPartialBatchOnTimeout() throws Exception {
+        _batchConsumer = new JmsBatchConsumer(_camelContext, JMS_URI, ROUTE_URI, 10, 200L, null);
+        send(2);
+        _batchConsumer.start();
+
+        verify(_session, timeout(5000)).commit();
+        assertEquals(2, _delivered.size());
+        assertEquals(2, _batchConsumer.getMetrics().getMaxBatchSize());
+    }
+
+    @Test
+    public void rollsBackBatchOnFailure() throws Exception {
+        _batchConsumer = new JmsBatchConsumer(_camelContext, JMS_URI, ROUTE_URI, 3, 60000L, null);
+        send(1);
+        _queue.add(_poison);
+        _batchConsumer.start();
+
+        verify(_session, timeout(5000)).rollback();
+        verify(_session, never()).commit();
+        assertEquals(1, _batchConsumer.getMetrics().getRollbacks());
+        assertEquals(2, _batchConsumer.getMetrics().getRolledBackMessages());
+    }
+
+    @Test
+    public void idleTransactedConsumerBacksOff() throws Exception {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(mock(TransactionStatus.class));
+        _batchConsumer = new JmsBatchConsumer(_camelContext, JMS_URI, ROUTE_URI, 3, 60000L, transactionManager);
+        _batchConsumer.start();
+
+        ArgumentCaptor<Long> waits = ArgumentCaptor.forClass(Long.class);
+        verify(_consumer, timeout(5000).atLeast(3)).receive(waits.capture());
+        List<Long> values = waits.getAllValues();
+        assertEquals(Long.valueOf(1000L), values.get(0));
+        assertTrue(values.get(2) > values.get(1) && values.get(1) > values.get(0));
+        verify(transactionManager, atLeastOnce()).commit(any(TransactionStatus.class));
+    }
+
+    private void send(int count) {
+        for (int i = 0; i < count; i++) {
+            _queue.add(mock(Message.class));
+        }
+    }
+
+}
@@ -53,6 +53,8 @@ public class V1CamelJmsBindingModelTest extends V1BaseCamelServiceBindingModelTe
     private static String SELECTOR = "DEST='ESB'";
     private static Integer TIME_TO_LIVE = 3600;
     private static Boolean TRANSACTED = true;
+    private static Integer BATCH_SIZE = 50;
+    private static Long BATCH_TIMEOUT = 250L;
 
     private static final String CAMEL_URI = "jms:topic:esb_in_topic?connectionFactory=connFactory&" +
         "username=camel&password=isMyFriend&clientId=esb_in&durableSubscriptionName=esb_in_sub&" +
@@ -87,7 +89,9 @@ public class V1CamelJmsBindingModelTest extends V1BaseCamelServiceBindingModelTe
             .setRequestTimeout(REQUEST_TIMEOUT)
             .setSelector(SELECTOR)
             .setTimeToLive(TIME_TO_LIVE)
-            .setTransacted(TRANSACTED);
+            .setTransacted(TRANSACTED)
+            .setBatchSize(BATCH_SIZE)
+            .setBatchTimeout(BATCH_TIMEOUT);
     }
 
     @Override
@@ -111,6 +115,8 @@ public class V1CamelJmsBindingModelTest extends V1BaseCamelServiceBindingModelTe
         assertEquals(SELECTOR, model.getSelector());
         assertEquals(TIME_TO_LIVE, model.getTimeToLive());
         assertEquals(TRANSACTED, model.isTransacted());
+        assertEquals(BATCH_SIZE, model.getBatchSize());
+        assertEquals(BATCH_TIMEOUT, model.getBatchTimeout());
     }
 
     @Override
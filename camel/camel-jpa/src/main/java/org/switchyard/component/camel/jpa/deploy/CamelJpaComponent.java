@@ -18,6 +18,8 @@
  */
 package org.switchyard.component.camel.jpa.deploy;
 
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.common.deploy.BaseBindingActivator;
 import org.switchyard.component.camel.common.deploy.BaseBindingComponent;
 import org.switchyard.component.camel.jpa.model.v1.V1CamelJpaBindingModel;
 
@@ -33,4 +35,9 @@ public class CamelJpaComponent extends BaseBindingComponent {
         super("CamelJpaComponent", V1CamelJpaBindingModel.JPA);
     }
 
+    @Override
+    protected BaseBindingActivator createActivator(SwitchYardCamelContext context, String... types) {
+        return new CamelJpaActivator(context, types);
+    }
+
 }
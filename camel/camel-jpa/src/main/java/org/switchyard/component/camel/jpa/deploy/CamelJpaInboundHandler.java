@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.jpa.deploy;
+
+import javax.xml.namespace.QName;
+
+import org.apache.camel.model.RouteDefinition;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.common.SwitchYardRouteDefinition;
+import org.switchyard.component.camel.common.handler.InboundHandler;
+import org.switchyard.component.camel.common.handler.MessageComposerProcessor;
+import org.switchyard.component.camel.common.handler.OperationSelectorProcessor;
+import org.switchyard.component.camel.common.model.CamelBindingModel;
+import org.switchyard.component.camel.jpa.model.CamelJpaBindingModel;
+import org.switchyard.exception.SwitchYardException;
+
+/**
+ * Inbound handler for JPA binding. When a page size is configured, entities are polled by a
+ * {@link PagedJpaConsumer}, which reads, delivers and consumes them one page per transaction, instead
+ * of by the Camel JPA consumer, which holds every polled entity in one persistence context.
+ */
+public class CamelJpaInboundHandler extends InboundHandler<CamelJpaBindingModel> {
+
+    private final PagedJpaConsumer _pagedConsumer;
+
+    /**
+     * Sole constructor.
+     * 
+     * @param camelBindingModel The CamelBindingModel.
+     * @param camelContext The camel context instance.
+     * @param serviceName The target service name.
+     */
+    public CamelJpaInboundHandler(CamelJpaBindingModel camelBindingModel,
+        SwitchYardCamelContext camelContext, QName serviceName) {
+        super(camelBindingModel, camelContext, serviceName);
+        if (isPaged()) {
+            _pagedConsumer = new PagedJpaConsumer(camelContext, getComponentUri().toString(), getPageEndpointUri(),
+                camelBindingModel.getConsumer());
+        } else {
+            _pagedConsumer = null;
+        }
+    }
+
+    @Override
+    protected RouteDefinition createRouteDefinition() {
+        if (!isPaged()) {
+            return super.createRouteDefinition();
+        }
+        // every page is committed by the paged consumer, so the route itself is not transacted
+        SwitchYardRouteDefinition route = new SwitchYardRouteDefinition(getServiceName());
+        route.routeId(getRouteId()).from(getPageEndpointUri())
+            .process(new MessageComposerProcessor(getBindingModel()))
+            .process(new OperationSelectorProcessor(getServiceName(), getBindingModel()))
+            .to(getSwitchyardEndpointUri());
+        return route;
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        if (_pagedConsumer != null) {
+            try {
+                _pagedConsumer.start();
+            } catch (Exception e) {
+                throw new SwitchYardException("Failed to start paged JPA consumer for service " + getServiceName(), e);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (_pagedConsumer != null) {
+            _pagedConsumer.stop();
+        }
+        super.stop();
+    }
+
+    private boolean isPaged() {
+        if (getBindingModel().getModelConfiguration().getFirstChild(CamelBindingModel.CONSUME) == null) {
+            return false;
+        }
+        Integer pageSize = getBindingModel().getConsumer().getPageSize();
+        return pageSize != null && pageSize.intValue() > 0;
+    }
+
+    private String getPageEndpointUri() {
+        return "direct:switchyard.jpa.page." + getRouteId().replaceAll("[^A-Za-z0-9_.]", "_");
+    }
+
+}
@@ -0,0 +1,462 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.jpa.deploy;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.jpa.Consumed;
+import org.apache.camel.component.jpa.JpaEndpoint;
+import org.apache.camel.util.ObjectHelper;
+import org.apache.camel.util.ServiceHelper;
+import org.apache.log4j.Logger;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.switchyard.common.lang.Strings;
+import org.switchyard.component.camel.jpa.model.CamelJpaConsumerBindingModel;
+import org.switchyard.exception.SwitchYardException;
+
+/**
+ * Polls entities for JPA service bindings with a page size, one page at a time.
+ * <p/>
+ * Every page is read, delivered and consumed (deleted, or marked by its @Consumed method) in its own
+ * transaction, after which the persistence context is flushed and cleared. A poll therefore never
+ * holds more than one page in memory, nor keeps entities locked for longer than their page takes.
+ * Entities of a page are delivered one message each, or all together as one message with a list body.
+ * <p/>
+ * With more than one concurrent page, the poll thread only reads the identifiers of each page and
+ * hands the page to a bounded pool; the pool re-reads, and locks, the entities in the page's own
+ * transaction, skipping any consumed in the meantime. When the pool is busy the poll thread processes
+ * the page itself, which keeps polling in step with processing.
+ * <p/>
+ * With a single page at a time, the next page is read past the rows the previous one left in the query
+ * result: rows which could not be locked, rows which are not entities, and rows whose @Consumed methods
+ * did not take them out of the result. Such rows are delivered at most once per poll.
+ */
+public class PagedJpaConsumer {
+
+    private static final Logger LOGGER = Logger.getLogger(PagedJpaConsumer.class);
+    private static final long DEFAULT_INITIAL_DELAY = 1000L;
+    private static final long DEFAULT_DELAY = 500L;
+
+    private final CamelContext _camelContext;
+    private final String _endpointUri;
+    private final String _routeUri;
+    private final int _pageSize;
+    private final int _maximumResults;
+    private final boolean _delete;
+    private final boolean _lock;
+    private final boolean _singleMessagePerPage;
+    private final int _maxConcurrentPages;
+    private final long _initialDelay;
+    private final long _delay;
+    private final boolean _fixedDelay;
+    private final TimeUnit _timeUnit;
+    private final String _query;
+    private final String _namedQuery;
+    private final String _nativeQuery;
+    private final String _resultClass;
+    private volatile boolean _running;
+    private JpaEndpoint _endpoint;
+    private EntityManagerFactory _entityManagerFactory;
+    private TransactionTemplate _transactionTemplate;
+    private ProducerTemplate _producer;
+    private List<Method> _consumedMethods;
+    private ScheduledExecutorService _scheduler;
+    private ThreadPoolExecutor _pageExecutor;
+
+    /**
+     * Creates a new paged consumer.
+     *
+     * @param camelContext The camel context.
+     * @param endpointUri The URI of the JPA endpoint to poll.
+     * @param routeUri The URI of the route the entities are delivered to.
+     * @param consumer The consumer settings of the binding.
+     */
+    public PagedJpaConsumer(CamelContext camelContext, String endpointUri, String routeUri, CamelJpaConsumerBindingModel consumer) {
+        _camelContext = camelContext;
+        _endpointUri = endpointUri;
+        _routeUri = routeUri;
+        _pageSize = consumer.getPageSize().intValue();
+        Integer maximumResults = consumer.getMaximumResults();
+        _maximumResults = maximumResults != null && maximumResults.intValue() > 0 ? maximumResults.intValue() : 0;
+        // same defaults as the Camel JPA consumer
+        _delete = !Boolean.FALSE.equals(consumer.isConsumeDelete());
+        _lock = !Boolean.FALSE.equals(consumer.isConsumeLockEntity());
+        _singleMessagePerPage = Boolean.TRUE.equals(consumer.isSingleMessagePerPage());
+        Integer maxConcurrentPages = consumer.getMaxConcurrentPages();
+        _maxConcurrentPages = maxConcurrentPages != null ? Math.max(1, maxConcurrentPages.intValue()) : 1;
+        _initialDelay = consumer.getInitialDelay() != null ? consumer.getInitialDelay().longValue() : DEFAULT_INITIAL_DELAY;
+        _delay = consumer.getDelay() != null ? consumer.getDelay().longValue() : DEFAULT_DELAY;
+        _fixedDelay = !Boolean.FALSE.equals(consumer.isUseFixedDelay());
+        _timeUnit = consumer.getTimeUnit() != null ? consumer.getTimeUnit() : TimeUnit.MILLISECONDS;
+        _query = Strings.trimToNull(consumer.getQuery());
+        _namedQuery = Strings.trimToNull(consumer.getNamedQuery());
+        _nativeQuery = Strings.trimToNull(consumer.getNativeQuery());
+        _resultClass = Strings.trimToNull(consumer.getResultClass());
+        if (_maxConcurrentPages > 1 && _nativeQuery != null) {
+            throw new SwitchYardException("maxConcurrentPages needs entity results and cannot be used with consumer.nativeQuery");
+        }
+    }
+
+    /**
+     * Starts polling.
+     *
+     * @throws Exception If the endpoint or producer cannot be created.
+     */
+    public synchronized void start() throws Exception {
+        if (_running) {
+            return;
+        }
+        _endpoint = _camelContext.getEndpoint(_endpointUri, JpaEndpoint.class);
+        _entityManagerFactory = _endpoint.getEntityManagerFactory();
+        _transactionTemplate = new TransactionTemplate(_endpoint.getTransactionManager());
+        _consumedMethods = findConsumedMethods(_endpoint.getEntityType());
+        _producer = _camelContext.createProducerTemplate();
+        String name = "SwitchYard JPA " + _endpoint.getEntityType().getSimpleName();
+        if (_maxConcurrentPages > 1) {
+            _pageExecutor = new ThreadPoolExecutor(_maxConcurrentPages, _maxConcurrentPages, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(_maxConcurrentPages), new NamedThreadFactory(name + " page"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+        _scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(name + " poll"));
+        _running = true;
+        Runnable poll = new Runnable() {
+            @Override
+            public void run() {
+                poll();
+            }
+        };
+        if (_fixedDelay) {
+            _scheduler.scheduleWithFixedDelay(poll, _initialDelay, _delay, _timeUnit);
+        } else {
+            _scheduler.scheduleAtFixedRate(poll, _initialDelay, _delay, _timeUnit);
+        }
+    }
+
+    /**
+     * Stops polling, waiting for the pages being processed.
+     */
+    public synchronized void stop() {
+        _running = false;
+        shutdown(_scheduler);
+        shutdown(_pageExecutor);
+        _scheduler = null;
+        _pageExecutor = null;
+        try {
+            ServiceHelper.stopService(_producer);
+        } catch (Exception e) {
+            LOGGER.debug("Problem stopping JPA page producer", e);
+        }
+        _producer = null;
+    }
+
+    private void poll() {
+        List<Future<?>> pages = new ArrayList<Future<?>>();
+        // only @Consumed methods may leave a delivered row in the query result
+        Set<Object> delivered = _consumedMethods.isEmpty() ? null : new HashSet<Object>();
+        try {
+            int polled = 0;
+            int offset = 0;
+            while (_running) {
+                int limit = _maximumResults > 0 ? Math.min(_pageSize, _maximumResults - polled) : _pageSize;
+                if (limit <= 0) {
+                    break;
+                }
+                int count;
+                if (_pageExecutor != null) {
+                    List<Object> ids = readIdentifiers(offset, limit);
+                    count = ids.size();
+                    if (count > 0) {
+                        pages.add(_pageExecutor.submit(new Page(ids)));
+                    }
+                    // pages are consumed concurrently, so the next one is read past this one
+                    offset += count;
+                    polled += count;
+                } else {
+                    PageCount page = processPage(offset, limit, delivered);
+                    count = page._read;
+                    offset += page._kept;
+                    polled += page._delivered;
+                }
+                if (count < limit) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Problem polling " + _endpoint.getEntityType().getName() + " entities: " + e.getMessage());
+        } finally {
+            // polls never overlap, so wait for the pages handed out by this one
+            for (Future<?> page : pages) {
+                try {
+                    page.get();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException ee) {
+                    LOGGER.warn("Problem processing page of " + _endpoint.getEntityType().getName()
+                        + " entities: " + ee.getCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private PageCount processPage(final int offset, final int limit, final Set<Object> delivered) {
+        return _transactionTemplate.execute(new TransactionCallback<PageCount>() {
+            @Override
+            public PageCount doInTransaction(TransactionStatus status) {
+                EntityManager entityManager = getEntityManager();
+                List<?> entities = createQuery(entityManager).setFirstResult(offset).setMaxResults(limit).getResultList();
+                PageCount count = new PageCount();
+                count._read = entities.size();
+                List<Object> page = new ArrayList<Object>(entities.size());
+                for (Object entity : entities) {
+                    boolean managed = isManaged(entityManager, entity);
+                    if (managed && delivered != null
+                        && !delivered.add(_entityManagerFactory.getPersistenceUnitUtil().getIdentifier(entity))) {
+                        // its @Consumed methods left it in the result
+                        count._kept++;
+                    } else if (managed && _lock && !lock(entityManager, entity)) {
+                        count._kept++;
+                    } else {
+                        page.add(entity);
+                        if (!managed || (!_delete && _consumedMethods.isEmpty())) {
+                            count._kept++;
+                        }
+                    }
+                }
+                deliver(entityManager, page);
+                count._delivered = page.size();
+                return count;
+            }
+        });
+    }
+
+    private List<Object> readIdentifiers(final int offset, final int limit) {
+        return _transactionTemplate.execute(new TransactionCallback<List<Object>>() {
+            @Override
+            public List<Object> doInTransaction(TransactionStatus status) {
+                EntityManager entityManager = getEntityManager();
+                List<?> entities = createQuery(entityManager).setFirstResult(offset).setMaxResults(limit).getResultList();
+                List<Object> ids = new ArrayList<Object>(entities.size());
+                for (Object entity : entities) {
+                    ids.add(_entityManagerFactory.getPersistenceUnitUtil().getIdentifier(entity));
+                }
+                entityManager.clear();
+                return ids;
+            }
+        });
+    }
+
+    private void deliver(EntityManager entityManager, List<Object> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+        if (_singleMessagePerPage) {
+            send(page);
+        } else {
+            for (Object entity : page) {
+                send(entity);
+            }
+        }
+        for (Object entity : page) {
+            consumed(entityManager, entity);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void send(Object body) {
+        Exchange exchange = _endpoint.createExchange();
+        exchange.getIn().setBody(body);
+        _producer.send(_routeUri, exchange);
+        if (exchange.getException() != null) {
+            // rolls back the whole page
+            throw new SwitchYardException("Problem delivering page of " + _endpoint.getEntityType().getName()
+                + " entities: " + exchange.getException().getMessage(), exchange.getException());
+        }
+    }
+
+    private void consumed(EntityManager entityManager, Object entity) {
+        if (!isManaged(entityManager, entity)) {
+            // results of a native query without entity result class cannot be consumed
+            return;
+        } else if (!_consumedMethods.isEmpty()) {
+            for (Method method : _consumedMethods) {
+                ObjectHelper.invokeMethod(method, entity);
+            }
+        } else if (_delete) {
+            entityManager.remove(entity);
+        }
+    }
+
+    private boolean lock(EntityManager entityManager, Object entity) {
+        try {
+            entityManager.lock(entity, LockModeType.PESSIMISTIC_WRITE);
+            return true;
+        } catch (PersistenceException pe) {
+            LOGGER.debug("Skipping entity which could not be locked: " + entity, pe);
+            return false;
+        }
+    }
+
+    private static boolean isManaged(EntityManager entityManager, Object entity) {
+        try {
+            return entityManager.contains(entity);
+        } catch (IllegalArgumentException iae) {
+            // not an entity, such as the rows of a native query
+            return false;
+        }
+    }
+
+    private EntityManager getEntityManager() {
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(_entityManagerFactory);
+        if (entityManager == null) {
+            throw new SwitchYardException("No transactional EntityManager available for " + _endpoint.getEntityType().getName());
+        }
+        return entityManager;
+    }
+
+    private Query createQuery(EntityManager entityManager) {
+        if (_namedQuery != null) {
+            return entityManager.createNamedQuery(_namedQuery);
+        } else if (_nativeQuery != null) {
+            if (_resultClass != null) {
+                return entityManager.createNativeQuery(_nativeQuery, _camelContext.getClassResolver().resolveClass(_resultClass));
+            }
+            return entityManager.createNativeQuery(_nativeQuery);
+        } else if (_query != null) {
+            return entityManager.createQuery(_query);
+        }
+        return entityManager.createQuery("select x from " + _endpoint.getEntityType().getName() + " x");
+    }
+
+    private static List<Method> findConsumedMethods(Class<?> type) {
+        List<Method> methods = new ArrayList<Method>();
+        for (Method method : type.getMethods()) {
+            if (method.getAnnotation(Consumed.class) != null && method.getParameterTypes().length == 0) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    private static void shutdown(ExecutorService executor) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException ie) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A page handed to the pool: the entities are read again, and locked, in the page's own transaction.
+     */
+    private final class Page implements Runnable {
+
+        private final List<Object> _ids;
+
+        private Page(List<Object> ids) {
+            _ids = ids;
+        }
+
+        @Override
+        public void run() {
+            _transactionTemplate.execute(new TransactionCallback<Object>() {
+                @Override
+                public Object doInTransaction(TransactionStatus status) {
+                    EntityManager entityManager = getEntityManager();
+                    Class<?> type = _endpoint.getEntityType();
+                    List<Object> page = new ArrayList<Object>(_ids.size());
+                    for (Object id : _ids) {
+                        Object entity = _lock ? entityManager.find(type, id, LockModeType.PESSIMISTIC_WRITE) : entityManager.find(type, id);
+                        // gone means consumed since the page was read
+                        if (entity != null) {
+                            page.add(entity);
+                        }
+                    }
+                    deliver(entityManager, page);
+                    return null;
+                }
+            });
+        }
+
+    }
+
+    /**
+     * The rows read by a page, how many of them were delivered, and how many are left in the query result.
+     */
+    private static final class PageCount {
+
+        private int _read;
+        private int _delivered;
+        private int _kept;
+
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger _count = new AtomicInteger();
+        private final String _prefix;
+
+        private NamedThreadFactory(String prefix) {
+            _prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, _prefix + "-" + _count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
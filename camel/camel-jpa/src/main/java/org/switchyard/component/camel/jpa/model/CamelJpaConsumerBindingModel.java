@@ -155,4 +155,53 @@ public interface CamelJpaConsumerBindingModel extends CamelScheduledBatchPollCon
      */
     CamelJpaConsumerBindingModel setTransacted(Boolean transacted);
 
+    /**
+     * Number of entities read, delivered and committed together.
+     * 
+     * @return Page size.
+     */
+    Integer getPageSize();
+
+    /**
+     * Switches the consumer to paged polling: each poll reads the entities page by page, and every
+     * page is delivered and committed in its own transaction, after which the persistence context
+     * is flushed and cleared.
+     * 
+     * @param pageSize Number of entities per page.
+     * @return a reference to this binding model
+     */
+    CamelJpaConsumerBindingModel setPageSize(Integer pageSize);
+
+    /**
+     * Whether a page of entities is delivered as one message.
+     * 
+     * @return True if each page becomes one message.
+     */
+    Boolean isSingleMessagePerPage();
+
+    /**
+     * Delivers every page as one message with a list of entities as body, instead of one
+     * message per entity. Only has an effect with paged polling.
+     * 
+     * @param singleMessagePerPage Deliver pages as one message.
+     * @return a reference to this binding model
+     */
+    CamelJpaConsumerBindingModel setSingleMessagePerPage(Boolean singleMessagePerPage);
+
+    /**
+     * Maximum number of pages processed concurrently.
+     * 
+     * @return Maximum concurrent pages.
+     */
+    Integer getMaxConcurrentPages();
+
+    /**
+     * Processes up to this many pages of a poll concurrently. Only has an effect with paged
+     * polling of entities.
+     * 
+     * @param maxConcurrentPages Maximum concurrent pages.
+     * @return a reference to this binding model
+     */
+    CamelJpaConsumerBindingModel setMaxConcurrentPages(Integer maxConcurrentPages);
+
 }
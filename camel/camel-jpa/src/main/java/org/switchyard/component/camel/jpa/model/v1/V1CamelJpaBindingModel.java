@@ -162,7 +162,8 @@ public class V1CamelJpaBindingModel extends V1BaseCamelBindingModel
         String baseUri = JPA + "://" + getEntityClassName();
 
         QueryString queryStr = new QueryString();
-        traverseConfiguration(children, queryStr, ENTITY_CLASS_NAME);
+        traverseConfiguration(children, queryStr, ENTITY_CLASS_NAME, V1CamelJpaConsumerBindingModel.PAGE_SIZE,
+            V1CamelJpaConsumerBindingModel.SINGLE_MESSAGE_PER_PAGE, V1CamelJpaConsumerBindingModel.MAX_CONCURRENT_PAGES);
 
         return URI.create(baseUri + UnsafeUriCharactersEncoder.encode(queryStr.toString()));
     }
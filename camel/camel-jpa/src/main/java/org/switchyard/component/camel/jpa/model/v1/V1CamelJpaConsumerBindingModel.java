@@ -35,6 +35,21 @@ import org.switchyard.config.model.Descriptor;
 public class V1CamelJpaConsumerBindingModel extends V1CamelScheduledBatchPollConsumer
     implements CamelJpaConsumerBindingModel {
 
+    /**
+     * The name of the 'pageSize' element.
+     */
+    public static final String PAGE_SIZE = "pageSize";
+
+    /**
+     * The name of the 'singleMessagePerPage' element.
+     */
+    public static final String SINGLE_MESSAGE_PER_PAGE = "singleMessagePerPage";
+
+    /**
+     * The name of the 'maxConcurrentPages' element.
+     */
+    public static final String MAX_CONCURRENT_PAGES = "maxConcurrentPages";
+
     private static final String CONSUME_DELETE = "consumeDelete";
     private static final String CONSUME_LOCK_ENTITY = "consumeLockEntity";
     private static final String MAXIMUM_RESULTS = "maximumResults";
@@ -54,7 +69,8 @@ public class V1CamelJpaConsumerBindingModel extends V1CamelScheduledBatchPollCon
         super(config, desc);
 
         setModelChildrenOrder(CONSUME_DELETE, CONSUME_LOCK_ENTITY, MAXIMUM_RESULTS, QUERY,
-            NAMED_QUERY, NATIVE_QUERY, RESULT_CLASS, TRANSACTED);
+            NAMED_QUERY, NATIVE_QUERY, RESULT_CLASS, TRANSACTED, PAGE_SIZE,
+            SINGLE_MESSAGE_PER_PAGE, MAX_CONCURRENT_PAGES);
     }
 
     /**
@@ -144,4 +160,34 @@ public class V1CamelJpaConsumerBindingModel extends V1CamelScheduledBatchPollCon
         return setConfig(TRANSACTED, transacted);
     }
 
+    @Override
+    public Integer getPageSize() {
+        return getIntegerConfig(PAGE_SIZE);
+    }
+
+    @Override
+    public V1CamelJpaConsumerBindingModel setPageSize(Integer pageSize) {
+        return setConfig(PAGE_SIZE, pageSize);
+    }
+
+    @Override
+    public Boolean isSingleMessagePerPage() {
+        return getBooleanConfig(SINGLE_MESSAGE_PER_PAGE);
+    }
+
+    @Override
+    public V1CamelJpaConsumerBindingModel setSingleMessagePerPage(Boolean singleMessagePerPage) {
+        return setConfig(SINGLE_MESSAGE_PER_PAGE, singleMessagePerPage);
+    }
+
+    @Override
+    public Integer getMaxConcurrentPages() {
+        return getIntegerConfig(MAX_CONCURRENT_PAGES);
+    }
+
+    @Override
+    public V1CamelJpaConsumerBindingModel setMaxConcurrentPages(Integer maxConcurrentPages) {
+        return setConfig(MAX_CONCURRENT_PAGES, maxConcurrentPages);
+    }
+
 }
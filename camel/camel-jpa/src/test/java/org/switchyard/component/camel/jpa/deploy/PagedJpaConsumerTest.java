@@ -0,0 +1,466 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.jpa.deploy;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.PessimisticLockException;
+import javax.persistence.Query;
+
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.jpa.Consumed;
+import org.apache.camel.component.jpa.JpaEndpoint;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.switchyard.component.camel.jpa.model.CamelJpaConsumerBindingModel;
+
+/**
+ * Test for {@link PagedJpaConsumer}, against an in-memory table behind mocked JPA resources.
+ */
+public class PagedJpaConsumerTest {
+
+    private static final String JPA_URI = "jpa:Row";
+    private static final String ROUTE_URI = "direct:page";
+
+    private final List<Object> _table = new CopyOnWriteArrayList<Object>();
+    private final List<Object> _received = new CopyOnWriteArrayList<Object>();
+    private final Set<Object> _unlockable = new HashSet<Object>();
+    private final AtomicInteger _commits = new AtomicInteger();
+    private final AtomicInteger _rollbacks = new AtomicInteger();
+    private volatile boolean _filterConsumed;
+    private volatile Object _poison;
+    private DefaultCamelContext _camelContext;
+    private JpaEndpoint _endpoint;
+    private EntityManager _entityManager;
+    private CamelJpaConsumerBindingModel _model;
+    private PagedJpaConsumer _consumer;
+
+    @Before
+    public void setUp() throws Exception {
+        final EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        PersistenceUnitUtil unitUtil = mock(PersistenceUnitUtil.class);
+        when(unitUtil.getIdentifier(any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return ((Row) invocation.getArguments()[0]).getId();
+            }
+        });
+        when(entityManagerFactory.getPersistenceUnitUtil()).thenReturn(unitUtil);
+        _entityManager = createEntityManager();
+
+        // each transaction binds the entity manager to its thread, as a JPA transaction manager does
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenAnswer(new Answer<TransactionStatus>() {
+            @Override
+            public TransactionStatus answer(InvocationOnMock invocation) {
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(_entityManager));
+                return mock(TransactionStatus.class);
+            }
+        });
+        doAnswer(new Completion(entityManagerFactory, _commits)).when(transactionManager).commit(any(TransactionStatus.class));
+        doAnswer(new Completion(entityManagerFactory, _rollbacks)).when(transactionManager).rollback(any(TransactionStatus.class));
+
+        _endpoint = mock(JpaEndpoint.class);
+        when(_endpoint.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+        when(_endpoint.getTransactionManager()).thenReturn(transactionManager);
+        doReturn(Row.class).when(_endpoint).getEntityType();
+        _camelContext = new DefaultCamelContext() {
+            @Override
+            public <T extends Endpoint> T getEndpoint(String name, Class<T> endpointType) {
+                return JPA_URI.equals(name) ? endpointType.cast(_endpoint) : super.getEndpoint(name, endpointType);
+            }
+        };
+        when(_endpoint.createExchange()).thenAnswer(new Answer<Exchange>() {
+            @Override
+            public Exchange answer(InvocationOnMock invocation) {
+                return new DefaultExchange(_camelContext);
+            }
+        });
+        _camelContext.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                errorHandler(noErrorHandler());
+                from(ROUTE_URI).process(new Processor() {
+                    @Override
+                    public void process(Exchange exchange) {
+                        Object body = exchange.getIn().getBody();
+                        if (body == _poison) {
+                            throw new IllegalStateException("poison entity");
+                        }
+                        _received.add(body);
+                    }
+                });
+            }
+        });
+        _camelContext.start();
+
+        _model = mock(CamelJpaConsumerBindingModel.class);
+        when(_model.getPageSize()).thenReturn(2);
+        when(_model.getInitialDelay()).thenReturn(0);
+        // a single poll per test
+        when(_model.getDelay()).thenReturn(60000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (_consumer != null) {
+            _consumer.stop();
+        }
+        _camelContext.stop();
+    }
+
+    @Test
+    public void deletesPageByPage() throws Exception {
+        List<Row> rows = insert(5);
+
+        poll(5);
+
+        assertEquals(rows, _received);
+        assertTrue(_table.isEmpty());
+        assertEquals(3, _commits.get());
+    }
+
+    @Test
+    public void readsPastRowsWhichCannotBeLocked() throws Exception {
+        List<Row> rows = insert(5);
+        _unlockable.add(rows.get(1));
+
+        poll(4);
+
+        assertEquals(Arrays.asList(rows.get(0), rows.get(2), rows.get(3), rows.get(4)), _received);
+        assertEquals(Arrays.<Object>asList(rows.get(1)), _table);
+    }
+
+    @Test
+    public void readsPastRowsWhichAreKept() throws Exception {
+        when(_model.isConsumeDelete()).thenReturn(false);
+        List<Row> rows = insert(5);
+
+        poll(5);
+
+        assertEquals(rows, _received);
+        assertEquals(rows, _table);
+    }
+
+    @Test
+    public void consumedRowsLeftInTheResultAreDeliveredOnce() throws Exception {
+        doReturn(ConsumedRow.class).when(_endpoint).getEntityType();
+        List<ConsumedRow> rows = insertConsumed(5);
+
+        poll(5);
+
+        assertEquals(rows, _received);
+        for (ConsumedRow row : rows) {
+            assertTrue(row.isConsumed());
+        }
+        verify(_entityManager, never()).remove(any());
+    }
+
+    @Test
+    public void consumedRowsTakenOutOfTheResult() throws Exception {
+        doReturn(ConsumedRow.class).when(_endpoint).getEntityType();
+        _filterConsumed = true;
+        List<ConsumedRow> rows = insertConsumed(5);
+
+        poll(5);
+
+        assertEquals(rows, _received);
+        assertEquals(3, _commits.get());
+    }
+
+    @Test
+    public void deliversNativeRowsWithoutLockingThem() throws Exception {
+        when(_model.getNativeQuery()).thenReturn("select name from ROW");
+        List<Object> names = Arrays.<Object>asList("a", "b", "c");
+        _table.addAll(names);
+
+        poll(3);
+
+        assertEquals(names, _received);
+        assertEquals(names, _table);
+        verify(_entityManager, never()).lock(any(), any(LockModeType.class));
+    }
+
+    @Test
+    public void deliversPageAsOneMessage() throws Exception {
+        when(_model.isSingleMessagePerPage()).thenReturn(true);
+        List<Row> rows = insert(3);
+
+        poll(2);
+
+        assertEquals(Arrays.<Object>asList(rows.subList(0, 2), rows.subList(2, 3)), _received);
+    }
+
+    @Test
+    public void rollsBackFailedPage() throws Exception {
+        List<Row> rows = insert(5);
+        _poison = rows.get(2);
+
+        poll(2);
+
+        assertEquals(rows.subList(0, 2), _received);
+        assertEquals(rows.subList(2, 5), _table);
+        assertEquals(1, _commits.get());
+        assertEquals(1, _rollbacks.get());
+    }
+
+    @Test
+    public void processesConcurrentPages() throws Exception {
+        when(_model.getMaxConcurrentPages()).thenReturn(2);
+        when(_model.isConsumeDelete()).thenReturn(false);
+        List<Row> rows = insert(5);
+
+        poll(5);
+
+        assertEquals(5, _received.size());
+        assertEquals(new HashSet<Object>(rows), new HashSet<Object>(_received));
+        verify(_entityManager, never()).lock(any(), any(LockModeType.class));
+    }
+
+    private void poll(int expected) throws Exception {
+        _consumer = new PagedJpaConsumer(_camelContext, JPA_URI, ROUTE_URI, _model);
+        _consumer.start();
+        for (int i = 0; i < 500 && _received.size() < expected; i++) {
+            Thread.sleep(10);
+        }
+        // waits for the poll to finish
+        _consumer.stop();
+        _consumer = null;
+    }
+
+    private List<Row> insert(int count) {
+        List<Row> rows = new ArrayList<Row>();
+        for (int i = 1; i <= count; i++) {
+            rows.add(new Row(i));
+        }
+        _table.addAll(rows);
+        return rows;
+    }
+
+    private List<ConsumedRow> insertConsumed(int count) {
+        List<ConsumedRow> rows = new ArrayList<ConsumedRow>();
+        for (int i = 1; i <= count; i++) {
+            rows.add(new ConsumedRow(i));
+        }
+        _table.addAll(rows);
+        return rows;
+    }
+
+    private EntityManager createEntityManager() {
+        EntityManager entityManager = mock(EntityManager.class);
+        Answer<Query> query = new Answer<Query>() {
+            @Override
+            public Query answer(InvocationOnMock invocation) {
+                return createQuery();
+            }
+        };
+        when(entityManager.createQuery(anyString())).thenAnswer(query);
+        when(entityManager.createNativeQuery(anyString())).thenAnswer(query);
+        when(entityManager.contains(any())).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                Object entity = invocation.getArguments()[0];
+                if (!(entity instanceof Row)) {
+                    throw new IllegalArgumentException("Not an entity: " + entity);
+                }
+                return _table.contains(entity);
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                Object entity = invocation.getArguments()[0];
+                if (!(entity instanceof Row)) {
+                    throw new IllegalArgumentException("Not an entity: " + entity);
+                }
+                if (_unlockable.contains(entity)) {
+                    throw new PessimisticLockException("locked by another transaction");
+                }
+                return null;
+            }
+        }).when(entityManager).lock(any(), any(LockModeType.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                _table.remove(invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(entityManager).remove(any());
+        Answer<Object> find = new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                for (Object row : _table) {
+                    if (((Row) row).getId().equals(invocation.getArguments()[1])) {
+                        return row;
+                    }
+                }
+                return null;
+            }
+        };
+        when(entityManager.find(any(Class.class), any())).thenAnswer(find);
+        when(entityManager.find(any(Class.class), any(), any(LockModeType.class))).thenAnswer(find);
+        return entityManager;
+    }
+
+    private Query createQuery() {
+        final Query query = mock(Query.class);
+        final int[] range = new int[] {0, Integer.MAX_VALUE};
+        when(query.setFirstResult(anyInt())).thenAnswer(new Answer<Query>() {
+            @Override
+            public Query answer(InvocationOnMock invocation) {
+                range[0] = (Integer) invocation.getArguments()[0];
+                return query;
+            }
+        });
+        when(query.setMaxResults(anyInt())).thenAnswer(new Answer<Query>() {
+            @Override
+            public Query answer(InvocationOnMock invocation) {
+                range[1] = (Integer) invocation.getArguments()[0];
+                return query;
+            }
+        });
+        when(query.getResultList()).thenAnswer(new Answer<List<Object>>() {
+            @Override
+            public List<Object> answer(InvocationOnMock invocation) {
+                List<Object> result = new ArrayList<Object>();
+                for (Object row : _table) {
+                    if (!(_filterConsumed && row instanceof ConsumedRow && ((ConsumedRow) row).isConsumed())) {
+                        result.add(row);
+                    }
+                }
+                int from = Math.min(range[0], result.size());
+                return new ArrayList<Object>(result.subList(from, Math.min(from + range[1], result.size())));
+            }
+        });
+        return query;
+    }
+
+    /**
+     * Ends a transaction, unbinding its entity manager.
+     */
+    private static final class Completion implements Answer<Void> {
+
+        private final EntityManagerFactory _entityManagerFactory;
+        private final AtomicInteger _count;
+
+        private Completion(EntityManagerFactory entityManagerFactory, AtomicInteger count) {
+            _entityManagerFactory = entityManagerFactory;
+            _count = count;
+        }
+
+        @Override
+        public Void answer(InvocationOnMock invocation) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(_entityManagerFactory);
+            _count.incrementAndGet();
+            return null;
+        }
+
+    }
+
+    /**
+     * A polled entity.
+     */
+    public static class Row {
+
+        private final Integer _id;
+
+        Row(int id) {
+            _id = id;
+        }
+
+        /**
+         * Gets the identifier.
+         * @return the identifier
+         */
+        public Integer getId() {
+            return _id;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + _id;
+        }
+
+    }
+
+    /**
+     * A polled entity which is marked as consumed instead of being deleted.
+     */
+    public static class ConsumedRow extends Row {
+
+        private volatile boolean _consumed;
+
+        ConsumedRow(int id) {
+            super(id);
+        }
+
+        /**
+         * Marks this row as consumed.
+         */
+        @Consumed
+        public void consume() {
+            _consumed = true;
+        }
+
+        /**
+         * Whether this row has been consumed.
+         * @return true if consumed
+         */
+        public boolean isConsumed() {
+            return _consumed;
+        }
+
+    }
+
+}
@@ -48,6 +48,9 @@ public class V1CamelJpaConsumerBindingModelTest extends V1BaseCamelServiceBindin
     private static final String NATIVE_QUERY = "select * from users";
     private static final String RESULT_CLASS = "java.util.ArrayList";
     private static final Boolean TRANSACTED = true;
+    private static final Integer PAGE_SIZE = 100;
+    private static final Boolean SINGLE_MESSAGE_PER_PAGE = true;
+    private static final Integer MAX_CONCURRENT_PAGES = 4;
 
     public V1CamelJpaConsumerBindingModelTest() {
         super(JpaEndpoint.class, CAMEL_XML);
@@ -69,7 +72,10 @@ public class V1CamelJpaConsumerBindingModelTest extends V1BaseCamelServiceBindin
             .setNamedQuery(NAMED_QUERY)
             .setNativeQuery(NATIVE_QUERY)
             .setResultClass(RESULT_CLASS)
-            .setTransacted(TRANSACTED);
+            .setTransacted(TRANSACTED)
+            .setPageSize(PAGE_SIZE)
+            .setSingleMessagePerPage(SINGLE_MESSAGE_PER_PAGE)
+            .setMaxConcurrentPages(MAX_CONCURRENT_PAGES);
         return model.setConsumer(consumer);
     }
 
@@ -83,6 +89,9 @@ public class V1CamelJpaConsumerBindingModelTest extends V1BaseCamelServiceBindin
         assertEquals(NAMED_QUERY, consumer.getNamedQuery());
         assertEquals(RESULT_CLASS, consumer.getResultClass());
         assertEquals(TRANSACTED, consumer.isTransacted());
+        assertEquals(PAGE_SIZE, consumer.getPageSize());
+        assertEquals(SINGLE_MESSAGE_PER_PAGE, consumer.isSingleMessagePerPage());
+        assertEquals(MAX_CONCURRENT_PAGES, consumer.getMaxConcurrentPages());
     }
 
     @Override
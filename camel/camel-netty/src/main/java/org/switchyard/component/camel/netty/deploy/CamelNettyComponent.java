@@ -18,6 +18,8 @@
  */
 package org.switchyard.component.camel.netty.deploy;
 
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.common.deploy.BaseBindingActivator;
 import org.switchyard.component.camel.common.deploy.BaseBindingComponent;
 import org.switchyard.component.camel.netty.model.v1.V1CamelNettyTcpBindingModel;
 import org.switchyard.component.camel.netty.model.v1.V1CamelNettyUdpBindingModel;
@@ -37,4 +39,9 @@ public class CamelNettyComponent extends BaseBindingComponent {
         );
     }
 
+    @Override
+    protected BaseBindingActivator createActivator(SwitchYardCamelContext context, String... types) {
+        return new CamelNettyActivator(context, types);
+    }
+
 }
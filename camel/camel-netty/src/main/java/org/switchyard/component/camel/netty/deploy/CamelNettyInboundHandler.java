@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.netty.deploy;
+
+import java.net.URI;
+
+import javax.xml.namespace.QName;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.spi.Synchronization;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.common.CamelConstants;
+import org.switchyard.component.camel.common.SwitchYardRouteDefinition;
+import org.switchyard.component.camel.common.handler.InboundHandler;
+import org.switchyard.component.camel.common.handler.MessageComposerProcessor;
+import org.switchyard.component.camel.common.handler.OperationSelectorProcessor;
+import org.switchyard.component.camel.netty.model.CamelNettyBindingModel;
+
+/**
+ * Inbound handler for Netty bindings, collecting {@link NettyBindingMetrics} for the service.
+ * <p/>
+ * A request counts as in flight from the moment it enters the route until its exchange completes,
+ * which for request/reply services is when the SwitchYard reply has been handed back to Netty.
+ * Such requests complete on the thread delivering the reply, so the Netty worker thread is not
+ * held while the service runs.
+ */
+public class CamelNettyInboundHandler extends InboundHandler<CamelNettyBindingModel> {
+
+    // assigned while the superclass constructor creates the route, so it must not have an initializer
+    private URI _componentUri;
+
+    /**
+     * Sole constructor.
+     * 
+     * @param camelBindingModel The CamelBindingModel.
+     * @param camelContext The camel context instance.
+     * @param serviceName The target service name.
+     */
+    public CamelNettyInboundHandler(CamelNettyBindingModel camelBindingModel,
+        SwitchYardCamelContext camelContext, QName serviceName) {
+        super(camelBindingModel, camelContext, serviceName);
+    }
+
+    @Override
+    protected RouteDefinition createRouteDefinition() {
+        final SwitchYardRouteDefinition route = new SwitchYardRouteDefinition(getServiceName());
+
+        route.routeId(getRouteId()).from(getComponentUri().toString())
+            .process(new InFlightProcessor(getMetrics()))
+            .process(new MessageComposerProcessor(getBindingModel()))
+            .process(new OperationSelectorProcessor(getServiceName(), getBindingModel()));
+        return addTransactionPolicy(route);
+    }
+
+    @Override
+    protected URI getComponentUri() {
+        // metered codecs are registered once, however often the uri is asked for
+        if (_componentUri == null) {
+            _componentUri = MeteredChannelHandler.meterCodecs(super.getComponentUri(), getCamelContext(), getMetrics(), getRegistryPrefix());
+        }
+        return _componentUri;
+    }
+
+    /**
+     * Get the metrics of this service binding.
+     * 
+     * @return The metrics.
+     */
+    public NettyBindingMetrics getMetrics() {
+        // kept in the registry, as the route is created before this handler is fully constructed
+        String name = getRegistryPrefix() + ".metrics";
+        NettyBindingMetrics metrics = getCamelContext().getRegistry().lookup(name, NettyBindingMetrics.class);
+        if (metrics == null) {
+            metrics = new NettyBindingMetrics();
+            getCamelContext().getWritebleRegistry().put(name, metrics);
+        }
+        return metrics;
+    }
+
+    private String getRegistryPrefix() {
+        return "switchyard.netty.service." + getRouteId().replaceAll("[^A-Za-z0-9_.]", "_");
+    }
+
+    /**
+     * Counts a request as in flight until its exchange completes.
+     */
+    private static final class InFlightProcessor implements Processor, Synchronization {
+
+        private final NettyBindingMetrics _metrics;
+
+        private InFlightProcessor(NettyBindingMetrics metrics) {
+            _metrics = metrics;
+        }
+
+        @Override
+        public void process(Exchange exchange) throws Exception {
+            _metrics.requestStarted();
+            exchange.addOnCompletion(this);
+            // Netty completes the exchange from the thread delivering the service reply
+            exchange.setProperty(CamelConstants.ASYNC_REPLY, Boolean.TRUE);
+        }
+
+        @Override
+        public void onComplete(Exchange exchange) {
+            _metrics.requestCompleted();
+        }
+
+        @Override
+        public void onFailure(Exchange exchange) {
+            _metrics.requestCompleted();
+        }
+
+    }
+
+}
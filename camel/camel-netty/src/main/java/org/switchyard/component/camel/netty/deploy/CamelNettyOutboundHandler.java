@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.netty.deploy;
+
+import org.switchyard.Exchange;
+import org.switchyard.HandlerException;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.common.composer.CamelComposition;
+import org.switchyard.component.camel.common.handler.OutboundHandler;
+import org.switchyard.component.camel.netty.model.CamelNettyBindingModel;
+
+/**
+ * Outbound handler for Netty bindings, collecting {@link NettyBindingMetrics} for the reference.
+ * Channels to the remote end are pooled by the Netty producer as configured on the binding.
+ */
+public class CamelNettyOutboundHandler extends OutboundHandler {
+
+    private final NettyBindingMetrics _metrics;
+
+    /**
+     * Creates a new outbound handler.
+     * 
+     * @param binding The reference binding.
+     * @param context The camel context.
+     * @param metrics The metrics to collect into.
+     */
+    public CamelNettyOutboundHandler(CamelNettyBindingModel binding, SwitchYardCamelContext context, NettyBindingMetrics metrics) {
+        super(MeteredChannelHandler.meterCodecs(binding.getComponentURI(), context, metrics,
+            "switchyard.netty.reference." + Integer.toHexString(binding.getComponentURI().hashCode())).toString(),
+            context, CamelComposition.getMessageComposer(binding));
+        _metrics = metrics;
+    }
+
+    /**
+     * Get the metrics of this reference binding.
+     * 
+     * @return The metrics.
+     */
+    public NettyBindingMetrics getMetrics() {
+        return _metrics;
+    }
+
+    @Override
+    public void handleMessage(final Exchange exchange) throws HandlerException {
+        _metrics.requestStarted();
+        try {
+            super.handleMessage(exchange);
+        } finally {
+            _metrics.requestCompleted();
+        }
+    }
+
+}
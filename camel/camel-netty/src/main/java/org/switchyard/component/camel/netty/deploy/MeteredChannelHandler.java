@@ -0,0 +1,261 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.netty.deploy;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+
+import org.apache.camel.util.URISupport;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelDownstreamHandler;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelHandler;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelState;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+import org.jboss.netty.channel.LifeCycleAwareChannelHandler;
+import org.jboss.netty.channel.MessageEvent;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.exception.SwitchYardException;
+
+/**
+ * Wraps an encoder or decoder of a Netty binding to collect {@link NettyBindingMetrics}.
+ * <p/>
+ * The time a codec spends on each message is measured without the time taken by the handlers it
+ * passes the message on to. The first decoder of a binding also counts the channels opened and closed.
+ */
+public class MeteredChannelHandler implements ChannelUpstreamHandler, ChannelDownstreamHandler, LifeCycleAwareChannelHandler {
+
+    private static final String ENCODERS = "encoders";
+    private static final String DECODERS = "decoders";
+
+    private final ChannelHandler _delegate;
+    private final NettyBindingMetrics _metrics;
+    private final boolean _countChannels;
+
+    /**
+     * Creates a new metered handler.
+     * 
+     * @param delegate The encoder or decoder.
+     * @param metrics The binding metrics.
+     * @param countChannels If channel open and close events should be counted.
+     */
+    public MeteredChannelHandler(ChannelHandler delegate, NettyBindingMetrics metrics, boolean countChannels) {
+        _delegate = delegate;
+        _metrics = metrics;
+        _countChannels = countChannels;
+    }
+
+    /**
+     * Replaces the encoders and decoders referenced by a Netty endpoint uri by metered ones, registered
+     * under names starting with the given prefix.
+     * 
+     * @param uri The endpoint uri.
+     * @param context The camel context holding the codecs.
+     * @param metrics The binding metrics.
+     * @param prefix The registry name prefix for the metered codecs.
+     * @return The endpoint uri referencing the metered codecs.
+     */
+    public static URI meterCodecs(URI uri, SwitchYardCamelContext context, NettyBindingMetrics metrics, String prefix) {
+        try {
+            Map<String, Object> parameters = URISupport.parseParameters(uri);
+            boolean metered = meterCodecs(parameters, DECODERS, context, metrics, prefix);
+            metered |= meterCodecs(parameters, ENCODERS, context, metrics, prefix);
+            return metered ? URISupport.createRemainingURI(uri, parameters) : uri;
+        } catch (URISyntaxException use) {
+            throw new SwitchYardException("Invalid Netty endpoint uri " + uri, use);
+        }
+    }
+
+    private static boolean meterCodecs(Map<String, Object> parameters, String key, SwitchYardCamelContext context,
+        NettyBindingMetrics metrics, String prefix) {
+        Object value = parameters.get(key);
+        if (value == null) {
+            return false;
+        }
+        boolean metered = false;
+        StringBuilder refs = new StringBuilder();
+        for (String ref : value.toString().split(",")) {
+            String name = ref.trim();
+            if (name.startsWith("#")) {
+                name = name.substring(1);
+            }
+            Object codec = context.getRegistry().lookup(name);
+            // anything else, such as a handler factory, is left to Camel as it is
+            if (codec instanceof ChannelUpstreamHandler || codec instanceof ChannelDownstreamHandler) {
+                boolean countChannels = DECODERS.equals(key) && !metered;
+                name = prefix + "." + key + "." + name;
+                context.getWritebleRegistry().put(name, new MeteredChannelHandler((ChannelHandler)codec, metrics, countChannels));
+                metered = true;
+            }
+            if (refs.length() > 0) {
+                refs.append(',');
+            }
+            refs.append('#').append(name);
+        }
+        if (metered) {
+            parameters.put(key, refs.toString());
+        }
+        return metered;
+    }
+
+    @Override
+    public void handleUpstream(ChannelHandlerContext ctx, ChannelEvent e) throws Exception {
+        if (_countChannels && e instanceof ChannelStateEvent && ((ChannelStateEvent)e).getState() == ChannelState.OPEN) {
+            if (Boolean.TRUE.equals(((ChannelStateEvent)e).getValue())) {
+                _metrics.channelOpened();
+            } else {
+                _metrics.channelClosed();
+            }
+        }
+        if (!(_delegate instanceof ChannelUpstreamHandler)) {
+            ctx.sendUpstream(e);
+        } else if (e instanceof MessageEvent) {
+            TimedContext timed = new TimedContext(ctx);
+            ((ChannelUpstreamHandler)_delegate).handleUpstream(timed, e);
+            _metrics.decoded(timed.elapsed());
+        } else {
+            ((ChannelUpstreamHandler)_delegate).handleUpstream(ctx, e);
+        }
+    }
+
+    @Override
+    public void handleDownstream(ChannelHandlerContext ctx, ChannelEvent e) throws Exception {
+        if (!(_delegate instanceof ChannelDownstreamHandler)) {
+            ctx.sendDownstream(e);
+        } else if (e instanceof MessageEvent) {
+            TimedContext timed = new TimedContext(ctx);
+            ((ChannelDownstreamHandler)_delegate).handleDownstream(timed, e);
+            _metrics.encoded(timed.elapsed());
+        } else {
+            ((ChannelDownstreamHandler)_delegate).handleDownstream(ctx, e);
+        }
+    }
+
+    @Override
+    public void beforeAdd(ChannelHandlerContext ctx) throws Exception {
+        if (_delegate instanceof LifeCycleAwareChannelHandler) {
+            ((LifeCycleAwareChannelHandler)_delegate).beforeAdd(ctx);
+        }
+    }
+
+    @Override
+    public void afterAdd(ChannelHandlerContext ctx) throws Exception {
+        if (_delegate instanceof LifeCycleAwareChannelHandler) {
+            ((LifeCycleAwareChannelHandler)_delegate).afterAdd(ctx);
+        }
+    }
+
+    @Override
+    public void beforeRemove(ChannelHandlerContext ctx) throws Exception {
+        if (_delegate instanceof LifeCycleAwareChannelHandler) {
+            ((LifeCycleAwareChannelHandler)_delegate).beforeRemove(ctx);
+        }
+    }
+
+    @Override
+    public void afterRemove(ChannelHandlerContext ctx) throws Exception {
+        if (_delegate instanceof LifeCycleAwareChannelHandler) {
+            ((LifeCycleAwareChannelHandler)_delegate).afterRemove(ctx);
+        }
+    }
+
+    /**
+     * A handler context which keeps the time spent passing events on out of the codec's time.
+     */
+    private static final class TimedContext implements ChannelHandlerContext {
+
+        private final ChannelHandlerContext _ctx;
+        private final long _start = System.nanoTime();
+        private long _passedOn;
+
+        private TimedContext(ChannelHandlerContext ctx) {
+            _ctx = ctx;
+        }
+
+        private long elapsed() {
+            return System.nanoTime() - _start - _passedOn;
+        }
+
+        @Override
+        public void sendUpstream(ChannelEvent e) {
+            long start = System.nanoTime();
+            try {
+                _ctx.sendUpstream(e);
+            } finally {
+                _passedOn += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void sendDownstream(ChannelEvent e) {
+            long start = System.nanoTime();
+            try {
+                _ctx.sendDownstream(e);
+            } finally {
+                _passedOn += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public Channel getChannel() {
+            return _ctx.getChannel();
+        }
+
+        @Override
+        public ChannelPipeline getPipeline() {
+            return _ctx.getPipeline();
+        }
+
+        @Override
+        public String getName() {
+            return _ctx.getName();
+        }
+
+        @Override
+        public ChannelHandler getHandler() {
+            return _ctx.getHandler();
+        }
+
+        @Override
+        public boolean canHandleUpstream() {
+            return _ctx.canHandleUpstream();
+        }
+
+        @Override
+        public boolean canHandleDownstream() {
+            return _ctx.canHandleDownstream();
+        }
+
+        @Override
+        public Object getAttachment() {
+            return _ctx.getAttachment();
+        }
+
+        @Override
+        public void setAttachment(Object attachment) {
+            _ctx.setAttachment(attachment);
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.netty.deploy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics for a Netty service or reference binding.
+ * <p/>
+ * Open channels and codec times are collected by the configured encoders and decoders, so they are
+ * only available for bindings which declare their codecs.
+ */
+public class NettyBindingMetrics {
+
+    private final AtomicInteger _openChannels = new AtomicInteger();
+    private final AtomicInteger _inFlightRequests = new AtomicInteger();
+    private final AtomicLong _requests = new AtomicLong();
+    private final AtomicLong _encoded = new AtomicLong();
+    private final AtomicLong _encodeNanos = new AtomicLong();
+    private final AtomicLong _decoded = new AtomicLong();
+    private final AtomicLong _decodeNanos = new AtomicLong();
+
+    /**
+     * Gets the number of currently open channels.
+     * @return the count
+     */
+    public int getOpenChannels() {
+        return Math.max(0, _openChannels.get());
+    }
+
+    /**
+     * Gets the number of requests currently being processed.
+     * @return the count
+     */
+    public int getInFlightRequests() {
+        return Math.max(0, _inFlightRequests.get());
+    }
+
+    /**
+     * Gets the total number of requests processed.
+     * @return the count
+     */
+    public long getRequests() {
+        return _requests.get();
+    }
+
+    /**
+     * Gets the number of messages encoded.
+     * @return the count
+     */
+    public long getEncoded() {
+        return _encoded.get();
+    }
+
+    /**
+     * Gets the average time spent in the encoders per message.
+     * @return the time in microseconds
+     */
+    public double getAverageEncodeTime() {
+        long encoded = getEncoded();
+        return encoded > 0 ? _encodeNanos.get() / (encoded * 1000d) : 0d;
+    }
+
+    /**
+     * Gets the number of messages decoded.
+     * @return the count
+     */
+    public long getDecoded() {
+        return _decoded.get();
+    }
+
+    /**
+     * Gets the average time spent in the decoders per message.
+     * @return the time in microseconds
+     */
+    public double getAverageDecodeTime() {
+        long decoded = getDecoded();
+        return decoded > 0 ? _decodeNanos.get() / (decoded * 1000d) : 0d;
+    }
+
+    void channelOpened() {
+        _openChannels.incrementAndGet();
+    }
+
+    void channelClosed() {
+        _openChannels.decrementAndGet();
+    }
+
+    void requestStarted() {
+        _requests.incrementAndGet();
+        _inFlightRequests.incrementAndGet();
+    }
+
+    void requestCompleted() {
+        _inFlightRequests.decrementAndGet();
+    }
+
+    void encoded(long nanos) {
+        _encoded.incrementAndGet();
+        _encodeNanos.addAndGet(nanos);
+    }
+
+    void decoded(long nanos) {
+        _decoded.incrementAndGet();
+        _decodeNanos.addAndGet(nanos);
+    }
+
+}
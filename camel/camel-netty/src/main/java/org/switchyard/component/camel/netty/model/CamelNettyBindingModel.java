@@ -321,4 +321,79 @@ public interface CamelNettyBindingModel extends CamelBindingModel {
      */
     CamelNettyBindingModel setDisconnect(Boolean disconnect);
 
+    /**
+     * Whether channels of a reference binding are pooled and reused between requests.
+     * 
+     * @return True if channels are pooled.
+     */
+    Boolean isProducerPoolEnabled();
+
+    /**
+     * Specifies whether channels of a reference binding are pooled and reused between requests.
+     * 
+     * @param producerPoolEnabled Pool channels or not.
+     * @return a reference to this binding model
+     */
+    CamelNettyBindingModel setProducerPoolEnabled(Boolean producerPoolEnabled);
+
+    /**
+     * Maximum number of channels a reference binding keeps open at the same time.
+     * 
+     * @return Maximum pool size, negative for no limit.
+     */
+    Integer getProducerPoolMaxActive();
+
+    /**
+     * Specifies the maximum number of channels a reference binding keeps open at the same time.
+     * 
+     * @param producerPoolMaxActive Maximum pool size.
+     * @return a reference to this binding model
+     */
+    CamelNettyBindingModel setProducerPoolMaxActive(Integer producerPoolMaxActive);
+
+    /**
+     * Minimum number of idle channels kept in the pool of a reference binding.
+     * 
+     * @return Minimum idle channels.
+     */
+    Integer getProducerPoolMinIdle();
+
+    /**
+     * Specifies the minimum number of idle channels kept in the pool of a reference binding.
+     * 
+     * @param producerPoolMinIdle Minimum idle channels.
+     * @return a reference to this binding model
+     */
+    CamelNettyBindingModel setProducerPoolMinIdle(Integer producerPoolMinIdle);
+
+    /**
+     * Maximum number of idle channels kept in the pool of a reference binding.
+     * 
+     * @return Maximum idle channels.
+     */
+    Integer getProducerPoolMaxIdle();
+
+    /**
+     * Specifies the maximum number of idle channels kept in the pool of a reference binding.
+     * 
+     * @param producerPoolMaxIdle Maximum idle channels.
+     * @return a reference to this binding model
+     */
+    CamelNettyBindingModel setProducerPoolMaxIdle(Integer producerPoolMaxIdle);
+
+    /**
+     * Time in milliseconds a pooled channel may stay idle before it is closed.
+     * 
+     * @return Idle timeout in milliseconds.
+     */
+    Long getProducerPoolMinEvictableIdle();
+
+    /**
+     * Specifies the time in milliseconds a pooled channel may stay idle before it is closed.
+     * 
+     * @param producerPoolMinEvictableIdle Idle timeout in milliseconds.
+     * @return a reference to this binding model
+     */
+    CamelNettyBindingModel setProducerPoolMinEvictableIdle(Long producerPoolMinEvictableIdle);
+
 }
@@ -61,6 +61,11 @@ public abstract class V1CamelNettyBindingModel extends V1BaseCamelBindingModel
     private static final String WORKER_COUNT = "workerCount";
     private static final String SYNC = "sync";
     private static final String DISCONNECT = "disconnect";
+    private static final String PRODUCER_POOL_ENABLED = "producerPoolEnabled";
+    private static final String PRODUCER_POOL_MAX_ACTIVE = "producerPoolMaxActive";
+    private static final String PRODUCER_POOL_MIN_IDLE = "producerPoolMinIdle";
+    private static final String PRODUCER_POOL_MAX_IDLE = "producerPoolMaxIdle";
+    private static final String PRODUCER_POOL_MIN_EVICTABLE_IDLE = "producerPoolMinEvictableIdle";
 
     /**
      * Create a V1CamelNettyBindingModel from the specified configuration and descriptor.
@@ -78,7 +83,9 @@ public abstract class V1CamelNettyBindingModel extends V1BaseCamelBindingModel
         setModelChildrenOrder(HOST, PORT, RECEIVE_BUFFER_SIZE, SEND_BUFFER_SIZE,
                 SSL, SSL_HANDLER, PASSPHRASE, SECURITY_PROVIDER, KEY_STORE_FORMAT,
                 KEY_STORE_FILE, TRUST_STORE_FILE, SSL_CONTEXT_PARAMETERS_REF, REUSE_ADDRESS,
-                ENCODERS, DECODERS, ALLOW_DEFAULT_CODEC, WORKER_COUNT, SYNC, DISCONNECT);
+                ENCODERS, DECODERS, ALLOW_DEFAULT_CODEC, WORKER_COUNT, SYNC, DISCONNECT,
+                PRODUCER_POOL_ENABLED, PRODUCER_POOL_MAX_ACTIVE, PRODUCER_POOL_MIN_IDLE,
+                PRODUCER_POOL_MAX_IDLE, PRODUCER_POOL_MIN_EVICTABLE_IDLE);
     }
 
     @Override
@@ -271,6 +278,56 @@ public abstract class V1CamelNettyBindingModel extends V1BaseCamelBindingModel
         return setConfig(DISCONNECT, disconnect);
     }
 
+    @Override
+    public Boolean isProducerPoolEnabled() {
+        return getBooleanConfig(PRODUCER_POOL_ENABLED);
+    }
+
+    @Override
+    public V1CamelNettyBindingModel setProducerPoolEnabled(Boolean producerPoolEnabled) {
+        return setConfig(PRODUCER_POOL_ENABLED, producerPoolEnabled);
+    }
+
+    @Override
+    public Integer getProducerPoolMaxActive() {
+        return getIntegerConfig(PRODUCER_POOL_MAX_ACTIVE);
+    }
+
+    @Override
+    public V1CamelNettyBindingModel setProducerPoolMaxActive(Integer producerPoolMaxActive) {
+        return setConfig(PRODUCER_POOL_MAX_ACTIVE, producerPoolMaxActive);
+    }
+
+    @Override
+    public Integer getProducerPoolMinIdle() {
+        return getIntegerConfig(PRODUCER_POOL_MIN_IDLE);
+    }
+
+    @Override
+    public V1CamelNettyBindingModel setProducerPoolMinIdle(Integer producerPoolMinIdle) {
+        return setConfig(PRODUCER_POOL_MIN_IDLE, producerPoolMinIdle);
+    }
+
+    @Override
+    public Integer getProducerPoolMaxIdle() {
+        return getIntegerConfig(PRODUCER_POOL_MAX_IDLE);
+    }
+
+    @Override
+    public V1CamelNettyBindingModel setProducerPoolMaxIdle(Integer producerPoolMaxIdle) {
+        return setConfig(PRODUCER_POOL_MAX_IDLE, producerPoolMaxIdle);
+    }
+
+    @Override
+    public Long getProducerPoolMinEvictableIdle() {
+        return getLongConfig(PRODUCER_POOL_MIN_EVICTABLE_IDLE);
+    }
+
+    @Override
+    public V1CamelNettyBindingModel setProducerPoolMinEvictableIdle(Long producerPoolMinEvictableIdle) {
+        return setConfig(PRODUCER_POOL_MIN_EVICTABLE_IDLE, producerPoolMinEvictableIdle);
+    }
+
     protected abstract String getProtocol();
 
     @Override
@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.netty.deploy;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+
+import javax.xml.namespace.QName;
+
+import org.apache.camel.util.URISupport;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+import org.junit.Test;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.netty.model.CamelNettyBindingModel;
+
+/**
+ * Test for {@link CamelNettyInboundHandler}.
+ */
+public class CamelNettyInboundHandlerTest {
+
+    @Test
+    public void metersCodecsOnce() throws Exception {
+        SwitchYardCamelContext context = new SwitchYardCamelContext(false);
+        context.getWritebleRegistry().put("decoder", mock(ChannelUpstreamHandler.class));
+        CamelNettyBindingModel model = mock(CamelNettyBindingModel.class);
+        when(model.getComponentURI()).thenReturn(URI.create("netty:tcp://localhost:10230?decoders=#decoder&sync=true"));
+
+        CamelNettyInboundHandler handler = new CamelNettyInboundHandler(model, context, new QName("urn:test", "Service"));
+        String name = "switchyard.netty.service." + handler.getRouteId().replaceAll("[^A-Za-z0-9_.]", "_") + ".decoders.decoder";
+        Object metered = context.getRegistry().lookup(name);
+        URI uri = handler.getComponentUri();
+
+        assertTrue(metered instanceof MeteredChannelHandler);
+        assertEquals("#" + name, URISupport.parseParameters(uri).get("decoders"));
+        assertFalse(handler.hasTransactionManager());
+        assertSame(uri, handler.getComponentUri());
+        // asking again does not replace the metered codec
+        assertSame(metered, context.getRegistry().lookup(name));
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.netty.deploy;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+
+import org.apache.camel.util.URISupport;
+import org.jboss.netty.channel.ChannelDownstreamHandler;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelState;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+import org.jboss.netty.channel.MessageEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+
+/**
+ * Test for {@link MeteredChannelHandler}.
+ */
+public class MeteredChannelHandlerTest {
+
+    private static final long PASS_ON_MILLIS = 50L;
+
+    private NettyBindingMetrics _metrics;
+    private ChannelHandlerContext _ctx;
+
+    @Before
+    public void setUp() {
+        _metrics = new NettyBindingMetrics();
+        _ctx = mock(ChannelHandlerContext.class);
+        // the handlers after the codec are slow, which must not count as codec time
+        Answer<Void> slow = new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Exception {
+                Thread.sleep(PASS_ON_MILLIS);
+                return null;
+            }
+        };
+        doAnswer(slow).when(_ctx).sendUpstream(any(ChannelEvent.class));
+        doAnswer(slow).when(_ctx).sendDownstream(any(ChannelEvent.class));
+    }
+
+    @Test
+    public void decodeTimeExcludesHandlersPassedOnTo() throws Exception {
+        ChannelUpstreamHandler decoder = mock(ChannelUpstreamHandler.class);
+        doAnswer(passOn(true)).when(decoder).handleUpstream(any(ChannelHandlerContext.class), any(ChannelEvent.class));
+        MessageEvent event = mock(MessageEvent.class);
+
+        new MeteredChannelHandler(decoder, _metrics, false).handleUpstream(_ctx, event);
+
+        verify(_ctx).sendUpstream(event);
+        assertEquals(1, _metrics.getDecoded());
+        assertTrue(_metrics.getAverageDecodeTime() < PASS_ON_MILLIS * 1000d);
+    }
+
+    @Test
+    public void encodeTimeExcludesHandlersPassedOnTo() throws Exception {
+        ChannelDownstreamHandler encoder = mock(ChannelDownstreamHandler.class);
+        doAnswer(passOn(false)).when(encoder).handleDownstream(any(ChannelHandlerContext.class), any(ChannelEvent.class));
+        MessageEvent event = mock(MessageEvent.class);
+
+        new MeteredChannelHandler(encoder, _metrics, false).handleDownstream(_ctx, event);
+
+        verify(_ctx).sendDownstream(event);
+        assertEquals(1, _metrics.getEncoded());
+        assertTrue(_metrics.getAverageEncodeTime() < PASS_ON_MILLIS * 1000d);
+    }
+
+    @Test
+    public void eventsInTheOtherDirectionArePassedOn() throws Exception {
+        ChannelUpstreamHandler decoder = mock(ChannelUpstreamHandler.class);
+        MessageEvent event = mock(MessageEvent.class);
+
+        new MeteredChannelHandler(decoder, _metrics, false).handleDownstream(_ctx, event);
+
+        verify(_ctx).sendDownstream(event);
+        assertEquals(0, _metrics.getEncoded());
+    }
+
+    @Test
+    public void countsChannelsWhenAsked() throws Exception {
+        ChannelUpstreamHandler decoder = mock(ChannelUpstreamHandler.class);
+        MeteredChannelHandler counting = new MeteredChannelHandler(decoder, _metrics, true);
+        MeteredChannelHandler other = new MeteredChannelHandler(decoder, _metrics, false);
+
+        counting.handleUpstream(_ctx, openEvent(true));
+        counting.handleUpstream(_ctx, openEvent(true));
+        other.handleUpstream(_ctx, openEvent(true));
+        counting.handleUpstream(_ctx, openEvent(false));
+
+        assertEquals(1, _metrics.getOpenChannels());
+        assertEquals(0, _metrics.getDecoded());
+    }
+
+    @Test
+    public void metersRegisteredCodecsOnly() throws Exception {
+        SwitchYardCamelContext context = new SwitchYardCamelContext(false);
+        ChannelUpstreamHandler decoder = mock(ChannelUpstreamHandler.class);
+        context.getWritebleRegistry().put("decoder", decoder);
+        context.getWritebleRegistry().put("factory", new Object());
+
+        URI uri = MeteredChannelHandler.meterCodecs(URI.create("netty:tcp://localhost:10230?decoders=#decoder,#factory&sync=true"),
+            context, _metrics, "test");
+
+        assertEquals("#test.decoders.decoder,#factory", URISupport.parseParameters(uri).get("decoders"));
+        assertTrue(context.getRegistry().lookup("test.decoders.decoder") instanceof MeteredChannelHandler);
+    }
+
+    @Test
+    public void leavesUriWithoutCodecsAlone() {
+        SwitchYardCamelContext context = new SwitchYardCamelContext(false);
+        URI uri = URI.create("netty:tcp://localhost:10230?sync=true");
+
+        assertSame(uri, MeteredChannelHandler.meterCodecs(uri, context, _metrics, "test"));
+    }
+
+    private static ChannelStateEvent openEvent(boolean open) {
+        ChannelStateEvent event = mock(ChannelStateEvent.class);
+        when(event.getState()).thenReturn(ChannelState.OPEN);
+        when(event.getValue()).thenReturn(open);
+        return event;
+    }
+
+    private static Answer<Void> passOn(final boolean upstream) {
+        return new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                ChannelHandlerContext ctx = (ChannelHandlerContext) invocation.getArguments()[0];
+                ChannelEvent event = (ChannelEvent) invocation.getArguments()[1];
+                if (upstream) {
+                    ctx.sendUpstream(event);
+                } else {
+                    ctx.sendDownstream(event);
+                }
+                return null;
+            }
+        };
+    }
+
+}
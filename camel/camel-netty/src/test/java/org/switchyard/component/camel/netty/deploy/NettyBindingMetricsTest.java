@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.netty.deploy;
+
+import static junit.framework.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link NettyBindingMetrics}.
+ */
+public class NettyBindingMetricsTest {
+
+    private final NettyBindingMetrics _metrics = new NettyBindingMetrics();
+
+    @Test
+    public void countsRequests() {
+        _metrics.requestStarted();
+        _metrics.requestStarted();
+        _metrics.requestCompleted();
+
+        assertEquals(2, _metrics.getRequests());
+        assertEquals(1, _metrics.getInFlightRequests());
+    }
+
+    @Test
+    public void countsOpenChannels() {
+        _metrics.channelOpened();
+        _metrics.channelOpened();
+        _metrics.channelClosed();
+
+        assertEquals(1, _metrics.getOpenChannels());
+    }
+
+    @Test
+    public void neverReportsNegativeCounts() {
+        // channels opened before the metrics were installed may still be closed
+        _metrics.channelClosed();
+        _metrics.requestCompleted();
+
+        assertEquals(0, _metrics.getOpenChannels());
+        assertEquals(0, _metrics.getInFlightRequests());
+    }
+
+    @Test
+    public void averagesCodecTimeInMicroseconds() {
+        _metrics.encoded(2000L);
+        _metrics.encoded(4000L);
+        _metrics.decoded(10000L);
+
+        assertEquals(2, _metrics.getEncoded());
+        assertEquals(3d, _metrics.getAverageEncodeTime(), 0.001d);
+        assertEquals(1, _metrics.getDecoded());
+        assertEquals(10d, _metrics.getAverageDecodeTime(), 0.001d);
+    }
+
+    @Test
+    public void averagesAreZeroWithoutMessages() {
+        assertEquals(0d, _metrics.getAverageEncodeTime(), 0d);
+        assertEquals(0d, _metrics.getAverageDecodeTime(), 0d);
+    }
+
+}
@@ -50,13 +50,20 @@ public class V1CamelNettyTcpBindingModelTest extends V1BaseCamelServiceBindingMo
     private static final Integer WORKER_COUNT = 10;
     private static final Boolean SYNC = false;
     private static final Boolean DISCONNECT = true;
+    private static final Boolean PRODUCER_POOL_ENABLED = true;
+    private static final Integer PRODUCER_POOL_MAX_ACTIVE = 20;
+    private static final Integer PRODUCER_POOL_MIN_IDLE = 2;
+    private static final Integer PRODUCER_POOL_MAX_IDLE = 10;
+    private static final Long PRODUCER_POOL_MIN_EVICTABLE_IDLE = 60000l;
     private static final Boolean TEXTLINE = false;
     private static final Boolean TCP_NO_DELAY = true;
     private static final Boolean KEEP_ALIVE = false;
 
     private static final String CAMEL_URI = "netty:tcp://google.com:10230?" +
         "receiveBufferSize=1024&sendBufferSize=128&reuseAddress=true&allowDefaultCodec=false&" +
-        "workerCount=10&sync=false&disconnect=true&textline=false&tcpNoDelay=true&" +
+        "workerCount=10&sync=false&disconnect=true&producerPoolEnabled=true&producerPoolMaxActive=20&" +
+        "producerPoolMinIdle=2&producerPoolMaxIdle=10&producerPoolMinEvictableIdle=60000&" +
+        "textline=false&tcpNoDelay=true&" +
         "keepAlive=false&keyStoreFormat=PCKS12&passphrase=camelRider&keyStoreFile=#ks&trustStoreFile=#ts&" +
         "ssl=true&sslHandler=#myCustomHandler&securityProvider=BC";
 
@@ -84,7 +91,12 @@ public class V1CamelNettyTcpBindingModelTest extends V1BaseCamelServiceBindingMo
             .setAllowDefaultCodec(ALLOW_DEFAULT_CODEC)
             .setWorkerCount(WORKER_COUNT)
             .setSync(SYNC)
-            .setDisconnect(DISCONNECT))
+            .setDisconnect(DISCONNECT)
+            .setProducerPoolEnabled(PRODUCER_POOL_ENABLED)
+            .setProducerPoolMaxActive(PRODUCER_POOL_MAX_ACTIVE)
+            .setProducerPoolMinIdle(PRODUCER_POOL_MIN_IDLE)
+            .setProducerPoolMaxIdle(PRODUCER_POOL_MAX_IDLE)
+            .setProducerPoolMinEvictableIdle(PRODUCER_POOL_MIN_EVICTABLE_IDLE))
             .setTextline(TEXTLINE)
             .setTcpNoDelay(TCP_NO_DELAY)
             .setKeepAlive(KEEP_ALIVE)
@@ -109,6 +121,11 @@ public class V1CamelNettyTcpBindingModelTest extends V1BaseCamelServiceBindingMo
         assertEquals(WORKER_COUNT, model.getWorkerCount());
         assertEquals(SYNC, model.isSync());
         assertEquals(DISCONNECT, model.isDisconnect());
+        assertEquals(PRODUCER_POOL_ENABLED, model.isProducerPoolEnabled());
+        assertEquals(PRODUCER_POOL_MAX_ACTIVE, model.getProducerPoolMaxActive());
+        assertEquals(PRODUCER_POOL_MIN_IDLE, model.getProducerPoolMinIdle());
+        assertEquals(PRODUCER_POOL_MAX_IDLE, model.getProducerPoolMaxIdle());
+        assertEquals(PRODUCER_POOL_MIN_EVICTABLE_IDLE, model.getProducerPoolMinEvictableIdle());
         assertEquals(TEXTLINE, model.isTextline());
         assertEquals(TCP_NO_DELAY, model.isTcpNoDelay());
         assertEquals(KEEP_ALIVE, model.isKeepAlive());
@@ -20,6 +20,8 @@ package org.switchyard.component.camel.sql.deploy;
 
 import javax.xml.namespace.QName;
 
+import org.apache.camel.builder.ExpressionBuilder;
+import org.apache.camel.model.ProcessorDefinition;
 import org.apache.camel.model.RouteDefinition;
 import org.switchyard.common.camel.SwitchYardCamelContext;
 import org.switchyard.common.lang.Strings;
@@ -58,6 +60,9 @@ public class CamelSqlInboundHandler extends InboundHandler<CamelSqlBindingModel>
             }
 
             SwitchYardRouteDefinition definition = new SwitchYardRouteDefinition(serviceName);
+            if (Strings.trimToNull(bindingModel.getWatermarkColumn()) != null) {
+                return createIncrementalRouteDefinition(definition);
+            }
             definition.routeId(getRouteId())
                 .from(getBindingModel().getTimerURI(getRouteId()).toString())
                 .to(getBindingModel().getComponentURI().toString())
@@ -67,4 +72,35 @@ public class CamelSqlInboundHandler extends InboundHandler<CamelSqlBindingModel>
         return super.createRouteDefinition();
     }
 
+    /**
+     * Creates the route for incremental polling. Instead of running the query through the sql
+     * component, the timer drives an {@link IncrementalSqlPoller}; split rows or chunks are handed
+     * to the service one by one by a streaming splitter. A transacted route starts its transaction
+     * before the poll, so the poll, the deliveries and the mark-as-consumed updates share it.
+     * 
+     * @param definition Empty route definition.
+     * @return Route definition handling incremental polling.
+     */
+    protected RouteDefinition createIncrementalRouteDefinition(SwitchYardRouteDefinition definition) {
+        CamelSqlBindingModel bindingModel = getBindingModel();
+        QName serviceName = getServiceName();
+
+        definition.routeId(getRouteId())
+            .from(bindingModel.getTimerURI(getRouteId()).toString());
+        ProcessorDefinition<?> outputs = addTransacted(definition);
+        IncrementalSqlPoller poller = new IncrementalSqlPoller(bindingModel, outputs != definition);
+        outputs.process(poller);
+        if (poller.getSplit() == IncrementalSqlPoller.Split.NONE) {
+            outputs.process(new OperationSelectorProcessor(serviceName, bindingModel))
+                .to(getSwitchyardEndpointUri());
+        } else {
+            outputs.split(ExpressionBuilder.bodyExpression()).streaming().stopOnException()
+                .process(new OperationSelectorProcessor(serviceName, bindingModel))
+                .to(getSwitchyardEndpointUri());
+        }
+        // the route is not built through SwitchYardRouteDefinition's to(), so add the namespace here
+        SwitchYardRouteDefinition.addNamespaceParameter(definition, serviceName.getNamespaceURI());
+        return definition;
+    }
+
 }
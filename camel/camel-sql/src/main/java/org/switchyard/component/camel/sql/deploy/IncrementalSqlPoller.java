@@ -0,0 +1,425 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.sql.deploy;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.spi.Synchronization;
+import org.apache.camel.util.CamelContextHelper;
+import org.apache.log4j.Logger;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.switchyard.common.lang.Strings;
+import org.switchyard.component.camel.sql.model.CamelSqlBindingModel;
+import org.switchyard.exception.SwitchYardException;
+
+/**
+ * Polls a table incrementally for SQL service bindings with a watermark column.
+ * <p/>
+ * Each poll only selects the rows whose watermark column is not lower than the highest value delivered
+ * by earlier polls, reading them in watermark order with the configured fetch size. Rows sharing that
+ * value which were already delivered are skipped, so rows with equal watermarks are neither lost nor
+ * delivered twice when a poll, chunk or failure ends in the middle of them. Depending on the
+ * split mode the rows are handed on as one list, or as an iterator of single rows or row chunks which
+ * a streaming splitter delivers one by one, so a large backlog is never held in memory.
+ * <p/>
+ * Unless the route is transacted, the polling connection stays in one local transaction until the
+ * exchange completes. Mark-as-consumed
+ * updates, keyed by the key column, are issued on that connection for every part once it has been
+ * delivered; when the exchange completes the transaction is committed and the watermark advanced up to
+ * the last delivered part, so a failure part way through a poll never skips, nor re-delivers, the parts
+ * before it. In a transacted route the connection is left to the route's transaction instead, and the
+ * watermark only advances once that transaction has committed.
+ */
+public class IncrementalSqlPoller implements Processor {
+
+    /**
+     * How polled rows are delivered.
+     */
+    public enum Split {
+        /** All rows of a poll as one list. */
+        NONE,
+        /** One message per row. */
+        ROW,
+        /** One message per list of up to chunkSize rows. */
+        CHUNK
+    }
+
+    /** The default number of rows per chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    private static final Logger LOGGER = Logger.getLogger(IncrementalSqlPoller.class);
+    private static final String DEFAULT_PLACEHOLDER = "#";
+
+    private final String _dataSourceRef;
+    private final String _watermarkColumn;
+    private final String _firstQuery;
+    private final String _nextQuery;
+    private final String _consumedQuery;
+    private final String _keyColumn;
+    private final Integer _fetchSize;
+    private final Split _split;
+    private final int _chunkSize;
+    private final WatermarkStore _store;
+    private final boolean _transacted;
+    private volatile DataSource _dataSource;
+
+    /**
+     * Creates a new poller managing its own local transaction.
+     *
+     * @param bindingModel The SQL binding model.
+     */
+    public IncrementalSqlPoller(CamelSqlBindingModel bindingModel) {
+        this(bindingModel, false);
+    }
+
+    /**
+     * Creates a new poller.
+     *
+     * @param bindingModel The SQL binding model.
+     * @param transacted Whether the route is transacted, in which case the connection is left to the route's transaction.
+     */
+    public IncrementalSqlPoller(CamelSqlBindingModel bindingModel, boolean transacted) {
+        _transacted = transacted;
+        _dataSourceRef = Strings.trimToNull(bindingModel.getDataSourceRef());
+        if (_dataSourceRef == null) {
+            throw new SwitchYardException("dataSourceRef is mandatory for incremental SQL service bindings");
+        }
+        _watermarkColumn = Strings.trimToNull(bindingModel.getWatermarkColumn());
+        String query = Strings.trimToNull(bindingModel.getQuery());
+        if (_watermarkColumn == null || query == null) {
+            throw new SwitchYardException("query and watermarkColumn are mandatory for incremental SQL service bindings");
+        }
+        // the configured query selects the candidate rows; the watermark condition is applied around it
+        String select = "SELECT * FROM (" + query + ") sy_poll";
+        String order = " ORDER BY " + _watermarkColumn;
+        _firstQuery = select + order;
+        _nextQuery = select + " WHERE " + _watermarkColumn + " >= ?" + order;
+        String consumedQuery = Strings.trimToNull(bindingModel.getConsumedQuery());
+        if (consumedQuery != null) {
+            String placeholder = bindingModel.getPlaceholder() != null ? bindingModel.getPlaceholder() : DEFAULT_PLACEHOLDER;
+            consumedQuery = consumedQuery.replace(placeholder, "?");
+        }
+        _consumedQuery = consumedQuery;
+        _keyColumn = Strings.trimToNull(bindingModel.getKeyColumn());
+        if (_consumedQuery != null && _keyColumn == null) {
+            // marking by watermark would also mark undelivered rows sharing its value
+            throw new SwitchYardException("keyColumn is mandatory with consumedQuery for incremental SQL service bindings");
+        }
+        _fetchSize = bindingModel.getFetchSize();
+        _split = parseSplit(bindingModel.getSplit());
+        Integer chunkSize = bindingModel.getChunkSize();
+        _chunkSize = chunkSize != null && chunkSize.intValue() > 0 ? chunkSize.intValue() : DEFAULT_CHUNK_SIZE;
+        String watermarkFile = Strings.trimToNull(bindingModel.getWatermarkFile());
+        if (watermarkFile == null) {
+            LOGGER.warn("No watermarkFile configured for incremental SQL binding on column " + _watermarkColumn
+                + "; polling will restart from the beginning of the table after a restart");
+        }
+        _store = new WatermarkStore(watermarkFile != null ? new File(watermarkFile) : null);
+    }
+
+    /**
+     * Get the split mode.
+     *
+     * @return The split mode.
+     */
+    public Split getSplit() {
+        return _split;
+    }
+
+    /**
+     * Get the last delivered watermark value.
+     *
+     * @return The watermark, or null if nothing has been delivered yet.
+     */
+    public Object getWatermark() {
+        return _store.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void process(Exchange exchange) throws Exception {
+        Poll poll = new Poll(getDataSource(exchange.getContext()).getConnection());
+        // registered first, so the connection is released however the exchange ends
+        exchange.addOnCompletion(poll);
+        poll.open();
+        if (_split == Split.NONE) {
+            List<Object> rows = poll.hasNext() ? (List<Object>)poll.next() : null;
+            if (rows == null) {
+                exchange.setProperty(Exchange.ROUTE_STOP, Boolean.TRUE);
+            } else {
+                exchange.getIn().setBody(rows);
+            }
+        } else {
+            exchange.getIn().setBody(poll);
+        }
+    }
+
+    private DataSource getDataSource(CamelContext context) {
+        if (_dataSource == null) {
+            String name = _dataSourceRef.startsWith("#") ? _dataSourceRef.substring(1) : _dataSourceRef;
+            _dataSource = CamelContextHelper.mandatoryLookup(context, name, DataSource.class);
+        }
+        return _dataSource;
+    }
+
+    private static Split parseSplit(String split) {
+        split = Strings.trimToNull(split);
+        if (split == null) {
+            return Split.NONE;
+        }
+        try {
+            return Split.valueOf(split.toUpperCase());
+        } catch (IllegalArgumentException iae) {
+            throw new SwitchYardException("Invalid split mode '" + split + "' for SQL binding, expected none, row or chunk");
+        }
+    }
+
+    // JDBC drivers may read back a number as another type than the one stored
+    private static boolean sameWatermark(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return new BigDecimal(left.toString()).compareTo(new BigDecimal(right.toString())) == 0;
+        }
+        return left.equals(right);
+    }
+
+    /**
+     * A single poll: an iterator over the parts to deliver, which also tracks how far delivery got.
+     * A part counts as delivered once the splitter asks for the next one, or the exchange completes.
+     */
+    private final class Poll implements Iterator<Object>, Synchronization {
+
+        private final ColumnMapRowMapper _rowMapper = new ColumnMapRowMapper();
+        private final Connection _connection;
+        private boolean _autoCommit;
+        private PreparedStatement _statement;
+        private ResultSet _resultSet;
+        private int _rowNum;
+        private boolean _exhausted;
+        private Object _nextPart;
+        private List<Map<String, Object>> _nextRows;
+        private List<Map<String, Object>> _pendingRows;
+        private Object _skipWatermark;
+        private Set<Object> _skipRows;
+        private Object _delivered;
+        private Set<Object> _deliveredRows;
+
+        private Poll(Connection connection) {
+            _connection = connection;
+        }
+
+        private void open() throws SQLException {
+            if (!_transacted) {
+                _autoCommit = _connection.getAutoCommit();
+                _connection.setAutoCommit(false);
+            }
+            Object watermark = _store.get();
+            _skipWatermark = watermark;
+            _skipRows = _store.getDelivered();
+            _delivered = watermark;
+            _deliveredRows = new HashSet<Object>(_skipRows);
+            _statement = _connection.prepareStatement(watermark != null ? _nextQuery : _firstQuery,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            if (_fetchSize != null) {
+                _statement.setFetchSize(_fetchSize.intValue());
+            }
+            if (watermark != null) {
+                _statement.setObject(1, watermark);
+            }
+            _resultSet = _statement.executeQuery();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (_nextPart == null && !_exhausted) {
+                try {
+                    readPart();
+                } catch (SQLException sqle) {
+                    throw new SwitchYardException("Problem reading polled rows: " + sqle.getMessage(), sqle);
+                }
+            }
+            return _nextPart != null;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            // asking for the next part means the previous one went through
+            delivered();
+            Object part = _nextPart;
+            _pendingRows = _nextRows;
+            _nextPart = null;
+            _nextRows = null;
+            return part;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void readPart() throws SQLException {
+            int limit = _split == Split.NONE ? Integer.MAX_VALUE : (_split == Split.ROW ? 1 : _chunkSize);
+            List<Object> rows = new ArrayList<Object>(_split == Split.CHUNK ? _chunkSize : 1);
+            List<Map<String, Object>> copies = new ArrayList<Map<String, Object>>(rows.size());
+            while (rows.size() < limit) {
+                if (!_resultSet.next()) {
+                    _exhausted = true;
+                    break;
+                }
+                Map<String, Object> row = _rowMapper.mapRow(_resultSet, _rowNum++);
+                Object watermark = row.get(_watermarkColumn);
+                if (_skipWatermark != null && watermark != null && sameWatermark(watermark, _skipWatermark)
+                        && _skipRows.contains(row)) {
+                    // delivered by an earlier poll with the same watermark value
+                    continue;
+                }
+                rows.add(row);
+                // kept apart from the delivered row, which the service may change
+                copies.add(new HashMap<String, Object>(row));
+            }
+            if (!rows.isEmpty()) {
+                _nextPart = _split == Split.ROW ? rows.get(0) : rows;
+                _nextRows = copies;
+            }
+        }
+
+        private void delivered() {
+            List<Map<String, Object>> rows = _pendingRows;
+            _pendingRows = null;
+            if (rows == null) {
+                return;
+            }
+            if (_consumedQuery != null) {
+                try {
+                    PreparedStatement consumed = _connection.prepareStatement(_consumedQuery);
+                    try {
+                        for (Map<String, Object> row : rows) {
+                            consumed.setObject(1, row.get(_keyColumn));
+                            consumed.addBatch();
+                        }
+                        consumed.executeBatch();
+                    } finally {
+                        consumed.close();
+                    }
+                } catch (SQLException sqle) {
+                    throw new SwitchYardException("Problem marking polled rows as consumed: " + sqle.getMessage(), sqle);
+                }
+            }
+            // rows arrive in watermark order, so only the rows with the highest value need remembering
+            for (Map<String, Object> row : rows) {
+                Object watermark = row.get(_watermarkColumn);
+                if (watermark == null) {
+                    continue;
+                }
+                if (_delivered == null || !sameWatermark(watermark, _delivered)) {
+                    _delivered = watermark;
+                    _deliveredRows = new HashSet<Object>();
+                }
+                _deliveredRows.add(row);
+            }
+        }
+
+        @Override
+        public void onComplete(Exchange exchange) {
+            try {
+                delivered();
+            } finally {
+                finish(true);
+            }
+        }
+
+        @Override
+        public void onFailure(Exchange exchange) {
+            // the part being delivered when the exchange failed is left for the next poll
+            _pendingRows = null;
+            finish(false);
+        }
+
+        private void finish(boolean completed) {
+            if (_transacted) {
+                // the route's transaction rolls back the whole poll on failure, so the watermark stays put
+                try {
+                    if (completed) {
+                        _store.set(_delivered, _deliveredRows);
+                    }
+                } finally {
+                    close();
+                }
+                return;
+            }
+            try {
+                _connection.commit();
+                _store.set(_delivered, _deliveredRows);
+            } catch (SQLException sqle) {
+                LOGGER.warn("Problem committing incremental SQL poll: " + sqle.getMessage());
+                try {
+                    _connection.rollback();
+                } catch (SQLException rollback) {
+                    LOGGER.debug("Problem rolling back incremental SQL poll", rollback);
+                }
+            } finally {
+                close();
+            }
+        }
+
+        private void close() {
+            try {
+                if (_resultSet != null) {
+                    _resultSet.close();
+                }
+                if (_statement != null) {
+                    _statement.close();
+                }
+                if (!_transacted) {
+                    _connection.setAutoCommit(_autoCommit);
+                }
+            } catch (SQLException sqle) {
+                LOGGER.debug("Problem closing incremental SQL poll", sqle);
+            } finally {
+                try {
+                    _connection.close();
+                } catch (SQLException sqle) {
+                    LOGGER.debug("Problem closing incremental SQL poll connection", sqle);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.sql.deploy;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Holds the last watermark value seen by an incremental SQL poll, optionally persisted to a file so
+ * that polling resumes where it left off after a restart.
+ * <p/>
+ * The value is stored together with its type, so it can be bound back to the poll query as the same
+ * kind of JDBC value (number, date, time, timestamp or string) it was read as. The rows already
+ * delivered with the watermark value itself are only kept in memory, so after a restart rows sharing
+ * the persisted watermark value are delivered again rather than skipped.
+ */
+public class WatermarkStore {
+
+    private static final Logger LOGGER = Logger.getLogger(WatermarkStore.class);
+    private static final String TYPE = "type";
+    private static final String VALUE = "value";
+
+    private final File _file;
+    private volatile Object _watermark;
+    private volatile Set<Object> _delivered = Collections.emptySet();
+
+    /**
+     * Creates a new watermark store.
+     *
+     * @param file The file to persist to, or null to only keep the watermark in memory.
+     */
+    public WatermarkStore(File file) {
+        _file = file;
+        _watermark = load();
+    }
+
+    /**
+     * Get the last watermark value.
+     *
+     * @return The watermark, or null if nothing has been polled yet.
+     */
+    public Object get() {
+        return _watermark;
+    }
+
+    /**
+     * Get the rows already delivered with the last watermark value.
+     *
+     * @return The delivered rows, empty if none are known.
+     */
+    public Set<Object> getDelivered() {
+        return _delivered;
+    }
+
+    /**
+     * Set the last watermark value, persisting it if a file is configured.
+     *
+     * @param watermark The watermark.
+     */
+    public void set(Object watermark) {
+        set(watermark, Collections.emptySet());
+    }
+
+    /**
+     * Set the last watermark value together with the rows delivered with that value, persisting
+     * the watermark if a file is configured.
+     *
+     * @param watermark The watermark.
+     * @param delivered The rows delivered with the watermark value.
+     */
+    public void set(Object watermark, Set<?> delivered) {
+        if (watermark == null) {
+            return;
+        }
+        _delivered = Collections.unmodifiableSet(new HashSet<Object>(delivered));
+        if (watermark.equals(_watermark)) {
+            return;
+        }
+        _watermark = watermark;
+        if (_file != null) {
+            store(watermark);
+        }
+    }
+
+    private Object load() {
+        if (_file == null || !_file.isFile()) {
+            return null;
+        }
+        try {
+            Properties props = new Properties();
+            InputStream is = new FileInputStream(_file);
+            try {
+                props.load(is);
+            } finally {
+                is.close();
+            }
+            return fromString(props.getProperty(TYPE), props.getProperty(VALUE));
+        } catch (Exception e) {
+            LOGGER.warn(String.format("ignoring unreadable watermark file [%s]: %s", _file, e.getMessage()));
+            return null;
+        }
+    }
+
+    private void store(Object watermark) {
+        File temp = null;
+        try {
+            File directory = _file.getAbsoluteFile().getParentFile();
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("could not create directory " + directory);
+            }
+            Properties props = new Properties();
+            props.setProperty(TYPE, typeOf(watermark));
+            props.setProperty(VALUE, toString(watermark));
+            // write to a temporary file first so that a crash never leaves a partial watermark behind
+            temp = File.createTempFile(_file.getName(), ".tmp", directory);
+            OutputStream os = new FileOutputStream(temp);
+            try {
+                props.store(os, null);
+            } finally {
+                os.close();
+            }
+            if (_file.exists() && !_file.delete()) {
+                throw new IOException("could not replace " + _file);
+            }
+            if (!temp.renameTo(_file)) {
+                throw new IOException("could not rename " + temp + " to " + _file);
+            }
+            temp = null;
+        } catch (IOException ioe) {
+            LOGGER.warn(String.format("problem storing watermark file [%s]: %s", _file, ioe.getMessage()));
+        } finally {
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private static String typeOf(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return "long";
+        } else if (value instanceof Number) {
+            return "decimal";
+        } else if (value instanceof java.sql.Date) {
+            return "date";
+        } else if (value instanceof Time) {
+            return "time";
+        } else if (value instanceof java.util.Date) {
+            return "timestamp";
+        }
+        return "string";
+    }
+
+    private static String toString(Object value) {
+        if (value instanceof java.util.Date && !(value instanceof java.sql.Date || value instanceof Time || value instanceof Timestamp)) {
+            return new Timestamp(((java.util.Date)value).getTime()).toString();
+        } else if (value instanceof BigInteger || value instanceof Double || value instanceof Float) {
+            return new BigDecimal(value.toString()).toPlainString();
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal)value).toPlainString();
+        }
+        return value.toString();
+    }
+
+    private static Object fromString(String type, String value) {
+        if (value == null) {
+            return null;
+        } else if ("long".equals(type)) {
+            return Long.valueOf(value);
+        } else if ("decimal".equals(type)) {
+            return new BigDecimal(value);
+        } else if ("date".equals(type)) {
+            return java.sql.Date.valueOf(value);
+        } else if ("time".equals(type)) {
+            return Time.valueOf(value);
+        } else if ("timestamp".equals(type)) {
+            return Timestamp.valueOf(value);
+        }
+        return value;
+    }
+
+}
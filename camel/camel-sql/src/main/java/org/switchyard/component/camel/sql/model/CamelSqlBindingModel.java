@@ -117,6 +117,116 @@ public interface CamelSqlBindingModel extends CamelBindingModel {
      */
     Long getInitialDelay();
 
+    /**
+     * Column used as the watermark for incremental polling. When set, each poll only selects rows
+     * whose watermark column is greater than the highest value delivered by earlier polls.
+     * 
+     * @return Watermark column name.
+     */
+    String getWatermarkColumn();
+
+    /**
+     * Specify the watermark column, which switches the service binding to incremental polling.
+     * 
+     * @param watermarkColumn Watermark column name.
+     * @return a reference to this Camel binding model
+     */
+    CamelSqlBindingModel setWatermarkColumn(String watermarkColumn);
+
+    /**
+     * File the last delivered watermark value is persisted to.
+     * 
+     * @return Watermark file path.
+     */
+    String getWatermarkFile();
+
+    /**
+     * Specify the file the last delivered watermark value is persisted to, so incremental polling
+     * resumes where it left off after a restart.
+     * 
+     * @param watermarkFile Watermark file path.
+     * @return a reference to this Camel binding model
+     */
+    CamelSqlBindingModel setWatermarkFile(String watermarkFile);
+
+    /**
+     * JDBC fetch size used by incremental polls.
+     * 
+     * @return Fetch size.
+     */
+    Integer getFetchSize();
+
+    /**
+     * Specify the JDBC fetch size used by incremental polls.
+     * 
+     * @param fetchSize Fetch size.
+     * @return a reference to this Camel binding model
+     */
+    CamelSqlBindingModel setFetchSize(Integer fetchSize);
+
+    /**
+     * How incrementally polled rows are delivered: none (one list per poll), row or chunk.
+     * 
+     * @return Split mode.
+     */
+    String getSplit();
+
+    /**
+     * Specify how incrementally polled rows are delivered. With row or chunk the result set is
+     * streamed, one message per row or per chunk of rows.
+     * 
+     * @param split Split mode.
+     * @return a reference to this Camel binding model
+     */
+    CamelSqlBindingModel setSplit(String split);
+
+    /**
+     * Number of rows per message when splitting by chunk.
+     * 
+     * @return Chunk size.
+     */
+    Integer getChunkSize();
+
+    /**
+     * Specify the number of rows per message when splitting by chunk.
+     * 
+     * @param chunkSize Chunk size.
+     * @return a reference to this Camel binding model
+     */
+    CamelSqlBindingModel setChunkSize(Integer chunkSize);
+
+    /**
+     * Update statement marking delivered rows as consumed.
+     * 
+     * @return Consumed update statement.
+     */
+    String getConsumedQuery();
+
+    /**
+     * Specify an update statement run for each delivered row, in the polling transaction. The
+     * placeholder is bound to the row's key column value, so a key column is required.
+     * 
+     * @param consumedQuery Consumed update statement.
+     * @return a reference to this Camel binding model
+     */
+    CamelSqlBindingModel setConsumedQuery(String consumedQuery);
+
+    /**
+     * Column identifying a single row, used to mark delivered rows as consumed.
+     * 
+     * @return Key column name.
+     */
+    String getKeyColumn();
+
+    /**
+     * Specify the column identifying a single row. Its value is bound to the consumed query, so
+     * rows sharing a watermark value are marked one by one.
+     * 
+     * @param keyColumn Key column name.
+     * @return a reference to this Camel binding model
+     */
+    CamelSqlBindingModel setKeyColumn(String keyColumn);
+
     /**
      * Returns timer uri used to call component uri.
      * 
@@ -49,6 +49,14 @@ public class V1CamelSqlBindingModel extends V1BaseCamelBindingModel
     // timer related attributes
     private static final String PERIOD = "period";
     private static final String INITIAL_DELAY = "initialDelay";
+    // incremental polling attributes
+    private static final String WATERMARK_COLUMN = "watermarkColumn";
+    private static final String WATERMARK_FILE = "watermarkFile";
+    private static final String FETCH_SIZE = "fetchSize";
+    private static final String SPLIT = "split";
+    private static final String CHUNK_SIZE = "chunkSize";
+    private static final String CONSUMED_QUERY = "consumedQuery";
+    private static final String KEY_COLUMN = "keyColumn";
 
     /**
      * Create a new CamelSqlBindingModel.
@@ -132,6 +140,85 @@ public class V1CamelSqlBindingModel extends V1BaseCamelBindingModel
         return value == null ? null : Long.valueOf(value);
     }
 
+    @Override
+    public String getWatermarkColumn() {
+        return getModelAttribute(WATERMARK_COLUMN);
+    }
+
+    @Override
+    public V1CamelSqlBindingModel setWatermarkColumn(String watermarkColumn) {
+        setModelAttribute(WATERMARK_COLUMN, watermarkColumn);
+        return this;
+    }
+
+    @Override
+    public String getWatermarkFile() {
+        return getModelAttribute(WATERMARK_FILE);
+    }
+
+    @Override
+    public V1CamelSqlBindingModel setWatermarkFile(String watermarkFile) {
+        setModelAttribute(WATERMARK_FILE, watermarkFile);
+        return this;
+    }
+
+    @Override
+    public Integer getFetchSize() {
+        String value = getModelAttribute(FETCH_SIZE);
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    @Override
+    public V1CamelSqlBindingModel setFetchSize(Integer fetchSize) {
+        setModelAttribute(FETCH_SIZE, fetchSize != null ? fetchSize.toString() : null);
+        return this;
+    }
+
+    @Override
+    public String getSplit() {
+        return getModelAttribute(SPLIT);
+    }
+
+    @Override
+    public V1CamelSqlBindingModel setSplit(String split) {
+        setModelAttribute(SPLIT, split);
+        return this;
+    }
+
+    @Override
+    public Integer getChunkSize() {
+        String value = getModelAttribute(CHUNK_SIZE);
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    @Override
+    public V1CamelSqlBindingModel setChunkSize(Integer chunkSize) {
+        setModelAttribute(CHUNK_SIZE, chunkSize != null ? chunkSize.toString() : null);
+        return this;
+    }
+
+    @Override
+    public String getConsumedQuery() {
+        return getModelAttribute(CONSUMED_QUERY);
+    }
+
+    @Override
+    public V1CamelSqlBindingModel setConsumedQuery(String consumedQuery) {
+        setModelAttribute(CONSUMED_QUERY, consumedQuery);
+        return this;
+    }
+
+    @Override
+    public String getKeyColumn() {
+        return getModelAttribute(KEY_COLUMN);
+    }
+
+    @Override
+    public V1CamelSqlBindingModel setKeyColumn(String keyColumn) {
+        setModelAttribute(KEY_COLUMN, keyColumn);
+        return this;
+    }
+
     @Override
     public String getTimerURI(String name) {
         QueryString queryStr = new QueryString();
@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.sql.deploy;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.net.URI;
+
+import javax.xml.namespace.QName;
+
+import org.apache.camel.model.ProcessorDefinition;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.model.SplitDefinition;
+import org.apache.camel.model.TransactedDefinition;
+import org.apache.camel.spring.spi.SpringTransactionPolicy;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.component.camel.common.CamelConstants;
+import org.switchyard.component.camel.common.SwitchYardRouteDefinition;
+import org.switchyard.component.camel.sql.model.v1.V1CamelSqlBindingModel;
+
+/**
+ * Test for the incremental polling routes of {@link CamelSqlInboundHandler}.
+ */
+public class CamelSqlInboundHandlerTest {
+
+    private static final QName SERVICE = new QName("urn:sql", "EventService");
+
+    private SwitchYardCamelContext _camelContext;
+
+    @Before
+    public void setUp() {
+        _camelContext = new SwitchYardCamelContext(false);
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        _camelContext.getWritebleRegistry().put("jtaTransactionManager", transactionManager);
+        _camelContext.getWritebleRegistry().put(CamelConstants.TRANSACTED_REF, new SpringTransactionPolicy(transactionManager));
+    }
+
+    @Test
+    public void splitRouteIsTransacted() {
+        RouteDefinition route = createRoute("row");
+        assertEquals(1, route.getOutputs().size());
+        ProcessorDefinition<?> transacted = route.getOutputs().get(0);
+        assertTrue(transacted instanceof TransactedDefinition);
+        assertTrue(transacted.getOutputs().get(1) instanceof SplitDefinition);
+    }
+
+    @Test
+    public void unsplitRouteIsTransacted() {
+        RouteDefinition route = createRoute(null);
+        assertEquals(1, route.getOutputs().size());
+        assertTrue(route.getOutputs().get(0) instanceof TransactedDefinition);
+    }
+
+    private RouteDefinition createRoute(String split) {
+        V1CamelSqlBindingModel bindingModel = new V1CamelSqlBindingModel() {
+            @Override
+            public URI getComponentURI() {
+                return URI.create("sql://query?dataSourceRef=ds&transactionManager=%23jtaTransactionManager");
+            }
+        };
+        bindingModel.setQuery("SELECT * FROM events")
+            .setDataSourceRef("ds")
+            .setPeriod("1000")
+            .setWatermarkColumn("ID")
+            .setSplit(split);
+        CamelSqlInboundHandler handler = new CamelSqlInboundHandler(bindingModel, _camelContext, SERVICE);
+        return handler.createIncrementalRouteDefinition(new SwitchYardRouteDefinition(SERVICE));
+    }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.sql.deploy;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.impl.SimpleRegistry;
+import org.apache.camel.spi.Synchronization;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.switchyard.component.camel.sql.model.v1.V1CamelSqlBindingModel;
+import org.switchyard.exception.SwitchYardException;
+
+/**
+ * Test for {@link IncrementalSqlPoller} with rows sharing a watermark value.
+ */
+public class IncrementalSqlPollerTest {
+
+    private DefaultCamelContext _camelContext;
+    private Connection _connection;
+    private PreparedStatement _statement;
+
+    @Before
+    public void setUp() throws Exception {
+        _connection = mock(Connection.class);
+        _statement = mock(PreparedStatement.class);
+        when(_connection.getAutoCommit()).thenReturn(true);
+        when(_connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(_statement);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(_connection);
+        SimpleRegistry registry = new SimpleRegistry();
+        registry.put("ds", dataSource);
+        _camelContext = new DefaultCamelContext(registry);
+    }
+
+    @Test
+    public void tiedRowsAreNeitherSkippedNorRedelivered() throws Exception {
+        IncrementalSqlPoller poller = new IncrementalSqlPoller(new V1CamelSqlBindingModel()
+            .setQuery("SELECT * FROM events")
+            .setDataSourceRef("#ds")
+            .setWatermarkColumn("WM")
+            .setSplit("chunk")
+            .setChunkSize(2));
+
+        // the first chunk ends between rows with the same watermark, and the second chunk fails
+        when(_statement.executeQuery()).thenReturn(
+            resultSet(row("a", 1L), row("b", 2L), row("c", 2L), row("d", 2L)),
+            resultSet(row("b", 2L), row("c", 2L), row("d", 2L)));
+
+        Exchange first = new DefaultExchange(_camelContext);
+        poller.process(first);
+        Iterator<?> parts = first.getIn().getBody(Iterator.class);
+        assertEquals(ids("a", "b"), ids(parts.next()));
+        assertEquals(ids("c", "d"), ids(parts.next()));
+        for (Synchronization synchronization : first.handoverCompletions()) {
+            synchronization.onFailure(first);
+        }
+        assertEquals(2L, poller.getWatermark());
+
+        Exchange second = new DefaultExchange(_camelContext);
+        poller.process(second);
+        parts = second.getIn().getBody(Iterator.class);
+        assertEquals(ids("c", "d"), ids(parts.next()));
+        assertFalse(parts.hasNext());
+        for (Synchronization synchronization : second.handoverCompletions()) {
+            synchronization.onComplete(second);
+        }
+
+        ArgumentCaptor<String> queries = ArgumentCaptor.forClass(String.class);
+        verify(_connection, times(2)).prepareStatement(queries.capture(), anyInt(), anyInt());
+        assertFalse(queries.getAllValues().get(0).contains("WM >= ?"));
+        assertTrue(queries.getAllValues().get(1).contains("WM >= ?"));
+        verify(_statement).setObject(1, 2L);
+        assertEquals(2L, poller.getWatermark());
+    }
+
+    @Test
+    public void onlyDeliveredRowsAreMarkedConsumed() throws Exception {
+        PreparedStatement consumed = mock(PreparedStatement.class);
+        when(_connection.prepareStatement(anyString())).thenReturn(consumed);
+        IncrementalSqlPoller poller = new IncrementalSqlPoller(new V1CamelSqlBindingModel()
+            .setQuery("SELECT * FROM events WHERE consumed = 0")
+            .setDataSourceRef("#ds")
+            .setWatermarkColumn("WM")
+            .setKeyColumn("ID")
+            .setConsumedQuery("UPDATE events SET consumed = 1 WHERE id = #")
+            .setSplit("row"));
+
+        // two rows share a watermark value and the second one fails
+        when(_statement.executeQuery()).thenReturn(
+            resultSet(row("a", 2L), row("b", 2L)),
+            resultSet(row("b", 2L)));
+
+        Exchange first = new DefaultExchange(_camelContext);
+        poller.process(first);
+        Iterator<?> parts = first.getIn().getBody(Iterator.class);
+        assertEquals("a", ((Map<?, ?>)parts.next()).get("ID"));
+        assertEquals("b", ((Map<?, ?>)parts.next()).get("ID"));
+        for (Synchronization synchronization : first.handoverCompletions()) {
+            synchronization.onFailure(first);
+        }
+        verify(_connection).prepareStatement("UPDATE events SET consumed = 1 WHERE id = ?");
+        verify(consumed).setObject(1, "a");
+        verify(consumed, never()).setObject(1, "b");
+        verify(_connection).commit();
+        assertEquals(2L, poller.getWatermark());
+
+        Exchange second = new DefaultExchange(_camelContext);
+        poller.process(second);
+        parts = second.getIn().getBody(Iterator.class);
+        assertEquals("b", ((Map<?, ?>)parts.next()).get("ID"));
+        assertFalse(parts.hasNext());
+        for (Synchronization synchronization : second.handoverCompletions()) {
+            synchronization.onComplete(second);
+        }
+        verify(consumed).setObject(1, "b");
+    }
+
+    @Test(expected = SwitchYardException.class)
+    public void consumedQueryRequiresKeyColumn() {
+        new IncrementalSqlPoller(new V1CamelSqlBindingModel()
+            .setQuery("SELECT * FROM events")
+            .setDataSourceRef("#ds")
+            .setWatermarkColumn("WM")
+            .setConsumedQuery("UPDATE events SET consumed = 1 WHERE wm = #"));
+    }
+
+    @Test
+    public void rolledBackTransactionKeepsWatermark() throws Exception {
+        IncrementalSqlPoller poller = new IncrementalSqlPoller(new V1CamelSqlBindingModel()
+            .setQuery("SELECT * FROM events")
+            .setDataSourceRef("#ds")
+            .setWatermarkColumn("WM")
+            .setSplit("row"), true);
+        when(_statement.executeQuery()).thenReturn(
+            resultSet(row("a", 1L), row("b", 2L)),
+            resultSet(row("a", 1L), row("b", 2L)));
+
+        Exchange first = new DefaultExchange(_camelContext);
+        poller.process(first);
+        Iterator<?> parts = first.getIn().getBody(Iterator.class);
+        parts.next();
+        parts.next();
+        for (Synchronization synchronization : first.handoverCompletions()) {
+            synchronization.onFailure(first);
+        }
+        // the rolled back rows are polled again from the start
+        assertNull(poller.getWatermark());
+        verify(_connection, never()).commit();
+
+        Exchange second = new DefaultExchange(_camelContext);
+        poller.process(second);
+        parts = second.getIn().getBody(Iterator.class);
+        assertEquals("a", ((Map<?, ?>)parts.next()).get("ID"));
+        assertEquals("b", ((Map<?, ?>)parts.next()).get("ID"));
+        for (Synchronization synchronization : second.handoverCompletions()) {
+            synchronization.onComplete(second);
+        }
+        assertEquals(2L, poller.getWatermark());
+    }
+
+    private static Object[] row(String id, Long watermark) {
+        return new Object[] {id, watermark};
+    }
+
+    private static List<String> ids(String... ids) {
+        List<String> list = new ArrayList<String>();
+        for (String id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static List<String> ids(Object part) {
+        List<String> list = new ArrayList<String>();
+        for (Object row : (List<?>)part) {
+            list.add((String)((Map<?, ?>)row).get("ID"));
+        }
+        return list;
+    }
+
+    private static ResultSet resultSet(final Object[]... rows) throws SQLException {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnLabel(1)).thenReturn("ID");
+        when(metaData.getColumnLabel(2)).thenReturn("WM");
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        final int[] cursor = {-1};
+        when(resultSet.next()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return ++cursor[0] < rows.length;
+            }
+        });
+        when(resultSet.getObject(anyInt())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return rows[cursor[0]][(Integer)invocation.getArguments()[0] - 1];
+            }
+        });
+        return resultSet;
+    }
+
+}
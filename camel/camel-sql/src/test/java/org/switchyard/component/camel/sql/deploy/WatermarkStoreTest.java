@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.sql.deploy;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link WatermarkStore}.
+ */
+public class WatermarkStoreTest {
+
+    private File _file;
+
+    @Before
+    public void setUp() throws Exception {
+        _file = File.createTempFile("watermark", ".properties");
+        _file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        _file.delete();
+    }
+
+    @Test
+    public void emptyStore() {
+        assertNull(new WatermarkStore(_file).get());
+        assertNull(new WatermarkStore(null).get());
+    }
+
+    @Test
+    public void persistsTypedValues() {
+        new WatermarkStore(_file).set(Integer.valueOf(42));
+        assertEquals(Long.valueOf(42), new WatermarkStore(_file).get());
+
+        new WatermarkStore(_file).set(new BigDecimal("12.50"));
+        assertEquals(new BigDecimal("12.50"), new WatermarkStore(_file).get());
+
+        Timestamp timestamp = Timestamp.valueOf("2013-03-01 12:34:56.789");
+        new WatermarkStore(_file).set(timestamp);
+        assertEquals(timestamp, new WatermarkStore(_file).get());
+
+        new WatermarkStore(_file).set("abc");
+        assertEquals("abc", new WatermarkStore(_file).get());
+    }
+
+    @Test
+    public void nullDoesNotReset() {
+        WatermarkStore store = new WatermarkStore(_file);
+        store.set(Long.valueOf(7));
+        store.set(null);
+        assertEquals(Long.valueOf(7), store.get());
+        assertEquals(Long.valueOf(7), new WatermarkStore(_file).get());
+    }
+
+}
@@ -20,6 +20,9 @@
  */
 package org.switchyard.component.camel;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.ExchangePattern;
 import org.apache.camel.Message;
 import org.switchyard.Exchange;
@@ -41,8 +44,14 @@ import org.switchyard.exception.SwitchYardException;
  */
 public class CamelResponseHandler implements ExchangeHandler {
 
+    private static final int PENDING = 0;
+    private static final int REPLIED = 1;
+    private static final int WAITING = 2;
+
     private final org.apache.camel.Exchange _camelExchange;
     private final MessageComposer<CamelBindingData> _messageComposer;
+    private final AtomicInteger _state = new AtomicInteger(PENDING);
+    private volatile AsyncCallback _callback;
 
     /**
      * Sole constructor.
@@ -76,7 +85,39 @@ public class CamelResponseHandler implements ExchangeHandler {
             Message camelMsg = getCamelMessage();
             _messageComposer.decompose(switchYardExchange, new CamelBindingData(camelMsg));
         } catch (Exception e) {
-            throw new HandlerException(e);
+            if (_callback == null) {
+                throw new HandlerException(e);
+            }
+            // nobody waits on the send any more, so the failure goes to the Camel exchange
+            _camelExchange.setException(e);
+        } finally {
+            replied();
+        }
+    }
+
+    /**
+     * Sets the callback to complete once the reply has been handled, for replies which may
+     * arrive after the request has been sent.
+     * 
+     * @param callback The Camel callback.
+     */
+    void setCallback(AsyncCallback callback) {
+        _callback = callback;
+    }
+
+    /**
+     * Called once the request has been sent; from then on a reply completes the callback itself.
+     * 
+     * @return true if the reply has already been handled, and the caller has to complete the exchange.
+     */
+    boolean awaitReply() {
+        return !_state.compareAndSet(PENDING, WAITING);
+    }
+
+    private void replied() {
+        AsyncCallback callback = _callback;
+        if (callback != null && !_state.compareAndSet(PENDING, REPLIED)) {
+            callback.done(false);
         }
     }
 
@@ -90,19 +131,23 @@ public class CamelResponseHandler implements ExchangeHandler {
 
     @Override
     public void handleFault(final Exchange exchange) {
-        final Object content = exchange.getMessage().getContent();
+        try {
+            final Object content = exchange.getMessage().getContent();
 
-        if (content instanceof Throwable) {
-            _camelExchange.setException((Throwable) content);
-            return;
-        }
+            if (content instanceof Throwable) {
+                _camelExchange.setException((Throwable) content);
+                return;
+            }
 
-        try {
-            Message message = getCamelMessage();
-            _messageComposer.decompose(exchange, new CamelBindingData(message));
-            message.setFault(true);
-        } catch (Exception e) {
-            _camelExchange.setException(e);
+            try {
+                Message message = getCamelMessage();
+                _messageComposer.decompose(exchange, new CamelBindingData(message));
+                message.setFault(true);
+            } catch (Exception e) {
+                _camelExchange.setException(e);
+            }
+        } finally {
+            replied();
         }
     }
 
@@ -20,6 +20,9 @@
  */
 package org.switchyard.component.camel;
 
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Processor;
 import org.apache.camel.impl.DefaultConsumer;
@@ -29,8 +32,11 @@ import org.switchyard.HandlerException;
 import org.switchyard.Message;
 import org.switchyard.component.camel.common.composer.CamelBindingData;
 import org.switchyard.component.common.composer.MessageComposer;
+import org.switchyard.common.type.Classes;
 import org.switchyard.deploy.ServiceHandler;
 import org.switchyard.exception.SwitchYardException;
+import org.switchyard.policy.PolicyUtil;
+import org.switchyard.policy.TransactionPolicy;
 
 /**
  * A SwitchYardConsumer is both a Camel Consumer and an SwitchYard ExchangeHandler.
@@ -56,15 +62,32 @@ public class SwitchYardConsumer extends DefaultConsumer implements ServiceHandle
         _messageComposer = messageComposer;
     }
     
+    /**
+     * Routes the message through Camel's asynchronous routing engine. If the route completes on the
+     * calling thread the reply is sent (or the failure thrown) before returning, as before; if it
+     * continues on another thread (threads(), async producers, aggregators, ...) this returns at once
+     * and the reply or fault is sent from the route's completion callback, with the caller's thread
+     * context class loader set.
+     * <p/>
+     * A transaction is bound to the calling thread and cannot follow the route to another one, so an
+     * exchange which propagates a transaction waits for the route to complete, and its reply is sent
+     * on the calling thread within the transaction. Parts of the route running on other threads still
+     * run outside of it.
+     * 
+     * @param switchyardExchange the SwitchYard exchange
+     * @throws HandlerException if the route failed while the caller was waiting for it
+     */
     @Override
     public void handleMessage(final Exchange switchyardExchange) throws HandlerException {
         final org.apache.camel.Exchange camelExchange = createCamelExchange(switchyardExchange);
-        invokeCamelProcessor(camelExchange);
-
-        handleExceptionsFromCamel(camelExchange);
-
-        if (isInOut(switchyardExchange)) {
-            sendResponse(camelExchange, switchyardExchange);
+        final ReplyCallback callback = new ReplyCallback(camelExchange, switchyardExchange,
+                Thread.currentThread().getContextClassLoader(), isTransacted(switchyardExchange));
+        final boolean doneSync = invokeCamelProcessor(camelExchange, callback);
+        if (doneSync || callback._waiting) {
+            if (!doneSync) {
+                callback.await();
+            }
+            complete(camelExchange, switchyardExchange);
         }
     }
 
@@ -86,14 +109,33 @@ public class SwitchYardConsumer extends DefaultConsumer implements ServiceHandle
         }
     }
 
-    private void invokeCamelProcessor(final org.apache.camel.Exchange camelExchange) throws HandlerException {
+    private boolean invokeCamelProcessor(final org.apache.camel.Exchange camelExchange, final AsyncCallback callback) throws HandlerException {
         try {
-            getProcessor().process(camelExchange);
+            return getAsyncProcessor().process(camelExchange, callback);
         } catch (final Exception e) {
             throw new HandlerException(e); 
         }
     }
 
+    boolean isTransacted(final Exchange switchyardExchange) {
+        return PolicyUtil.isProvided(switchyardExchange, TransactionPolicy.PROPAGATES_TRANSACTION);
+    }
+
+    private void complete(final org.apache.camel.Exchange camelExchange, final Exchange switchyardExchange) throws HandlerException {
+        handleExceptionsFromCamel(camelExchange);
+
+        if (isInOut(switchyardExchange)) {
+            sendResponse(camelExchange, switchyardExchange);
+        }
+    }
+
+    private void sendFault(final Exchange switchyardExchange, final Throwable cause) {
+        final HandlerException fault = cause instanceof HandlerException 
+                ? (HandlerException) cause 
+                : new HandlerException(cause);
+        switchyardExchange.sendFault(switchyardExchange.createMessage().setContent(fault));
+    }
+
     private void handleExceptionsFromCamel(final org.apache.camel.Exchange camelExchange) throws HandlerException {
         final Exception camelException = camelExchange.getException();
         if (camelException != null) {
@@ -138,4 +180,52 @@ public class SwitchYardConsumer extends DefaultConsumer implements ServiceHandle
         //TODO: Implement error handling.
     }
 
+    /**
+     * Sends the SwitchYard reply when the Camel route completes asynchronously, or releases the
+     * caller waiting to send it. Failures of routes that completed asynchronously are sent back
+     * as faults, since there is no caller left to throw to.
+     */
+    private final class ReplyCallback implements AsyncCallback {
+
+        private final org.apache.camel.Exchange _camelExchange;
+        private final Exchange _switchyardExchange;
+        private final ClassLoader _loader;
+        private final boolean _waiting;
+        private final CountDownLatch _done = new CountDownLatch(1);
+
+        private ReplyCallback(final org.apache.camel.Exchange camelExchange, final Exchange switchyardExchange,
+                final ClassLoader loader, final boolean waiting) {
+            _camelExchange = camelExchange;
+            _switchyardExchange = switchyardExchange;
+            _loader = loader;
+            _waiting = waiting;
+        }
+
+        @Override
+        public void done(final boolean doneSync) {
+            if (doneSync || _waiting) {
+                // the caller sends the reply
+                _done.countDown();
+                return;
+            }
+            final ClassLoader setTCCL = Classes.setTCCL(_loader);
+            try {
+                complete(_camelExchange, _switchyardExchange);
+            } catch (final Throwable t) {
+                sendFault(_switchyardExchange, t);
+            } finally {
+                Classes.setTCCL(setTCCL);
+            }
+        }
+
+        private void await() throws HandlerException {
+            try {
+                _done.await();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new HandlerException(ie);
+            }
+        }
+    }
+
 }
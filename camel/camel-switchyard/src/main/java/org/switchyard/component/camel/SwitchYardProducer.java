@@ -24,9 +24,11 @@ import java.util.Set;
 
 import javax.xml.namespace.QName;
 
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.Endpoint;
-import org.apache.camel.impl.DefaultProducer;
+import org.apache.camel.impl.DefaultAsyncProducer;
 import org.switchyard.Exchange;
+import org.switchyard.ExchangePattern;
 import org.switchyard.Message;
 import org.switchyard.ServiceDomain;
 import org.switchyard.ServiceReference;
@@ -54,10 +56,16 @@ import org.switchyard.selector.OperationSelector;
  *    to("switchyard://serviceName?operationName=print");
  * </pre>
  * 
+ * Invocations complete on the calling thread once the service has been sent the message. A route
+ * which sets the {@link CamelConstants#ASYNC_REPLY} exchange property instead has request/reply
+ * invocations completed by the response handler once the service replies, so the calling thread
+ * is not held while waiting; only consumers which can complete an exchange from another thread,
+ * such as Netty, should set it.
+ * 
  * @author Daniel Bevenius
  *
  */
-public class SwitchYardProducer extends DefaultProducer {
+public class SwitchYardProducer extends DefaultAsyncProducer {
 
     private String _namespace;
     private String _operationName;
@@ -79,30 +87,50 @@ public class SwitchYardProducer extends DefaultProducer {
     }
 
     @Override
-    public void process(final org.apache.camel.Exchange camelExchange) throws Exception {
-        final String targetUri = (String) camelExchange.getProperty(org.apache.camel.Exchange.TO_ENDPOINT);
-        ServiceDomain domain = (ServiceDomain) camelExchange.getContext().getRegistry().lookup(CamelConstants.SERVICE_DOMAIN);
+    public boolean process(final org.apache.camel.Exchange camelExchange, final AsyncCallback callback) {
+        final boolean async;
+        final CamelResponseHandler handler;
+        try {
+            final String targetUri = (String) camelExchange.getProperty(org.apache.camel.Exchange.TO_ENDPOINT);
+            ServiceDomain domain = (ServiceDomain) camelExchange.getContext().getRegistry().lookup(CamelConstants.SERVICE_DOMAIN);
 
-        final ServiceReference serviceRef = lookupServiceReference(targetUri, domain);
-        MessageComposer<CamelBindingData> composer = getMessageComposer(camelExchange);
+            final ServiceReference serviceRef = lookupServiceReference(targetUri, domain);
+            MessageComposer<CamelBindingData> composer = getMessageComposer(camelExchange);
 
-        final Exchange switchyardExchange = createSwitchyardExchange(camelExchange, serviceRef, composer);
+            handler = new CamelResponseHandler(camelExchange, serviceRef, composer);
+            final Exchange switchyardExchange = createSwitchyardExchange(camelExchange, serviceRef, handler);
+            async = switchyardExchange.getContract().getConsumerOperation().getExchangePattern() == ExchangePattern.IN_OUT
+                && camelExchange.getProperty(CamelConstants.ASYNC_REPLY, false, Boolean.class);
 
-        // Set appropriate policy based on Camel exchange properties
-        if (camelExchange.isTransacted()) {
-            PolicyUtil.provide(switchyardExchange, TransactionPolicy.PROPAGATES_TRANSACTION);
-            PolicyUtil.provide(switchyardExchange, TransactionPolicy.MANAGED_TRANSACTION_GLOBAL);
-        }
+            // Set appropriate policy based on Camel exchange properties
+            if (camelExchange.isTransacted()) {
+                PolicyUtil.provide(switchyardExchange, TransactionPolicy.PROPAGATES_TRANSACTION);
+                PolicyUtil.provide(switchyardExchange, TransactionPolicy.MANAGED_TRANSACTION_GLOBAL);
+            }
 
-        BindingDataCreator<?> bindingCreator = getBindingDataCreator(camelExchange);
-        CamelBindingData bindingData = bindingCreator.createBindingData(camelExchange.getIn());
-        if (bindingData instanceof SecurityBindingData) {
-            // returned binding is contains some security bindings, let's move them to security context
-            SecurityContext.get(switchyardExchange).getCredentials().addAll(
-                ((SecurityBindingData) bindingData).extractCredentials());
+            BindingDataCreator<?> bindingCreator = getBindingDataCreator(camelExchange);
+            CamelBindingData bindingData = bindingCreator.createBindingData(camelExchange.getIn());
+            if (bindingData instanceof SecurityBindingData) {
+                // returned binding is contains some security bindings, let's move them to security context
+                SecurityContext.get(switchyardExchange).getCredentials().addAll(
+                    ((SecurityBindingData) bindingData).extractCredentials());
+            }
+            Message switchyardMessage = composer.compose(bindingData, switchyardExchange, true);
+            if (async) {
+                handler.setCallback(callback);
+            }
+            switchyardExchange.send(switchyardMessage);
+        } catch (Exception e) {
+            camelExchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+        if (!async || handler.awaitReply()) {
+            // completed on the calling thread, or the reply already arrived on it
+            callback.done(true);
+            return true;
         }
-        Message switchyardMessage = composer.compose(bindingData, switchyardExchange, true);
-        switchyardExchange.send(switchyardMessage);
+        return false;
     }
 
     /**
@@ -148,9 +176,8 @@ public class SwitchYardProducer extends DefaultProducer {
     }
 
     private Exchange createSwitchyardExchange(final org.apache.camel.Exchange camelExchange, final ServiceReference serviceRef,
-        MessageComposer<CamelBindingData> messageComposer) {
+        CamelResponseHandler handler) {
         String opName = lookupOperationNameFor(camelExchange, serviceRef);
-        CamelResponseHandler handler = new CamelResponseHandler(camelExchange, serviceRef, messageComposer);
 
         if (opName != null) {
             return serviceRef.createExchange(opName, handler);
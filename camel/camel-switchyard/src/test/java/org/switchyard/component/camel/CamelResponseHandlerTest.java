@@ -23,6 +23,7 @@ package org.switchyard.component.camel;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -30,6 +31,10 @@ import static org.mockito.Mockito.when;
 
 import javax.xml.namespace.QName;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
 import org.apache.camel.impl.DefaultExchange;
@@ -128,6 +133,42 @@ public class CamelResponseHandlerTest {
         assertSame(exception, camelExchange.getException());
     }
 
+    @Test
+    public void replyAfterSendCompletesCallback() throws HandlerException {
+        final CamelResponseHandler responseHandler = new CamelResponseHandler(createCamelExchange(), createMockServiceRef(), _messageComposer);
+        final RecordingCallback callback = new RecordingCallback();
+        responseHandler.setCallback(callback);
+
+        assertFalse(responseHandler.awaitReply());
+        assertTrue(callback._done.isEmpty());
+        responseHandler.handleFault(createMockExchangeWithBody(new MessageCreator() {
+            @Override
+            public Message create() {
+                return mock(Message.class);
+            }
+        }));
+
+        assertThat(callback._done.size(), is(equalTo(1)));
+        assertFalse(callback._done.get(0));
+    }
+
+    @Test
+    public void replyDuringSendLeavesCallbackToCaller() throws HandlerException {
+        final CamelResponseHandler responseHandler = new CamelResponseHandler(createCamelExchange(), createMockServiceRef(), _messageComposer);
+        final RecordingCallback callback = new RecordingCallback();
+        responseHandler.setCallback(callback);
+
+        responseHandler.handleFault(createMockExchangeWithBody(new MessageCreator() {
+            @Override
+            public Message create() {
+                return mock(Message.class);
+            }
+        }));
+
+        assertTrue(callback._done.isEmpty());
+        assertTrue(responseHandler.awaitReply());
+    }
+
     private Exchange createCamelExchange() {
         return new DefaultExchange((CamelContext) null);
     }
@@ -169,6 +210,15 @@ public class CamelResponseHandlerTest {
         }
     }
 
+    private static class RecordingCallback implements AsyncCallback {
+        private final List<Boolean> _done = new ArrayList<Boolean>();
+
+        @Override
+        public void done(boolean doneSync) {
+            _done.add(doneSync);
+        }
+    }
+
     /**
      * Interface which let populate mock message.
      */
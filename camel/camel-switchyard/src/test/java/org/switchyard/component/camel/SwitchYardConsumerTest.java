@@ -0,0 +1,188 @@
+/*
+ * JBoss, Home of Professional Open Source Copyright 2009, Red Hat Middleware
+ * LLC, and individual contributors by the @authors tag. See the copyright.txt
+ * in the distribution for a full listing of individual contributors.
+ * 
+ * This is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this software; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA, or see the FSF
+package org.switchyard.component.camel;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.CamelContext;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.switchyard.Exchange;
+import org.switchyard.ExchangePattern;
+import org.switchyard.Message;
+import org.switchyard.component.camel.common.composer.CamelBindingData;
+import org.switchyard.component.common.composer.MessageComposer;
+import org.switchyard.metadata.ExchangeContract;
+import org.switchyard.metadata.ServiceOperation;
+
+/**
+ * Unit test for the asynchronous completion of {@link SwitchYardConsumer}.
+ */
+public class SwitchYardConsumerTest {
+
+    private CamelContext _camelContext;
+    private MessageComposer<CamelBindingData> _composer;
+    private Exchange _exchange;
+    private Message _reply;
+    private final AtomicReference<ClassLoader> _composeLoader = new AtomicReference<ClassLoader>();
+    private final AtomicReference<Thread> _sendThread = new AtomicReference<Thread>();
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void before() throws Exception {
+        _camelContext = new DefaultCamelContext();
+        _camelContext.start();
+        _reply = mock(Message.class);
+        _composer = mock(MessageComposer.class);
+        when(_composer.compose(any(CamelBindingData.class), any(Exchange.class), anyBoolean())).thenAnswer(new Answer<Message>() {
+            @Override
+            public Message answer(final InvocationOnMock invocation) {
+                _composeLoader.set(Thread.currentThread().getContextClassLoader());
+                return _reply;
+            }
+        });
+        final ServiceOperation operation = mock(ServiceOperation.class);
+        when(operation.getExchangePattern()).thenReturn(ExchangePattern.IN_OUT);
+        final ExchangeContract contract = mock(ExchangeContract.class);
+        when(contract.getProviderOperation()).thenReturn(operation);
+        _exchange = mock(Exchange.class);
+        when(_exchange.getContract()).thenReturn(contract);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                _sendThread.set(Thread.currentThread());
+                return null;
+            }
+        }).when(_exchange).send(_reply);
+    }
+
+    @After
+    public void after() throws Exception {
+        _camelContext.stop();
+    }
+
+    @Test
+    public void asyncReplySentWithCallerClassLoader() throws Exception {
+        final SwitchYardConsumer consumer = new SwitchYardConsumer(_camelContext.getEndpoint("direct:async"),
+                new OtherThreadProcessor(), _composer);
+        consumer.start();
+        try {
+            consumer.handleMessage(_exchange);
+            verify(_exchange, timeout(5000)).send(_reply);
+            assertThat(_composeLoader.get(), is(sameInstance(Thread.currentThread().getContextClassLoader())));
+            assertThat(_sendThread.get() == Thread.currentThread(), is(false));
+        } finally {
+            consumer.stop();
+        }
+    }
+
+    @Test
+    public void transactedReplySentOnCallerThread() throws Exception {
+        final SwitchYardConsumer consumer = new SwitchYardConsumer(_camelContext.getEndpoint("direct:transacted"),
+                new OtherThreadProcessor(), _composer) {
+            @Override
+            boolean isTransacted(final Exchange switchyardExchange) {
+                return true;
+            }
+        };
+        consumer.start();
+        try {
+            consumer.handleMessage(_exchange);
+            verify(_exchange).send(_reply);
+            assertThat(_sendThread.get(), is(sameInstance(Thread.currentThread())));
+        } finally {
+            consumer.stop();
+        }
+    }
+
+    @Test
+    public void asyncFailureSentAsFault() throws Exception {
+        final Message fault = mock(Message.class);
+        when(_exchange.createMessage()).thenReturn(fault);
+        when(fault.setContent(any())).thenReturn(fault);
+        final SwitchYardConsumer consumer = new SwitchYardConsumer(_camelContext.getEndpoint("direct:failed"),
+                new OtherThreadProcessor(new IllegalStateException("route failed")), _composer);
+        consumer.start();
+        try {
+            consumer.handleMessage(_exchange);
+            verify(_exchange, timeout(5000)).sendFault(fault);
+            verify(_exchange, never()).send(_reply);
+        } finally {
+            consumer.stop();
+        }
+    }
+
+    /**
+     * Completes the route on another thread, which has a different context class loader.
+     */
+    private static final class OtherThreadProcessor implements AsyncProcessor {
+
+        private final Exception _failure;
+
+        private OtherThreadProcessor() {
+            this(null);
+        }
+
+        private OtherThreadProcessor(final Exception failure) {
+            _failure = failure;
+        }
+
+        @Override
+        public boolean process(final org.apache.camel.Exchange exchange, final AsyncCallback callback) {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    if (_failure != null) {
+                        exchange.setException(_failure);
+                    }
+                    callback.done(false);
+                }
+            });
+            thread.setContextClassLoader(new URLClassLoader(new URL[0], null));
+            thread.start();
+            return false;
+        }
+
+        @Override
+        public void process(final org.apache.camel.Exchange exchange) throws Exception {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source Copyright 2009, Red Hat Middleware
+ * LLC, and individual contributors by the @authors tag. See the copyright.txt
+ * in the distribution for a full listing of individual contributors.
+ * 
+ * This is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this software; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA, or see the FSF
+ * site: http://www.fsf.org.
+ */
+package org.switchyard.component.camel;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.switchyard.BaseHandler;
+import org.switchyard.Exchange;
+import org.switchyard.HandlerException;
+import org.switchyard.component.camel.common.CamelConstants;
+import org.switchyard.component.test.mixins.cdi.CDIMixIn;
+import org.switchyard.metadata.InOutService;
+import org.switchyard.test.SwitchYardRunner;
+import org.switchyard.test.SwitchYardTestCaseConfig;
+
+/**
+ * Test for {@link SwitchYardProducer} completing request/reply calls synchronously or
+ * asynchronously.
+ */
+@RunWith(SwitchYardRunner.class)
+@SwitchYardTestCaseConfig(mixins = CDIMixIn.class)
+public class SwitchYardProducerTest extends SwitchYardComponentTestBase {
+
+    private static final String SERVICE_NAME = "replyLaterService";
+    private static final String REPLY = "reply";
+
+    private final CountDownLatch _releaseReply = new CountDownLatch(1);
+    private volatile Thread _replier;
+    private volatile Thread _continuedOn;
+
+    @Before
+    public void registerService() {
+        _serviceDomain.registerService(new QName(SERVICE_NAME), new InOutService(), new ReplyLaterService());
+        _serviceDomain.registerServiceReference(new QName(SERVICE_NAME), new InOutService("process"));
+    }
+
+    @Test
+    public void completesOnCallingThreadByDefault() throws Exception {
+        template.requestBody("direct:sync", "request");
+        _releaseReply.countDown();
+
+        assertThat(_continuedOn, is(sameInstance(Thread.currentThread())));
+    }
+
+    @Test
+    public void completesOnReplyingThreadWhenAsync() throws Exception {
+        releaseReplyOnceParked(Thread.currentThread());
+        Object response = template.requestBody("direct:async", "request");
+
+        assertThat(response, is(equalTo((Object) REPLY)));
+        assertThat(_continuedOn, is(sameInstance(_replier)));
+    }
+
+    // the reply is only sent once the calling thread waits for it, i.e. the request has been handed off
+    private void releaseReplyOnceParked(final Thread caller) {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 500 && (_replier == null || (caller.getState() != Thread.State.WAITING
+                        && caller.getState() != Thread.State.TIMED_WAITING)); i++) {
+                        Thread.sleep(10);
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    _releaseReply.countDown();
+                }
+            }
+        }).start();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        final Processor recorder = new Processor() {
+            @Override
+            public void process(org.apache.camel.Exchange exchange) {
+                _continuedOn = Thread.currentThread();
+            }
+        };
+        return new RouteBuilder() {
+            public void configure() throws Exception {
+                from("direct:sync")
+                    .to("switchyard://" + SERVICE_NAME + "?operationName=process")
+                    .process(recorder);
+                from("direct:async")
+                    .setProperty(CamelConstants.ASYNC_REPLY, constant(Boolean.TRUE))
+                    .to("switchyard://" + SERVICE_NAME + "?operationName=process")
+                    .process(recorder);
+            }
+        };
+    }
+
+    /**
+     * Replies from another thread, once the test lets it.
+     */
+    private class ReplyLaterService extends BaseHandler {
+        @Override
+        public void handleMessage(final Exchange exchange) throws HandlerException {
+            _replier = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (_releaseReply.await(5, TimeUnit.SECONDS)) {
+                            exchange.send(exchange.createMessage().setContent(REPLY));
+                        }
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "replier");
+            _replier.start();
+        }
+    }
+
+}
@@ -22,6 +22,7 @@ package org.switchyard.component.camel.transformer;
 
 import org.apache.camel.TypeConverter;
 import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.spi.TypeConverterRegistry;
 
 /**
  * A singleton converter that can be used by Switchyard Transformers
@@ -35,6 +36,7 @@ public final class CamelConverter {
     private static final CamelConverter INSTANCE = new CamelConverter();
     
     private TypeConverter _typeConverter;
+    private TypeConverterRegistry _typeConverterRegistry;
     
     private CamelConverter() {
         final DefaultCamelContext camelContext = new DefaultCamelContext();
@@ -45,6 +47,7 @@ public final class CamelConverter {
 //        }
 
         _typeConverter = camelContext.getTypeConverter();
+        _typeConverterRegistry = camelContext.getTypeConverterRegistry();
     }
     
     /**
@@ -58,6 +61,18 @@ public final class CamelConverter {
         return _typeConverter.convertTo(toType, from);
     }
     
+    /**
+     * Looks up the TypeConverter registered for converting from one type to another, so that callers
+     * converting the same pair of types over and over can invoke it directly.
+     * 
+     * @param toType the type to convert to
+     * @param fromType the type to convert from
+     * @return TypeConverter the converter, or null if none is registered for the types
+     */
+    public TypeConverter lookup(final Class<?> toType, final Class<?> fromType) {
+        return _typeConverterRegistry.lookup(toType, fromType);
+    }
+    
     /**
      * Gets the singleton instance.
      * @return CamelConverter the singleton instance.
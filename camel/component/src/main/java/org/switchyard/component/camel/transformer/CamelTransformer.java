@@ -22,8 +22,11 @@ package org.switchyard.component.camel.transformer;
 
 import javax.xml.namespace.QName;
 
+import org.apache.camel.TypeConverter;
+import org.apache.camel.util.ObjectHelper;
 import org.switchyard.common.xml.QNameUtil;
 import org.switchyard.transform.BaseTransformer;
+import org.switchyard.transform.Transformer;
 
 /**
  * A SwitchYard transformer that delegates to Apache Camel's converter framework.
@@ -32,6 +35,11 @@ import org.switchyard.transform.BaseTransformer;
  * This gives SwitchYard components that use the SwitchYard Camel component to have 
  * access to all converters that are provided by Camel and at the same time enables 
  * the from and to types to be explicitely declared on the SwitchYard contracts.  
+ * </p>
+ * 
+ * The Java types and the Camel TypeConverter for them are resolved once, when the from and
+ * to types are set, so converting a message is a direct call to that converter. Messages
+ * the resolved converter does not apply to go through Camel's converter search as before.
  * 
  * @author Daniel Bevenius
  *
@@ -39,6 +47,7 @@ import org.switchyard.transform.BaseTransformer;
 public class CamelTransformer extends BaseTransformer {
 
     private CamelConverter _camelConverter = CamelConverter.instance();
+    private volatile Resolved _resolved;
 
     /**
      * No-args constructor.
@@ -53,6 +62,21 @@ public class CamelTransformer extends BaseTransformer {
      */
     public CamelTransformer(final QName from, final QName to) {
         super(from, to);
+        resolve();
+    }
+
+    @Override
+    public Transformer setFrom(final QName fromType) {
+        super.setFrom(fromType);
+        resolve();
+        return this;
+    }
+
+    @Override
+    public Transformer setTo(final QName toType) {
+        super.setTo(toType);
+        resolve();
+        return this;
     }
 
     @Override
@@ -61,8 +85,50 @@ public class CamelTransformer extends BaseTransformer {
             return null;
         }
 
-        final Class<?> toType = QNameUtil.toJavaMessageType(getTo());
-        return _camelConverter.convert(toType, from);
+        Resolved resolved = _resolved;
+        if (resolved == null) {
+            resolve();
+            resolved = _resolved;
+        }
+        if (resolved._converter != null && resolved._fromType.isInstance(from)) {
+            final Object to = resolved._converter.convertTo(resolved._converterType, from);
+            if (to != null) {
+                return to;
+            }
+        }
+        return _camelConverter.convert(resolved._toType, from);
+    }
+
+    private void resolve() {
+        final Class<?> toType = getTo() != null ? QNameUtil.toJavaMessageType(getTo()) : null;
+        final Class<?> fromType = getFrom() != null ? QNameUtil.toJavaMessageType(getFrom()) : null;
+        // converters are registered for wrapper types, as Camel's converter search looks them up
+        final Class<?> converterType = toType != null ? ObjectHelper.convertPrimitiveTypeToWrapperType(toType) : null;
+        TypeConverter converter = null;
+        if (converterType != null && fromType != null) {
+            // may be called from the super constructor, before the fields are initialized
+            converter = CamelConverter.instance().lookup(converterType, fromType);
+        }
+        _resolved = new Resolved(fromType, toType, converterType, converter);
+    }
+
+    /**
+     * The Java types and converter resolved for the current from and to types.
+     */
+    private static final class Resolved {
+
+        private final Class<?> _fromType;
+        private final Class<?> _toType;
+        private final Class<?> _converterType;
+        private final TypeConverter _converter;
+
+        private Resolved(final Class<?> fromType, final Class<?> toType, final Class<?> converterType, final TypeConverter converter) {
+            _fromType = fromType;
+            _toType = toType;
+            _converterType = converterType;
+            _converter = converter;
+        }
+
     }
 
 }
@@ -49,7 +49,7 @@ import org.switchyard.transform.config.model.v1.V1JavaTransformModel;
  */
 public class CamelTypeConverterExtractor extends DefaultTypeConverter {
     
-    private Map<QName, Set<QName>> _transformTypes = new HashMap<QName, Set<QName>>();
+    private volatile Map<QName, Set<QName>> _transformTypes;
     private CamelContext _camelContext;
 
     /**
@@ -75,25 +75,48 @@ public class CamelTypeConverterExtractor extends DefaultTypeConverter {
      * Will return the SwitchYard representations (QName) for the 'from and 'to' types
      * registered within Camel's TypeConverter registry.
      * 
+     * The map is computed once, and only computed again after further converters have been added.
+     * 
      * @return Map where the key is the fromType and the value a set of toTypes.
      */
     public Map<QName, Set<QName>> getTransformTypes() {
+        Map<QName, Set<QName>> transformTypes = _transformTypes;
+        if (transformTypes == null) {
+            synchronized (this) {
+                transformTypes = _transformTypes;
+                if (transformTypes == null) {
+                    transformTypes = computeTransformTypes();
+                    _transformTypes = transformTypes;
+                }
+            }
+        }
+        return transformTypes;
+    }
+    
+    @Override
+    public void addTypeConverter(final Class<?> toType, final Class<?> fromType, final TypeConverter typeConverter) {
+        super.addTypeConverter(toType, fromType, typeConverter);
+        _transformTypes = null;
+    }
+    
+    private Map<QName, Set<QName>> computeTransformTypes() {
+        final Map<QName, Set<QName>> transformTypes = new HashMap<QName, Set<QName>>();
         for (Entry<TypeMapping, TypeConverter> entry : typeMappings.entrySet())
         {
             final TypeMapping mapping = entry.getKey();
             final QName fromType = JavaService.toMessageType(mapping.getFromType());
             final QName toType = JavaService.toMessageType(mapping.getToType());
-            getToTypesFor(fromType).add(toType);
+            Set<QName> toTypes = transformTypes.get(fromType);
+            if (toTypes == null) {
+                toTypes = new HashSet<QName>();
+                transformTypes.put(fromType, toTypes);
+            }
+            toTypes.add(toType);
         }
-        
-        return Collections.unmodifiableMap(_transformTypes);
-    }
-    
-    private Set<QName> getToTypesFor(final QName fromType) {
-        if (!_transformTypes.containsKey(fromType)) {
-            _transformTypes.put(fromType, new HashSet<QName>());
+        for (Entry<QName, Set<QName>> entry : transformTypes.entrySet()) {
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
         }
-        return _transformTypes.get(fromType);
+        return Collections.unmodifiableMap(transformTypes);
     }
     
     /**
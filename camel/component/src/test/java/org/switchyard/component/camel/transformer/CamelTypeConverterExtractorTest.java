@@ -23,6 +23,7 @@ package org.switchyard.component.camel.transformer;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItems;
@@ -86,6 +87,11 @@ public class CamelTypeConverterExtractorTest
                 new QName("java:org.apache.camel.StringSource")));
     }
     
+    @Test
+    public void transformTypesComputedOnce() throws Exception {
+        assertThat(_extractor.getTransformTypes(), is(sameInstance(_extractor.getTransformTypes())));
+    }
+    
     @Test
     public void generateTransformsModel() {
         final TransformsModel v1TransformsModel = _extractor.getV1TransformsModel();
@@ -55,6 +55,16 @@ public interface ClojureComponentImplementationModel extends ComponentImplementa
      */
     String INJECT_EXCHANGE = "injectExchange";
     
+    /**
+     * The 'invocationMode' attribute name, either "direct" (the default) or "pooled".
+     */
+    String INVOCATION_MODE = "invocationMode";
+    
+    /**
+     * The 'poolSize' attribute name, the number of threads of the "pooled" invocation mode.
+     */
+    String POOL_SIZE = "poolSize";
+    
     /**
      * Gets the clojure script that is the actual Clojure code.
      * @return {@link ClojureScriptModel} the clojure script configuration model.
@@ -97,5 +107,36 @@ public interface ClojureComponentImplementationModel extends ComponentImplementa
      */
     ClojureComponentImplementationModel setInjectExchange(final Boolean enable);
     
+    /**
+     * Gets how the Clojure function is invoked: "direct" on the calling thread (the default), or
+     * "pooled" on a bounded thread pool, for long-running functions.
+     * 
+     * @return String the invocation mode, or null if not set.
+     */
+    String getInvocationMode();
+    
+    /**
+     * Sets the invocation mode.
+     * 
+     * @param invocationMode The invocation mode.
+     * @return {@link ClojureComponentImplementationModel} to enable method chaining.
+     */
+    ClojureComponentImplementationModel setInvocationMode(final String invocationMode);
+    
+    /**
+     * Gets the number of threads used by the "pooled" invocation mode.
+     * 
+     * @return Integer the pool size, or null if not set.
+     */
+    Integer getPoolSize();
+    
+    /**
+     * Sets the number of threads used by the "pooled" invocation mode.
+     * 
+     * @param poolSize The pool size.
+     * @return {@link ClojureComponentImplementationModel} to enable method chaining.
+     */
+    ClojureComponentImplementationModel setPoolSize(final Integer poolSize);
+    
 
 }
@@ -107,4 +107,27 @@ public class V1ClojureComponentImplementationModel extends V1ComponentImplementa
         _injectExchange = enable;
         return this;
     }
+    
+    @Override
+    public String getInvocationMode() {
+        return getModelAttribute(INVOCATION_MODE);
+    }
+    
+    @Override
+    public ClojureComponentImplementationModel setInvocationMode(final String invocationMode) {
+        setModelAttribute(INVOCATION_MODE, invocationMode);
+        return this;
+    }
+    
+    @Override
+    public Integer getPoolSize() {
+        final String poolSize = getModelAttribute(POOL_SIZE);
+        return poolSize != null ? Integer.valueOf(poolSize.trim()) : null;
+    }
+    
+    @Override
+    public ClojureComponentImplementationModel setPoolSize(final Integer poolSize) {
+        setModelAttribute(POOL_SIZE, poolSize != null ? poolSize.toString() : null);
+        return this;
+    }
 }
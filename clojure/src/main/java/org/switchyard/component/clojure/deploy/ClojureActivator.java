@@ -20,6 +20,9 @@
  */
 package org.switchyard.component.clojure.deploy;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import javax.xml.namespace.QName;
 
 import org.switchyard.component.clojure.config.model.ClojureComponentImplementationModel;
@@ -29,6 +32,9 @@ import org.switchyard.deploy.ServiceHandler;
 
 /**
  * Activator for implemenations.clojure.
+ * <p/>
+ * An activator is created for each deployment. Once the last of its services is deactivated, it evicts
+ * the scripts compiled with its handlers' class loaders from {@link ClojureScriptCache}, and only those.
  * 
  * @author Daniel Bevenius
  *
@@ -36,6 +42,9 @@ import org.switchyard.deploy.ServiceHandler;
 public class ClojureActivator extends BaseActivator {
     
     static final String[] TYPES = new String[] {"clojure"};
+
+    private final Set<ClassLoader> _loaders = new HashSet<ClassLoader>();
+    private int _active;
     
     /**
      * Sole constructor .
@@ -46,11 +55,27 @@ public class ClojureActivator extends BaseActivator {
     
     @Override
     public ServiceHandler activateService(QName name, ComponentModel config) {
+        synchronized (_loaders) {
+            _active++;
+        }
         return new ClojureHandler((ClojureComponentImplementationModel)config.getImplementation());
     }
 
     @Override
     public void deactivateService(QName name, ServiceHandler handler) {
-        // Nothing to do here
+        synchronized (_loaders) {
+            if (handler instanceof ClojureHandler) {
+                ClassLoader loader = ((ClojureHandler)handler).getLoader();
+                if (loader != null) {
+                    _loaders.add(loader);
+                }
+            }
+            if (_active > 0 && --_active == 0) {
+                for (ClassLoader loader : _loaders) {
+                    ClojureScriptCache.evict(loader);
+                }
+                _loaders.clear();
+            }
+        }
     }
 }
@@ -24,10 +24,19 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.StringReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.switchyard.Exchange;
 import org.switchyard.HandlerException;
+import org.switchyard.Message;
 import org.switchyard.common.type.Classes;
 import org.switchyard.component.clojure.config.model.ClojureComponentImplementationModel;
 import org.switchyard.component.clojure.config.model.ClojureScriptModel;
@@ -38,14 +47,33 @@ import clojure.lang.Var;
 
 /**
  * An ExchangeHandle that can load and invoke a Clojure script. 
+ * <p/>
+ * Compiled scripts are cached by class loader and script content (see {@link ClojureScriptCache}), so
+ * restarting a service, or several services of a deployment sharing a script, does not compile it again.
+ * The function is invoked either directly on the calling thread, or, in "pooled" mode, on a bounded thread
+ * pool with the reply sent when it completes.
  * 
  * @author Daniel Bevenius
  *
  */
 public class ClojureHandler implements ServiceHandler {
     
+    /** Invokes the function on the calling thread. */
+    public static final String DIRECT = "direct";
+    /** Invokes the function on a bounded thread pool. */
+    public static final String POOLED = "pooled";
+    /** The default pool size for the pooled invocation mode. */
+    public static final int DEFAULT_POOL_SIZE = 10;
+    /** The maximum number of invocations waiting for a pooled thread before new ones are rejected. */
+    public static final int MAX_QUEUED_INVOCATIONS = 1000;
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
     private final ClojureComponentImplementationModel _implModel;
+    private ClassLoader _loader;
     private Var _var;
+    private ClojureMetrics _metrics;
+    private ExecutorService _executor;
 
     /**
      * Sole constructor.
@@ -62,17 +90,72 @@ public class ClojureHandler implements ServiceHandler {
     public void start() {
         try {
             final ClojureScriptModel scriptModel = _implModel.getScriptModel();
-            _var = scriptModel != null 
-                    ? (Var) clojure.lang.Compiler.load(new StringReader(scriptModel.getScript())) 
-                    : (Var) clojure.lang.Compiler.load(loadInputStream(_implModel.getScriptFile()));
+            final String script = scriptModel != null 
+                    ? scriptModel.getScript() 
+                    : read(loadInputStream(_implModel.getScriptFile()));
+            _loader = Thread.currentThread().getContextClassLoader();
+            _var = ClojureScriptCache.load(_loader, script);
+            _metrics = new ClojureMetrics(String.valueOf(_var.ns) + "/" + _var.sym);
         } catch (final Exception e) {
             throw new SwitchYardException(e);
         }
+        if (POOLED.equalsIgnoreCase(_implModel.getInvocationMode())) {
+            final Integer poolSize = _implModel.getPoolSize();
+            final int size = poolSize != null && poolSize > 0 ? poolSize : DEFAULT_POOL_SIZE;
+            final String prefix = "Clojure-" + POOL_COUNT.incrementAndGet() + ":";
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS, 
+                    new ArrayBlockingQueue<Runnable>(MAX_QUEUED_INVOCATIONS), new ThreadFactory() {
+                        private final AtomicInteger _count = new AtomicInteger();
+                        @Override
+                        public Thread newThread(final Runnable runnable) {
+                            final Thread thread = new Thread(runnable, prefix + _count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            _executor = executor;
+        }
     }
     
     @Override
     public void stop() {
-        // Nothing to do here
+        if (_executor != null) {
+            _executor.shutdown();
+            _executor = null;
+        }
+    }
+    
+    /**
+     * Gets the invocation metrics of the Clojure function.
+     * 
+     * @return the metrics, or null if the handler has not been started
+     */
+    public ClojureMetrics getMetrics() {
+        return _metrics;
+    }
+    
+    /**
+     * Gets the class loader the script was compiled with.
+     * 
+     * @return the class loader, or null if the handler has not been started
+     */
+    ClassLoader getLoader() {
+        return _loader;
+    }
+    
+    private static String read(final Reader reader) throws IOException {
+        try {
+            final StringWriter writer = new StringWriter();
+            final char[] buf = new char[4096];
+            int read;
+            while ((read = reader.read(buf)) != -1) {
+                writer.write(buf, 0, read);
+            }
+            return writer.toString();
+        } finally {
+            reader.close();
+        }
     }
     
     private InputStreamReader loadInputStream(final String scriptFile) throws IOException {
@@ -86,16 +169,49 @@ public class ClojureHandler implements ServiceHandler {
 
     @Override
     public void handleMessage(final Exchange exchange) throws HandlerException {
+        final ExecutorService executor = _executor;
+        if (executor == null) {
+            invoke(exchange);
+            return;
+        }
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final ClassLoader setTCCL = Classes.setTCCL(loader);
+                    try {
+                        invoke(exchange);
+                    } catch (final HandlerException he) {
+                        exchange.sendFault(exchange.createMessage().setContent(he));
+                    } finally {
+                        Classes.setTCCL(setTCCL);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException ree) {
+            throw new HandlerException(ree);
+        }
+    }
+
+    private void invoke(final Exchange exchange) throws HandlerException {
+        final long start = System.nanoTime();
+        boolean failed = true;
         try {
-            Object response =_implModel.injectExchange() 
+            final Object response = _implModel.injectExchange() 
                     ? _var.invoke(exchange)
                     : _var.invoke(exchange.getMessage().getContent());
+            failed = false;
+            _metrics.invoked(System.nanoTime() - start, false);
             if (response != null) {
-                exchange.getMessage().setContent(response);
-                exchange.send(exchange.getMessage());
+                // reply with a new message rather than rewriting the request
+                final Message reply = exchange.createMessage().setContent(response);
+                exchange.send(reply);
             }
-                
         } catch (final Exception e) {
+            if (failed) {
+                _metrics.invoked(System.nanoTime() - start, true);
+            }
             throw new HandlerException(e);
         }
     }
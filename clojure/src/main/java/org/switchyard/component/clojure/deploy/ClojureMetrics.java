@@ -0,0 +1,105 @@
+/*
+ * JBoss, Home of Professional Open Source Copyright 2009, Red Hat Middleware
+ * LLC, and individual contributors by the @authors tag. See the copyright.txt
+ * in the distribution for a full listing of individual contributors.
+ * 
+ * This is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this software; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA, or see the FSF
+ * site: http://www.fsf.org.
+ */
+package org.switchyard.component.clojure.deploy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Invocation metrics for the Clojure function backing a service.
+ */
+public class ClojureMetrics {
+
+    private final String _function;
+    private final AtomicLong _invocations = new AtomicLong();
+    private final AtomicLong _failures = new AtomicLong();
+    private final AtomicLong _totalNanos = new AtomicLong();
+    private final AtomicLong _maxNanos = new AtomicLong();
+
+    /**
+     * Constructs metrics for a function.
+     * @param function the fully-qualified function name
+     */
+    public ClojureMetrics(final String function) {
+        _function = function;
+    }
+
+    /**
+     * Gets the fully-qualified name of the function.
+     * @return the function name
+     */
+    public String getFunction() {
+        return _function;
+    }
+
+    /**
+     * Gets the number of completed invocations, including failed ones.
+     * @return the number of invocations
+     */
+    public long getInvocations() {
+        return _invocations.get();
+    }
+
+    /**
+     * Gets the number of invocations that threw an exception.
+     * @return the number of failures
+     */
+    public long getFailures() {
+        return _failures.get();
+    }
+
+    /**
+     * Gets the total time spent in the function.
+     * @return the total time in milliseconds
+     */
+    public long getTotalTime() {
+        return _totalNanos.get() / 1000000L;
+    }
+
+    /**
+     * Gets the average time per invocation.
+     * @return the average time in milliseconds
+     */
+    public double getAverageTime() {
+        final long invocations = getInvocations();
+        return invocations > 0 ? (_totalNanos.get() / 1000000d) / invocations : 0d;
+    }
+
+    /**
+     * Gets the longest time taken by a single invocation.
+     * @return the maximum time in milliseconds
+     */
+    public long getMaxTime() {
+        return _maxNanos.get() / 1000000L;
+    }
+
+    void invoked(final long nanos, final boolean failed) {
+        _invocations.incrementAndGet();
+        if (failed) {
+            _failures.incrementAndGet();
+        }
+        _totalNanos.addAndGet(nanos);
+        long max = _maxNanos.get();
+        while (nanos > max && !_maxNanos.compareAndSet(max, nanos)) {
+            max = _maxNanos.get();
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source Copyright 2009, Red Hat Middleware
+ * LLC, and individual contributors by the @authors tag. See the copyright.txt
+ * in the distribution for a full listing of individual contributors.
+ * 
+ * This is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this software; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA, or see the FSF
+ * site: http://www.fsf.org.
+ */
+package org.switchyard.component.clojure.deploy;
+
+import java.io.StringReader;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+import clojure.lang.Var;
+
+/**
+ * The compiled Clojure scripts of all deployments.
+ * <p/>
+ * Compiled code is tied to the class loader it was compiled with, so scripts are keyed by the deploying
+ * class loader and a digest of their content. Restarting a service, or several services sharing a script,
+ * reuses the compiled function. Entries are evicted per class loader when its deployment is undeployed,
+ * leaving those of other deployments in place.
+ */
+final class ClojureScriptCache {
+
+    private static final Map<ClassLoader, Map<String, Var>> COMPILED = new HashMap<ClassLoader, Map<String, Var>>();
+
+    private ClojureScriptCache() {
+    }
+
+    /**
+     * Gets the compiled function of a script, compiling it on first use by the class loader.
+     * 
+     * @param loader The class loader the script is compiled with.
+     * @param script The script.
+     * @return The function defined by the script.
+     * @throws Exception If the script could not be compiled.
+     */
+    static Var load(final ClassLoader loader, final String script) throws Exception {
+        final String key = digest(script);
+        final Map<String, Var> compiled;
+        synchronized (COMPILED) {
+            Map<String, Var> vars = COMPILED.get(loader);
+            if (vars == null) {
+                vars = new HashMap<String, Var>();
+                COMPILED.put(loader, vars);
+            }
+            compiled = vars;
+        }
+        // compiling under the loader's own lock keeps other deployments from waiting on it
+        synchronized (compiled) {
+            Var var = compiled.get(key);
+            if (var == null) {
+                var = (Var) clojure.lang.Compiler.load(new StringReader(script));
+                compiled.put(key, var);
+            }
+            return var;
+        }
+    }
+
+    /**
+     * Evicts the compiled scripts of a class loader.
+     * 
+     * @param loader The class loader of the undeployed deployment.
+     */
+    static void evict(final ClassLoader loader) {
+        synchronized (COMPILED) {
+            COMPILED.remove(loader);
+        }
+    }
+
+    /**
+     * Gets the number of scripts compiled with a class loader.
+     * 
+     * @param loader The class loader.
+     * @return The number of compiled scripts.
+     */
+    static int size(final ClassLoader loader) {
+        final Map<String, Var> compiled;
+        synchronized (COMPILED) {
+            compiled = COMPILED.get(loader);
+        }
+        if (compiled == null) {
+            return 0;
+        }
+        synchronized (compiled) {
+            return compiled.size();
+        }
+    }
+
+    private static String digest(final String script) throws Exception {
+        final byte[] bytes = MessageDigest.getInstance("SHA-1").digest(script.getBytes("UTF-8"));
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+}
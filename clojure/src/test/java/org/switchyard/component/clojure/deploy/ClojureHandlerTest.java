@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source Copyright 2009, Red Hat Middleware
+ * LLC, and individual contributors by the @authors tag. See the copyright.txt
+ * in the distribution for a full listing of individual contributors.
+ * 
+ * This is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this software; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA, or see the FSF
+package org.switchyard.component.clojure.deploy;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Test;
+import org.switchyard.common.type.Classes;
+import org.switchyard.component.clojure.config.model.ClojureComponentImplementationModel;
+import org.switchyard.component.clojure.config.model.ClojureScriptModel;
+import org.switchyard.config.model.composite.ComponentModel;
+import org.switchyard.deploy.ServiceHandler;
+
+import clojure.lang.Var;
+
+/**
+ * Unit test for the compiled script cache of ClojureHandler.
+ */
+public class ClojureHandlerTest {
+
+    private static final QName SERVICE = new QName("urn:test", "EchoService");
+    private static final String SCRIPT = "(ns clojure.handler.test)\n(defn echo [message] message)";
+
+    private final ClassLoader _loader = Thread.currentThread().getContextClassLoader();
+
+    @After
+    public void evict() {
+        ClojureScriptCache.evict(_loader);
+    }
+
+    @Test
+    public void sharesCompiledScriptWithinDeployment() {
+        final ClojureActivator activator = new ClojureActivator();
+        final ComponentModel component = component(SCRIPT);
+        final ServiceHandler first = activator.activateService(SERVICE, component);
+        final ServiceHandler second = activator.activateService(SERVICE, component);
+        first.start();
+        second.start();
+        assertThat(ClojureScriptCache.size(_loader), is(1));
+        assertThat(((ClojureHandler) first).getMetrics().getFunction(),
+                is(equalTo(((ClojureHandler) second).getMetrics().getFunction())));
+    }
+
+    @Test
+    public void keepsCompiledScriptAcrossServiceRestart() throws Exception {
+        final String script = "(ns clojure.handler.restart)\n(defn echo [message] message)";
+        final ClojureActivator activator = new ClojureActivator();
+        final ServiceHandler handler = activator.activateService(SERVICE, component(script));
+        handler.start();
+        final Var compiled = ClojureScriptCache.load(_loader, script);
+        handler.stop();
+        handler.start();
+        assertThat(ClojureScriptCache.size(_loader), is(1));
+        assertThat(ClojureScriptCache.load(_loader, script), is(sameInstance(compiled)));
+    }
+
+    @Test
+    public void evictsOnlyTheUndeployedDeploymentsScripts() {
+        final ClojureActivator first = new ClojureActivator();
+        final ServiceHandler firstHandler = first.activateService(SERVICE, component(SCRIPT));
+        firstHandler.start();
+        final ClassLoader otherLoader = new URLClassLoader(new URL[0], _loader);
+        final ClojureActivator second = new ClojureActivator();
+        final ServiceHandler secondHandler = second.activateService(SERVICE, component(SCRIPT));
+        final ClassLoader setTCCL = Classes.setTCCL(otherLoader);
+        try {
+            secondHandler.start();
+        } finally {
+            Classes.setTCCL(setTCCL);
+        }
+        assertThat(ClojureScriptCache.size(_loader), is(1));
+        assertThat(ClojureScriptCache.size(otherLoader), is(1));
+        secondHandler.stop();
+        second.deactivateService(SERVICE, secondHandler);
+        assertThat(ClojureScriptCache.size(otherLoader), is(0));
+        assertThat(ClojureScriptCache.size(_loader), is(1));
+        firstHandler.stop();
+        first.deactivateService(SERVICE, firstHandler);
+        assertThat(ClojureScriptCache.size(_loader), is(0));
+    }
+
+    private static ComponentModel component(final String script) {
+        final ClojureScriptModel scriptModel = mock(ClojureScriptModel.class);
+        when(scriptModel.getScript()).thenReturn(script);
+        final ClojureComponentImplementationModel implModel = mock(ClojureComponentImplementationModel.class);
+        when(implModel.getScriptModel()).thenReturn(scriptModel);
+        final ComponentModel component = mock(ComponentModel.class);
+        when(component.getImplementation()).thenReturn(implModel);
+        return component;
+    }
+
+}
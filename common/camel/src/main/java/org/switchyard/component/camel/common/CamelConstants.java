@@ -51,4 +51,10 @@ public interface CamelConstants {
      */
     String TRANSACTED_REF = "transactionPolicy";
 
+    /**
+     * Name of exchange property which lets a request/reply call to a SwitchYard service
+     * complete the Camel exchange on the thread delivering the reply.
+     */
+    String ASYNC_REPLY = "org.switchyard.camel.asyncReply";
+
 }
@@ -62,11 +62,15 @@ public class BaseBindingActivator extends BaseActivator {
         if (binding.isServiceBinding()) {
             return createInboundHandler(serviceName, binding);
         } else {
-            return new OutboundHandler(binding.getComponentURI().toString(), _camelContext, CamelComposition
-                .getMessageComposer(binding));
+            return createOutboundHandler(binding);
         }
     }
 
+    protected OutboundHandler createOutboundHandler(CamelBindingModel binding) {
+        return new OutboundHandler(binding.getComponentURI().toString(), _camelContext, CamelComposition
+            .getMessageComposer(binding));
+    }
+
     protected <T extends CamelBindingModel> InboundHandler<T> createInboundHandler(QName serviceName, T binding) {
         return new InboundHandler<T>(binding, _camelContext, serviceName);
     }
@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.common.handler;
+
+import java.io.File;
+import java.net.URI;
+
+import javax.xml.namespace.QName;
+
+import org.apache.camel.model.RouteDefinition;
+import org.switchyard.common.camel.SwitchYardCamelContext;
+import org.switchyard.common.lang.Strings;
+import org.switchyard.component.camel.common.model.CamelBindingModel;
+import org.switchyard.component.camel.common.model.file.GenericFileBindingModel;
+import org.switchyard.component.camel.common.model.file.GenericFileConsumerBindingModel;
+import org.switchyard.component.camel.common.repository.MappedIdempotentRepository;
+import org.switchyard.exception.SwitchYardException;
+
+/**
+ * Inbound handler for file based bindings. Wires the built-in idempotent repository into the
+ * endpoint when the consumer names an idempotent store.
+ * 
+ * @param <T> Type of the binding.
+ */
+public class GenericFileInboundHandler<T extends GenericFileBindingModel> extends InboundHandler<T> {
+
+    /**
+     * Sole constructor.
+     * 
+     * @param camelBindingModel The CamelBindingModel.
+     * @param camelContext The camel context instance.
+     * @param serviceName The target service name.
+     */
+    public GenericFileInboundHandler(T camelBindingModel, SwitchYardCamelContext camelContext, QName serviceName) {
+        super(camelBindingModel, camelContext, serviceName);
+    }
+
+    @Override
+    protected RouteDefinition createRouteDefinition() {
+        // resolves the uri, which may fail, so nothing is registered before it has been
+        RouteDefinition route = super.createRouteDefinition();
+        registerRepositories();
+        return route;
+    }
+
+    /**
+     * Registers the repositories referenced by {@link #getComponentUri()} in the camel registry. Call it only
+     * once the uri has been resolved, so that a binding rejected by {@link #getComponentUri()} holds none.
+     */
+    protected void registerRepositories() {
+        String store = getIdempotentStore();
+        if (store != null) {
+            getCamelContext().getWritebleRegistry().put(getIdempotentRepositoryName(),
+                MappedIdempotentRepository.getRepository(new File(store)));
+        }
+    }
+
+    /**
+     * Removes the repositories registered by {@link #registerRepositories()} from the camel registry.
+     */
+    protected void unregisterRepositories() {
+        if (getIdempotentStore() != null) {
+            Object repository = getCamelContext().getWritebleRegistry().remove(getIdempotentRepositoryName());
+            if (repository instanceof MappedIdempotentRepository) {
+                ((MappedIdempotentRepository) repository).release();
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            super.stop();
+        } finally {
+            unregisterRepositories();
+        }
+    }
+
+    @Override
+    protected URI getComponentUri() {
+        URI uri = super.getComponentUri();
+        String store = getIdempotentStore();
+        if (store != null) {
+            GenericFileConsumerBindingModel consumer = getConsumer();
+            if (Strings.trimToNull(consumer.getIdempotentRepository()) != null) {
+                throw new SwitchYardException("idempotentStore and idempotentRepository cannot both be set for service " + getServiceName());
+            }
+            if (consumer.isIdempotent() == null) {
+                uri = addParameter(uri, "idempotent", "true");
+            }
+            uri = addParameter(uri, "idempotentRepository", "%23" + getIdempotentRepositoryName());
+        }
+        return uri;
+    }
+
+    /**
+     * Get the consumer options of the binding.
+     * 
+     * @return Consumer binding model, or null if the binding has none.
+     */
+    protected GenericFileConsumerBindingModel getConsumer() {
+        T binding = getBindingModel();
+        if (binding.getModelConfiguration().getFirstChild(CamelBindingModel.CONSUME) == null) {
+            return null;
+        }
+        return binding.getConsumer();
+    }
+
+    /**
+     * Appends a parameter to an endpoint uri.
+     * 
+     * @param uri Endpoint uri.
+     * @param name Parameter name.
+     * @param value Parameter value, already encoded.
+     * @return Endpoint uri with the parameter.
+     */
+    protected static URI addParameter(URI uri, String name, String value) {
+        String separator = uri.toString().indexOf('?') < 0 ? "?" : "&";
+        return URI.create(uri + separator + name + "=" + value);
+    }
+
+    private String getIdempotentStore() {
+        GenericFileConsumerBindingModel consumer = getConsumer();
+        return consumer != null ? Strings.trimToNull(consumer.getIdempotentStore()) : null;
+    }
+
+    // one entry per route, each holding a reference to the repository shared by all routes using the store
+    private String getIdempotentRepositoryName() {
+        return "switchyard.idempotent." + getRouteId().replaceAll("[^A-Za-z0-9_.]", "_");
+    }
+
+}
@@ -26,6 +26,7 @@ import java.util.Map;
 
 import javax.xml.namespace.QName;
 
+import org.apache.camel.model.ProcessorDefinition;
 import org.apache.camel.model.RouteDefinition;
 import org.apache.camel.spring.spi.SpringTransactionPolicy;
 import org.apache.camel.util.URISupport;
@@ -116,11 +117,32 @@ public class InboundHandler<T extends CamelBindingModel> extends BaseServiceHand
      * @return 
      */
     protected RouteDefinition addTransactionPolicy(final SwitchYardRouteDefinition route) {
-        if (!hasTransactionManager()) {
+        final ProcessorDefinition<?> outputs = addTransacted(route);
+        if (outputs == route) {
             // namespace will be added by SwitchYardRouteDefinition
             return route.to(getSwitchyardEndpointUri());
         }
 
+        outputs.to(getSwitchyardEndpointUri());
+        // as we have 'transacted' element we need to process route outputs and
+        // put namespace attribute for switchyard:// endpoint
+        SwitchYardRouteDefinition.addNamespaceParameter(route, getServiceName().getNamespaceURI());
+        return route;
+    }
+
+    /**
+     * Add transacted DSL element at the current position of the route if the component uri
+     * references a transaction manager, for routes which need the transaction to start before
+     * their own processing rather than just before the switchyard:// endpoint.
+     * 
+     * @param route Route definition, or the element of it to add the transacted element to.
+     * @return The transacted element to add further outputs to, or the given element if it is not transacted.
+     */
+    protected ProcessorDefinition<?> addTransacted(final ProcessorDefinition<?> route) {
+        if (!hasTransactionManager()) {
+            return route;
+        }
+
         final String tmName = getTransactionManagerName();
         if (!isRegisteredInCamelRegistry(tmName) && isDefaultJtaTransactionName(tmName)) {
             final PlatformTransactionManager tm = TM_FACTORY.create();
@@ -128,11 +150,7 @@ public class InboundHandler<T extends CamelBindingModel> extends BaseServiceHand
         }
 
         // Tell Camel the route is transacted
-        route.transacted(CamelConstants.TRANSACTED_REF).to(getSwitchyardEndpointUri());
-        // as we have 'transacted' element we need to process route outputs and
-        // put namespace attribute for switchyard:// endpoint
-        SwitchYardRouteDefinition.addNamespaceParameter(route, getServiceName().getNamespaceURI());
-        return route;
+        return route.transacted(CamelConstants.TRANSACTED_REF);
     }
 
     protected URI getComponentUri() {
@@ -179,6 +197,10 @@ public class InboundHandler<T extends CamelBindingModel> extends BaseServiceHand
         return _camelBindingModel;
     }
 
+    protected SwitchYardCamelContext getCamelContext() {
+        return _camelContext;
+    }
+
     /**
      * Will create the Camel route and add it to the camel context.
      */
@@ -113,4 +113,11 @@ public interface GenericFileBindingModel extends CamelBindingModel {
      */
     GenericFileBindingModel setCharset(String charset);
 
+    /**
+     * Consumer options, for service bindings.
+     * 
+     * @return the consumer binding model
+     */
+    GenericFileConsumerBindingModel getConsumer();
+
 }
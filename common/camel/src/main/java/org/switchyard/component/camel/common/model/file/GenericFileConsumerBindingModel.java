@@ -222,6 +222,25 @@ public interface GenericFileConsumerBindingModel extends CamelScheduledBatchPoll
      */
     GenericFileConsumerBindingModel setInProgressRepository(String inProgressRepository);
 
+    /**
+     * File of the built-in, memory-mapped idempotent repository.
+     * 
+     * @return the repository file
+     */
+    String getIdempotentStore();
+
+    /**
+     * Specify the file of the built-in, memory-mapped idempotent repository.
+     * When set, consumed files are remembered in that file, across restarts,
+     * without holding their names on the heap. Bindings naming the same file
+     * share the repository.
+     * 
+     * @param idempotentStore
+     *            the repository file
+     * @return a reference to this Camel File binding model
+     */
+    GenericFileConsumerBindingModel setIdempotentStore(String idempotentStore);
+
     /**
      * Pluggable filter.
      * 
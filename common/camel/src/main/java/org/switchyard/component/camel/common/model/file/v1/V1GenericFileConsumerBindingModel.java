@@ -86,6 +86,11 @@ public class V1GenericFileConsumerBindingModel extends V1CamelScheduledBatchPoll
      */
     public static final String IN_PROGRESS_REPOSITORY = "inProgressRepository";
 
+    /**
+     * The name of the 'idempotentStore' element.
+     */
+    public static final String IDEMPOTENT_STORE = "idempotentStore";
+
     /**
      * The name of the 'filter' element.
      */
@@ -152,7 +157,7 @@ public class V1GenericFileConsumerBindingModel extends V1CamelScheduledBatchPoll
 
         setModelChildrenOrder(
                 DELETE, RECURSIVE, NOOP, PRE_MOVE, MOVE, MOVE_FAILED, INCLUDE, EXCLUDE,
-                IDEMPOTENT, IDEMPOTENT_REPOSITORY, IN_PROGRESS_REPOSITORY,
+                IDEMPOTENT, IDEMPOTENT_REPOSITORY, IN_PROGRESS_REPOSITORY, IDEMPOTENT_STORE,
                 FILTER, SORTER, SORT_BY, READ_LOCK, READ_LOCK_TIMEOUT,
                 READ_LOCK_CHECK_INTERVAL, EXCLUSIVE_READ_LOCK_STRATEGY,
                 PROCESS_STRATEGY,
@@ -280,6 +285,16 @@ public class V1GenericFileConsumerBindingModel extends V1CamelScheduledBatchPoll
         return setConfig(IN_PROGRESS_REPOSITORY, inProgressRepository);
     }
 
+    @Override
+    public String getIdempotentStore() {
+        return getConfig(IDEMPOTENT_STORE);
+    }
+
+    @Override
+    public V1GenericFileConsumerBindingModel setIdempotentStore(String idempotentStore) {
+        return setConfig(IDEMPOTENT_STORE, idempotentStore);
+    }
+
     @Override
     public String getFilter() {
         return getConfig(FILTER);
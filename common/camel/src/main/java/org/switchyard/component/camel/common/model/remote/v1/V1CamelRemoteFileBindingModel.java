@@ -25,6 +25,7 @@ import java.util.List;
 
 import org.switchyard.component.camel.common.QueryString;
 import org.switchyard.component.camel.common.model.file.v1.V1GenericFileBindingModel;
+import org.switchyard.component.camel.common.model.file.v1.V1GenericFileConsumerBindingModel;
 import org.switchyard.component.camel.common.model.remote.CamelRemoteFileBindingModel;
 import org.switchyard.component.camel.common.model.remote.CamelRemoteFileConsumerBindingModel;
 import org.switchyard.component.camel.common.model.remote.CamelRemoteFileProducerBindingModel;
@@ -339,7 +340,8 @@ public abstract class V1CamelRemoteFileBindingModel extends V1GenericFileBinding
         baseUri += getDirectory() != null ? "/" + getDirectory() : "";
 
         QueryString queryStr = new QueryString();
-        traverseConfiguration(children, queryStr, HOST, PORT, USERNAME, PASSWORD, DIRECTORY);
+        traverseConfiguration(children, queryStr, HOST, PORT, USERNAME, PASSWORD, DIRECTORY,
+            V1GenericFileConsumerBindingModel.IDEMPOTENT_STORE);
 
         return URI.create(baseUri + queryStr.toString());
     }
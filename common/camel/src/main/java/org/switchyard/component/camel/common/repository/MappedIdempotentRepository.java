@@ -0,0 +1,439 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.common.repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.camel.spi.IdempotentRepository;
+import org.apache.camel.support.ServiceSupport;
+import org.apache.log4j.Logger;
+import org.switchyard.exception.SwitchYardException;
+
+/**
+ * A file-backed idempotent repository for file and remote file consumers.
+ * <p/>
+ * Keys are not stored themselves: each key is reduced to a 128-bit fingerprint kept in an open
+ * addressing hash table, in a memory-mapped file. A key costs 16 bytes of file (and page cache)
+ * regardless of its length, and no heap at all, so millions of file names can be remembered.
+ * By default each change is forced to disk before the method returns, and the table is recounted
+ * when opened, so a crash loses at most the change in progress. Without sync, changes are left to
+ * the operating system to write back, and only forced when the repository is closed or resized.
+ * <p/>
+ * When live entries and removal tombstones fill the table past its load factor, it is rewritten
+ * into a new file (of double the capacity if it is mostly live entries, of the same capacity
+ * otherwise, which compacts the tombstones away) that atomically replaces the old one.
+ * <p/>
+ * Repositories are shared per file; use {@link #getRepository(File)} to obtain one, and
+ * {@link #release()} once it is no longer used.
+ */
+public final class MappedIdempotentRepository extends ServiceSupport implements IdempotentRepository<String> {
+
+    /** The default initial number of slots. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final Logger LOGGER = Logger.getLogger(MappedIdempotentRepository.class);
+    private static final Map<File, MappedIdempotentRepository> REPOSITORIES = new HashMap<File, MappedIdempotentRepository>();
+
+    private static final int MAGIC = 0x5359494D; // "SYIM"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 16;
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final long TOMBSTONE = 1L;
+    private static final float LOAD_FACTOR = 0.7f;
+
+    private final File _file;
+    private int _references;
+    private volatile boolean _sync = true;
+    private RandomAccessFile _raf;
+    private MappedByteBuffer _table;
+    private int _capacity;
+    private int _size;
+    private int _tombstones;
+
+    private MappedIdempotentRepository(File file) {
+        _file = file;
+    }
+
+    /**
+     * Gets the repository stored in the specified file, creating it if need be.
+     * @param file the file
+     * @return the repository
+     */
+    public static MappedIdempotentRepository getRepository(File file) {
+        File key = file.getAbsoluteFile();
+        synchronized (REPOSITORIES) {
+            MappedIdempotentRepository repository = REPOSITORIES.get(key);
+            if (repository == null) {
+                repository = new MappedIdempotentRepository(key);
+                REPOSITORIES.put(key, repository);
+            }
+            repository._references++;
+            return repository;
+        }
+    }
+
+    /**
+     * Releases a repository obtained from {@link #getRepository(File)}. Once every user has released
+     * it, the repository is closed and forgotten, so the next {@link #getRepository(File)} opens
+     * the file again.
+     */
+    public void release() {
+        synchronized (REPOSITORIES) {
+            if (_references == 0 || --_references > 0) {
+                return;
+            }
+            if (REPOSITORIES.get(_file) == this) {
+                REPOSITORIES.remove(_file);
+            }
+        }
+        synchronized (this) {
+            close();
+        }
+    }
+
+    /**
+     * Whether each change is forced to disk before returning.
+     * @return true if changes are synced, the default
+     */
+    public boolean isSync() {
+        return _sync;
+    }
+
+    /**
+     * Specify whether each change is forced to disk before returning. Without sync, a crash of the
+     * machine (not just of the process) may lose recent changes.
+     * @param sync false to leave writing changes back to the operating system
+     */
+    public void setSync(boolean sync) {
+        _sync = sync;
+    }
+
+    /**
+     * Gets the file the repository is stored in.
+     * @return the file
+     */
+    public File getFile() {
+        return _file;
+    }
+
+    /**
+     * Gets the number of keys in the repository.
+     * @return the number of keys
+     */
+    public synchronized int size() {
+        open();
+        return _size;
+    }
+
+    /**
+     * Gets the number of slots in the table.
+     * @return the capacity
+     */
+    public synchronized int getCapacity() {
+        open();
+        return _capacity;
+    }
+
+    @Override
+    public synchronized boolean add(String key) {
+        open();
+        long[] fp = fingerprint(key);
+        int slot = find(fp[0], fp[1]);
+        if (slot >= 0) {
+            return false;
+        }
+        if (_size + _tombstones + 1 > _capacity * LOAD_FACTOR) {
+            rehash();
+        }
+        slot = insertionSlot(fp[0]);
+        if (_table.getLong(offset(slot)) == 0L && _table.getLong(offset(slot) + 8) == TOMBSTONE) {
+            _tombstones--;
+        }
+        write(slot, fp[0], fp[1]);
+        _size++;
+        if (_sync) {
+            _table.force();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        open();
+        long[] fp = fingerprint(key);
+        return find(fp[0], fp[1]) >= 0;
+    }
+
+    @Override
+    public synchronized boolean remove(String key) {
+        open();
+        long[] fp = fingerprint(key);
+        int slot = find(fp[0], fp[1]);
+        if (slot < 0) {
+            return false;
+        }
+        write(slot, 0L, TOMBSTONE);
+        _size--;
+        _tombstones++;
+        if (_sync) {
+            _table.force();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean confirm(String key) {
+        return true;
+    }
+
+    @Override
+    protected synchronized void doStart() throws Exception {
+        open();
+    }
+
+    @Override
+    protected synchronized void doStop() throws Exception {
+        close();
+    }
+
+    private void open() {
+        if (_table != null) {
+            return;
+        }
+        try {
+            File directory = _file.getParentFile();
+            if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("could not create directory " + directory);
+            }
+            boolean exists = _file.isFile() && _file.length() >= HEADER_SIZE;
+            int capacity = DEFAULT_CAPACITY;
+            if (exists) {
+                RandomAccessFile raf = new RandomAccessFile(_file, "r");
+                try {
+                    if (raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+                        throw new IOException("not an idempotent repository file: " + _file);
+                    }
+                    capacity = raf.readInt();
+                    if (Integer.bitCount(capacity) != 1 || _file.length() < HEADER_SIZE + (long)capacity * SLOT_SIZE) {
+                        throw new IOException("truncated idempotent repository file: " + _file);
+                    }
+                } finally {
+                    raf.close();
+                }
+            } else {
+                create(_file, capacity);
+            }
+            map(capacity);
+            recount();
+        } catch (IOException ioe) {
+            throw new SwitchYardException("Unable to open idempotent repository " + _file, ioe);
+        }
+    }
+
+    private void close() {
+        if (_table != null) {
+            _table.force();
+            unmap(_table);
+            _table = null;
+        }
+        if (_raf != null) {
+            try {
+                _raf.close();
+            } catch (IOException ioe) {
+                LOGGER.debug("Problem closing idempotent repository " + _file, ioe);
+            }
+            _raf = null;
+        }
+    }
+
+    private void map(int capacity) throws IOException {
+        _raf = new RandomAccessFile(_file, "rw");
+        _table = _raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long)capacity * SLOT_SIZE);
+        _capacity = capacity;
+    }
+
+    private void recount() {
+        _size = 0;
+        _tombstones = 0;
+        for (int slot = 0; slot < _capacity; slot++) {
+            long h1 = _table.getLong(offset(slot));
+            if (h1 != 0L) {
+                _size++;
+            } else if (_table.getLong(offset(slot) + 8) == TOMBSTONE) {
+                _tombstones++;
+            }
+        }
+    }
+
+    private void rehash() {
+        int capacity = _size + 1 > (_capacity / 2) * LOAD_FACTOR ? _capacity * 2 : _capacity;
+        if (capacity > MAX_CAPACITY) {
+            throw new SwitchYardException("Idempotent repository " + _file + " is full");
+        }
+        File temp = new File(_file.getPath() + ".tmp");
+        try {
+            create(temp, capacity);
+            RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+            try {
+                MappedByteBuffer table = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long)capacity * SLOT_SIZE);
+                int mask = capacity - 1;
+                for (int slot = 0; slot < _capacity; slot++) {
+                    long h1 = _table.getLong(offset(slot));
+                    if (h1 != 0L) {
+                        int target = index(h1, mask);
+                        while (table.getLong(offset(target)) != 0L) {
+                            target = (target + 1) & mask;
+                        }
+                        table.putLong(offset(target) + 8, _table.getLong(offset(slot) + 8));
+                        table.putLong(offset(target), h1);
+                    }
+                }
+                table.force();
+                unmap(table);
+            } finally {
+                raf.close();
+            }
+            // the old mapping must be gone before the file is replaced, or the rename fails on Windows
+            close();
+            if (!temp.renameTo(_file)) {
+                // some platforms will not rename over an existing file
+                if (!_file.delete() || !temp.renameTo(_file)) {
+                    throw new IOException("could not rename " + temp + " to " + _file);
+                }
+            }
+            map(capacity);
+            recount();
+        } catch (IOException ioe) {
+            throw new SwitchYardException("Unable to resize idempotent repository " + _file, ioe);
+        }
+    }
+
+    // mappings are otherwise only released when garbage collected, and keep the file open until then
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Unable to unmap idempotent repository buffer, leaving it to the garbage collector", e);
+        }
+    }
+
+    private static void create(File file, int capacity) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+            raf.writeInt(capacity);
+            raf.writeInt(0);
+            // extends the file with zeros, i.e. empty slots
+            raf.setLength(HEADER_SIZE + (long)capacity * SLOT_SIZE);
+            raf.getFD().sync();
+        } finally {
+            raf.close();
+        }
+    }
+
+    private int find(long h1, long h2) {
+        int mask = _capacity - 1;
+        int slot = index(h1, mask);
+        for (int i = 0; i < _capacity; i++) {
+            long s1 = _table.getLong(offset(slot));
+            if (s1 == h1) {
+                if (_table.getLong(offset(slot) + 8) == h2) {
+                    return slot;
+                }
+            } else if (s1 == 0L && _table.getLong(offset(slot) + 8) != TOMBSTONE) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int insertionSlot(long h1) {
+        int mask = _capacity - 1;
+        int slot = index(h1, mask);
+        while (_table.getLong(offset(slot)) != 0L) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void write(int slot, long h1, long h2) {
+        // the first half marks the slot as used, so it is written last
+        _table.putLong(offset(slot) + 8, h2);
+        _table.putLong(offset(slot), h1);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int index(long h1, int mask) {
+        return (int)(h1 ^ (h1 >>> 32)) & mask;
+    }
+
+    private static long[] fingerprint(String key) {
+        byte[] bytes;
+        try {
+            bytes = key.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException uee) {
+            throw new SwitchYardException(uee);
+        }
+        long h1 = 0xcbf29ce484222325L;
+        long h2 = 0x84222325cbf29ce4L;
+        for (byte b : bytes) {
+            h1 = (h1 ^ (b & 0xff)) * 0x100000001b3L;
+            h2 = (h2 ^ (b & 0xff)) * 0x9e3779b97f4a7c15L;
+        }
+        h1 = mix(h1);
+        h2 = mix(h2 ^ bytes.length);
+        if (h1 == 0L) {
+            // zero marks empty and removed slots
+            h1 = 1L;
+        }
+        return new long[] {h1, h2};
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
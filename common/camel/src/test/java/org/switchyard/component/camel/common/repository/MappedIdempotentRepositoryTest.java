@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.camel.common.repository;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link MappedIdempotentRepository}.
+ */
+public class MappedIdempotentRepositoryTest {
+
+    private File _file;
+    private MappedIdempotentRepository _repository;
+
+    @Before
+    public void setUp() throws Exception {
+        _file = File.createTempFile("idempotent", ".idx");
+        _file.delete();
+        _repository = MappedIdempotentRepository.getRepository(_file);
+        // forcing every change to disk makes the larger tests take minutes
+        _repository.setSync(false);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        _repository.release();
+        assertTrue(_file.delete() || !_file.exists());
+    }
+
+    @Test
+    public void addContainsRemove() {
+        assertFalse(_repository.contains("a.csv"));
+        assertTrue(_repository.add("a.csv"));
+        assertFalse(_repository.add("a.csv"));
+        assertTrue(_repository.contains("a.csv"));
+        assertTrue(_repository.remove("a.csv"));
+        assertFalse(_repository.remove("a.csv"));
+        assertFalse(_repository.contains("a.csv"));
+        assertEquals(0, _repository.size());
+    }
+
+    @Test
+    public void sharedPerFile() {
+        MappedIdempotentRepository shared = MappedIdempotentRepository.getRepository(new File(_file.getPath()));
+        assertSame(_repository, shared);
+        shared.release();
+    }
+
+    @Test
+    public void forgottenOnceReleased() {
+        assertTrue(_repository.add("a.csv"));
+        _repository.release();
+        MappedIdempotentRepository reopened = MappedIdempotentRepository.getRepository(_file);
+        try {
+            assertNotSame(_repository, reopened);
+            assertTrue(reopened.contains("a.csv"));
+        } finally {
+            _repository = reopened;
+        }
+    }
+
+    @Test
+    public void growsAndSurvivesReopen() throws Exception {
+        int count = MappedIdempotentRepository.DEFAULT_CAPACITY;
+        for (int i = 0; i < count; i++) {
+            assertTrue(_repository.add("file-" + i));
+        }
+        for (int i = 0; i < count; i += 2) {
+            assertTrue(_repository.remove("file-" + i));
+        }
+        assertTrue(_repository.getCapacity() > MappedIdempotentRepository.DEFAULT_CAPACITY);
+        // the old table file must have been unmapped and replaced
+        assertFalse(new File(_file.getPath() + ".tmp").exists());
+        _repository.doStop();
+        assertEquals(count / 2, _repository.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 2 == 1, _repository.contains("file-" + i));
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.common.scan;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.switchyard.common.type.Classes;
+import org.switchyard.common.type.classpath.ClasspathScanner;
+import org.switchyard.common.type.classpath.IsAnnotationPresentFilter;
+
+/**
+ * An index of the class level annotations of the classes found on a set of URLs, built by the
+ * {@link AnnotationIndexer}.
+ * <p/>
+ * Classes are only loaded once they are known to carry one of the requested annotations. URLs the
+ * indexer could not read directly are scanned the classic way, with a {@link ClasspathScanner},
+ * when types are requested.
+ */
+public class AnnotationIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(AnnotationIndex.class);
+
+    private final Map<String, List<String>> _classes;
+    private final List<URL> _unindexedURLs;
+
+    AnnotationIndex(Map<String, List<String>> classes, List<URL> unindexedURLs) {
+        _classes = classes;
+        _unindexedURLs = unindexedURLs;
+    }
+
+    /**
+     * Gets the names of the indexed classes carrying an annotation, in classpath order.
+     * @param annotation the annotation
+     * @return the class names
+     */
+    public List<String> getAnnotatedClassNames(Class<? extends Annotation> annotation) {
+        String annotationName = annotation.getName();
+        List<String> classNames = new ArrayList<String>();
+        for (Map.Entry<String, List<String>> entry : _classes.entrySet()) {
+            if (entry.getValue().contains(annotationName)) {
+                classNames.add(entry.getKey());
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * Gets the types carrying any of the annotations, in classpath order, loading only those.
+     * <p/>
+     * The result matches what a {@link ClasspathScanner} with an {@link IsAnnotationPresentFilter}
+     * for the same annotations finds: classes which can not be loaded are skipped, as are classes
+     * annotated with Scannable(false).
+     * @param annotations the annotations
+     * @return the types
+     * @throws IOException if a URL which could not be indexed could not be scanned either
+     */
+    public List<Class<?>> getAnnotatedTypes(Class<? extends Annotation>... annotations) throws IOException {
+        Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        Set<String> annotationNames = new LinkedHashSet<String>();
+        for (Class<? extends Annotation> annotation : annotations) {
+            annotationNames.add(annotation.getName());
+        }
+        for (Map.Entry<String, List<String>> entry : _classes.entrySet()) {
+            if (!Collections.disjoint(entry.getValue(), annotationNames)) {
+                Class<?> type = load(entry.getKey());
+                if (type != null && isAnnotationPresent(type, annotations)) {
+                    types.add(type);
+                }
+            }
+        }
+        if (!_unindexedURLs.isEmpty() && annotations.length > 0) {
+            IsAnnotationPresentFilter filter = new IsAnnotationPresentFilter(annotations[0]);
+            for (int i = 1; i < annotations.length; i++) {
+                filter.addType(annotations[i]);
+            }
+            ClasspathScanner scanner = new ClasspathScanner(filter);
+            for (URL url : _unindexedURLs) {
+                scanner.scan(url);
+            }
+            types.addAll(filter.getMatchedTypes());
+        }
+        return new ArrayList<Class<?>>(types);
+    }
+
+    /**
+     * Gets the number of indexed classes carrying any annotation.
+     * @return the number
+     */
+    public int size() {
+        return _classes.size();
+    }
+
+    /**
+     * Gets the URLs which could not be indexed, and are scanned when types are requested.
+     * @return the URLs
+     */
+    public List<URL> getUnindexedURLs() {
+        return Collections.unmodifiableList(_unindexedURLs);
+    }
+
+    private Class<?> load(String className) {
+        try {
+            Class<?> type = Classes.forName(className, getClass());
+            if (type == null) {
+                LOGGER.debug("Indexed class " + className + " could not be found");
+            }
+            return type;
+        } catch (LinkageError le) {
+            LOGGER.debug("Indexed class " + className + " could not be loaded: " + le);
+            return null;
+        }
+    }
+
+    private static boolean isAnnotationPresent(Class<?> type, Class<? extends Annotation>[] annotations) {
+        // the index matches annotations by name; this also makes sure they are the same types
+        for (Class<? extends Annotation> annotation : annotations) {
+            if (type.isAnnotationPresent(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Map<String, List<String>> merge(List<List<IndexedClass>> urlClasses) {
+        Map<String, List<String>> classes = new LinkedHashMap<String, List<String>>();
+        for (List<IndexedClass> indexedClasses : urlClasses) {
+            for (IndexedClass indexedClass : indexedClasses) {
+                // as on a classpath, the first URL holding a class wins
+                if (!classes.containsKey(indexedClass.getName())) {
+                    classes.put(indexedClass.getName(), indexedClass.getAnnotations());
+                }
+            }
+        }
+        return classes;
+    }
+
+}
@@ -0,0 +1,534 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.common.scan;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.log4j.Logger;
+import org.switchyard.common.lang.Strings;
+
+/**
+ * Builds {@link AnnotationIndex}es by reading class files directly, without loading any classes.
+ * <p/>
+ * The URLs are read in parallel. Every scanner working on the same deployment shares the work:
+ * archives are cached by checksum, so an unchanged jar is only ever read once per JVM (and, with an
+ * index directory configured, once across builds), and directories are cached per class file, so
+ * only class files changed since the last scan are read again.
+ * <p/>
+ * The scanners of one scan pass are handed the same list of URLs, so the index built for that list is
+ * reused by the scanners that follow, for up to {@link #REUSE_MILLIS_PROPERTY} milliseconds, rather than
+ * each of them walking the directories again. Cached entries of directories and archives which no longer
+ * exist are dropped after every walk.
+ */
+public final class AnnotationIndexer {
+
+    /** The system property naming a directory in which archive indexes are kept between JVMs. */
+    public static final String INDEX_DIR_PROPERTY = "switchyard.scanner.index.dir";
+    /** The system property setting how long, in milliseconds, an index is reused for the same URL list. */
+    public static final String REUSE_MILLIS_PROPERTY = "switchyard.scanner.index.reuseMillis";
+    /** The default time, in milliseconds, an index is reused for the same URL list. */
+    public static final long DEFAULT_REUSE_MILLIS = 10000L;
+
+    private static final Logger LOGGER = Logger.getLogger(AnnotationIndexer.class);
+    private static final String INDEX_HEADER = "# SwitchYard annotation index 1";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String CLASS_SUFFIX = ".class";
+    private static final int MAX_CACHED_ARCHIVES = 512;
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+    private static AnnotationIndexer _default;
+
+    private final File _indexDir;
+    private final long _reuseMillis;
+    private final Map<String, Stamp> _checksums = new ConcurrentHashMap<String, Stamp>();
+    private final Map<String, List<IndexedClass>> _archives = Collections.synchronizedMap(
+        new LinkedHashMap<String, List<IndexedClass>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<IndexedClass>> eldest) {
+                return size() > MAX_CACHED_ARCHIVES;
+            }
+        });
+    private final ConcurrentMap<String, Map<String, Stamp>> _directories = new ConcurrentHashMap<String, Map<String, Stamp>>();
+    private ThreadPoolExecutor _executor;
+    private List<URL> _lastURLs;
+    private List<URL> _lastURLsCopy;
+    private AnnotationIndex _lastIndex;
+    private long _lastIndexed;
+
+    /**
+     * Constructs a new AnnotationIndexer.
+     * @param indexDir the directory to keep archive indexes in, or null to only cache them in memory
+     */
+    public AnnotationIndexer(File indexDir) {
+        this(indexDir, DEFAULT_REUSE_MILLIS);
+    }
+
+    /**
+     * Constructs a new AnnotationIndexer.
+     * @param indexDir the directory to keep archive indexes in, or null to only cache them in memory
+     * @param reuseMillis how long an index is reused for the same URL list, or 0 to always walk the URLs
+     */
+    public AnnotationIndexer(File indexDir, long reuseMillis) {
+        _indexDir = indexDir;
+        _reuseMillis = reuseMillis;
+    }
+
+    /**
+     * Gets the indexer shared by all scanners, which keeps archive indexes in the directory named by
+     * the {@link #INDEX_DIR_PROPERTY} system property, if set.
+     * @return the shared indexer
+     */
+    public static synchronized AnnotationIndexer getDefault() {
+        if (_default == null) {
+            String indexDir = Strings.trimToNull(System.getProperty(INDEX_DIR_PROPERTY));
+            long reuseMillis = DEFAULT_REUSE_MILLIS;
+            String reuse = Strings.trimToNull(System.getProperty(REUSE_MILLIS_PROPERTY));
+            if (reuse != null) {
+                try {
+                    reuseMillis = Long.parseLong(reuse);
+                } catch (NumberFormatException nfe) {
+                    LOGGER.warn(String.format("ignoring invalid %s: %s", REUSE_MILLIS_PROPERTY, reuse));
+                }
+            }
+            _default = new AnnotationIndexer(indexDir != null ? new File(indexDir) : null, reuseMillis);
+        }
+        return _default;
+    }
+
+    /**
+     * Indexes the classes on a list of URLs, reusing the index of the previous call if it was given the
+     * same, unchanged, list recently enough.
+     * @param urls the URLs, in classpath order
+     * @return the index
+     * @throws IOException if a URL could not be read
+     */
+    public AnnotationIndex index(List<URL> urls) throws IOException {
+        synchronized (this) {
+            // the same list instance means the same scan pass; a new pass builds a new list
+            if (_lastIndex != null && _lastURLs == urls && _lastURLsCopy.equals(urls)
+                    && System.currentTimeMillis() - _lastIndexed < _reuseMillis) {
+                return _lastIndex;
+            }
+        }
+        List<URL> urlsCopy = new ArrayList<URL>(urls);
+        AnnotationIndex index = walk(urlsCopy);
+        prune();
+        synchronized (this) {
+            _lastURLs = urls;
+            _lastURLsCopy = urlsCopy;
+            _lastIndex = index;
+            _lastIndexed = System.currentTimeMillis();
+        }
+        return index;
+    }
+
+    private AnnotationIndex walk(List<URL> urls) throws IOException {
+        List<URL> unindexedURLs = new ArrayList<URL>();
+        List<Callable<List<IndexedClass>>> tasks = new ArrayList<Callable<List<IndexedClass>>>();
+        for (URL url : urls) {
+            final File file = toFile(url);
+            if (file == null) {
+                unindexedURLs.add(url);
+                continue;
+            }
+            tasks.add(new Callable<List<IndexedClass>>() {
+                @Override
+                public List<IndexedClass> call() throws IOException {
+                    return index(file);
+                }
+            });
+        }
+        List<List<IndexedClass>> urlClasses = new ArrayList<List<IndexedClass>>(tasks.size());
+        if (tasks.size() == 1) {
+            try {
+                urlClasses.add(tasks.get(0).call());
+            } catch (IOException ioe) {
+                throw ioe;
+            } catch (Exception e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        } else if (!tasks.isEmpty()) {
+            List<Future<List<IndexedClass>>> futures = new ArrayList<Future<List<IndexedClass>>>(tasks.size());
+            for (Callable<List<IndexedClass>> task : tasks) {
+                futures.add(getExecutor().submit(task));
+            }
+            try {
+                for (Future<List<IndexedClass>> future : futures) {
+                    urlClasses.add(future.get());
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while indexing classes", ie);
+            } catch (ExecutionException ee) {
+                if (ee.getCause() instanceof IOException) {
+                    throw (IOException)ee.getCause();
+                }
+                throw new IOException(ee.getCause().getMessage(), ee.getCause());
+            } finally {
+                for (Future<List<IndexedClass>> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+        return new AnnotationIndex(AnnotationIndex.merge(urlClasses), unindexedURLs);
+    }
+
+    private void prune() {
+        // deleted classpath entries would otherwise stay cached for the life of the JVM
+        for (String path : _directories.keySet()) {
+            if (!new File(path).isDirectory()) {
+                _directories.remove(path);
+            }
+        }
+        for (String path : _checksums.keySet()) {
+            if (!new File(path).isFile()) {
+                _checksums.remove(path);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of directories and archives whose contents are cached by path.
+     * @return the number
+     */
+    int getCachedPathCount() {
+        return _directories.size() + _checksums.size();
+    }
+
+    private List<IndexedClass> index(File file) throws IOException {
+        if (file.isDirectory()) {
+            return indexDirectory(file);
+        } else if (file.isFile()) {
+            return indexArchive(file);
+        }
+        LOGGER.debug("Skipping missing classpath entry " + file);
+        return Collections.emptyList();
+    }
+
+    private List<IndexedClass> indexDirectory(File directory) throws IOException {
+        String key = directory.getCanonicalPath();
+        Map<String, Stamp> previous = _directories.get(key);
+        if (previous == null) {
+            previous = Collections.emptyMap();
+        }
+        Map<String, Stamp> current = new HashMap<String, Stamp>();
+        List<IndexedClass> classes = new ArrayList<IndexedClass>();
+        indexDirectory(directory, "", previous, current, classes);
+        _directories.put(key, current);
+        return classes;
+    }
+
+    private void indexDirectory(File directory, String packagePrefix, Map<String, Stamp> previous,
+            Map<String, Stamp> current, List<IndexedClass> classes) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                indexDirectory(file, packagePrefix + name + ".", previous, current, classes);
+            } else if (isClassFile(name)) {
+                String className = packagePrefix + name.substring(0, name.length() - CLASS_SUFFIX.length());
+                Stamp stamp = previous.get(className);
+                if (stamp == null || !stamp.matches(file)) {
+                    // new or changed since the last scan
+                    InputStream is = new BufferedInputStream(new FileInputStream(file));
+                    try {
+                        stamp = new Stamp(file, read(is, file.getPath()));
+                    } finally {
+                        is.close();
+                    }
+                }
+                current.put(className, stamp);
+                if (stamp._indexedClass != null) {
+                    classes.add(stamp._indexedClass);
+                }
+            }
+        }
+    }
+
+    private List<IndexedClass> indexArchive(File archive) throws IOException {
+        String checksum = checksum(archive);
+        List<IndexedClass> classes = _archives.get(checksum);
+        if (classes == null) {
+            classes = loadIndex(checksum);
+            if (classes == null) {
+                classes = readArchive(archive);
+                storeIndex(checksum, classes);
+            }
+            _archives.put(checksum, classes);
+        }
+        return classes;
+    }
+
+    private List<IndexedClass> readArchive(File archive) throws IOException {
+        List<IndexedClass> classes = new ArrayList<IndexedClass>();
+        ZipFile zip = new ZipFile(archive);
+        try {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                // versioned and other META-INF classes are never scanned
+                if (entry.isDirectory() || name.startsWith("META-INF/") || !isClassFile(name.substring(name.lastIndexOf('/') + 1))) {
+                    continue;
+                }
+                InputStream is = new BufferedInputStream(zip.getInputStream(entry));
+                try {
+                    IndexedClass indexedClass = read(is, archive + "!/" + name);
+                    if (indexedClass != null) {
+                        classes.add(indexedClass);
+                    }
+                } finally {
+                    is.close();
+                }
+            }
+        } finally {
+            zip.close();
+        }
+        return Collections.unmodifiableList(classes);
+    }
+
+    private static IndexedClass read(InputStream is, String source) {
+        try {
+            return ClassFileReader.read(is);
+        } catch (IOException ioe) {
+            // as when scanning by loading classes, unreadable classes are skipped
+            LOGGER.debug("Skipping unreadable class file " + source + ": " + ioe.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean isClassFile(String fileName) {
+        // package-info and module-info are not types
+        return fileName.endsWith(CLASS_SUFFIX) && fileName.indexOf('-') < 0;
+    }
+
+    private String checksum(File archive) throws IOException {
+        String key = archive.getCanonicalPath();
+        Stamp stamp = _checksums.get(key);
+        if (stamp != null && stamp.matches(archive)) {
+            return stamp._checksum;
+        }
+        CRC32 crc = new CRC32();
+        InputStream is = new FileInputStream(archive);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        } finally {
+            is.close();
+        }
+        String checksum = String.format("%08x-%x", crc.getValue(), archive.length());
+        _checksums.put(key, new Stamp(archive, checksum));
+        return checksum;
+    }
+
+    private List<IndexedClass> loadIndex(String checksum) {
+        if (_indexDir == null) {
+            return null;
+        }
+        File file = new File(_indexDir, checksum + INDEX_SUFFIX);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            List<IndexedClass> classes = new ArrayList<IndexedClass>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            try {
+                if (!INDEX_HEADER.equals(reader.readLine())) {
+                    return null;
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    if (tab > 0) {
+                        List<String> annotations = Arrays.asList(line.substring(tab + 1).split(","));
+                        classes.add(new IndexedClass(line.substring(0, tab), annotations));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            return Collections.unmodifiableList(classes);
+        } catch (IOException ioe) {
+            LOGGER.warn(String.format("ignoring unreadable annotation index [%s]: %s", file, ioe.getMessage()));
+            return null;
+        }
+    }
+
+    private void storeIndex(String checksum, List<IndexedClass> classes) {
+        if (_indexDir == null) {
+            return;
+        }
+        File file = new File(_indexDir, checksum + INDEX_SUFFIX);
+        File temp = null;
+        try {
+            if (!_indexDir.isDirectory() && !_indexDir.mkdirs()) {
+                throw new IOException("could not create directory " + _indexDir);
+            }
+            // write to a temporary file first so that concurrent builds never read a partial index
+            temp = File.createTempFile(checksum, ".tmp", _indexDir);
+            Writer writer = new OutputStreamWriter(new FileOutputStream(temp), "UTF-8");
+            try {
+                writer.write(INDEX_HEADER);
+                writer.write('\n');
+                for (IndexedClass indexedClass : classes) {
+                    writer.write(indexedClass.getName());
+                    writer.write('\t');
+                    List<String> annotations = indexedClass.getAnnotations();
+                    for (int i = 0; i < annotations.size(); i++) {
+                        if (i > 0) {
+                            writer.write(',');
+                        }
+                        writer.write(annotations.get(i));
+                    }
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+            if (!temp.renameTo(file) && !file.isFile()) {
+                throw new IOException("could not rename " + temp + " to " + file);
+            }
+        } catch (IOException ioe) {
+            LOGGER.warn(String.format("problem storing annotation index [%s]: %s", file, ioe.getMessage()));
+        } finally {
+            if (temp != null && temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private static File toFile(URL url) {
+        String protocol = url.getProtocol();
+        if ("file".equals(protocol)) {
+            try {
+                return new File(url.toURI());
+            } catch (URISyntaxException use) {
+                return new File(url.getPath());
+            } catch (IllegalArgumentException iae) {
+                return null;
+            }
+        } else if ("jar".equals(protocol)) {
+            // only whole archives on the file system, not entries within them
+            String path = url.getPath();
+            if (path.startsWith("file:") && path.endsWith("!/")) {
+                try {
+                    return toFile(new URL(path.substring(0, path.length() - 2)));
+                } catch (IOException ioe) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private synchronized ThreadPoolExecutor getExecutor() {
+        if (_executor == null) {
+            final String prefix = new StringBuilder()
+                .append(AnnotationIndexer.class.getSimpleName())
+                .append('-')
+                .append(POOL_COUNT.incrementAndGet())
+                .append(':')
+                .toString();
+            ThreadFactory threadFactory = new ThreadFactory() {
+                private final AtomicInteger _count = new AtomicInteger();
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, prefix + _count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+            _executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+            // idle indexers should not hold on to threads between deployments
+            _executor.allowCoreThreadTimeOut(true);
+        }
+        return _executor;
+    }
+
+    /**
+     * The size and modification time a file had when it was last read, with what was read.
+     */
+    private static final class Stamp {
+
+        private final long _length;
+        private final long _lastModified;
+        private final String _checksum;
+        private final IndexedClass _indexedClass;
+
+        private Stamp(File file, String checksum) {
+            _length = file.length();
+            _lastModified = file.lastModified();
+            _checksum = checksum;
+            _indexedClass = null;
+        }
+
+        private Stamp(File file, IndexedClass indexedClass) {
+            _length = file.length();
+            _lastModified = file.lastModified();
+            _checksum = null;
+            _indexedClass = indexedClass;
+        }
+
+        private boolean matches(File file) {
+            return file.length() == _length && file.lastModified() == _lastModified;
+        }
+
+    }
+
+}
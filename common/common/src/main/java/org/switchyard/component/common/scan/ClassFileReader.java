@@ -0,0 +1,212 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.common.scan;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.switchyard.config.model.Scannable;
+
+/**
+ * Reads the class level, runtime visible annotations of a class file without loading the class.
+ * <p/>
+ * Only the constant pool and the class attributes are interpreted; fields, methods and any
+ * attributes other than RuntimeVisibleAnnotations are skipped over.
+ */
+final class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String SCANNABLE = "L" + Scannable.class.getName().replace('.', '/') + ";";
+
+    private ClassFileReader() {}
+
+    /**
+     * Reads a class file.
+     * @param input the class file, which is read but not closed
+     * @return the class and its annotations, or null if it has none or is marked as not scannable
+     * @throws IOException if the class file could not be read
+     */
+    static IndexedClass read(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a class file");
+        }
+        // minor and major version
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        int poolCount = in.readUnsignedShort();
+        Object[] pool = new Object[poolCount];
+        int[] classNames = new int[poolCount];
+        for (int i = 1; i < poolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+            case 1: // Utf8
+                pool[i] = in.readUTF();
+                break;
+            case 3: // Integer, which also holds boolean annotation values
+                pool[i] = Integer.valueOf(in.readInt());
+                break;
+            case 7: // Class
+                classNames[i] = in.readUnsignedShort();
+                break;
+            case 8: // String
+            case 16: // MethodType
+            case 19: // Module
+            case 20: // Package
+                in.readUnsignedShort();
+                break;
+            case 4: // Float
+            case 9: // Fieldref
+            case 10: // Methodref
+            case 11: // InterfaceMethodref
+            case 12: // NameAndType
+            case 17: // Dynamic
+            case 18: // InvokeDynamic
+                in.readInt();
+                break;
+            case 15: // MethodHandle
+                in.readUnsignedByte();
+                in.readUnsignedShort();
+                break;
+            case 5: // Long
+            case 6: // Double
+                in.readLong();
+                // eight byte constants take up two entries
+                i++;
+                break;
+            default:
+                throw new IOException("unknown constant pool tag " + tag);
+            }
+        }
+        // access flags
+        in.readUnsignedShort();
+        String className = ((String)pool[classNames[in.readUnsignedShort()]]).replace('/', '.');
+        // super class
+        in.readUnsignedShort();
+        skip(in, 2 * in.readUnsignedShort());
+        skipMembers(in);
+        skipMembers(in);
+        List<String> annotations = Collections.emptyList();
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String name = (String)pool[in.readUnsignedShort()];
+            int length = in.readInt();
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(name)) {
+                annotations = readAnnotations(in, pool);
+                if (annotations == null) {
+                    return null;
+                }
+            } else {
+                skip(in, length);
+            }
+        }
+        return annotations.isEmpty() ? null : new IndexedClass(className, annotations);
+    }
+
+    private static List<String> readAnnotations(DataInputStream in, Object[] pool) throws IOException {
+        int count = in.readUnsignedShort();
+        List<String> annotations = new ArrayList<String>(count);
+        boolean scannable = true;
+        for (int i = 0; i < count; i++) {
+            String descriptor = (String)pool[in.readUnsignedShort()];
+            boolean isScannable = SCANNABLE.equals(descriptor);
+            int pairs = in.readUnsignedShort();
+            for (int j = 0; j < pairs; j++) {
+                String element = (String)pool[in.readUnsignedShort()];
+                Object value = readElementValue(in, pool);
+                if (isScannable && "value".equals(element) && Integer.valueOf(0).equals(value)) {
+                    scannable = false;
+                }
+            }
+            // descriptors have the form Lpackage/Name;
+            annotations.add(descriptor.substring(1, descriptor.length() - 1).replace('/', '.'));
+        }
+        return scannable ? annotations : null;
+    }
+
+    private static Object readElementValue(DataInputStream in, Object[] pool) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+        case 'B':
+        case 'C':
+        case 'D':
+        case 'F':
+        case 'I':
+        case 'J':
+        case 'S':
+        case 'Z':
+        case 's':
+            return pool[in.readUnsignedShort()];
+        case 'e':
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+            return null;
+        case 'c':
+            in.readUnsignedShort();
+            return null;
+        case '@':
+            in.readUnsignedShort();
+            int pairs = in.readUnsignedShort();
+            for (int i = 0; i < pairs; i++) {
+                in.readUnsignedShort();
+                readElementValue(in, pool);
+            }
+            return null;
+        case '[':
+            int values = in.readUnsignedShort();
+            for (int i = 0; i < values; i++) {
+                readElementValue(in, pool);
+            }
+            return null;
+        default:
+            throw new IOException("unknown annotation element tag " + (char)tag);
+        }
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            // access flags, name and descriptor
+            skip(in, 6);
+            int attributeCount = in.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                in.readUnsignedShort();
+                skip(in, in.readInt());
+            }
+        }
+    }
+
+    private static void skip(DataInputStream in, int length) throws IOException {
+        while (length > 0) {
+            int skipped = in.skipBytes(length);
+            if (skipped <= 0) {
+                // throws EOFException at the end of the stream
+                in.readByte();
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+    }
+
+}
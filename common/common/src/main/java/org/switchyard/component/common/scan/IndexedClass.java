@@ -0,0 +1,44 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.common.scan;
+
+import java.util.List;
+
+/**
+ * A class found by the {@link AnnotationIndexer}, with the names of its class level annotations.
+ */
+final class IndexedClass {
+
+    private final String _name;
+    private final List<String> _annotations;
+
+    IndexedClass(String name, List<String> annotations) {
+        _name = name;
+        _annotations = annotations;
+    }
+
+    String getName() {
+        return _name;
+    }
+
+    List<String> getAnnotations() {
+        return _annotations;
+    }
+
+}
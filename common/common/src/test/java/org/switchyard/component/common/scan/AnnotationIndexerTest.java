@@ -0,0 +1,165 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.common.scan;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.switchyard.config.model.Scannable;
+
+public class AnnotationIndexerTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public static @interface Indexed {
+        String value() default "";
+    }
+
+    @Indexed("marked")
+    public static class Marked {
+        static final long LONG_CONSTANT = 42L;
+        static final double DOUBLE_CONSTANT = 4.2d;
+        static final String STRING_CONSTANT = "constant";
+    }
+
+    public static class Unmarked {
+    }
+
+    @Scannable(false)
+    @Indexed
+    public static class NotScannable {
+    }
+
+    @Test
+    public void testDirectory() throws Exception {
+        URL classes = AnnotationIndexerTest.class.getProtectionDomain().getCodeSource().getLocation();
+        AnnotationIndex index = new AnnotationIndexer(null).index(Collections.singletonList(classes));
+        List<String> classNames = index.getAnnotatedClassNames(Indexed.class);
+        Assert.assertTrue(classNames.contains(Marked.class.getName()));
+        Assert.assertFalse(classNames.contains(Unmarked.class.getName()));
+        Assert.assertFalse(classNames.contains(NotScannable.class.getName()));
+        List<Class<?>> types = index.getAnnotatedTypes(Indexed.class);
+        Assert.assertEquals(Collections.<Class<?>>singletonList(Marked.class), types);
+        Assert.assertTrue(index.getUnindexedURLs().isEmpty());
+    }
+
+    @Test
+    public void testArchiveIndexIsCached() throws Exception {
+        File dir = new File("target/annotation-index");
+        File indexDir = new File(dir, "cache");
+        File jar = new File(dir, "marked.jar");
+        writeJar(jar, Marked.class, Unmarked.class);
+        for (File file : indexDir.exists() ? indexDir.listFiles() : new File[0]) {
+            file.delete();
+        }
+
+        AnnotationIndex index = new AnnotationIndexer(indexDir).index(Collections.singletonList(jar.toURI().toURL()));
+        Assert.assertEquals(Collections.singletonList(Marked.class.getName()), index.getAnnotatedClassNames(Indexed.class));
+        File[] indexFiles = indexDir.listFiles();
+        Assert.assertEquals(1, indexFiles.length);
+
+        // a new indexer reads the stored index instead of the archive
+        FileWriter writer = new FileWriter(indexFiles[0], true);
+        try {
+            writer.write("org.example.Cached\t" + Indexed.class.getName() + "\n");
+        } finally {
+            writer.close();
+        }
+        index = new AnnotationIndexer(indexDir).index(Collections.singletonList(new URL("jar:" + jar.toURI() + "!/")));
+        Assert.assertTrue(index.getAnnotatedClassNames(Indexed.class).contains("org.example.Cached"));
+    }
+
+    @Test
+    public void testUnindexedURLs() throws Exception {
+        URL url = new URL("http://localhost/classes/");
+        AnnotationIndex index = new AnnotationIndexer(null).index(Collections.singletonList(url));
+        Assert.assertEquals(0, index.size());
+        Assert.assertEquals(Collections.singletonList(url), index.getUnindexedURLs());
+    }
+
+    @Test
+    public void testScanPassSharesOneWalk() throws Exception {
+        URL classes = AnnotationIndexerTest.class.getProtectionDomain().getCodeSource().getLocation();
+        AnnotationIndexer indexer = new AnnotationIndexer(null);
+        List<URL> urls = Collections.singletonList(classes);
+        AnnotationIndex index = indexer.index(urls);
+        Assert.assertSame(index, indexer.index(urls));
+        // a new scan pass hands over a new list, and gets a new walk
+        Assert.assertNotSame(index, indexer.index(Collections.singletonList(classes)));
+        // as does every call, when reuse is turned off
+        indexer = new AnnotationIndexer(null, 0L);
+        Assert.assertNotSame(indexer.index(urls), indexer.index(urls));
+    }
+
+    @Test
+    public void testDeletedPathsArePruned() throws Exception {
+        File dir = new File("target/annotation-index");
+        File jar = new File(dir, "deleted.jar");
+        writeJar(jar, Marked.class);
+        URL classes = AnnotationIndexerTest.class.getProtectionDomain().getCodeSource().getLocation();
+        AnnotationIndexer indexer = new AnnotationIndexer(null);
+        indexer.index(Collections.singletonList(jar.toURI().toURL()));
+        indexer.index(Collections.singletonList(classes));
+        Assert.assertEquals(2, indexer.getCachedPathCount());
+        Assert.assertTrue(jar.delete());
+        indexer.index(Collections.singletonList(classes));
+        Assert.assertEquals(1, indexer.getCachedPathCount());
+    }
+
+    private static void writeJar(File jar, Class<?>... classes) throws Exception {
+        jar.getParentFile().mkdirs();
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (Class<?> clazz : classes) {
+                String name = clazz.getName().replace('.', '/') + ".class";
+                out.putNextEntry(new ZipEntry(name));
+                InputStream in = clazz.getClassLoader().getResourceAsStream(name);
+                try {
+                    copy(in, out);
+                } finally {
+                    in.close();
+                }
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws Exception {
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+}
@@ -18,6 +18,11 @@
  */
 package org.switchyard.component.common.knowledge.config.model;
 
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.util.List;
+
 import org.switchyard.Scope;
 import org.switchyard.common.io.resource.ResourceType;
 import org.switchyard.common.type.reflect.Construction;
@@ -43,6 +48,7 @@ import org.switchyard.component.common.knowledge.config.model.v1.V1ManifestModel
 import org.switchyard.component.common.knowledge.config.model.v1.V1MappingModel;
 import org.switchyard.component.common.knowledge.config.model.v1.V1MappingsModel;
 import org.switchyard.component.common.knowledge.expression.ExpressionType;
+import org.switchyard.component.common.scan.AnnotationIndexer;
 import org.switchyard.config.model.Scanner;
 import org.switchyard.config.model.composite.ComponentModel;
 import org.switchyard.config.model.composite.ComponentReferenceModel;
@@ -69,6 +75,18 @@ public abstract class KnowledgeSwitchYardScanner implements Scanner<SwitchYardMo
     /** Undefined String value. */
     protected static final String UNDEFINED = "";
 
+    /**
+     * Finds the types carrying an annotation on the scanned URLs, through the index shared by all scanners.
+     * @param urls the URLs
+     * @param annotation the annotation
+     * @return the types
+     * @throws IOException oops
+     */
+    @SuppressWarnings("unchecked")
+    protected List<Class<?>> scanForAnnotatedTypes(List<URL> urls, Class<? extends Annotation> annotation) throws IOException {
+        return AnnotationIndexer.getDefault().index(urls).getAnnotatedTypes(annotation);
+    }
+
     /**
      * Converts channel annotations to channel model.
      * @param channelAnnotations annotations
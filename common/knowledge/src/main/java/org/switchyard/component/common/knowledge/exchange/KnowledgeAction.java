@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.switchyard.component.common.knowledge.ActionType;
 import org.switchyard.component.common.knowledge.expression.ExpressionMapping;
+import org.switchyard.component.common.knowledge.expression.ExpressionMappingEvaluator;
 
 /**
  * A Knowledge action.
@@ -36,6 +37,9 @@ public class KnowledgeAction {
     private final List<ExpressionMapping> _globalExpressionMappings = new ArrayList<ExpressionMapping>();
     private final List<ExpressionMapping> _inputExpressionMappings = new ArrayList<ExpressionMapping>();
     private final List<ExpressionMapping> _outputExpressionMappings = new ArrayList<ExpressionMapping>();
+    private volatile ExpressionMappingEvaluator _globalEvaluator;
+    private volatile ExpressionMappingEvaluator _inputEvaluator;
+    private volatile ExpressionMappingEvaluator _outputEvaluator;
 
     /**
      * Constructs a new knowledge action.
@@ -87,4 +91,46 @@ public class KnowledgeAction {
         return _outputExpressionMappings;
     }
 
+    /**
+     * Compiles the current expression mappings into evaluators; call again if the mappings are changed.
+     */
+    public void compileExpressionMappings() {
+        _globalEvaluator = new ExpressionMappingEvaluator(_globalExpressionMappings);
+        _inputEvaluator = new ExpressionMappingEvaluator(_inputExpressionMappings);
+        _outputEvaluator = new ExpressionMappingEvaluator(_outputExpressionMappings);
+    }
+
+    /**
+     * Gets the global expression mapping evaluator.
+     * @return the global expression mapping evaluator
+     */
+    public ExpressionMappingEvaluator getGlobalEvaluator() {
+        if (_globalEvaluator == null) {
+            compileExpressionMappings();
+        }
+        return _globalEvaluator;
+    }
+
+    /**
+     * Gets the input expression mapping evaluator.
+     * @return the input expression mapping evaluator
+     */
+    public ExpressionMappingEvaluator getInputEvaluator() {
+        if (_inputEvaluator == null) {
+            compileExpressionMappings();
+        }
+        return _inputEvaluator;
+    }
+
+    /**
+     * Gets the output expression mapping evaluator.
+     * @return the output expression mapping evaluator
+     */
+    public ExpressionMappingEvaluator getOutputEvaluator() {
+        if (_outputEvaluator == null) {
+            compileExpressionMappings();
+        }
+        return _outputEvaluator;
+    }
+
 }
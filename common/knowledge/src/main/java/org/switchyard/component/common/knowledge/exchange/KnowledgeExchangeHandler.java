@@ -142,6 +142,18 @@ public abstract class KnowledgeExchangeHandler<M extends KnowledgeComponentImple
         return _statefulSession;
     }
 
+    /**
+     * Loads a persistent knowledge session apart from the one held by this handler, which the caller must dispose.
+     * @param sessionId the id of the stored session
+     * @return the persistent knowledge session
+     */
+    protected KnowledgeSession loadPersistentSession(Integer sessionId) {
+        if (_sessionFactory == null) {
+            throw new IllegalStateException("Cannot load persistent session " + sessionId + "; handler is stopped");
+        }
+        return _sessionFactory.getPersistentSession(getEnvironmentOverrides(), sessionId);
+    }
+
     /**
      * Disposes the stateful session.
      */
@@ -0,0 +1,220 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.common.knowledge.expression;
+
+import static org.switchyard.component.common.knowledge.KnowledgeConstants.CONTEXT;
+import static org.switchyard.component.common.knowledge.KnowledgeConstants.EXCHANGE;
+import static org.switchyard.component.common.knowledge.KnowledgeConstants.MESSAGE;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.switchyard.Exchange;
+import org.switchyard.Scope;
+import org.switchyard.common.lang.Strings;
+
+/**
+ * Evaluates a fixed list of expression mappings against an exchange, writing the results straight into a
+ * target map or list.
+ * <p/>
+ * Everything that does not depend on the exchange (variable names, scopes, whether the exchange-derived
+ * undefined variable is needed) is worked out once, when the evaluator is created; per exchange, one
+ * evaluation context is built and shared by all the mappings.
+ */
+public final class ExpressionMappingEvaluator {
+
+    private final Expression[] _expressions;
+    private final Scope[] _scopes;
+    private final String[] _variables;
+    private final boolean _undefinedVariables;
+
+    /**
+     * Creates a new evaluator for the specified mappings.
+     * @param mappings the mappings
+     */
+    public ExpressionMappingEvaluator(List<ExpressionMapping> mappings) {
+        int size = mappings != null ? mappings.size() : 0;
+        _expressions = new Expression[size];
+        _scopes = new Scope[size];
+        _variables = new String[size];
+        boolean undefinedVariables = false;
+        for (int i = 0; i < size; i++) {
+            ExpressionMapping mapping = mappings.get(i);
+            _expressions[i] = mapping.getExpression();
+            _scopes[i] = mapping.getScope();
+            _variables[i] = Strings.trimToNull(mapping.getVariable());
+            if (_variables[i] == null) {
+                undefinedVariables = true;
+            }
+        }
+        _undefinedVariables = undefinedVariables;
+    }
+
+    /**
+     * If there are no mappings.
+     * @return if so
+     */
+    public boolean isEmpty() {
+        return _expressions.length == 0;
+    }
+
+    /**
+     * Evaluates the mappings into a map, keeping the first non-null value per variable.
+     * @param exchange the exchange
+     * @param target the map to write to
+     * @param contextOverrides any overrides
+     * @param undefinedVariable the variable to use for mappings without one
+     */
+    public void evaluateMap(Exchange exchange, Map<String, Object> target, Map<String, Object> contextOverrides, String undefinedVariable) {
+        if (isEmpty()) {
+            return;
+        }
+        Evaluation evaluation = new Evaluation(exchange, contextOverrides);
+        for (int i = 0; i < _expressions.length; i++) {
+            String var = _variables[i] != null ? _variables[i] : undefinedVariable;
+            if (var != null) {
+                Object value = evaluation.evaluate(i);
+                if (value != null ? target.get(var) == null : !target.containsKey(var)) {
+                    target.put(var, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates the mappings into a list, in mapping order, expanding any Iterable values.
+     * @param exchange the exchange
+     * @param target the list to write to
+     */
+    public void evaluateList(Exchange exchange, List<Object> target) {
+        if (isEmpty()) {
+            return;
+        }
+        Evaluation evaluation = new Evaluation(exchange, null);
+        for (int i = 0; i < _expressions.length; i++) {
+            expand(evaluation.evaluate(i), target);
+        }
+    }
+
+    /**
+     * Evaluates the mappings into lists keyed by variable.
+     * @param exchange the exchange
+     * @param expand if to expand Iterable values
+     * @param undefinedVariable the variable to use for mappings without one
+     * @return the list map
+     */
+    public Map<String, List<Object>> evaluateListMap(Exchange exchange, boolean expand, String undefinedVariable) {
+        Map<String, List<Object>> map = new HashMap<String, List<Object>>();
+        if (isEmpty()) {
+            return map;
+        }
+        Evaluation evaluation = new Evaluation(exchange, null);
+        for (int i = 0; i < _expressions.length; i++) {
+            String var = _variables[i] != null ? _variables[i] : undefinedVariable;
+            if (var != null) {
+                List<Object> list = map.get(var);
+                if (list == null) {
+                    list = new ArrayList<Object>();
+                    map.put(var, list);
+                }
+                Object value = evaluation.evaluate(i);
+                if (expand) {
+                    expand(value, list);
+                } else if (value != null) {
+                    list.add(value);
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * If any mapping lacks a variable, and so needs an undefined variable name to be computed.
+     * @return if so
+     */
+    public boolean hasUndefinedVariables() {
+        return _undefinedVariables;
+    }
+
+    /**
+     * Expands a value into a list; Iterable values contribute their non-null elements.
+     * @param value the value
+     * @param list the list
+     */
+    public static void expand(Object value, List<Object> list) {
+        if (value != null) {
+            if (value instanceof Iterable) {
+                for (Object o : (Iterable<?>)value) {
+                    if (o != null) {
+                        list.add(o);
+                    }
+                }
+            } else {
+                list.add(value);
+            }
+        }
+    }
+
+    private final class Evaluation {
+
+        private final Exchange _exchange;
+        private final Map<String, Object> _context = new HashMap<String, Object>();
+        private final boolean _contextOverridden;
+        private Map<Scope, ContextMap> _contextMaps;
+
+        private Evaluation(Exchange exchange, Map<String, Object> contextOverrides) {
+            _exchange = exchange;
+            _context.put(EXCHANGE, exchange);
+            _context.put(MESSAGE, exchange.getMessage());
+            if (contextOverrides != null) {
+                _context.putAll(contextOverrides);
+                _contextOverridden = contextOverrides.containsKey(CONTEXT);
+            } else {
+                _contextOverridden = false;
+            }
+        }
+
+        private Object evaluate(int i) {
+            if (!_contextOverridden) {
+                _context.put(CONTEXT, getContextMap(_scopes[i]));
+            }
+            return _expressions[i].evaluate(_context);
+        }
+
+        private ContextMap getContextMap(Scope scope) {
+            if (scope == null) {
+                return new ContextMap(_exchange.getContext(), null);
+            }
+            if (_contextMaps == null) {
+                _contextMaps = new EnumMap<Scope, ContextMap>(Scope.class);
+            }
+            ContextMap contextMap = _contextMaps.get(scope);
+            if (contextMap == null) {
+                contextMap = new ContextMap(_exchange.getContext(), scope);
+                _contextMaps.put(scope, contextMap);
+            }
+            return contextMap;
+        }
+
+    }
+
+}
@@ -27,6 +27,7 @@ import org.mvel2.integration.VariableResolverFactory;
 import org.mvel2.integration.impl.ImmutableDefaultFactory;
 import org.mvel2.integration.impl.SimpleValueResolver;
 import org.switchyard.common.property.PropertyResolver;
+import org.switchyard.exception.SwitchYardException;
 
 /**
  * MVELExpression.
@@ -37,7 +38,7 @@ public class MVELExpression implements Expression {
 
     private final String _expression;
     private final VariableResolverFactory _resolverFactory;
-    private Serializable _compiled;
+    private final Serializable _compiled;
 
     /**
      * Creates a new MVELExpression with the specified expression and {@link PropertyResolver}.
@@ -47,7 +48,7 @@ public class MVELExpression implements Expression {
     public MVELExpression(String expression, PropertyResolver propertyResolver) {
         _expression = expression;
         _resolverFactory = new PropertyResolverFactory(propertyResolver);
-        compile();
+        _compiled = compile(expression);
     }
 
     /**
@@ -66,10 +67,20 @@ public class MVELExpression implements Expression {
         return ExpressionType.MVEL;
     }
 
-    private void compile() {
+    private static Serializable compile(String expression) {
         ParserContext pc = new ParserContext();
         pc.addPackageImport("org.switchyard");
-        _compiled = MVEL.compileExpression(_expression, pc);
+        Serializable compiled;
+        try {
+            compiled = MVEL.compileExpression(expression, pc);
+        } catch (RuntimeException re) {
+            throw new SwitchYardException(String.format("cannot compile MVEL expression [%s]: %s", expression, re.getMessage()), re);
+        }
+        // we fail here, at deploy time, rather than falling back to interpreting on every exchange
+        if (compiled == null) {
+            throw new SwitchYardException(String.format("cannot compile MVEL expression [%s]", expression));
+        }
+        return compiled;
     }
 
     /**
@@ -85,7 +96,7 @@ public class MVELExpression implements Expression {
      */
     @Override
     public Object evaluate() {
-        return isCompiled() ? MVEL.executeExpression(_compiled, _resolverFactory) : MVEL.eval(_expression, _resolverFactory);
+        return MVEL.executeExpression(_compiled, _resolverFactory);
     }
 
     /**
@@ -93,7 +104,7 @@ public class MVELExpression implements Expression {
      */
     @Override
     public Object evaluate(Object context) {
-        return isCompiled() ? MVEL.executeExpression(_compiled, context, _resolverFactory) : MVEL.eval(_expression, context, _resolverFactory);
+        return MVEL.executeExpression(_compiled, context, _resolverFactory);
     }
 
     @SuppressWarnings("serial")
@@ -0,0 +1,311 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.common.knowledge.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.Logger;
+import org.drools.common.DroolsObjectInputStream;
+import org.drools.common.DroolsObjectOutputStream;
+import org.kie.KieBase;
+import org.switchyard.common.io.resource.Resource;
+import org.switchyard.common.lang.Strings;
+import org.switchyard.component.common.knowledge.config.model.KnowledgeComponentImplementationModel;
+import org.switchyard.component.common.knowledge.config.model.ManifestModel;
+import org.switchyard.config.model.resource.ResourcesModel;
+
+/**
+ * An on-disk cache of built knowledge bases.
+ * <p/>
+ * Entries are keyed by a digest of the manifest resources' contents, the bytecode of the classes those
+ * resources import (as loaded by the application's class loader) and the builder/base configuration
+ * properties, so any change to a resource, fact class or property results in a rebuild. Entries that
+ * cannot be read back (truncated, corrupt, or written by an incompatible engine) are deleted and rebuilt.
+ */
+public final class KnowledgeBaseCache {
+
+    /** The property naming the cache directory; caching is disabled if not set. */
+    public static final String DIRECTORY_PROPERTY = "switchyard.knowledge.base.cache.directory";
+
+    private static final Logger LOGGER = Logger.getLogger(KnowledgeBaseCache.class);
+    private static final int MAGIC = 0x53594B42; // "SYKB"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".kbase";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    // drl imports and globals, and bpmn2 imports, name the fact classes a knowledge base is compiled against
+    private static final Pattern[] CLASS_REFERENCES = new Pattern[] {
+        Pattern.compile("(?m)^\\s*import\\s+(?!function\\s)([\\w$.]+)"),
+        Pattern.compile("(?m)^\\s*global\\s+([\\w$.]+)"),
+        Pattern.compile("<(?:\\w+:)?import\\s+name=\"([\\w$.]+)\"")
+    };
+
+    private final File _directory;
+
+    /**
+     * Constructs a new knowledge base cache.
+     * @param directory the cache directory
+     */
+    public KnowledgeBaseCache(File directory) {
+        _directory = directory;
+    }
+
+    /**
+     * Gets the cache directory.
+     * @return the cache directory
+     */
+    public File getDirectory() {
+        return _directory;
+    }
+
+    /**
+     * Creates a new knowledge base cache if one is configured.
+     * @param properties the configuration properties
+     * @return the cache, or null if caching is not configured
+     */
+    public static KnowledgeBaseCache newCache(Properties properties) {
+        String directory = properties != null ? Strings.trimToNull(properties.getProperty(DIRECTORY_PROPERTY)) : null;
+        return directory != null ? new KnowledgeBaseCache(new File(directory)) : null;
+    }
+
+    /**
+     * Computes the cache key for a model's resources and configuration.
+     * @param model the model
+     * @param loader the class loader
+     * @param properties the configuration properties
+     * @return the cache key, or null if one cannot be computed (in which case nothing should be cached)
+     */
+    public String getKey(KnowledgeComponentImplementationModel model, ClassLoader loader, Properties properties) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            update(digest, String.valueOf(KieBase.class.getPackage().getImplementationVersion()));
+            ManifestModel manifestModel = model.getManifest();
+            ResourcesModel resourcesModel = manifestModel != null ? manifestModel.getResources() : null;
+            Set<String> classNames = new TreeSet<String>();
+            if (resourcesModel != null) {
+                for (Resource syResource : resourcesModel.getResources()) {
+                    update(digest, syResource.getLocation());
+                    update(digest, syResource.getType() != null ? syResource.getType().getName() : null);
+                    URL url = syResource.getLocationURL(loader);
+                    if (url == null) {
+                        return null;
+                    }
+                    byte[] content = read(url);
+                    digest.update(content);
+                    String text = new String(content, "UTF-8");
+                    for (Pattern pattern : CLASS_REFERENCES) {
+                        Matcher matcher = pattern.matcher(text);
+                        while (matcher.find()) {
+                            classNames.add(matcher.group(1));
+                        }
+                    }
+                }
+            }
+            // a rebuilt application may keep its rules but change the classes they were compiled against
+            for (String className : classNames) {
+                update(digest, className);
+                URL url = getClassURL(className, loader);
+                if (url != null) {
+                    digest.update(read(url));
+                }
+            }
+            if (properties != null) {
+                Map<String, String> sorted = new TreeMap<String, String>();
+                for (String name : properties.stringPropertyNames()) {
+                    // the cache location itself does not affect what gets built
+                    if (!DIRECTORY_PROPERTY.equals(name)) {
+                        sorted.put(name, properties.getProperty(name));
+                    }
+                }
+                for (Map.Entry<String, String> entry : sorted.entrySet()) {
+                    update(digest, entry.getKey());
+                    update(digest, entry.getValue());
+                }
+            }
+            return toHex(digest.digest());
+        } catch (Exception e) {
+            LOGGER.warn(String.format("problem computing knowledge base cache key: %s", e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Loads a cached knowledge base.
+     * @param key the cache key
+     * @param loader the class loader
+     * @return the knowledge base, or null if not cached or the entry was stale or corrupt
+     */
+    public KieBase load(String key, ClassLoader loader) {
+        File file = getFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream dis = new DataInputStream(new FileInputStream(file));
+            byte[] payload;
+            try {
+                if (dis.readInt() != MAGIC || dis.readInt() != VERSION || !key.equals(dis.readUTF())) {
+                    throw new IOException("header mismatch");
+                }
+                long crc = dis.readLong();
+                payload = new byte[dis.readInt()];
+                dis.readFully(payload);
+                CRC32 check = new CRC32();
+                check.update(payload);
+                if (check.getValue() != crc) {
+                    throw new IOException("checksum mismatch");
+                }
+            } finally {
+                dis.close();
+            }
+            ObjectInputStream ois = new DroolsObjectInputStream(new ByteArrayInputStream(payload), loader);
+            try {
+                return (KieBase)ois.readObject();
+            } finally {
+                ois.close();
+            }
+        } catch (Throwable t) {
+            LOGGER.warn(String.format("discarding unusable knowledge base cache entry [%s]: %s", file, t.getMessage()));
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stores a knowledge base in the cache.
+     * @param key the cache key
+     * @param base the knowledge base
+     */
+    public void store(String key, KieBase base) {
+        File file = getFile(key);
+        File temp = null;
+        try {
+            if (!_directory.isDirectory() && !_directory.mkdirs()) {
+                throw new IOException("could not create directory " + _directory);
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new DroolsObjectOutputStream(baos);
+            try {
+                oos.writeObject(base);
+            } finally {
+                oos.close();
+            }
+            byte[] payload = baos.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            // write to a temporary file first so that readers never see a partial entry
+            temp = File.createTempFile(key, ".tmp", _directory);
+            DataOutputStream dos = new DataOutputStream(new FileOutputStream(temp));
+            try {
+                dos.writeInt(MAGIC);
+                dos.writeInt(VERSION);
+                dos.writeUTF(key);
+                dos.writeLong(crc.getValue());
+                dos.writeInt(payload.length);
+                dos.write(payload);
+            } finally {
+                dos.close();
+            }
+            if (file.exists() && !file.delete()) {
+                throw new IOException("could not replace " + file);
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("could not rename " + temp + " to " + file);
+            }
+            temp = null;
+        } catch (Throwable t) {
+            LOGGER.warn(String.format("problem storing knowledge base cache entry [%s]: %s", file, t.getMessage()));
+        } finally {
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private File getFile(String key) {
+        return new File(_directory, key + SUFFIX);
+    }
+
+    private static URL getClassURL(String className, ClassLoader loader) {
+        String name = className;
+        while (true) {
+            URL url = loader.getResource(name.replace('.', '/') + ".class");
+            if (url != null) {
+                return url;
+            }
+            // a nested class is imported with dots where its binary name has dollars
+            int dot = name.lastIndexOf('.');
+            if (dot < 0) {
+                return null;
+            }
+            name = name.substring(0, dot) + '$' + name.substring(dot + 1);
+        }
+    }
+
+    private static byte[] read(URL url) throws IOException {
+        InputStream is = url.openStream();
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int read;
+            while ((read = is.read(buf)) != -1) {
+                baos.write(buf, 0, read);
+            }
+            return baos.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) throws IOException {
+        digest.update(String.valueOf(value).getBytes("UTF-8"));
+        digest.update((byte)0);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+}
@@ -41,6 +41,7 @@ import org.switchyard.component.common.knowledge.util.Configurations;
 import org.switchyard.component.common.knowledge.util.Environments;
 import org.switchyard.component.common.knowledge.util.Listeners;
 import org.switchyard.component.common.knowledge.util.Loggers;
+import org.switchyard.component.common.knowledge.util.Propertys;
 import org.switchyard.component.common.knowledge.util.Resources;
 
 /**
@@ -108,6 +109,23 @@ class KnowledgeBaseSessionFactory extends KnowledgeSessionFactory {
     }
 
     private KieBase newBase() {
+        Properties properties = Propertys.getProperties(getModel(), getPropertyOverrides());
+        KnowledgeBaseCache cache = KnowledgeBaseCache.newCache(properties);
+        String key = cache != null ? cache.getKey(getModel(), getLoader(), properties) : null;
+        if (key != null) {
+            KieBase base = cache.load(key, getLoader());
+            if (base != null) {
+                return base;
+            }
+        }
+        KieBase base = buildBase();
+        if (key != null) {
+            cache.store(key, base);
+        }
+        return base;
+    }
+
+    private KieBase buildBase() {
         KieBaseConfiguration baseConfiguration = Configurations.getBaseConfiguration(getModel(), getPropertyOverrides(), getLoader());
         KnowledgeBase base = KnowledgeBaseFactory.newKnowledgeBase(baseConfiguration);
         KnowledgeBuilderConfiguration builderConfiguration = Configurations.getBuilderConfiguration(getModel(), getPropertyOverrides(), getLoader());
@@ -46,6 +46,7 @@ import org.switchyard.component.common.knowledge.expression.ContextMap;
 import org.switchyard.component.common.knowledge.expression.Expression;
 import org.switchyard.component.common.knowledge.expression.ExpressionFactory;
 import org.switchyard.component.common.knowledge.expression.ExpressionMapping;
+import org.switchyard.component.common.knowledge.expression.ExpressionMappingEvaluator;
 import org.switchyard.component.common.knowledge.session.KnowledgeSession;
 import org.switchyard.exception.SwitchYardException;
 
@@ -85,6 +86,8 @@ public final class Mappings {
                 if (actions.containsKey(operation)) {
                     throw new SwitchYardException(String.format("cannot register %s action due to duplicate operation: %s", type, operation));
                 }
+                // compiled once here, so that every exchange reuses the same evaluators
+                action.compileExpressionMappings();
                 actions.put(operation, action);
             }
         }
@@ -135,7 +138,9 @@ public final class Mappings {
      * @return the global map
      */
     public static Map<String, Object> getGlobalMap(Exchange exchange, KnowledgeAction action) {
-        return getMap(exchange, action.getGlobalExpressionMappings());
+        Map<String, Object> map = new HashMap<String, Object>();
+        evaluateMap(exchange, action.getGlobalEvaluator(), map, null);
+        return map;
     }
 
     /**
@@ -146,9 +151,9 @@ public final class Mappings {
      */
     public static Map<String, Object> getInputMap(Exchange exchange, KnowledgeAction action) {
         Map<String, Object> map = new HashMap<String, Object>();
-        List<ExpressionMapping> inputs = action.getInputExpressionMappings();
-        if (inputs.size() > 0) {
-            map.putAll(getMap(exchange, inputs));
+        ExpressionMappingEvaluator inputs = action.getInputEvaluator();
+        if (!inputs.isEmpty()) {
+            evaluateMap(exchange, inputs, map, null);
         } else {
             Object content = exchange.getMessage().getContent();
             if (content != null) {
@@ -177,9 +182,9 @@ public final class Mappings {
      */
     public static Map<String, Object> getOutputMap(Exchange exchange, KnowledgeAction action, Map<String, Object> contextOverrides) {
         Map<String, Object> map = new HashMap<String, Object>();
-        List<ExpressionMapping> outputs = action.getOutputExpressionMappings();
-        if (outputs.size() > 0) {
-            map.putAll(getMap(exchange, outputs, contextOverrides));
+        ExpressionMappingEvaluator outputs = action.getOutputEvaluator();
+        if (!outputs.isEmpty()) {
+            evaluateMap(exchange, outputs, map, contextOverrides);
         } else {
             Object content = null;
             if (contextOverrides != null) {
@@ -202,14 +207,7 @@ public final class Mappings {
      * @return the input list
      */
     public static List<Object> getInputList(Exchange exchange, KnowledgeAction action) {
-        List<Object> list = new ArrayList<Object>();
-        List<ExpressionMapping> inputs = action.getInputExpressionMappings();
-        if (inputs.size() > 0) {
-            list.addAll(getList(exchange, inputs));
-        } else {
-            expand(exchange.getMessage().getContent(), list);
-        }
-        return list;
+        return getList(exchange, action.getInputEvaluator());
     }
 
     /**
@@ -219,7 +217,7 @@ public final class Mappings {
      * @return the output list
      */
     public static List<Object> getOutputList(Exchange exchange, KnowledgeAction action) {
-        return getList(exchange, action.getOutputExpressionMappings());
+        return getList(exchange, action.getOutputEvaluator());
     }
 
     /**
@@ -240,29 +238,18 @@ public final class Mappings {
         }
     }
 
-    private static Map<String, Object> getMap(Exchange exchange, List<ExpressionMapping> mappings) {
-        return getMap(exchange, mappings, null);
-    }
-
-    private static Map<String, Object> getMap(Exchange exchange, List<ExpressionMapping> mappings, Map<String, Object> contextOverrides) {
-        Map<String, Object> map = new HashMap<String, Object>();
-        Map<String, List<Object>> listMap = getListMap(exchange, mappings, false, toVariable(exchange), contextOverrides);
-        for (Entry<String, List<Object>> entry : listMap.entrySet()) {
-            List<Object> list = entry.getValue();
-            map.put(entry.getKey(), list != null && list.size() > 0 ? list.get(0) : null);
-        }
-        return map;
+    private static void evaluateMap(Exchange exchange, ExpressionMappingEvaluator evaluator, Map<String, Object> map, Map<String, Object> contextOverrides) {
+        // only derive the undefined variable name when a mapping actually needs it
+        String undefinedVariable = evaluator.hasUndefinedVariables() ? toVariable(exchange) : null;
+        evaluator.evaluateMap(exchange, map, contextOverrides, undefinedVariable);
     }
 
-    private static List<Object> getList(Exchange exchange, List<ExpressionMapping> mappings) {
+    private static List<Object> getList(Exchange exchange, ExpressionMappingEvaluator evaluator) {
         List<Object> list = new ArrayList<Object>();
-        if (mappings == null || mappings.size() == 0) {
-            expand(exchange.getMessage().getContent(), list);
+        if (evaluator.isEmpty()) {
+            ExpressionMappingEvaluator.expand(exchange.getMessage().getContent(), list);
         } else {
-            Map<String, List<Object>> listMap = getListMap(exchange, mappings, true, toVariable(exchange));
-            for (List<Object> value : listMap.values()) {
-                expand(value, list);
-            }
+            evaluator.evaluateList(exchange, list);
         }
         return list;
     }
@@ -313,7 +300,7 @@ public final class Mappings {
                     }
                     Object value = em.getExpression().evaluate(ctx);
                     if (expand) {
-                        expand(value, list);
+                        ExpressionMappingEvaluator.expand(value, list);
                     } else if (value != null) {
                         list.add(value);
                     }
@@ -323,20 +310,6 @@ public final class Mappings {
         return map;
     }
 
-    private static void expand(Object value, List<Object> list) {
-        if (value != null) {
-            if (value instanceof Iterable) {
-                for (Object o : (Iterable<?>)value) {
-                    if (o != null) {
-                        list.add(o);
-                    }
-                }
-            } else {
-                list.add(value);
-            }
-        }
-    }
-
     /**
      * Converts an object a variable name.
      * @param object the object
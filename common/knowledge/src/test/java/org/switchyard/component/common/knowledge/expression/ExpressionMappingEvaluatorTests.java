@@ -0,0 +1,160 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.common.knowledge.expression;
+
+import static org.switchyard.component.common.knowledge.KnowledgeConstants.CONTEXT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.switchyard.BaseHandler;
+import org.switchyard.Exchange;
+import org.switchyard.HandlerException;
+import org.switchyard.Scope;
+import org.switchyard.ServiceDomain;
+import org.switchyard.deploy.ServiceDomainManager;
+import org.switchyard.metadata.InOnlyService;
+
+/**
+ * Tests the values produced by the ExpressionMappingEvaluator.
+ */
+public class ExpressionMappingEvaluatorTests {
+
+    private static final String OPERATION = "process";
+
+    private Exchange _exchange;
+
+    @Before
+    public void setUp() throws Exception {
+        ServiceDomain domain = new ServiceDomainManager().createDomain();
+        QName serviceName = new QName("urn:switchyard-component-common-knowledge", "ExpressionMappingEvaluatorTests");
+        final Exchange[] provided = new Exchange[1];
+        domain.registerService(serviceName, new InOnlyService(OPERATION), new BaseHandler() {
+            @Override
+            public void handleMessage(Exchange exchange) throws HandlerException {
+                provided[0] = exchange;
+            }
+        });
+        Exchange exchange = domain.registerServiceReference(serviceName, new InOnlyService(OPERATION)).createExchange(OPERATION);
+        exchange.getContext().setProperty("foo", "bar", Scope.EXCHANGE);
+        exchange.send(exchange.createMessage().setContent(Arrays.asList("one", null, "two")));
+        _exchange = provided[0];
+        Assert.assertNotNull(_exchange);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        ExpressionMappingEvaluator evaluator = new ExpressionMappingEvaluator(null);
+        Assert.assertTrue(evaluator.isEmpty());
+        Assert.assertFalse(evaluator.hasUndefinedVariables());
+        Map<String, Object> map = new HashMap<String, Object>();
+        evaluator.evaluateMap(_exchange, map, null, "undefined");
+        Assert.assertTrue(map.isEmpty());
+        List<Object> list = new ArrayList<Object>();
+        evaluator.evaluateList(_exchange, list);
+        Assert.assertTrue(list.isEmpty());
+        Assert.assertTrue(evaluator.evaluateListMap(_exchange, true, "undefined").isEmpty());
+    }
+
+    @Test
+    public void testEvaluateMap() throws Exception {
+        ExpressionMappingEvaluator evaluator = new ExpressionMappingEvaluator(Arrays.asList(
+            mapping("message.content[0]", null, "first"),
+            mapping("context['foo']", Scope.EXCHANGE, "foo"),
+            mapping("context['missing']", Scope.EXCHANGE, "missing"),
+            mapping("null", null, "first"),
+            mapping("message.content[2]", null, null)));
+        Assert.assertFalse(evaluator.isEmpty());
+        Assert.assertTrue(evaluator.hasUndefinedVariables());
+        Map<String, Object> map = new HashMap<String, Object>();
+        evaluator.evaluateMap(_exchange, map, null, "undefined");
+        Assert.assertEquals(4, map.size());
+        // the first non-null value wins
+        Assert.assertEquals("one", map.get("first"));
+        Assert.assertEquals("bar", map.get("foo"));
+        // a missing value is still mapped, as null
+        Assert.assertTrue(map.containsKey("missing"));
+        Assert.assertNull(map.get("missing"));
+        Assert.assertEquals("two", map.get("undefined"));
+    }
+
+    @Test
+    public void testEvaluateMapWithoutUndefinedVariable() throws Exception {
+        ExpressionMappingEvaluator evaluator = new ExpressionMappingEvaluator(Arrays.asList(
+            mapping("message.content[0]", null, null),
+            mapping("context['foo']", Scope.EXCHANGE, " foo ")));
+        Map<String, Object> map = new HashMap<String, Object>();
+        evaluator.evaluateMap(_exchange, map, null, null);
+        Assert.assertEquals(Collections.<String, Object>singletonMap("foo", "bar"), map);
+    }
+
+    @Test
+    public void testEvaluateMapWithContextOverride() throws Exception {
+        ExpressionMappingEvaluator evaluator = new ExpressionMappingEvaluator(Arrays.asList(
+            mapping("context['foo']", Scope.EXCHANGE, "foo")));
+        Map<String, Object> map = new HashMap<String, Object>();
+        evaluator.evaluateMap(_exchange, map, Collections.<String, Object>singletonMap(CONTEXT,
+            Collections.singletonMap("foo", "overridden")), null);
+        Assert.assertEquals("overridden", map.get("foo"));
+    }
+
+    @Test
+    public void testEvaluateList() throws Exception {
+        ExpressionMappingEvaluator evaluator = new ExpressionMappingEvaluator(Arrays.asList(
+            mapping("message.content", null, "content"),
+            mapping("context['missing']", Scope.EXCHANGE, "missing"),
+            mapping("context['foo']", Scope.EXCHANGE, "foo")));
+        List<Object> list = new ArrayList<Object>();
+        evaluator.evaluateList(_exchange, list);
+        // iterables are expanded and nulls dropped, in mapping order
+        Assert.assertEquals(Arrays.<Object>asList("one", "two", "bar"), list);
+    }
+
+    @Test
+    public void testEvaluateListMap() throws Exception {
+        ExpressionMappingEvaluator evaluator = new ExpressionMappingEvaluator(Arrays.asList(
+            mapping("message.content", null, "content"),
+            mapping("context['foo']", Scope.EXCHANGE, null),
+            mapping("context['missing']", Scope.EXCHANGE, "missing")));
+        Map<String, List<Object>> expanded = evaluator.evaluateListMap(_exchange, true, "undefined");
+        Assert.assertEquals(Arrays.<Object>asList("one", "two"), expanded.get("content"));
+        Assert.assertEquals(Arrays.<Object>asList("bar"), expanded.get("undefined"));
+        Assert.assertTrue(expanded.get("missing").isEmpty());
+        Map<String, List<Object>> unexpanded = evaluator.evaluateListMap(_exchange, false, null);
+        Assert.assertEquals(1, unexpanded.get("content").size());
+        Assert.assertEquals(Arrays.asList("one", null, "two"), unexpanded.get("content").get(0));
+        Assert.assertFalse(unexpanded.containsKey("undefined"));
+        Assert.assertTrue(unexpanded.get("missing").isEmpty());
+    }
+
+    private static ExpressionMapping mapping(String expression, Scope scope, String variable) {
+        return new ExpressionMapping(ExpressionFactory.instance().create(expression, ExpressionType.MVEL), scope, variable);
+    }
+
+}
@@ -40,6 +40,7 @@ public class RsMethod {
     private Boolean _matrixParam;
     private List<MediaType> _consumes;
     private List<MediaType> _produces;
+    private volatile String _pathPrefix;
 
     /**
      * Create a REST Method tuple.
@@ -102,6 +103,7 @@ public class RsMethod {
      */
     public void setPath(String path) {
         _path = path;
+        _pathPrefix = null;
     }
 
     /**
@@ -120,6 +122,7 @@ public class RsMethod {
      */
     public void setParamName(String param) {
         _paramName = param;
+        _pathPrefix = null;
     }
 
     /**
@@ -174,6 +177,7 @@ public class RsMethod {
      */
     public void setPathParam(Boolean pathParam) {
         _pathParam = pathParam;
+        _pathPrefix = null;
     }
 
     /**
@@ -192,6 +196,7 @@ public class RsMethod {
      */
     public void setQueryParam(Boolean queryParam) {
         _queryParam = queryParam;
+        _pathPrefix = null;
     }
 
     /**
@@ -210,6 +215,30 @@ public class RsMethod {
      */
     public void setMatrixParam(Boolean matrixParam) {
         _matrixParam = matrixParam;
+        _pathPrefix = null;
+    }
+
+    /**
+     * Return the part of the request path that does not depend on the message content; the content,
+     * if the method takes a *param, is appended to it. Computed once and reused for every request.
+     *
+     * @return the path prefix
+     */
+    public String getPathPrefix() {
+        String prefix = _pathPrefix;
+        if (prefix == null) {
+            if (Boolean.TRUE.equals(_pathParam)) {
+                prefix = _path.endsWith("/") ? _path : _path + "/";
+            } else if (Boolean.TRUE.equals(_queryParam)) {
+                prefix = _path + "?" + _paramName + "=";
+            } else if (Boolean.TRUE.equals(_matrixParam)) {
+                prefix = _path + ";" + _paramName + "=";
+            } else {
+                prefix = _path;
+            }
+            _pathPrefix = prefix;
+        }
+        return prefix;
     }
 
     /**
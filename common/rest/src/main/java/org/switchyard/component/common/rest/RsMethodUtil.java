@@ -231,18 +231,10 @@ public final class RsMethodUtil {
      * @return the query path for the REST method
      */
     public static String getPath(RsMethod restMethod, Exchange exchange) {
-        String path = restMethod.getPath();
-        if (restMethod.hasPathParam()) {
-            if (path.endsWith("/")) {
-                path = path + exchange.getMessage().getContent();
-            } else {
-                path = path + "/" + exchange.getMessage().getContent();
-            }
-        } else if (restMethod.hasQueryParam()) {
-            path = path + "?" + restMethod.getParamName() + "=" + exchange.getMessage().getContent();
-        } else if (restMethod.hasMatrixParam()) {
-            path = path + ";" + restMethod.getParamName() + "=" + exchange.getMessage().getContent();
+        String prefix = restMethod.getPathPrefix();
+        if (restMethod.hasParam()) {
+            return prefix + exchange.getMessage().getContent();
         }
-        return path;
+        return prefix;
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.jca;
+
+import java.lang.reflect.Method;
+
+import javax.resource.ResourceException;
+import javax.resource.cci.MessageListener;
+import javax.resource.cci.Record;
+import javax.resource.spi.endpoint.MessageEndpointFactory;
+import javax.transaction.xa.XAResource;
+
+import org.switchyard.component.jca.deploy.JCAInflowDeploymentMetaData;
+
+/**
+ * Message endpoint for the JCA CCI {@link MessageListener} interface, which delivers to the concrete
+ * endpoint class with a direct call instead of through a {@link java.lang.reflect.Proxy}.
+ */
+public class CCIEndpointProxy extends EndpointProxy implements MessageListener {
+
+    private static final Method ON_MESSAGE;
+    static {
+        try {
+            ON_MESSAGE = MessageListener.class.getMethod("onMessage", Record.class);
+        } catch (NoSuchMethodException nsme) {
+            throw new ExceptionInInitializerError(nsme);
+        }
+    }
+
+    private final MessageListener _listener;
+
+    /**
+     * Constructor.
+     * 
+     * @param metadata {@link JCAInflowDeploymentMetaData}, whose message endpoint must implement {@link MessageListener}
+     * @param factory {@link MessageEndpointFactory}
+     * @param xaResource {@link XAResource}
+     */
+    public CCIEndpointProxy(JCAInflowDeploymentMetaData metadata, MessageEndpointFactory factory, XAResource xaResource) {
+        super(metadata, factory, xaResource);
+        _listener = (MessageListener)metadata.getMessageEndpoint();
+    }
+
+    @Override
+    public Record onMessage(Record record) throws ResourceException {
+        boolean standalone;
+        try {
+            standalone = enterDelivery(ON_MESSAGE);
+        } catch (ResourceException re) {
+            throw re;
+        } catch (Exception e) {
+            throw undeclared(e);
+        }
+        boolean success = false;
+        try {
+            Record reply = _listener.onMessage(record);
+            success = true;
+            return reply;
+        } finally {
+            try {
+                exitDelivery(standalone, success);
+            } catch (ResourceException re) {
+                throw re;
+            } catch (Exception e) {
+                throw undeclared(e);
+            }
+        }
+    }
+
+}
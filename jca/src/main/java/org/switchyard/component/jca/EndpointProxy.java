@@ -18,8 +18,12 @@
  */
 package org.switchyard.component.jca;
 
-import java.lang.reflect.Method;
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -41,6 +45,11 @@ import org.switchyard.component.jca.endpoint.AbstractInflowEndpoint;
 /**
  * Message endpoint proxy to set up common facilities like transaction, concurrency control,
  * and ClassLoader before/after delegating to the concrete endpoint class.
+ * <p/>
+ * Used as the {@link InvocationHandler} of a {@link java.lang.reflect.Proxy} for arbitrary listener
+ * interfaces, or subclassed by endpoints implementing a known listener interface directly, such as
+ * {@link JMSEndpointProxy} and {@link CCIEndpointProxy}, which bracket each delivery with
+ * {@link #enterDelivery(Method)} and {@link #exitDelivery(boolean, boolean)}.
  * 
  * The idea of this code originally came from org.jboss.soa.esb.listeners.jca.EndpointProxy.
  * 
@@ -71,7 +80,9 @@ public class EndpointProxy implements InvocationHandler, MessageEndpoint {
     private static ThreadLocal<BatchTransactionHelper> _batchHelper = new ThreadLocal<BatchTransactionHelper>();
         
     private ReentrantLock _deliveryThreadLock = new ReentrantLock();
-    private ScheduledExecutorService _scheduler = Executors.newScheduledThreadPool(1);
+    private ScheduledExecutorService _scheduler;
+    // only ever accessed while holding the delivery thread lock
+    private final Map<Method, Boolean> _deliveryTransacted = new HashMap<Method, Boolean>(2);
 
     /**
      * Constructor.
@@ -89,10 +100,23 @@ public class EndpointProxy implements InvocationHandler, MessageEndpoint {
         _useBatchCommit = metadata.useBatchCommit();
         _batchSize = metadata.getBatchSize();
         _batchTimeout = metadata.getBatchTimeout();
+        if (_useBatchCommit) {
+            _scheduler = Executors.newScheduledThreadPool(1);
+        }
+    }
+
+    /**
+     * Get the concrete endpoint deliveries are delegated to.
+     * 
+     * @return {@link AbstractInflowEndpoint}
+     */
+    protected AbstractInflowEndpoint getDelegate() {
+        return _delegate;
     }
     
     @Override
     public void beforeDelivery(Method method) throws NoSuchMethodException, ResourceException {
+        acquireThreadLock();
         if (_beforeDeliveryInvoked) {
            throw new IllegalStateException("Missing afterDelivery from the previous beforeDelivery for message endpoint " + _delegate);
         }
@@ -107,7 +131,9 @@ public class EndpointProxy implements InvocationHandler, MessageEndpoint {
 
     @Override
     public void afterDelivery() throws ResourceException {
+        acquireThreadLock();
         if (!_beforeDeliveryInvoked) {
+           releaseThreadLock();
            throw new IllegalStateException("afterDelivery without a previous beforeDelivery for message endpoint " + _delegate);
         }
 
@@ -126,6 +152,7 @@ public class EndpointProxy implements InvocationHandler, MessageEndpoint {
         // JCA 1.6 spec 13.5 suggests the reuse of released proxy instance,
         // so we won't prohibit to reuse this instance after release() is called.
         
+        acquireThreadLock();
         if (_beforeDeliveryInvoked) {
            try {
               finish(false);
@@ -135,39 +162,96 @@ public class EndpointProxy implements InvocationHandler, MessageEndpoint {
                _beforeDeliveryInvoked = false;
                _waitAfterDeliveryInvoked = false;
            }
+        } else {
+            releaseThreadLock();
         }
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
 
-        acquireThreadLock();
-
         // beforeDelivery, afterDelivery, or release
         if (method.getDeclaringClass().equals(MessageEndpoint.class)) {
-            return method.invoke(this, args);
+            try {
+                return method.invoke(this, args);
+            } catch (InvocationTargetException ite) {
+                throw ite.getCause();
+            }
         }
 
         // actual delivery
-        Object ret = null;
+        boolean standalone = enterDelivery(method);
+        boolean success = false;
+        Object ret;
+        try {
+            ret = method.invoke(_delegate, args);
+            success = true;
+        } catch (InvocationTargetException ite) {
+            throw ite.getCause();
+        } finally {
+            exitDelivery(standalone, success);
+        }
+        return ret;
+    }
+
+    /**
+     * Prepares a message delivery, to be called by subclasses before delegating a listener method.
+     * <p/>
+     * Unless the resource adapter already called {@link #beforeDelivery(Method)}, this switches the
+     * context ClassLoader and starts a transaction as required for this delivery alone.
+     * 
+     * @param method the listener method being delivered to
+     * @return whether this is a standalone delivery, to be passed on to {@link #exitDelivery(boolean, boolean)}
+     * @throws Exception if the delivery could not be prepared
+     */
+    protected final boolean enterDelivery(Method method) throws Exception {
+        acquireThreadLock();
+        boolean standalone = !_beforeDeliveryInvoked;
         try {
-            if (!_beforeDeliveryInvoked) {
+            if (standalone) {
                 before(method);
             }
-
-            ret = delivery(_delegate, method, args);
-        } catch (Throwable t) {
-            if (!_beforeDeliveryInvoked) {
+            if (_waitAfterDeliveryInvoked) {
+                throw new IllegalStateException("Multiple message delivery between before and after delivery is not allowed for message endpoint " + _delegate);
+            }
+            if (!standalone) {
+                _waitAfterDeliveryInvoked = true;
+            }
+        } catch (Exception e) {
+            if (standalone) {
                 finish(false);
             }
-            throw t;
+            throw e;
         }
-        
-        if (!_beforeDeliveryInvoked) {
-            finish(true);
+        return standalone;
+    }
+
+    /**
+     * Completes a message delivery, to be called by subclasses after delegating a listener method,
+     * whether or not it succeeded.
+     * 
+     * @param standalone the value returned by {@link #enterDelivery(Method)}
+     * @param success whether the delivery succeeded, otherwise a transaction started for it is rolled back
+     * @throws Exception if the delivery could not be completed
+     */
+    protected final void exitDelivery(boolean standalone, boolean success) throws Exception {
+        if (standalone) {
+            finish(success);
         }
-        
-        return ret;
+    }
+
+    /**
+     * Converts an exception thrown outside of the listener method into one it may throw, the same
+     * way a {@link java.lang.reflect.Proxy} does.
+     * 
+     * @param e the exception
+     * @return the exception to throw
+     */
+    protected static RuntimeException undeclared(Exception e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException)e;
+        }
+        return new UndeclaredThrowableException(e);
     }
 
     private void before(Method method) throws Exception {
@@ -181,18 +265,6 @@ public class EndpointProxy implements InvocationHandler, MessageEndpoint {
         }
     }
     
-    private Object delivery(Object delegate, Method method, Object[] args) throws Exception {
-        if (_waitAfterDeliveryInvoked) {
-            throw new IllegalStateException("Multiple message delivery between before and after delivery is not allowed for message endpoint " + delegate);
-        }
-
-        if (_beforeDeliveryInvoked) {
-            _waitAfterDeliveryInvoked = true;
-        }
-        
-        return method.invoke(delegate, args);
-    }
-    
     private void finish(boolean commit) throws Exception {
         try {
             endTransaction(commit);
@@ -231,8 +303,17 @@ public class EndpointProxy implements InvocationHandler, MessageEndpoint {
         _deliveryThreadLock.unlock();
     }
     
+    private boolean isDeliveryTransacted(Method method) throws NoSuchMethodException {
+        Boolean transacted = _deliveryTransacted.get(method);
+        if (transacted == null) {
+            transacted = Boolean.valueOf(_messageEndpointFactory.isDeliveryTransacted(method));
+            _deliveryTransacted.put(method, transacted);
+        }
+        return transacted.booleanValue();
+    }
+
     private void startTransaction(Method method) throws Exception {
-        boolean endpointRequiresTx = _messageEndpointFactory.isDeliveryTransacted(method);
+        boolean endpointRequiresTx = isDeliveryTransacted(method);
         boolean hasSourceManagedTx;
         
         if (_logger.isDebugEnabled()) {
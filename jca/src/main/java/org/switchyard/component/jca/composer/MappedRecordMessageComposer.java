@@ -18,7 +18,6 @@
  */
 package org.switchyard.component.jca.composer;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import org.switchyard.Exchange;
@@ -26,12 +25,35 @@ import org.switchyard.component.common.composer.BaseMessageComposer;
 
 /**
  * MessageComposer implementation for CCI MappedRecord that is used by JCA component.
+ * <p/>
+ * By default the message content is a copy of the record; see {@link RecordContent} for exposing
+ * the record itself, or a read-only view of it, instead.
  *
  * @author David Ward &lt;<a href="mailto:dward@jboss.org">dward@jboss.org</a>&gt; (C) 2011 Red Hat Inc.
  * @author <a href="mailto:tm.igarashi@gmail.com">Tomohisa Igarashi</a>
  */
 public class MappedRecordMessageComposer extends BaseMessageComposer<MappedRecordBindingData> {
 
+    private RecordContent _recordContent = RecordContent.COPY;
+
+    /**
+     * Gets how the record is exposed as message content.
+     * @return the record content mode
+     */
+    public RecordContent getRecordContent() {
+        return _recordContent;
+    }
+
+    /**
+     * Sets how the record is exposed as message content.
+     * @param recordContent the record content mode, or null for {@link RecordContent#COPY}
+     * @return this composer (useful for chaining)
+     */
+    public MappedRecordMessageComposer setRecordContent(RecordContent recordContent) {
+        _recordContent = recordContent != null ? recordContent : RecordContent.COPY;
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -40,9 +62,7 @@ public class MappedRecordMessageComposer extends BaseMessageComposer<MappedRecor
         
         final org.switchyard.Message message = create ? exchange.createMessage() : exchange.getMessage();
         getContextMapper().mapFrom(source, exchange.getContext());
-        Map<Object,Object> m = new HashMap<Object,Object>();
-        m.putAll(source.getRecord());
-        message.setContent(m);
+        message.setContent(_recordContent.toContent(source.getRecord()));
         return message;
     }
 
@@ -55,7 +75,10 @@ public class MappedRecordMessageComposer extends BaseMessageComposer<MappedRecor
 
         getContextMapper().mapTo(exchange.getContext(), target);
         final Map<?,?> content = exchange.getMessage().getContent(Map.class);
-        target.getRecord().putAll(content);
+        // content still backed by the target record needs no copying
+        if (content != null && !RecordContent.isBackedBy(content, target.getRecord())) {
+            target.getRecord().putAll(content);
+        }
         return target;
     }
 
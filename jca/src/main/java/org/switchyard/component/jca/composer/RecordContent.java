@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.jca.composer;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import org.switchyard.common.lang.Strings;
+import org.switchyard.exception.SwitchYardException;
+
+/**
+ * How the MappedRecord and IndexedRecord composers expose a CCI record as message content.
+ * <p/>
+ * With {@link #SHARED} and {@link #READ_ONLY} the content is backed by the record itself, so no entries
+ * are copied; when such content is decomposed back into the record it was composed from, nothing is
+ * copied either.
+ */
+public enum RecordContent {
+
+    /** The content is a copy of the record (the default). */
+    COPY,
+    /**
+     * The content is the record itself. Whoever created the record still owns it: a resource adapter
+     * may recycle its inbound record once the delivery returns, so services must not keep the content
+     * beyond the exchange.
+     */
+    SHARED,
+    /** The content is an unmodifiable view of the record. */
+    READ_ONLY;
+
+    /**
+     * Parses a record content mode, ignoring case and accepting "readOnly" as well as "read_only".
+     * @param mode the mode, or null for {@link #COPY}
+     * @return the record content mode
+     */
+    public static RecordContent fromString(String mode) {
+        mode = Strings.trimToNull(mode);
+        if (mode == null) {
+            return COPY;
+        }
+        String name = mode.toUpperCase();
+        if ("READONLY".equals(name)) {
+            return READ_ONLY;
+        }
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException iae) {
+            throw new SwitchYardException("Invalid record content mode '" + mode + "', expected copy, shared or readOnly");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<Object,Object> toContent(Map<?,?> record) {
+        switch (this) {
+        case SHARED:
+            return (Map<Object,Object>)record;
+        case READ_ONLY:
+            return new MapView(record);
+        default:
+            return new HashMap<Object,Object>(record);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Object> toContent(List<?> record) {
+        switch (this) {
+        case SHARED:
+            return (List<Object>)record;
+        case READ_ONLY:
+            return new ListView(record);
+        default:
+            return new ArrayList<Object>(record);
+        }
+    }
+
+    /**
+     * If the content is the record, or a read-only view of it.
+     * @param content the message content
+     * @param record the record
+     * @return if so
+     */
+    public static boolean isBackedBy(Object content, Object record) {
+        if (content == record) {
+            return true;
+        } else if (content instanceof MapView) {
+            return ((MapView)content)._record == record;
+        } else if (content instanceof ListView) {
+            return ((ListView)content)._record == record;
+        }
+        return false;
+    }
+
+    private static final class MapView extends AbstractMap<Object,Object> {
+
+        private final Map<?,?> _record;
+        private final Map<Object,Object> _view;
+
+        @SuppressWarnings("unchecked")
+        private MapView(Map<?,?> record) {
+            _record = record;
+            _view = Collections.unmodifiableMap((Map<Object,Object>)record);
+        }
+
+        @Override
+        public Set<Map.Entry<Object,Object>> entrySet() {
+            return _view.entrySet();
+        }
+
+        @Override
+        public Object get(Object key) {
+            return _record.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return _record.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return _record.size();
+        }
+
+    }
+
+    private static final class ListView extends AbstractList<Object> implements RandomAccess {
+
+        private final List<?> _record;
+
+        private ListView(List<?> record) {
+            _record = record;
+        }
+
+        @Override
+        public Object get(int index) {
+            return _record.get(index);
+        }
+
+        @Override
+        public int size() {
+            return _record.size();
+        }
+
+    }
+
+}
@@ -20,6 +20,9 @@
  */
 package org.switchyard.component.jca.deploy;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 
@@ -29,12 +32,18 @@ import javax.resource.spi.endpoint.MessageEndpoint;
 import javax.resource.spi.endpoint.MessageEndpointFactory;
 import javax.transaction.xa.XAResource;
 
+import org.switchyard.component.jca.CCIEndpointProxy;
 import org.switchyard.component.jca.EndpointProxy;
+import org.switchyard.component.jca.JMSEndpointProxy;
 import org.switchyard.deploy.BaseServiceHandler;
 import org.switchyard.exception.SwitchYardException;
 
 /**
  * An ExchangeHandler for JCA message inflow that create and activate an MessageEndpoint.
+ * <p/>
+ * Endpoints for the JMS and CCI MessageListener interfaces are plain classes calling the concrete
+ * endpoint directly; other listener interfaces get a {@link Proxy}, whose class is only looked up
+ * once per ClassLoader.
  * 
  * @author <a href="mailto:tm.igarashi@gmail.com">Tomohisa Igarashi</a>
  *
@@ -42,6 +51,8 @@ import org.switchyard.exception.SwitchYardException;
 public class InboundHandler extends BaseServiceHandler implements MessageEndpointFactory {
     
     private final JCAInflowDeploymentMetaData _metadata;
+    private EndpointKind _endpointKind;
+    private volatile ProxyClass _proxyClass;
     
     /**
      * Constructor.
@@ -56,6 +67,7 @@ public class InboundHandler extends BaseServiceHandler implements MessageEndpoin
      * Activate JCA message inflow endpoint.
      */
     public void start() {
+        _endpointKind = EndpointKind.of(_metadata);
         _metadata.getMessageEndpoint().initialize();
         try {
             _metadata.getResourceAdapter().endpointActivation(this, _metadata.getActivationSpec());
@@ -73,10 +85,36 @@ public class InboundHandler extends BaseServiceHandler implements MessageEndpoin
     @Override
     public MessageEndpoint createEndpoint(XAResource xaResource, long timeout)
             throws UnavailableException {
-        EndpointProxy handler = new EndpointProxy(_metadata, this, xaResource);
-        return (MessageEndpoint) Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(),
-                                                        new Class<?>[] {_metadata.getListenerInterface(),MessageEndpoint.class},
-                                                        handler);
+        EndpointKind kind = _endpointKind != null ? _endpointKind : EndpointKind.of(_metadata);
+        switch (kind) {
+        case JMS:
+            return new JMSEndpointProxy(_metadata, this, xaResource);
+        case CCI:
+            return new CCIEndpointProxy(_metadata, this, xaResource);
+        default:
+            return newProxyEndpoint(new EndpointProxy(_metadata, this, xaResource));
+        }
+    }
+
+    private MessageEndpoint newProxyEndpoint(EndpointProxy handler) throws UnavailableException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        ProxyClass proxyClass = _proxyClass;
+        if (proxyClass == null || proxyClass._loader != loader) {
+            Class<?> type = Proxy.getProxyClass(loader, _metadata.getListenerInterface(), MessageEndpoint.class);
+            try {
+                proxyClass = new ProxyClass(loader, type.getConstructor(InvocationHandler.class));
+            } catch (NoSuchMethodException nsme) {
+                throw new UnavailableException(nsme);
+            }
+            _proxyClass = proxyClass;
+        }
+        try {
+            return (MessageEndpoint) proxyClass._constructor.newInstance(handler);
+        } catch (InvocationTargetException ite) {
+            throw new UnavailableException(ite.getCause());
+        } catch (Exception e) {
+            throw new UnavailableException(e);
+        }
     }
 
     @Override
@@ -91,4 +129,35 @@ public class InboundHandler extends BaseServiceHandler implements MessageEndpoin
         return _metadata.isDeliveryTransacted();
     }
 
+    /**
+     * How endpoints are implemented for the listener interface.
+     */
+    private enum EndpointKind {
+        JMS, CCI, PROXY;
+
+        private static EndpointKind of(JCAInflowDeploymentMetaData metadata) {
+            Class<?> listener = metadata.getListenerInterface();
+            Object delegate = metadata.getMessageEndpoint();
+            if (javax.jms.MessageListener.class.equals(listener) && delegate instanceof javax.jms.MessageListener) {
+                return JMS;
+            } else if (javax.resource.cci.MessageListener.class.equals(listener) && delegate instanceof javax.resource.cci.MessageListener) {
+                return CCI;
+            }
+            return PROXY;
+        }
+    }
+
+    /**
+     * A proxy class constructor, with the ClassLoader it was defined for.
+     */
+    private static final class ProxyClass {
+        private final ClassLoader _loader;
+        private final Constructor<?> _constructor;
+
+        private ProxyClass(ClassLoader loader, Constructor<?> constructor) {
+            _loader = loader;
+            _constructor = constructor;
+        }
+    }
+
 }
@@ -29,10 +29,19 @@ import org.switchyard.Exchange;
 import org.switchyard.SynchronousInOutHandler;
 import org.switchyard.component.common.composer.MessageComposer;
 import org.switchyard.component.jca.composer.MappedRecordBindingData;
+import org.switchyard.component.jca.composer.MappedRecordMessageComposer;
+import org.switchyard.component.jca.composer.RecordContent;
 import org.switchyard.exception.SwitchYardException;
 import org.switchyard.selector.OperationSelector;
 /**
  * Concrete message endpoint class for JCA message inflow using JCA CCI MessageListener interface.
+ * <p/>
+ * The "recordContent" property sets how the inbound record is exposed as message content (see
+ * {@link RecordContent}). With "shared" the service is handed the resource adapter's own inbound record,
+ * which the adapter may recycle once {@link #onMessage(Record)} returns, so the service must not keep it.
+ * With "reuseRecord" the inbound record is refilled and returned as the reply
+ * instead of creating a new record through the RecordFactory; only enable it if the resource adapter
+ * accepts its own inbound record back as the reply.
  * 
  * @author <a href="mailto:tm.igarashi@gmail.com">Tomohisa Igarashi</a>
  *
@@ -50,6 +59,8 @@ public class CCIEndpoint extends AbstractInflowEndpoint implements MessageListen
     private MessageComposer<MappedRecordBindingData> _composer;
     private OperationSelector<MappedRecordBindingData> _selector;
     private RecordFactory _recordFactory;
+    private RecordContent _recordContent = RecordContent.COPY;
+    private boolean _reuseRecord;
     
     @Override
     public void initialize() {
@@ -57,7 +68,13 @@ public class CCIEndpoint extends AbstractInflowEndpoint implements MessageListen
         
         _composer = getMessageComposer(MappedRecordBindingData.class);
         _selector = getOperationSelector(MappedRecordBindingData.class);
+        if (_composer instanceof MappedRecordMessageComposer) {
+            ((MappedRecordMessageComposer)_composer).setRecordContent(_recordContent);
+        }
 
+        if (_reuseRecord) {
+            return;
+        }
         try {
             ConnectionFactory factory = (ConnectionFactory) new InitialContext().lookup(_connectionFactoryJNDIName);
             _recordFactory = factory.getRecordFactory();
@@ -77,7 +94,17 @@ public class CCIEndpoint extends AbstractInflowEndpoint implements MessageListen
             exchange.send(_composer.compose(bindingData, exchange, true));
 
             exchange = inOutHandler.waitForOut(_waitTimeout);
-            MappedRecord returnRecord = _recordFactory.createMappedRecord(_recordName);
+            MappedRecord returnRecord;
+            if (_reuseRecord) {
+                returnRecord = sourceRecord;
+                // content backed by the inbound record is already in place; anything else replaces it
+                if (!RecordContent.isBackedBy(exchange.getMessage().getContent(), returnRecord)) {
+                    returnRecord.clear();
+                }
+                returnRecord.setRecordName(_recordName);
+            } else {
+                returnRecord = _recordFactory.createMappedRecord(_recordName);
+            }
             returnRecord.setRecordShortDescription(_description);
             return _composer.decompose(exchange, new MappedRecordBindingData(returnRecord)).getRecord();
         } catch (Exception e) {
@@ -102,4 +129,41 @@ public class CCIEndpoint extends AbstractInflowEndpoint implements MessageListen
     public String getConnectionFactoryJNDIName() {
         return _connectionFactoryJNDIName;
     }
+
+    /**
+     * set how the inbound record is exposed as message content.
+     * 
+     * @param recordContent "copy" (default), "shared" (the inbound record itself, valid only until
+     * {@link #onMessage(Record)} returns) or "readOnly"
+     */
+    public void setRecordContent(String recordContent) {
+        _recordContent = RecordContent.fromString(recordContent);
+    }
+    
+    /**
+     * get how the inbound record is exposed as message content.
+     * 
+     * @return record content mode
+     */
+    public String getRecordContent() {
+        return _recordContent.name();
+    }
+    
+    /**
+     * set whether the inbound record is reused as the reply record.
+     * 
+     * @param reuseRecord true to reuse the inbound record
+     */
+    public void setReuseRecord(boolean reuseRecord) {
+        _reuseRecord = reuseRecord;
+    }
+    
+    /**
+     * get whether the inbound record is reused as the reply record.
+     * 
+     * @return true if the inbound record is reused
+     */
+    public boolean isReuseRecord() {
+        return _reuseRecord;
+    }
 }
@@ -34,6 +34,10 @@ import org.jboss.util.propertyeditor.PropertyEditors;
 import org.switchyard.Exchange;
 import org.switchyard.HandlerException;
 import org.switchyard.Message;
+import org.switchyard.component.common.composer.MessageComposer;
+import org.switchyard.component.jca.composer.IndexedRecordMessageComposer;
+import org.switchyard.component.jca.composer.MappedRecordMessageComposer;
+import org.switchyard.component.jca.composer.RecordContent;
 import org.switchyard.component.jca.processor.cci.RecordHandler;
 import org.switchyard.component.jca.processor.cci.RecordHandlerFactory;
 import org.switchyard.exception.SwitchYardException;
@@ -55,6 +59,7 @@ public class CCIProcessor extends AbstractOutboundProcessor {
     private RecordFactory _recordFactory;
     private ConnectionFactory _connectionFactory;
     private RecordHandler<?> _recordHandler;
+    private RecordContent _recordContent = RecordContent.COPY;
     
     @Override
     public AbstractOutboundProcessor setConnectionSpec(String name, Properties props) {
@@ -92,6 +97,12 @@ public class CCIProcessor extends AbstractOutboundProcessor {
         try {
             Class<?> clazz = getApplicationClassLoader().loadClass(_recordClassName);
             _recordHandler = RecordHandlerFactory.createRecordHandler(clazz, getApplicationClassLoader());
+            MessageComposer<?> composer = _recordHandler.getMessageComposer();
+            if (composer instanceof MappedRecordMessageComposer) {
+                ((MappedRecordMessageComposer)composer).setRecordContent(_recordContent);
+            } else if (composer instanceof IndexedRecordMessageComposer) {
+                ((IndexedRecordMessageComposer)composer).setRecordContent(_recordContent);
+            }
 
             InitialContext ic = new InitialContext();
             _connectionFactory = (ConnectionFactory) ic.lookup(getConnectionFactoryJNDIName());
@@ -145,4 +156,22 @@ public class CCIProcessor extends AbstractOutboundProcessor {
     public void setRecordClassName(String name) {
         _recordClassName = name;
     }
+
+    /**
+     * set how reply records are exposed as message content.
+     * 
+     * @param recordContent "copy" (default), "shared" or "readOnly"
+     */
+    public void setRecordContent(String recordContent) {
+        _recordContent = RecordContent.fromString(recordContent);
+    }
+
+    /**
+     * get how reply records are exposed as message content.
+     * 
+     * @return record content mode
+     */
+    public String getRecordContent() {
+        return _recordContent.name();
+    }
 }
@@ -0,0 +1,338 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.jca;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jms.Message;
+import javax.resource.ResourceException;
+import javax.resource.cci.MappedRecord;
+import javax.resource.cci.Record;
+import javax.transaction.Status;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.switchyard.ServiceDomain;
+import org.switchyard.component.jca.deploy.InboundHandler;
+import org.switchyard.component.jca.deploy.JCAInflowDeploymentMetaData;
+import org.switchyard.component.jca.endpoint.AbstractInflowEndpoint;
+import org.switchyard.component.test.mixins.jca.MockRecordFactory;
+import org.switchyard.component.test.mixins.jca.MockResourceAdapter;
+
+/**
+ * Test for the message endpoints created by {@link InboundHandler}, driven by the {@link MockResourceAdapter}.
+ */
+public class EndpointProxyTest {
+
+    private final ClassLoader _appClassLoader = new URLClassLoader(new URL[0]);
+    private RecordingTransactionManager _transactionManager;
+    private MockResourceAdapter _adapter;
+    private InboundHandler _handler;
+
+    @Before
+    public void setUp() {
+        _transactionManager = new RecordingTransactionManager();
+        _adapter = new MockResourceAdapter();
+    }
+
+    @After
+    public void tearDown() {
+        if (_handler != null) {
+            _handler.stop();
+        }
+    }
+
+    @Test
+    public void standaloneDeliveryRunsInItsOwnTransaction() throws Exception {
+        CCIListener listener = activate(new CCIListener(), javax.resource.cci.MessageListener.class);
+        _adapter.fireCreateEndpoint();
+        ClassLoader callerClassLoader = Thread.currentThread().getContextClassLoader();
+
+        MappedRecord reply = (MappedRecord)_adapter.fireDelivery(record("first"));
+        _adapter.fireDelivery(record("second"));
+
+        Assert.assertEquals("first", reply.get("input"));
+        Assert.assertEquals(2, listener._delivered.size());
+        Assert.assertSame(_appClassLoader, listener._classLoaders.get(0));
+        Assert.assertTrue(listener._transacted.get(0));
+        Assert.assertSame(callerClassLoader, Thread.currentThread().getContextClassLoader());
+        Assert.assertEquals(2, _transactionManager._begun);
+        Assert.assertEquals(2, _transactionManager._committed);
+        Assert.assertNull(_transactionManager._current);
+    }
+
+    @Test
+    public void beforeAndAfterDeliveryShareOneTransaction() throws Exception {
+        CCIListener listener = activate(new CCIListener(), javax.resource.cci.MessageListener.class);
+        _adapter.fireCreateEndpoint();
+        ClassLoader callerClassLoader = Thread.currentThread().getContextClassLoader();
+
+        _adapter.fireBeforeDelivery();
+        Assert.assertEquals(1, _transactionManager._begun);
+        _adapter.fireDelivery(record("paired"));
+        Assert.assertEquals(0, _transactionManager._committed);
+        _adapter.fireAfterDelivery();
+
+        Assert.assertEquals(1, listener._delivered.size());
+        Assert.assertSame(_appClassLoader, listener._classLoaders.get(0));
+        Assert.assertSame(callerClassLoader, Thread.currentThread().getContextClassLoader());
+        Assert.assertEquals(1, _transactionManager._begun);
+        Assert.assertEquals(1, _transactionManager._committed);
+
+        // the next pair starts over
+        _adapter.fireBeforeDelivery();
+        _adapter.fireDelivery(record("next"));
+        _adapter.fireAfterDelivery();
+        Assert.assertEquals(2, _transactionManager._committed);
+    }
+
+    @Test
+    public void secondDeliveryWithinOnePairIsRejected() throws Exception {
+        CCIListener listener = activate(new CCIListener(), javax.resource.cci.MessageListener.class);
+        _adapter.fireCreateEndpoint();
+        _adapter.fireBeforeDelivery();
+        _adapter.fireDelivery(record("first"));
+        try {
+            _adapter.fireDelivery(record("second"));
+            Assert.fail("A second delivery between beforeDelivery and afterDelivery must fail");
+        } catch (RuntimeException re) {
+            // expected
+        }
+        _adapter.fireAfterDelivery();
+
+        Assert.assertEquals(1, listener._delivered.size());
+        Assert.assertEquals(1, _transactionManager._committed);
+        // the endpoint is left usable
+        _adapter.fireDelivery(record("third"));
+        Assert.assertEquals(2, listener._delivered.size());
+        Assert.assertEquals(2, _transactionManager._committed);
+    }
+
+    @Test
+    public void listenerFailureRollsBackStandaloneDelivery() throws Exception {
+        CCIListener listener = activate(new CCIListener(), javax.resource.cci.MessageListener.class);
+        _adapter.fireCreateEndpoint();
+        ClassLoader callerClassLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            _adapter.fireDelivery(record(CCIListener.FAIL));
+            Assert.fail("The listener failure must reach the resource adapter");
+        } catch (RuntimeException re) {
+            // expected
+        }
+
+        Assert.assertEquals(1, _transactionManager._rolledBack);
+        Assert.assertEquals(0, _transactionManager._committed);
+        Assert.assertNull(_transactionManager._current);
+        Assert.assertSame(callerClassLoader, Thread.currentThread().getContextClassLoader());
+        // neither the lock nor the transaction is left behind
+        _adapter.fireDelivery(record("next"));
+        Assert.assertEquals(2, listener._delivered.size());
+        Assert.assertEquals(1, _transactionManager._committed);
+    }
+
+    @Test
+    public void releaseRollsBackUnfinishedPair() throws Exception {
+        activate(new CCIListener(), javax.resource.cci.MessageListener.class);
+        _adapter.fireCreateEndpoint();
+        _adapter.fireBeforeDelivery();
+        _adapter.fireDelivery(record("unfinished"));
+        _adapter.fireRelease();
+
+        Assert.assertEquals(1, _transactionManager._rolledBack);
+        Assert.assertEquals(0, _transactionManager._committed);
+        // a released endpoint may be reused
+        _adapter.fireDelivery(record("reused"));
+        Assert.assertEquals(1, _transactionManager._committed);
+    }
+
+    @Test
+    public void jmsDeliveryRollsBackOnFailure() throws Exception {
+        JMSListener listener = activate(new JMSListener(), javax.jms.MessageListener.class);
+        javax.jms.MessageListener endpoint = (javax.jms.MessageListener)_adapter.createEndpoint();
+        Assert.assertTrue(endpoint instanceof JMSEndpointProxy);
+
+        Message message = mock(Message.class);
+        endpoint.onMessage(message);
+        try {
+            endpoint.onMessage(listener._poison);
+            Assert.fail("The listener failure must reach the resource adapter");
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+
+        Assert.assertEquals(1, listener._delivered.size());
+        Assert.assertSame(message, listener._delivered.get(0));
+        Assert.assertEquals(1, _transactionManager._committed);
+        Assert.assertEquals(1, _transactionManager._rolledBack);
+    }
+
+    @Test
+    public void untransactedDeliveryStartsNoTransaction() throws Exception {
+        CCIListener listener = new CCIListener();
+        _handler = new InboundHandler(metadata(listener, javax.resource.cci.MessageListener.class).setDeliveryTransacted(false));
+        _handler.start();
+        _adapter.fireCreateEndpoint();
+
+        _adapter.fireDelivery(record("plain"));
+
+        Assert.assertFalse(listener._transacted.get(0));
+        Assert.assertEquals(0, _transactionManager._begun);
+    }
+
+    private <T extends AbstractInflowEndpoint> T activate(T listener, Class<?> listenerInterface) {
+        _handler = new InboundHandler(metadata(listener, listenerInterface).setDeliveryTransacted(true));
+        _handler.start();
+        return listener;
+    }
+
+    private JCAInflowDeploymentMetaData metadata(AbstractInflowEndpoint listener, Class<?> listenerInterface) {
+        listener.setServiceDomain(mock(ServiceDomain.class));
+        return new JCAInflowDeploymentMetaData()
+            .setListenerInterface(listenerInterface)
+            .setMessageEndpoint(listener)
+            .setResourceAdapter(_adapter)
+            .setApplicationClassLoader(_appClassLoader)
+            .setTransactionManager(_transactionManager);
+    }
+
+    private static MappedRecord record(String input) throws ResourceException {
+        MappedRecord record = new MockRecordFactory().createMappedRecord(input);
+        record.put("input", input);
+        return record;
+    }
+
+    /**
+     * Records what the CCI endpoint delivered, and in which context.
+     */
+    public class CCIListener extends AbstractInflowEndpoint implements javax.resource.cci.MessageListener {
+
+        static final String FAIL = "fail";
+
+        private final List<Record> _delivered = new ArrayList<Record>();
+        private final List<ClassLoader> _classLoaders = new ArrayList<ClassLoader>();
+        private final List<Boolean> _transacted = new ArrayList<Boolean>();
+
+        @Override
+        public Record onMessage(Record record) throws ResourceException {
+            _classLoaders.add(Thread.currentThread().getContextClassLoader());
+            _transacted.add(_transactionManager._current != null);
+            if (FAIL.equals(((MappedRecord)record).get("input"))) {
+                throw new ResourceException("failed on purpose");
+            }
+            _delivered.add(record);
+            return record;
+        }
+
+    }
+
+    /**
+     * Records what the JMS endpoint delivered.
+     */
+    public static class JMSListener extends AbstractInflowEndpoint implements javax.jms.MessageListener {
+
+        private final Message _poison = mock(Message.class);
+        private final List<Message> _delivered = new ArrayList<Message>();
+
+        @Override
+        public void onMessage(Message message) {
+            if (message == _poison) {
+                throw new IllegalStateException("failed on purpose");
+            }
+            _delivered.add(message);
+        }
+
+    }
+
+    /**
+     * A transaction manager which counts the transactions begun and ended.
+     */
+    private static final class RecordingTransactionManager implements TransactionManager {
+
+        private Transaction _current;
+        private int _begun;
+        private int _committed;
+        private int _rolledBack;
+
+        @Override
+        public void begin() {
+            Transaction transaction = mock(Transaction.class);
+            try {
+                when(transaction.getStatus()).thenReturn(Status.STATUS_ACTIVE);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            _current = transaction;
+            _begun++;
+        }
+
+        @Override
+        public void commit() {
+            _current = null;
+            _committed++;
+        }
+
+        @Override
+        public void rollback() {
+            _current = null;
+            _rolledBack++;
+        }
+
+        @Override
+        public int getStatus() {
+            return _current != null ? Status.STATUS_ACTIVE : Status.STATUS_NO_TRANSACTION;
+        }
+
+        @Override
+        public Transaction getTransaction() {
+            return _current;
+        }
+
+        @Override
+        public void resume(Transaction transaction) {
+            _current = transaction;
+        }
+
+        @Override
+        public Transaction suspend() {
+            Transaction suspended = _current;
+            _current = null;
+            return suspended;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+        }
+
+        @Override
+        public void setTransactionTimeout(int seconds) {
+        }
+
+    }
+
+}
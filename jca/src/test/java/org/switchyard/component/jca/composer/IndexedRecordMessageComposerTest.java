@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.jca.composer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.resource.cci.IndexedRecord;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.switchyard.Context;
+import org.switchyard.Exchange;
+import org.switchyard.Message;
+import org.switchyard.Property;
+import org.switchyard.Scope;
+import org.switchyard.component.test.mixins.jca.MockRecordFactory;
+
+/**
+ * Tests for IndexedRecordMessageComposer with each {@link RecordContent} mode.
+ */
+public class IndexedRecordMessageComposerTest {
+
+    private IndexedRecordMessageComposer _composer;
+    private Exchange _exchange;
+    private Message _message;
+    private IndexedRecord _record;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() throws Exception {
+        _composer = (IndexedRecordMessageComposer)JCAComposition.getMessageComposer(IndexedRecordBindingData.class);
+        Context context = mock(Context.class);
+        when(context.setProperty(anyString(), any(), any(Scope.class))).thenReturn(mock(Property.class));
+        when(context.getProperties(Scope.EXCHANGE)).thenReturn(Collections.<Property>emptySet());
+        _message = mock(Message.class);
+        _exchange = mock(Exchange.class);
+        when(_exchange.getContext()).thenReturn(context);
+        when(_exchange.createMessage()).thenReturn(_message);
+        when(_exchange.getMessage()).thenReturn(_message);
+        _record = spy(new MockRecordFactory().createIndexedRecord("in"));
+        _record.add("Hello");
+    }
+
+    @Test
+    public void copy() throws Exception {
+        List<Object> content = compose(RecordContent.COPY);
+        Assert.assertNotSame(_record, content);
+        Assert.assertEquals(_record, content);
+        content.add("World");
+        Assert.assertEquals(1, _record.size());
+
+        IndexedRecord reply = decompose(content, new MockRecordFactory().createIndexedRecord("out"));
+        Assert.assertEquals(content, reply);
+    }
+
+    @Test
+    public void shared() throws Exception {
+        List<Object> content = compose(RecordContent.SHARED);
+        Assert.assertSame(_record, content);
+        content.add("World");
+
+        // decomposing into the record it was composed from must not append it to itself
+        decompose(content, _record);
+        Assert.assertEquals(2, _record.size());
+        verify(_record, never()).addAll(anyCollection());
+
+        IndexedRecord reply = decompose(content, new MockRecordFactory().createIndexedRecord("out"));
+        Assert.assertEquals(_record, reply);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void readOnly() throws Exception {
+        List<Object> content = compose(RecordContent.READ_ONLY);
+        Assert.assertNotSame(_record, content);
+        try {
+            content.add("World");
+            Assert.fail("read-only content was modified");
+        } catch (UnsupportedOperationException uoe) {
+            Assert.assertEquals(1, _record.size());
+        }
+        _record.add("World");
+        Assert.assertEquals("World", content.get(1));
+
+        decompose(content, _record);
+        Assert.assertEquals(2, _record.size());
+        verify(_record, never()).addAll(anyCollection());
+
+        IndexedRecord reply = decompose(content, new MockRecordFactory().createIndexedRecord("out"));
+        Assert.assertEquals(_record, reply);
+    }
+
+    @Test
+    public void replacedContent() throws Exception {
+        compose(RecordContent.SHARED);
+        List<Object> content = new ArrayList<Object>();
+        content.add("World");
+
+        decompose(content, _record);
+        verify(_record).addAll(content);
+        Assert.assertEquals("World", _record.get(1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> compose(RecordContent recordContent) throws Exception {
+        _composer.setRecordContent(recordContent).compose(new IndexedRecordBindingData(_record), _exchange, true);
+        ArgumentCaptor<Object> content = ArgumentCaptor.forClass(Object.class);
+        verify(_message).setContent(content.capture());
+        return (List<Object>)content.getValue();
+    }
+
+    private IndexedRecord decompose(List<Object> content, IndexedRecord target) throws Exception {
+        when(_message.getContent(List.class)).thenReturn(content);
+        return _composer.decompose(_exchange, new IndexedRecordBindingData(target)).getRecord();
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.jca.composer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.resource.cci.MappedRecord;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.switchyard.Context;
+import org.switchyard.Exchange;
+import org.switchyard.Message;
+import org.switchyard.Property;
+import org.switchyard.Scope;
+import org.switchyard.component.test.mixins.jca.MockRecordFactory;
+
+/**
+ * Tests for MappedRecordMessageComposer with each {@link RecordContent} mode.
+ */
+public class MappedRecordMessageComposerTest {
+
+    private MappedRecordMessageComposer _composer;
+    private Exchange _exchange;
+    private Message _message;
+    private MappedRecord _record;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() throws Exception {
+        _composer = (MappedRecordMessageComposer)JCAComposition.getMessageComposer(MappedRecordBindingData.class);
+        Context context = mock(Context.class);
+        when(context.setProperty(anyString(), any(), any(Scope.class))).thenReturn(mock(Property.class));
+        when(context.getProperties(Scope.EXCHANGE)).thenReturn(Collections.<Property>emptySet());
+        _message = mock(Message.class);
+        _exchange = mock(Exchange.class);
+        when(_exchange.getContext()).thenReturn(context);
+        when(_exchange.createMessage()).thenReturn(_message);
+        when(_exchange.getMessage()).thenReturn(_message);
+        _record = spy(new MockRecordFactory().createMappedRecord("in"));
+        _record.put("input", "Hello");
+    }
+
+    @Test
+    public void copy() throws Exception {
+        Map<Object,Object> content = compose(RecordContent.COPY);
+        Assert.assertNotSame(_record, content);
+        Assert.assertEquals(_record, content);
+        content.put("output", "World");
+        Assert.assertFalse(_record.containsKey("output"));
+
+        // a copy is always copied back, even into the record it was composed from
+        decompose(content, _record);
+        Assert.assertEquals("World", _record.get("output"));
+        verify(_record).putAll(content);
+    }
+
+    @Test
+    public void shared() throws Exception {
+        Map<Object,Object> content = compose(RecordContent.SHARED);
+        Assert.assertSame(_record, content);
+        content.put("output", "World");
+
+        decompose(content, _record);
+        Assert.assertEquals("World", _record.get("output"));
+        verify(_record, never()).putAll(anyMap());
+
+        MappedRecord reply = decompose(content, new MockRecordFactory().createMappedRecord("out"));
+        Assert.assertEquals(_record, reply);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void readOnly() throws Exception {
+        Map<Object,Object> content = compose(RecordContent.READ_ONLY);
+        Assert.assertNotSame(_record, content);
+        try {
+            content.put("output", "World");
+            Assert.fail("read-only content was modified");
+        } catch (UnsupportedOperationException uoe) {
+            Assert.assertFalse(_record.containsKey("output"));
+        }
+        _record.put("output", "World");
+        Assert.assertEquals("World", content.get("output"));
+
+        decompose(content, _record);
+        verify(_record, never()).putAll(anyMap());
+
+        MappedRecord reply = decompose(content, new MockRecordFactory().createMappedRecord("out"));
+        Assert.assertEquals(_record, reply);
+    }
+
+    @Test
+    public void replacedContent() throws Exception {
+        compose(RecordContent.SHARED);
+        Map<Object,Object> content = new HashMap<Object,Object>();
+        content.put("output", "World");
+
+        decompose(content, _record);
+        verify(_record).putAll(content);
+        Assert.assertEquals("World", _record.get("output"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Object,Object> compose(RecordContent recordContent) throws Exception {
+        _composer.setRecordContent(recordContent).compose(new MappedRecordBindingData(_record), _exchange, true);
+        ArgumentCaptor<Object> content = ArgumentCaptor.forClass(Object.class);
+        verify(_message).setContent(content.capture());
+        return (Map<Object,Object>)content.getValue();
+    }
+
+    private MappedRecord decompose(Map<Object,Object> content, MappedRecord target) throws Exception {
+        when(_message.getContent(Map.class)).thenReturn(content);
+        return _composer.decompose(_exchange, new MappedRecordBindingData(target)).getRecord();
+    }
+
+}
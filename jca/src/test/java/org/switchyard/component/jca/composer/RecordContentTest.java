@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.jca.composer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.switchyard.exception.SwitchYardException;
+
+/**
+ * Tests for RecordContent.
+ */
+public class RecordContentTest {
+
+    @Test
+    public void testFromString() {
+        Assert.assertEquals(RecordContent.COPY, RecordContent.fromString(null));
+        Assert.assertEquals(RecordContent.COPY, RecordContent.fromString(" copy "));
+        Assert.assertEquals(RecordContent.SHARED, RecordContent.fromString("shared"));
+        Assert.assertEquals(RecordContent.READ_ONLY, RecordContent.fromString("readOnly"));
+        Assert.assertEquals(RecordContent.READ_ONLY, RecordContent.fromString("READ_ONLY"));
+    }
+
+    @Test(expected = SwitchYardException.class)
+    public void testFromStringInvalid() {
+        RecordContent.fromString("clone");
+    }
+
+    @Test
+    public void testMapContent() {
+        Map<Object,Object> record = new HashMap<Object,Object>();
+        record.put("input", "Hello");
+
+        Map<Object,Object> copy = RecordContent.COPY.toContent(record);
+        Assert.assertNotSame(record, copy);
+        Assert.assertEquals(record, copy);
+        Assert.assertFalse(RecordContent.isBackedBy(copy, record));
+
+        Assert.assertSame(record, RecordContent.SHARED.toContent(record));
+        Assert.assertTrue(RecordContent.isBackedBy(record, record));
+
+        Map<Object,Object> view = RecordContent.READ_ONLY.toContent(record);
+        Assert.assertTrue(RecordContent.isBackedBy(view, record));
+        record.put("output", "World");
+        Assert.assertEquals("World", view.get("output"));
+        Assert.assertEquals(record, view);
+        try {
+            view.put("output", "Nobody");
+            Assert.fail("read-only view was modified");
+        } catch (UnsupportedOperationException uoe) {
+            Assert.assertEquals("World", record.get("output"));
+        }
+    }
+
+    @Test
+    public void testListContent() {
+        List<Object> record = new ArrayList<Object>();
+        record.add("Hello");
+
+        List<Object> copy = RecordContent.COPY.toContent(record);
+        Assert.assertNotSame(record, copy);
+        Assert.assertEquals(record, copy);
+
+        Assert.assertSame(record, RecordContent.SHARED.toContent(record));
+
+        List<Object> view = RecordContent.READ_ONLY.toContent(record);
+        Assert.assertTrue(RecordContent.isBackedBy(view, record));
+        Assert.assertFalse(RecordContent.isBackedBy(view, copy));
+        record.add("World");
+        Assert.assertEquals(record, view);
+        try {
+            view.add("Nobody");
+            Assert.fail("read-only view was modified");
+        } catch (UnsupportedOperationException uoe) {
+            Assert.assertEquals(2, record.size());
+        }
+    }
+
+}
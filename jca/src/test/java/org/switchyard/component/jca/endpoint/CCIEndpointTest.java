@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.jca.endpoint;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.resource.cci.MappedRecord;
+import javax.xml.namespace.QName;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.switchyard.BaseHandler;
+import org.switchyard.Exchange;
+import org.switchyard.HandlerException;
+import org.switchyard.ServiceDomain;
+import org.switchyard.component.jca.config.model.JCABindingModel;
+import org.switchyard.component.test.mixins.jca.MockRecordFactory;
+import org.switchyard.deploy.ServiceDomainManager;
+import org.switchyard.metadata.InOutService;
+
+/**
+ * Test for {@link CCIEndpoint} reusing the inbound record as the reply with each record content mode.
+ */
+public class CCIEndpointTest {
+
+    private static final QName SERVICE_NAME = new QName("urn:switchyard-component-jca:test:1.0", "RecordService");
+
+    private final RecordService _service = new RecordService();
+    private ServiceDomain _domain;
+    private MappedRecord _record;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() throws Exception {
+        _domain = new ServiceDomainManager().createDomain();
+        _domain.registerService(SERVICE_NAME, new InOutService(), _service);
+        _domain.registerServiceReference(SERVICE_NAME, new InOutService());
+        _record = spy(new MockRecordFactory().createMappedRecord("in"));
+        _record.put("input", "Hello");
+    }
+
+    @Test
+    public void sharedContentUpdatedInPlace() throws Exception {
+        _service._update = true;
+        MappedRecord reply = deliver("shared");
+
+        Assert.assertSame(_record, _service._received);
+        Assert.assertSame(_record, reply);
+        Assert.assertEquals("World", reply.get("output"));
+        Assert.assertFalse(reply.containsKey("input"));
+        verify(_record, never()).clear();
+    }
+
+    @Test
+    public void readOnlyContentForwarded() throws Exception {
+        MappedRecord reply = deliver("readOnly");
+
+        Assert.assertNotSame(_record, _service._received);
+        Assert.assertSame(_record, reply);
+        Assert.assertEquals("Hello", reply.get("input"));
+        Assert.assertEquals(1, reply.size());
+        verify(_record, never()).clear();
+    }
+
+    @Test
+    public void readOnlyContentReplaced() throws Exception {
+        _service._replace = true;
+        MappedRecord reply = deliver("readOnly");
+
+        Assert.assertSame(_record, reply);
+        Assert.assertEquals("World", reply.get("output"));
+        Assert.assertFalse(reply.containsKey("input"));
+        verify(_record).clear();
+    }
+
+    @Test
+    public void copiedContentCopiedBack() throws Exception {
+        _service._update = true;
+        MappedRecord reply = deliver("copy");
+
+        Assert.assertNotSame(_record, _service._received);
+        Assert.assertSame(_record, reply);
+        Assert.assertEquals("World", reply.get("output"));
+        Assert.assertFalse(reply.containsKey("input"));
+        verify(_record).clear();
+    }
+
+    private MappedRecord deliver(String recordContent) {
+        CCIEndpoint endpoint = new CCIEndpoint();
+        endpoint.setRecordContent(recordContent);
+        endpoint.setReuseRecord(true);
+        endpoint.setJCABindingModel(mock(JCABindingModel.class))
+                .setServiceDomain(_domain)
+                .setServiceQName(SERVICE_NAME);
+        endpoint.initialize();
+
+        MappedRecord reply = (MappedRecord)endpoint.onMessage(_record);
+        Assert.assertEquals("DefaultMappedRecord", reply.getRecordName());
+        return reply;
+    }
+
+    /**
+     * Replies with the received content, updated in place, or with new content.
+     */
+    private static class RecordService extends BaseHandler {
+        private boolean _update;
+        private boolean _replace;
+        private Map<Object,Object> _received;
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void handleMessage(Exchange exchange) throws HandlerException {
+            _received = exchange.getMessage().getContent(Map.class);
+            if (_replace) {
+                Map<Object,Object> content = new HashMap<Object,Object>();
+                content.put("output", "World");
+                exchange.send(exchange.createMessage().setContent(content));
+            } else {
+                if (_update) {
+                    _received.remove("input");
+                    _received.put("output", "World");
+                }
+                exchange.send(exchange.getMessage());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+/* 
+ * JBoss, Home of Professional Open Source 
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved. 
+ * See the copyright.txt in the distribution for a 
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, 
+ * modify, copy, or redistribute it subject to the terms and conditions 
+ * of the GNU Lesser General Public License, v. 2.1. 
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details. 
+ * You should have received a copy of the GNU Lesser General Public License, 
+ * v.2.1 along with this distribution; if not, write to the Free Software 
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.remote;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.switchyard.Exchange;
+import org.switchyard.HandlerException;
+import org.switchyard.Message;
+import org.switchyard.common.lang.Strings;
+import org.switchyard.remote.RemoteMessage;
+import org.switchyard.remote.http.HttpInvoker;
+import org.switchyard.serial.CompressionType;
+import org.switchyard.serial.FormatType;
+import org.switchyard.serial.Serializer;
+import org.switchyard.serial.SerializerFactory;
+
+/**
+ * Invokes services published through the {@link SwitchYardRemotingServlet}.
+ * <p/>
+ * Requests name their serialization format and compression in the {@link SwitchYardRemotingServlet#FORMAT_HEADER}
+ * and {@link SwitchYardRemotingServlet#COMPRESSION_HEADER} headers, and replies are read in the format the
+ * endpoint names back. The request context is trimmed to the
+ * {@link SwitchYardRemotingServlet#CONTEXT_WHITELIST_PROPERTY} whitelist.
+ */
+final class HttpRemoteInvoker {
+
+    /** System property naming the FormatType of requests; defaults to JSON. */
+    static final String FORMAT_PROPERTY = "switchyard.remote.http.format";
+    /** System property naming the CompressionType of requests; not compressed by default. */
+    static final String COMPRESSION_PROPERTY = "switchyard.remote.http.compression";
+
+    private static final Logger LOGGER = Logger.getLogger(HttpRemoteInvoker.class);
+
+    private final FormatType _format = getConfiguredFormat();
+    private final CompressionType _compression = toCompression(System.getProperty(COMPRESSION_PROPERTY));
+    private final Serializer _serializer = SerializerFactory.create(_format, _compression, true);
+    private final List<String> _contextWhitelist =
+            RemoteMessages.parseWhitelist(System.getProperty(SwitchYardRemotingServlet.CONTEXT_WHITELIST_PROPERTY));
+
+    /**
+     * Sends the exchange's message to the remote service, and delivers any reply to the exchange.
+     * @param exchange the exchange
+     * @param address the endpoint address
+     * @throws HandlerException if the remote service could not be invoked
+     */
+    void invoke(Exchange exchange, String address) throws HandlerException {
+        RemoteMessage request = RemoteMessages.createRequestMessage(exchange, _contextWhitelist);
+        RemoteMessage reply;
+        try {
+            reply = send(address, request);
+        } catch (IOException ioe) {
+            throw new HandlerException("Problem invoking remote service " + request.getService() + " at " + address
+                    + ": " + ioe.getMessage(), ioe);
+        }
+        if (reply == null) {
+            return;
+        }
+        if (reply.getContext() != null) {
+            exchange.getContext().setProperties(reply.getContext().getProperties());
+        }
+        Message message = exchange.createMessage().setContent(reply.getContent());
+        if (reply.isFault()) {
+            exchange.sendFault(message);
+        } else {
+            exchange.send(message);
+        }
+    }
+
+    private RemoteMessage send(String address, RemoteMessage request) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(address).openConnection();
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.addRequestProperty(HttpInvoker.SERVICE_HEADER, request.getService().toString());
+        connection.addRequestProperty(SwitchYardRemotingServlet.FORMAT_HEADER, _format.name());
+        if (_compression != null) {
+            connection.addRequestProperty(SwitchYardRemotingServlet.COMPRESSION_HEADER, _compression.name());
+        }
+        OutputStream out = connection.getOutputStream();
+        try {
+            _serializer.serialize(request, RemoteMessage.class, out);
+            out.flush();
+        } finally {
+            out.close();
+        }
+        int status = connection.getResponseCode();
+        if (status == HttpURLConnection.HTTP_NO_CONTENT) {
+            return null;
+        }
+        if (status != HttpURLConnection.HTTP_OK) {
+            throw new IOException("HTTP " + status + " " + connection.getResponseMessage());
+        }
+        InputStream in = connection.getInputStream();
+        try {
+            return getReplySerializer(connection).deserialize(in, RemoteMessage.class);
+        } finally {
+            in.close();
+        }
+    }
+
+    // an endpoint which did not accept the requested format replies in JSON, and says so
+    private Serializer getReplySerializer(HttpURLConnection connection) throws IOException {
+        String formatName = Strings.trimToNull(connection.getHeaderField(SwitchYardRemotingServlet.FORMAT_HEADER));
+        FormatType format = formatName != null ? toFormat(formatName) : FormatType.JSON;
+        if (format == null || (format == FormatType.SER_OBJECT && _format != FormatType.SER_OBJECT)) {
+            throw new IOException("Unexpected reply format " + formatName);
+        }
+        CompressionType compression =
+                toCompression(connection.getHeaderField(SwitchYardRemotingServlet.COMPRESSION_HEADER));
+        if (format == _format && compression == _compression) {
+            return _serializer;
+        }
+        return SerializerFactory.create(format, compression, true);
+    }
+
+    private static FormatType getConfiguredFormat() {
+        String name = Strings.trimToNull(System.getProperty(FORMAT_PROPERTY));
+        FormatType format = name != null ? toFormat(name) : null;
+        if (format == null) {
+            return FormatType.JSON;
+        }
+        if (format == FormatType.SER_OBJECT && !Boolean.getBoolean(SwitchYardRemotingServlet.SER_OBJECT_PROPERTY)) {
+            LOGGER.warn(FormatType.SER_OBJECT + " is not allowed for remote HTTP requests without "
+                    + SwitchYardRemotingServlet.SER_OBJECT_PROPERTY + "; using " + FormatType.JSON);
+            return FormatType.JSON;
+        }
+        return format;
+    }
+
+    private static FormatType toFormat(String name) {
+        try {
+            return FormatType.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+    private static CompressionType toCompression(String name) {
+        name = Strings.trimToNull(name);
+        if (name != null) {
+            try {
+                return CompressionType.valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException iae) {
+                LOGGER.warn("Unknown compression " + name + "; not compressing");
+            }
+        }
+        return null;
+    }
+
+}
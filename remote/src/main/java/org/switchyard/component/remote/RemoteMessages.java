@@ -0,0 +1,132 @@
+/* 
+ * JBoss, Home of Professional Open Source 
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved. 
+ * See the copyright.txt in the distribution for a 
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, 
+ * modify, copy, or redistribute it subject to the terms and conditions 
+ * of the GNU Lesser General Public License, v. 2.1. 
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details. 
+ * You should have received a copy of the GNU Lesser General Public License, 
+ * v.2.1 along with this distribution; if not, write to the Free Software 
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.remote;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.switchyard.Context;
+import org.switchyard.Exchange;
+import org.switchyard.ExchangeState;
+import org.switchyard.Property;
+import org.switchyard.Scope;
+import org.switchyard.common.lang.Strings;
+import org.switchyard.remote.RemoteMessage;
+import org.switchyard.transform.TransformSequence;
+
+/**
+ * Builds the messages carried by the remote transports: requests sent by the invokers and replies
+ * returned by the inbound endpoints. Either way the context is trimmed to the context whitelist.
+ */
+final class RemoteMessages {
+
+    private RemoteMessages() {}
+
+    /**
+     * Creates the request message for an outbound exchange.
+     * @param exchange the exchange
+     * @param contextWhitelist the names of the context properties to send, or null for all of them
+     * @return the request message
+     */
+    static RemoteMessage createRequestMessage(Exchange exchange, List<String> contextWhitelist) {
+        Context context = exchange.getContext();
+        if (contextWhitelist != null) {
+            // trim a copy, so the exchange itself keeps its full context
+            context = context.copy();
+            applyWhitelist(context, contextWhitelist);
+        }
+        return new RemoteMessage()
+            .setDomain(exchange.getProvider().getDomain().getName())
+            .setService(exchange.getProvider().getName())
+            .setOperation(exchange.getContract().getConsumerOperation().getName())
+            .setContext(context)
+            .setContent(exchange.getMessage().getContent());
+    }
+
+    /**
+     * Creates the reply message for a completed exchange.
+     * @param exchange the exchange
+     * @param contextWhitelist the names of the context properties to return, or null for all of them
+     * @return the reply message
+     */
+    static RemoteMessage createReplyMessage(Exchange exchange, List<String> contextWhitelist) {
+        RemoteMessage reply = new RemoteMessage();
+        // trim a copy, so the exchange itself keeps its full context
+        Context context = exchange.getContext().copy();
+        cleanContext(context, contextWhitelist);
+        reply.setContext(context)
+            .setDomain(exchange.getProvider().getDomain().getName())
+            .setOperation(exchange.getContract().getConsumerOperation().getName())
+            .setService(exchange.getConsumer().getName());
+        if (exchange.getMessage() != null) {
+            reply.setContent(exchange.getMessage().getContent());
+        }
+        if (exchange.getState().equals(ExchangeState.FAULT)) {
+            reply.setFault(true);
+        }
+        return reply;
+    }
+
+    /**
+     * Parses a comma-separated context whitelist.
+     * @param value the whitelist
+     * @return the property names, or null if the value is empty
+     */
+    static List<String> parseWhitelist(String value) {
+        return Strings.trimToNull(value) != null ? Strings.splitTrimToNull(value, ",") : null;
+    }
+
+    private static void cleanContext(Context context, List<String> whitelist) {
+        Property inTransform = context.getProperty(
+                TransformSequence.class.getName(), Scope.IN);
+        Property outTransform = context.getProperty(
+                TransformSequence.class.getName(), Scope.OUT);
+        if (inTransform != null) {
+            context.removeProperty(inTransform);
+        }
+        if (outTransform != null) {
+            context.removeProperty(outTransform);
+        }
+        if (whitelist != null) {
+            applyWhitelist(context, whitelist);
+        }
+    }
+
+    private static void applyWhitelist(Context context, List<String> whitelist) {
+        for (Property property : new ArrayList<Property>(context.getProperties())) {
+            if (!isWhitelisted(property.getName(), whitelist)) {
+                context.removeProperty(property);
+            }
+        }
+    }
+
+    private static boolean isWhitelisted(String name, List<String> whitelist) {
+        for (String allowed : whitelist) {
+            if (allowed.endsWith("*")) {
+                if (name.startsWith(allowed.substring(0, allowed.length() - 1))) {
+                    return true;
+                }
+            } else if (allowed.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -18,13 +18,16 @@
  */
 package org.switchyard.component.remote;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.switchyard.Exchange;
 import org.switchyard.HandlerException;
 import org.switchyard.component.remote.config.model.RemoteBindingModel;
 import org.switchyard.deploy.BaseServiceHandler;
-import org.switchyard.exception.SwitchYardException;
+import org.switchyard.remote.RemoteEndpoint;
 import org.switchyard.remote.RemoteRegistry;
-import org.switchyard.remote.cluster.ClusteredInvoker;
 
 /**
  * Handles outbound communication to a remote service endpoint.
@@ -32,7 +35,9 @@ import org.switchyard.remote.cluster.ClusteredInvoker;
 public class RemoteServiceHandler extends BaseServiceHandler {
     
     private RemoteBindingModel _config;
-    private ClusteredInvoker _invoker;
+    private RemoteRegistry _registry;
+    private HttpRemoteInvoker _invoker;
+    private final AtomicInteger _next = new AtomicInteger();
     
     /**
      * Create a new RemoteServiceHandler.
@@ -41,15 +46,35 @@ public class RemoteServiceHandler extends BaseServiceHandler {
      */
     public RemoteServiceHandler(RemoteBindingModel config, RemoteRegistry registry) {
         _config = config;
-         _invoker = new ClusteredInvoker(registry);
+        _registry = registry;
+        _invoker = new HttpRemoteInvoker();
     }
     
     @Override
     public void handleMessage(Exchange exchange) throws HandlerException {
-        try {
-            _invoker.invoke(exchange);
-        } catch (SwitchYardException syEx) {
-            throw new HandlerException(syEx.getMessage());
+        List<RemoteEndpoint> endpoints = _registry.getEndpoints(exchange.getProvider().getName());
+        if (endpoints == null || endpoints.isEmpty()) {
+            throw new HandlerException("No remote endpoints found for service " + exchange.getProvider().getName());
+        }
+        // endpoints published over persistent TCP connections are preferred to per-call HTTP
+        String tcpAddress = selectAddress(endpoints, true);
+        if (tcpAddress != null) {
+            TcpInvoker.getInvoker(tcpAddress).invoke(exchange);
+            return;
+        }
+        _invoker.invoke(exchange, selectAddress(endpoints, false));
+    }
+    
+    private String selectAddress(List<RemoteEndpoint> endpoints, boolean tcp) {
+        List<String> addresses = new ArrayList<String>(endpoints.size());
+        for (RemoteEndpoint endpoint : endpoints) {
+            if (TcpInvoker.accepts(endpoint.getEndpoint()) == tcp) {
+                addresses.add(endpoint.getEndpoint());
+            }
+        }
+        if (addresses.isEmpty()) {
+            return null;
         }
+        return addresses.get((_next.getAndIncrement() & Integer.MAX_VALUE) % addresses.size());
     }
 }
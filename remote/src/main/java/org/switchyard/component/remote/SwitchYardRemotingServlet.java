@@ -16,11 +16,17 @@
  * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
  * MA  02110-1301, USA.
  */
- 
 package org.switchyard.component.remote;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -31,39 +37,70 @@ import javax.xml.namespace.QName;
 import org.apache.log4j.Logger;
 import org.switchyard.Exchange;
 import org.switchyard.ExchangePattern;
-import org.switchyard.ExchangeState;
 import org.switchyard.Message;
-import org.switchyard.Property;
-import org.switchyard.Scope;
 import org.switchyard.ServiceDomain;
 import org.switchyard.ServiceReference;
 import org.switchyard.SynchronousInOutHandler;
+import org.switchyard.common.lang.Strings;
 import org.switchyard.common.type.Classes;
 import org.switchyard.deploy.internal.Deployment;
 import org.switchyard.remote.RemoteMessage;
 import org.switchyard.remote.http.HttpInvoker;
+import org.switchyard.serial.CompressionType;
 import org.switchyard.serial.FormatType;
 import org.switchyard.serial.Serializer;
 import org.switchyard.serial.SerializerFactory;
-import org.switchyard.transform.TransformSequence;
 
 /**
  * HTTP servlet which handles inbound remote communication for remote service endpoints.
+ * <p/>
+ * Messages are JSON encoded unless the client asks for another serialization format and/or compression
+ * through the {@link #FORMAT_HEADER} and {@link #COMPRESSION_HEADER} request headers; the reply is written
+ * in the same format, which is echoed back in the response headers. Only the formats in the server-side
+ * allow-list (see {@link #FORMATS_PROPERTY}) are honoured; unknown or disallowed formats fall back to JSON.
+ * SER_OBJECT, the only binary format, is only accepted once {@link #SER_OBJECT_PROPERTY} is set, as Java
+ * deserialization of client-supplied data is unsafe unless every client is trusted.
  */
 public class SwitchYardRemotingServlet extends HttpServlet {
 
+    /** Request header naming the {@link FormatType} of the request and reply messages. */
+    public static final String FORMAT_HEADER = "switchyard-format";
+    /** Request header naming the {@link CompressionType} of the request and reply messages. */
+    public static final String COMPRESSION_HEADER = "switchyard-compression";
+    /**
+     * System property holding a comma-separated list of the {@link FormatType}s clients may ask for. If not
+     * set, all formats are allowed; SER_OBJECT is ignored, even if listed, unless {@link #SER_OBJECT_PROPERTY}
+     * is set.
+     */
+    public static final String FORMATS_PROPERTY = "switchyard.remote.formats";
+    /**
+     * System property which, set to true, lets clients and invokers use the binary SER_OBJECT format. Only
+     * set it when every caller of the remote endpoints is trusted.
+     */
+    public static final String SER_OBJECT_PROPERTY = "switchyard.remote.serObject";
+    /**
+     * System property holding a comma-separated list of the context property names carried by remote
+     * request and reply messages; a name ending in '*' matches by prefix. If not set, all properties are sent.
+     */
+    public static final String CONTEXT_WHITELIST_PROPERTY = "switchyard.remote.context.whitelist";
+
     private static final long serialVersionUID = 1L;
     private static Logger _log = Logger.getLogger(SwitchYardRemotingServlet.class);
     
-    private Serializer _serializer = SerializerFactory.create(FormatType.JSON, null, true);
+    private final ConcurrentMap<String, Serializer> _serializers = new ConcurrentHashMap<String, Serializer>();
+    private final ConcurrentMap<QName, CachedReference> _references = new ConcurrentHashMap<QName, CachedReference>();
     private RemoteEndpointPublisher _endpointPublisher;
+    private volatile boolean _serObjectAllowed = Boolean.getBoolean(SER_OBJECT_PROPERTY);
+    private volatile Set<FormatType> _allowedFormats = parseFormats(System.getProperty(FORMATS_PROPERTY));
+    private volatile List<String> _contextWhitelist = RemoteMessages.parseWhitelist(System.getProperty(CONTEXT_WHITELIST_PROPERTY));
 
     /**
      * {@inheritDoc}
      */
     public void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         // Grab the right service domain based on the service header
-        ServiceDomain domain = getDomain(request);
+        QName serviceName = getServiceName(request);
+        ServiceDomain domain = serviceName != null ? _endpointPublisher.getDomain(serviceName) : null;
         if (domain == null) {
             throw new ServletException("Required 'switchyard-service' header is missing or empty");
         }
@@ -72,12 +109,18 @@ public class SwitchYardRemotingServlet extends HttpServlet {
         ClassLoader setTCCL = Classes.setTCCL(loader);
         
         try {
-            RemoteMessage msg = _serializer.deserialize(request.getInputStream(), RemoteMessage.class);
+            FormatType format = getFormat(request);
+            CompressionType compression = getCompression(request);
+            Serializer serializer = getSerializer(format, compression);
+            RemoteMessage msg = serializer.deserialize(request.getInputStream(), RemoteMessage.class);
             if (_log.isDebugEnabled()) {
                 _log.debug("Remote servlet received request for service " + msg.getService());
             }
             
-            ServiceReference service = domain.getServiceReference(msg.getService());
+            ServiceReference service = getServiceReference(domain, msg.getService());
+            if (service == null) {
+                throw new ServletException("No service reference registered for " + msg.getService());
+            }
             SynchronousInOutHandler replyHandler = new SynchronousInOutHandler();
             Exchange ex = msg.getOperation() == null
                     ? service.createExchange(replyHandler)
@@ -96,12 +139,16 @@ public class SwitchYardRemotingServlet extends HttpServlet {
             if (ex.getContract().getProviderOperation().getExchangePattern().equals(ExchangePattern.IN_OUT)) {
                 replyHandler.waitForOut();
                 RemoteMessage reply = createReplyMessage(ex);
+                response.setHeader(FORMAT_HEADER, format.name());
+                if (compression != null) {
+                    response.setHeader(COMPRESSION_HEADER, compression.name());
+                }
                 OutputStream out = response.getOutputStream();
                 
                 if (_log.isDebugEnabled()) {
                     _log.debug("Writing reply message to HTTP response stream " + msg.getService());
                 }
-                _serializer.serialize(reply, RemoteMessage.class, out);
+                serializer.serialize(reply, RemoteMessage.class, out);
                 out.flush();
             } else {
                 if (_log.isDebugEnabled()) {
@@ -114,14 +161,99 @@ public class SwitchYardRemotingServlet extends HttpServlet {
         }
     }
     
-    private ServiceDomain getDomain(HttpServletRequest request) {
-        ServiceDomain domain = null;
+    private QName getServiceName(HttpServletRequest request) {
         String service = request.getHeader(HttpInvoker.SERVICE_HEADER);
-        
-        if (service != null) {
-            domain = _endpointPublisher.getDomain(QName.valueOf(service));
+        return service != null ? QName.valueOf(service) : null;
+    }
+
+    private ServiceReference getServiceReference(ServiceDomain domain, QName serviceName) {
+        if (serviceName == null) {
+            return null;
+        }
+        CachedReference cached = _references.get(serviceName);
+        // a redeployed service comes with a new domain, so only trust entries for the current one
+        if (cached != null && cached._domain == domain) {
+            return cached._reference;
+        }
+        ServiceReference reference = domain.getServiceReference(serviceName);
+        if (reference != null) {
+            _references.put(serviceName, new CachedReference(domain, reference));
+        } else {
+            _references.remove(serviceName);
+        }
+        return reference;
+    }
+
+    private FormatType getFormat(HttpServletRequest request) {
+        String format = Strings.trimToNull(request.getHeader(FORMAT_HEADER));
+        if (format != null) {
+            FormatType formatType = toFormat(format);
+            if (formatType != null && _allowedFormats.contains(formatType)
+                    && (formatType != FormatType.SER_OBJECT || _serObjectAllowed)) {
+                return formatType;
+            }
+            if (_log.isDebugEnabled()) {
+                _log.debug("Unknown or disallowed serialization format " + format + "; falling back to " + FormatType.JSON);
+            }
         }
-        return domain;
+        return FormatType.JSON;
+    }
+
+    private static Set<FormatType> parseFormats(String value) {
+        Set<FormatType> formats = EnumSet.noneOf(FormatType.class);
+        if (Strings.trimToNull(value) != null) {
+            for (String name : Strings.splitTrimToNull(value, ",")) {
+                FormatType format = toFormat(name);
+                if (format != null) {
+                    formats.add(format);
+                } else {
+                    _log.warn("Ignoring unknown serialization format " + name + " in " + FORMATS_PROPERTY);
+                }
+            }
+        } else {
+            formats.addAll(EnumSet.allOf(FormatType.class));
+        }
+        return withJson(formats);
+    }
+
+    private static Set<FormatType> withJson(Set<FormatType> formats) {
+        formats.add(FormatType.JSON);
+        return formats;
+    }
+
+    private static FormatType toFormat(String name) {
+        try {
+            return FormatType.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+    private CompressionType getCompression(HttpServletRequest request) {
+        String compression = Strings.trimToNull(request.getHeader(COMPRESSION_HEADER));
+        if (compression != null) {
+            try {
+                return CompressionType.valueOf(compression.toUpperCase());
+            } catch (IllegalArgumentException iae) {
+                if (_log.isDebugEnabled()) {
+                    _log.debug("Unknown compression " + compression + "; not compressing");
+                }
+            }
+        }
+        return null;
+    }
+
+    private Serializer getSerializer(FormatType format, CompressionType compression) {
+        String key = format.name() + '/' + (compression != null ? compression.name() : "");
+        Serializer serializer = _serializers.get(key);
+        if (serializer == null) {
+            serializer = SerializerFactory.create(format, compression, true);
+            Serializer existing = _serializers.putIfAbsent(key, serializer);
+            if (existing != null) {
+                serializer = existing;
+            }
+        }
+        return serializer;
     }
     
     /**
@@ -130,34 +262,51 @@ public class SwitchYardRemotingServlet extends HttpServlet {
      */
     public void setEndpointPublisher(RemoteEndpointPublisher endpointPublisher) {
         _endpointPublisher = endpointPublisher;
+        _references.clear();
     }
-    
-    RemoteMessage createReplyMessage(Exchange exchange) {
-        RemoteMessage reply = new RemoteMessage();
-        cleanContext(exchange);
-        reply.setContext(exchange.getContext())
-            .setDomain(exchange.getProvider().getDomain().getName())
-            .setOperation(exchange.getContract().getConsumerOperation().getName())
-            .setService(exchange.getConsumer().getName());
-        if (exchange.getMessage() != null) {
-            reply.setContent(exchange.getMessage().getContent());
-        }
-        if (exchange.getState().equals(ExchangeState.FAULT)) {
-            reply.setFault(true);
+
+    /**
+     * Set the serialization formats clients may ask for; JSON is always allowed, and SER_OBJECT only once
+     * {@link #setSerObjectAllowed(boolean)} is set as well.
+     * @param allowedFormats the formats, or null to allow all formats
+     */
+    public void setAllowedFormats(Collection<FormatType> allowedFormats) {
+        Set<FormatType> formats = EnumSet.noneOf(FormatType.class);
+        if (allowedFormats != null) {
+            formats.addAll(allowedFormats);
+        } else {
+            formats.addAll(EnumSet.allOf(FormatType.class));
         }
-        return reply;
+        _allowedFormats = withJson(formats);
+    }
+
+    /**
+     * Set whether clients may use the binary SER_OBJECT format; see {@link #SER_OBJECT_PROPERTY}.
+     * @param serObjectAllowed true to accept SER_OBJECT when it is in the allowed formats
+     */
+    public void setSerObjectAllowed(boolean serObjectAllowed) {
+        _serObjectAllowed = serObjectAllowed;
+    }
+
+    /**
+     * Set the names of the context properties returned to the caller in reply messages; a name ending
+     * in '*' matches by prefix. Invokers trim request contexts with {@link #CONTEXT_WHITELIST_PROPERTY}.
+     * @param contextWhitelist the property names, or null to return all properties
+     */
+    public void setContextWhitelist(Collection<String> contextWhitelist) {
+        _contextWhitelist = contextWhitelist != null ? new ArrayList<String>(contextWhitelist) : null;
     }
     
-    private void cleanContext(Exchange exchange) {
-        Property inTransform = exchange.getContext().getProperty(
-                TransformSequence.class.getName(), Scope.IN);
-        Property outTransform = exchange.getContext().getProperty(
-                TransformSequence.class.getName(), Scope.OUT);
-        if (inTransform != null) {
-            exchange.getContext().removeProperty(inTransform);
-        }
-        if (outTransform != null) {
-            exchange.getContext().removeProperty(outTransform);
+    RemoteMessage createReplyMessage(Exchange exchange) {
+        return RemoteMessages.createReplyMessage(exchange, _contextWhitelist);
+    }
+
+    private static final class CachedReference {
+        private final ServiceDomain _domain;
+        private final ServiceReference _reference;
+        private CachedReference(ServiceDomain domain, ServiceReference reference) {
+            _domain = domain;
+            _reference = reference;
         }
     }
 }
@@ -0,0 +1,188 @@
+/* 
+ * JBoss, Home of Professional Open Source 
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved. 
+ * See the copyright.txt in the distribution for a 
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, 
+ * modify, copy, or redistribute it subject to the terms and conditions 
+ * of the GNU Lesser General Public License, v. 2.1. 
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details. 
+ * You should have received a copy of the GNU Lesser General Public License, 
+ * v.2.1 along with this distribution; if not, write to the Free Software 
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.remote;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+import org.switchyard.common.lang.Strings;
+import org.switchyard.serial.FormatType;
+import org.switchyard.serial.Serializer;
+import org.switchyard.serial.SerializerFactory;
+
+/**
+ * Wire format of the persistent-connection remote transport.
+ * <p/>
+ * A connection starts with the client writing the name of the serialization {@link FormatType} used for
+ * every message on it; the format is chosen by configuration on both ends, and the endpoint closes
+ * connections announcing any other format. SER_OBJECT is only used when it is configured and allowed by
+ * {@link SwitchYardRemotingServlet#SER_OBJECT_PROPERTY}. After that, each frame is: int length (of what
+ * follows), long correlation id, byte frame type, then the payload. Requests and replies on one connection
+ * are matched by correlation id only, so any number of calls can be in flight, and replies may come back
+ * in any order.
+ */
+final class TcpFrames {
+
+    /** System property naming the FormatType used on connections; defaults to JSON. */
+    static final String FORMAT_PROPERTY = "switchyard.remote.tcp.format";
+    /** System property holding the largest frame, in bytes, either end will read or write. */
+    static final String MAX_FRAME_LENGTH_PROPERTY = "switchyard.remote.tcp.maxFrameLength";
+    /** The default largest frame, 4 MB. */
+    static final int DEFAULT_MAX_FRAME_LENGTH = 4 * 1024 * 1024;
+
+    /** A request: the service name as UTF, followed by the serialized RemoteMessage. */
+    static final byte REQUEST = 0;
+    /** A serialized RemoteMessage reply. */
+    static final byte REPLY = 1;
+    /** Acknowledges an in-only request; no payload. */
+    static final byte ACK = 2;
+    /** A request failed before producing a reply; the payload is the UTF-8 error message. */
+    static final byte ERROR = 3;
+
+    private static final Logger LOGGER = Logger.getLogger(TcpFrames.class);
+
+    private TcpFrames() {}
+
+    /**
+     * A frame read off the wire.
+     */
+    static final class Frame {
+        private final long _id;
+        private final byte _type;
+        private final byte[] _payload;
+        Frame(long id, byte type, byte[] payload) {
+            _id = id;
+            _type = type;
+            _payload = payload;
+        }
+        long getId() {
+            return _id;
+        }
+        byte getType() {
+            return _type;
+        }
+        byte[] getPayload() {
+            return _payload;
+        }
+    }
+
+    /**
+     * Gets the configured format of new connections.
+     * @return the format
+     */
+    static FormatType getConfiguredFormat() {
+        FormatType format = getFormat(System.getProperty(FORMAT_PROPERTY));
+        if (format == FormatType.SER_OBJECT && !Boolean.getBoolean(SwitchYardRemotingServlet.SER_OBJECT_PROPERTY)) {
+            LOGGER.warn(FormatType.SER_OBJECT + " is not allowed on remote TCP connections without "
+                    + SwitchYardRemotingServlet.SER_OBJECT_PROPERTY + "; using " + FormatType.JSON);
+            return FormatType.JSON;
+        }
+        return format;
+    }
+
+    /**
+     * Gets the configured largest frame length.
+     * @return the length in bytes, including the frame header
+     */
+    static int getMaxFrameLength() {
+        return Math.max(Integer.getInteger(MAX_FRAME_LENGTH_PROPERTY, DEFAULT_MAX_FRAME_LENGTH).intValue(), 9);
+    }
+
+    /**
+     * Resolves a format name, falling back to JSON.
+     * @param name the format name
+     * @return the format
+     */
+    private static FormatType getFormat(String name) {
+        name = Strings.trimToNull(name);
+        if (name != null) {
+            try {
+                return FormatType.valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException iae) {
+                // fall through to JSON
+            }
+        }
+        return FormatType.JSON;
+    }
+
+    /**
+     * Creates the serializer for a format.
+     * @param format the format
+     * @return the serializer
+     */
+    static Serializer newSerializer(FormatType format) {
+        return SerializerFactory.create(format, null, true);
+    }
+
+    /**
+     * Writes a frame; callers must serialize writes on the same stream.
+     * @param out the stream
+     * @param id the correlation id
+     * @param type the frame type
+     * @param payload the payload, or null
+     * @param maxLength the largest frame length allowed
+     * @throws FrameTooLongException if the frame is too long; nothing has been written
+     * @throws IOException if the write fails
+     */
+    static void write(DataOutputStream out, long id, byte type, byte[] payload, int maxLength) throws IOException {
+        int length = payload != null ? payload.length : 0;
+        if (length > maxLength - 9) {
+            throw new FrameTooLongException("Frame of " + (length + 9) + " bytes exceeds the limit of " + maxLength);
+        }
+        out.writeInt(length + 9);
+        out.writeLong(id);
+        out.writeByte(type);
+        if (length > 0) {
+            out.write(payload);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads the next frame.
+     * @param in the stream
+     * @param maxLength the largest frame length allowed
+     * @return the frame
+     * @throws IOException if the read fails, the stream ends or the frame is too long
+     */
+    static Frame read(DataInputStream in, int maxLength) throws IOException {
+        int length = in.readInt();
+        if (length < 9 || length > maxLength) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        long id = in.readLong();
+        byte type = in.readByte();
+        byte[] payload = new byte[length - 9];
+        in.readFully(payload);
+        return new Frame(id, type, payload);
+    }
+
+    /**
+     * Thrown when a frame is refused for being too long before any of it is written.
+     */
+    static final class FrameTooLongException extends IOException {
+        private static final long serialVersionUID = 1L;
+        FrameTooLongException(String message) {
+            super(message);
+        }
+    }
+
+}
@@ -0,0 +1,344 @@
+/* 
+ * JBoss, Home of Professional Open Source 
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved. 
+ * See the copyright.txt in the distribution for a 
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, 
+ * modify, copy, or redistribute it subject to the terms and conditions 
+ * of the GNU Lesser General Public License, v. 2.1. 
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details. 
+ * You should have received a copy of the GNU Lesser General Public License, 
+ * v.2.1 along with this distribution; if not, write to the Free Software 
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.remote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.switchyard.Exchange;
+import org.switchyard.ExchangePattern;
+import org.switchyard.HandlerException;
+import org.switchyard.Message;
+import org.switchyard.common.type.Classes;
+import org.switchyard.remote.RemoteMessage;
+import org.switchyard.serial.FormatType;
+import org.switchyard.serial.Serializer;
+
+/**
+ * Invokes services published by a {@link TcpRemoteEndpointPublisher}.
+ * <p/>
+ * One persistent connection is kept per remote address and shared by all callers; each request gets a
+ * correlation id and the calling thread returns as soon as the request is written. The reply is sent on
+ * the exchange by the connection's reader thread when it arrives, or a fault is sent if none arrives within
+ * the reply timeout. A connection that receives nothing for the read timeout is closed, and reopened by
+ * the next call.
+ */
+final class TcpInvoker {
+
+    /** System property holding the connect timeout, in milliseconds. */
+    static final String CONNECT_TIMEOUT_PROPERTY = "switchyard.remote.tcp.connectTimeout";
+    /** System property holding how long, in milliseconds, a connection may receive nothing before it is closed. */
+    static final String READ_TIMEOUT_PROPERTY = "switchyard.remote.tcp.readTimeout";
+    /** System property holding how long, in milliseconds, a request waits for its reply. */
+    static final String REPLY_TIMEOUT_PROPERTY = "switchyard.remote.tcp.replyTimeout";
+    /** The default connect timeout. */
+    static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    /** The default read timeout. */
+    static final int DEFAULT_READ_TIMEOUT = 300000;
+    /** The default reply timeout. */
+    static final int DEFAULT_REPLY_TIMEOUT = 60000;
+
+    private static final Logger LOGGER = Logger.getLogger(TcpInvoker.class);
+    private static final ConcurrentMap<String, TcpInvoker> INVOKERS = new ConcurrentHashMap<String, TcpInvoker>();
+    private static final ScheduledExecutorService TIMEOUTS = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, TcpInvoker.class.getSimpleName() + ":timeouts");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final String _host;
+    private final int _port;
+    private final FormatType _format = TcpFrames.getConfiguredFormat();
+    private final int _maxFrameLength = TcpFrames.getMaxFrameLength();
+    private final int _connectTimeout = Integer.getInteger(CONNECT_TIMEOUT_PROPERTY, DEFAULT_CONNECT_TIMEOUT).intValue();
+    private final int _readTimeout = Integer.getInteger(READ_TIMEOUT_PROPERTY, DEFAULT_READ_TIMEOUT).intValue();
+    private final long _replyTimeout = Integer.getInteger(REPLY_TIMEOUT_PROPERTY, DEFAULT_REPLY_TIMEOUT).longValue();
+    private final List<String> _contextWhitelist =
+            RemoteMessages.parseWhitelist(System.getProperty(SwitchYardRemotingServlet.CONTEXT_WHITELIST_PROPERTY));
+    private Connection _connection;
+
+    private TcpInvoker(String address) {
+        URI uri = URI.create(address);
+        _host = uri.getHost();
+        _port = uri.getPort() != -1 ? uri.getPort() : TcpRemoteEndpointPublisher.DEFAULT_PORT;
+    }
+
+    /**
+     * If an endpoint address is served by this transport.
+     * @param address the endpoint address
+     * @return if so
+     */
+    static boolean accepts(String address) {
+        return address != null && address.startsWith(TcpRemoteEndpointPublisher.SCHEME + "://");
+    }
+
+    /**
+     * Gets the shared invoker for a remote address.
+     * @param address the address
+     * @return the invoker
+     */
+    static TcpInvoker getInvoker(String address) {
+        TcpInvoker invoker = INVOKERS.get(address);
+        if (invoker == null) {
+            invoker = new TcpInvoker(address);
+            TcpInvoker existing = INVOKERS.putIfAbsent(address, invoker);
+            if (existing != null) {
+                invoker = existing;
+            }
+        }
+        return invoker;
+    }
+
+    /**
+     * Sends the exchange's message to the remote service; any reply is delivered to the exchange later.
+     * @param exchange the exchange
+     * @throws HandlerException if the request could not be sent
+     */
+    void invoke(Exchange exchange) throws HandlerException {
+        RemoteMessage request = RemoteMessages.createRequestMessage(exchange, _contextWhitelist);
+        Connection connection;
+        try {
+            connection = getConnection();
+        } catch (IOException ioe) {
+            throw new HandlerException("Unable to connect to " + _host + ":" + _port + ": " + ioe.getMessage(), ioe);
+        }
+        connection.send(exchange, request);
+    }
+
+    private synchronized Connection getConnection() throws IOException {
+        if (_connection == null || _connection.isClosed()) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(_host, _port), _connectTimeout);
+                socket.setSoTimeout(_readTimeout);
+                _connection = new Connection(socket);
+            } catch (IOException ioe) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // ignore
+                }
+                throw ioe;
+            }
+        }
+        return _connection;
+    }
+
+    private final class Connection implements Runnable {
+
+        private final Socket _socket;
+        private final Serializer _serializer;
+        private final DataOutputStream _out;
+        private final ConcurrentMap<Long, Pending> _pending = new ConcurrentHashMap<Long, Pending>();
+        private final AtomicLong _ids = new AtomicLong();
+        private volatile boolean _closed = false;
+
+        private Connection(Socket socket) throws IOException {
+            _socket = socket;
+            _socket.setTcpNoDelay(true);
+            _serializer = TcpFrames.newSerializer(_format);
+            _out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            _out.writeUTF(_format.name());
+            _out.flush();
+            Thread reader = new Thread(this, TcpInvoker.class.getSimpleName() + ":" + socket.getRemoteSocketAddress());
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private boolean isClosed() {
+            return _closed;
+        }
+
+        private void send(Exchange exchange, RemoteMessage request) throws HandlerException {
+            Long id = Long.valueOf(_ids.incrementAndGet());
+            boolean inOut = ExchangePattern.IN_OUT.equals(exchange.getContract().getProviderOperation().getExchangePattern());
+            try {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                DataOutputStream payload = new DataOutputStream(baos);
+                payload.writeUTF(request.getService().toString());
+                _serializer.serialize(request, RemoteMessage.class, payload);
+                payload.flush();
+                if (inOut) {
+                    Pending pending = new Pending(exchange, Thread.currentThread().getContextClassLoader());
+                    _pending.put(id, pending);
+                    pending._timeout = TIMEOUTS.schedule(new ReplyTimeout(id), _replyTimeout, TimeUnit.MILLISECONDS);
+                }
+                synchronized (_out) {
+                    TcpFrames.write(_out, id.longValue(), TcpFrames.REQUEST, baos.toByteArray(), _maxFrameLength);
+                }
+            } catch (IOException ioe) {
+                Pending pending = _pending.remove(id);
+                if (pending != null) {
+                    pending.cancelTimeout();
+                }
+                if (!(ioe instanceof TcpFrames.FrameTooLongException)) {
+                    close();
+                }
+                throw new HandlerException("Problem sending remote request for " + request.getService() + ": " + ioe.getMessage(), ioe);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(_socket.getInputStream()));
+                while (true) {
+                    TcpFrames.Frame frame = TcpFrames.read(in, _maxFrameLength);
+                    Pending pending = _pending.remove(Long.valueOf(frame.getId()));
+                    if (pending == null) {
+                        // a one-way request, or a reply that came after its timeout
+                        if (frame.getType() == TcpFrames.ERROR) {
+                            LOGGER.warn("Remote request " + frame.getId() + " failed: " + new String(frame.getPayload(), "UTF-8"));
+                        }
+                        continue;
+                    }
+                    pending.cancelTimeout();
+                    ClassLoader setTCCL = Classes.setTCCL(pending._loader);
+                    try {
+                        complete(pending._exchange, frame);
+                    } catch (Throwable t) {
+                        fail(pending._exchange, "Problem handling remote reply: " + t.getMessage());
+                    } finally {
+                        Classes.setTCCL(setTCCL);
+                    }
+                }
+            } catch (SocketTimeoutException ste) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Closing remote TCP connection to " + _socket.getRemoteSocketAddress() + " after " + _readTimeout + "ms without traffic");
+                }
+            } catch (IOException ioe) {
+                if (!_closed) {
+                    LOGGER.warn("Remote TCP connection to " + _socket.getRemoteSocketAddress() + " lost: " + ioe.getMessage());
+                }
+            } finally {
+                close();
+            }
+        }
+
+        private void complete(Exchange exchange, TcpFrames.Frame frame) throws IOException {
+            if (frame.getType() == TcpFrames.ERROR) {
+                fail(exchange, new String(frame.getPayload(), "UTF-8"));
+                return;
+            }
+            RemoteMessage reply = _serializer.deserialize(new ByteArrayInputStream(frame.getPayload()), RemoteMessage.class);
+            if (reply.getContext() != null) {
+                exchange.getContext().setProperties(reply.getContext().getProperties());
+            }
+            Message message = exchange.createMessage().setContent(reply.getContent());
+            if (reply.isFault()) {
+                exchange.sendFault(message);
+            } else {
+                exchange.send(message);
+            }
+        }
+
+        private void fail(Exchange exchange, String reason) {
+            try {
+                exchange.sendFault(exchange.createMessage().setContent(new HandlerException(reason)));
+            } catch (Throwable t) {
+                LOGGER.warn("Unable to deliver remote failure [" + reason + "]: " + t.getMessage());
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                if (_closed) {
+                    return;
+                }
+                _closed = true;
+            }
+            try {
+                _socket.close();
+            } catch (IOException ioe) {
+                // ignore
+            }
+            for (Long id : _pending.keySet()) {
+                Pending pending = _pending.remove(id);
+                if (pending != null) {
+                    pending.cancelTimeout();
+                    fail(pending._exchange, "Remote TCP connection to " + _socket.getRemoteSocketAddress() + " closed");
+                }
+            }
+        }
+
+        private final class ReplyTimeout implements Runnable {
+
+            private final Long _id;
+
+            private ReplyTimeout(Long id) {
+                _id = id;
+            }
+
+            @Override
+            public void run() {
+                Pending pending = _pending.remove(_id);
+                if (pending != null) {
+                    fail(pending._exchange, "No reply from " + _socket.getRemoteSocketAddress() + " within " + _replyTimeout + "ms");
+                }
+            }
+
+        }
+
+    }
+
+    private static final class Pending {
+
+        private final Exchange _exchange;
+        private final ClassLoader _loader;
+        private volatile ScheduledFuture<?> _timeout;
+
+        private Pending(Exchange exchange, ClassLoader loader) {
+            _exchange = exchange;
+            _loader = loader;
+        }
+
+        private void cancelTimeout() {
+            ScheduledFuture<?> timeout = _timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,400 @@
+/* 
+ * JBoss, Home of Professional Open Source 
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved. 
+ * See the copyright.txt in the distribution for a 
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, 
+ * modify, copy, or redistribute it subject to the terms and conditions 
+ * of the GNU Lesser General Public License, v. 2.1. 
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details. 
+ * You should have received a copy of the GNU Lesser General Public License, 
+ * v.2.1 along with this distribution; if not, write to the Free Software 
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.remote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.namespace.QName;
+
+import org.apache.log4j.Logger;
+import org.switchyard.BaseHandler;
+import org.switchyard.Exchange;
+import org.switchyard.ExchangePattern;
+import org.switchyard.HandlerException;
+import org.switchyard.Message;
+import org.switchyard.ServiceDomain;
+import org.switchyard.ServiceReference;
+import org.switchyard.SwitchYardException;
+import org.switchyard.common.lang.Strings;
+import org.switchyard.common.type.Classes;
+import org.switchyard.deploy.internal.Deployment;
+import org.switchyard.remote.RemoteMessage;
+import org.switchyard.serial.FormatType;
+import org.switchyard.serial.Serializer;
+
+/**
+ * Publishes remote endpoints over persistent TCP connections instead of per-call HTTP requests.
+ * <p/>
+ * Each connection is read by one thread, which hands requests to a shared worker pool and goes straight
+ * back to reading, so many calls can be pipelined on a connection. The pool's queue is bounded; requests
+ * arriving while it is full are answered with an ERROR frame. Replies are written from the exchange's
+ * reply handler whenever they arrive; no thread is parked waiting for a reply. Endpoint addresses have the
+ * form tcp://host:port.
+ * <p/>
+ * The listener only starts with an explicit {@link #HOST_PROPERTY} address to bind to. The serialization
+ * format is set by configuration (SER_OBJECT only when explicitly allowed), not by the client, and frames
+ * are limited in size.
+ */
+public class TcpRemoteEndpointPublisher implements RemoteEndpointPublisher {
+
+    /** URL scheme of the endpoints published by this publisher. */
+    public static final String SCHEME = "tcp";
+    /** System property holding the address to listen on; required. */
+    public static final String HOST_PROPERTY = "switchyard.remote.tcp.host";
+    /** System property holding the port to listen on. */
+    public static final String PORT_PROPERTY = "switchyard.remote.tcp.port";
+    /** System property holding the maximum number of worker threads. */
+    public static final String WORKERS_PROPERTY = "switchyard.remote.tcp.workers";
+    /** System property holding the number of requests queued per worker thread before requests are refused. */
+    public static final String QUEUE_FACTOR_PROPERTY = "switchyard.remote.tcp.queueFactor";
+    /** The default port. */
+    public static final int DEFAULT_PORT = 18001;
+    /** The default maximum number of worker threads. */
+    public static final int DEFAULT_WORKERS = 32;
+    /** The default number of requests queued per worker thread. */
+    public static final int DEFAULT_QUEUE_FACTOR = 4;
+
+    private static Logger _log = Logger.getLogger(TcpRemoteEndpointPublisher.class);
+
+    private final ConcurrentMap<QName, ServiceDomain> _services = new ConcurrentHashMap<QName, ServiceDomain>();
+    private final Set<Socket> _connections = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+    private final List<String> _contextWhitelist =
+            RemoteMessages.parseWhitelist(System.getProperty(SwitchYardRemotingServlet.CONTEXT_WHITELIST_PROPERTY));
+    private String _host;
+    private int _port;
+    private FormatType _format;
+    private int _maxFrameLength;
+    private Serializer _serializer;
+    private ServerSocket _serverSocket;
+    private ExecutorService _workers;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(String context) {
+        // the context root only applies to HTTP; connections are identified by host and port alone
+        _port = Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT).intValue();
+        _host = Strings.trimToNull(System.getProperty(HOST_PROPERTY));
+        _format = TcpFrames.getConfiguredFormat();
+        _maxFrameLength = TcpFrames.getMaxFrameLength();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void start() throws Exception {
+        if (_serverSocket != null) {
+            return;
+        }
+        if (_host == null) {
+            throw new SwitchYardException("Remote TCP endpoint requires " + HOST_PROPERTY + " to name the address to listen on");
+        }
+        InetAddress address = InetAddress.getByName(_host);
+        _host = address.getHostAddress();
+        _serializer = TcpFrames.newSerializer(_format);
+        _serverSocket = new ServerSocket();
+        _serverSocket.setReuseAddress(true);
+        _serverSocket.bind(new InetSocketAddress(address, _port));
+        _port = _serverSocket.getLocalPort();
+        int workers = Integer.getInteger(WORKERS_PROPERTY, DEFAULT_WORKERS).intValue();
+        int queueFactor = Math.max(1, Integer.getInteger(QUEUE_FACTOR_PROPERTY, DEFAULT_QUEUE_FACTOR).intValue());
+        // requests beyond the queue are refused with an ERROR frame rather than held in memory
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(workers * queueFactor), newThreadFactory("worker"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        _workers = executor;
+        final ServerSocket serverSocket = _serverSocket;
+        newThreadFactory("acceptor").newThread(new Runnable() {
+            public void run() {
+                accept(serverSocket);
+            }
+        }).start();
+        _log.info("Remote TCP endpoint listening on " + getAddress());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void stop() throws Exception {
+        if (_serverSocket == null) {
+            return;
+        }
+        _serverSocket.close();
+        _serverSocket = null;
+        for (Socket socket : _connections) {
+            closeQuietly(socket);
+        }
+        _connections.clear();
+        _workers.shutdownNow();
+        _workers = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addService(QName serviceName, ServiceDomain domain) {
+        _services.put(serviceName, domain);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeService(QName serviceName, ServiceDomain domain) {
+        _services.remove(serviceName, domain);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ServiceDomain getDomain(QName serviceName) {
+        return _services.get(serviceName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getAddress() {
+        return SCHEME + "://" + _host + ":" + _port;
+    }
+
+    private void accept(ServerSocket serverSocket) {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                _connections.add(socket);
+                newThreadFactory("reader").newThread(new Runnable() {
+                    public void run() {
+                        new Connection(socket).read();
+                    }
+                }).start();
+            } catch (SocketException se) {
+                // closed by stop()
+                break;
+            } catch (IOException ioe) {
+                _log.warn("Problem accepting remote TCP connection: " + ioe.getMessage());
+            }
+        }
+    }
+
+    private static ThreadFactory newThreadFactory(final String kind) {
+        return new ThreadFactory() {
+            private final AtomicInteger _count = new AtomicInteger();
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable,
+                        TcpRemoteEndpointPublisher.class.getSimpleName() + ":" + kind + "-" + _count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ioe) {
+            // ignore
+        }
+    }
+
+    private final class Connection {
+
+        private final Socket _socket;
+        private DataOutputStream _out;
+
+        private Connection(Socket socket) {
+            _socket = socket;
+        }
+
+        private void read() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(_socket.getInputStream()));
+                _out = new DataOutputStream(new BufferedOutputStream(_socket.getOutputStream()));
+                String format = in.readUTF();
+                if (!_format.name().equals(format)) {
+                    writeError(0, "Unsupported format " + format + "; this endpoint uses " + _format);
+                    return;
+                }
+                while (true) {
+                    final TcpFrames.Frame frame = TcpFrames.read(in, _maxFrameLength);
+                    if (frame.getType() != TcpFrames.REQUEST) {
+                        continue;
+                    }
+                    ExecutorService workers = _workers;
+                    try {
+                        if (workers == null) {
+                            throw new RejectedExecutionException();
+                        }
+                        workers.execute(new Runnable() {
+                            public void run() {
+                                dispatch(frame);
+                            }
+                        });
+                    } catch (RejectedExecutionException ree) {
+                        writeError(frame.getId(), workers == null || workers.isShutdown()
+                                ? "Remote endpoint is shutting down" : "Remote endpoint busy");
+                    }
+                }
+            } catch (EOFException eof) {
+                // client closed the connection
+                if (_log.isDebugEnabled()) {
+                    _log.debug("Remote TCP connection closed by " + _socket.getRemoteSocketAddress());
+                }
+            } catch (IOException ioe) {
+                if (!_socket.isClosed()) {
+                    _log.warn("Problem reading from remote TCP connection " + _socket.getRemoteSocketAddress() + ": " + ioe.getMessage());
+                }
+            } finally {
+                _connections.remove(_socket);
+                closeQuietly(_socket);
+            }
+        }
+
+        private void dispatch(TcpFrames.Frame frame) {
+            final long id = frame.getId();
+            ClassLoader setTCCL = null;
+            boolean tcclSet = false;
+            try {
+                // the service name leads the payload so the deployment's loader can be set before deserializing
+                DataInputStream payload = new DataInputStream(new ByteArrayInputStream(frame.getPayload()));
+                QName serviceName = QName.valueOf(payload.readUTF());
+                ServiceDomain domain = getDomain(serviceName);
+                if (domain == null) {
+                    writeError(id, "No remote endpoint registered for service " + serviceName);
+                    return;
+                }
+                ClassLoader loader = (ClassLoader) domain.getProperties().get(Deployment.CLASSLOADER_PROPERTY);
+                setTCCL = Classes.setTCCL(loader);
+                tcclSet = true;
+                RemoteMessage msg = _serializer.deserialize(payload, RemoteMessage.class);
+                ServiceReference service = domain.getServiceReference(msg.getService());
+                if (service == null) {
+                    writeError(id, "No service reference registered for " + msg.getService());
+                    return;
+                }
+                final ReplyHandler replyHandler = new ReplyHandler(id);
+                Exchange ex = msg.getOperation() == null
+                        ? service.createExchange(replyHandler)
+                        : service.createExchange(msg.getOperation(), replyHandler);
+                Message m = ex.createMessage();
+                if (msg.getContext() != null) {
+                    ex.getContext().setProperties(msg.getContext().getProperties());
+                }
+                m.setContent(msg.getContent());
+                ex.send(m);
+                if (!ex.getContract().getProviderOperation().getExchangePattern().equals(ExchangePattern.IN_OUT)) {
+                    write(id, TcpFrames.ACK, null);
+                }
+            } catch (Throwable t) {
+                _log.warn("Problem dispatching remote TCP request: " + t.getMessage(), t);
+                writeError(id, String.valueOf(t.getMessage()));
+            } finally {
+                if (tcclSet) {
+                    Classes.setTCCL(setTCCL);
+                }
+            }
+        }
+
+        private void writeError(long id, String message) {
+            try {
+                write(id, TcpFrames.ERROR, message.getBytes("UTF-8"));
+            } catch (IOException ioe) {
+                _log.warn("Problem writing remote TCP error reply: " + ioe.getMessage());
+            }
+        }
+
+        private void write(long id, byte type, byte[] payload) throws IOException {
+            synchronized (_out) {
+                TcpFrames.write(_out, id, type, payload, _maxFrameLength);
+            }
+        }
+
+        private final class ReplyHandler extends BaseHandler {
+
+            private final long _id;
+
+            private ReplyHandler(long id) {
+                _id = id;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void handleMessage(Exchange exchange) throws HandlerException {
+                reply(exchange);
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void handleFault(Exchange exchange) {
+                reply(exchange);
+            }
+
+            private void reply(Exchange exchange) {
+                try {
+                    RemoteMessage reply = RemoteMessages.createReplyMessage(exchange, _contextWhitelist);
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    _serializer.serialize(reply, RemoteMessage.class, baos);
+                    write(_id, TcpFrames.REPLY, baos.toByteArray());
+                } catch (Throwable t) {
+                    _log.warn("Problem writing remote TCP reply: " + t.getMessage(), t);
+                    writeError(_id, String.valueOf(t.getMessage()));
+                }
+            }
+
+        }
+
+    }
+
+}
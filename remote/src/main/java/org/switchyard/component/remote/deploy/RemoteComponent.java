@@ -22,6 +22,7 @@ import java.util.ServiceLoader;
 
 import org.switchyard.ServiceDomain;
 import org.switchyard.component.remote.RemoteEndpointPublisher;
+import org.switchyard.component.remote.TcpRemoteEndpointPublisher;
 import org.switchyard.deploy.Activator;
 import org.switchyard.deploy.BaseComponent;
 
@@ -30,6 +31,9 @@ import org.switchyard.deploy.BaseComponent;
  */
 public class RemoteComponent extends BaseComponent {
     
+    /** System property selecting the inbound transport; "tcp" selects {@link TcpRemoteEndpointPublisher}. */
+    public static final String TRANSPORT_PROPERTY = "switchyard.remote.transport";
+
     private static final String CONTEXT_PATH = "switchyard-remote";
     private RemoteEndpointPublisher _endpointPublisher;
 
@@ -40,7 +44,11 @@ public class RemoteComponent extends BaseComponent {
         super(RemoteActivator.TYPES);
         setName("RemoteComponent");
         try {
-            _endpointPublisher = ServiceLoader.load(RemoteEndpointPublisher.class).iterator().next();
+            if (TcpRemoteEndpointPublisher.SCHEME.equalsIgnoreCase(System.getProperty(TRANSPORT_PROPERTY))) {
+                _endpointPublisher = new TcpRemoteEndpointPublisher();
+            } else {
+                _endpointPublisher = ServiceLoader.load(RemoteEndpointPublisher.class).iterator().next();
+            }
             _endpointPublisher.init(CONTEXT_PATH);
             _endpointPublisher.start();
         } catch (Exception ex) {
@@ -0,0 +1,152 @@
+package org.switchyard.component.remote;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.switchyard.Context;
+import org.switchyard.Exchange;
+import org.switchyard.ExchangePattern;
+import org.switchyard.Message;
+import org.switchyard.Service;
+import org.switchyard.ServiceDomain;
+import org.switchyard.internal.DefaultContext;
+import org.switchyard.metadata.ExchangeContract;
+import org.switchyard.metadata.ServiceOperation;
+import org.switchyard.remote.RemoteMessage;
+import org.switchyard.serial.FormatType;
+import org.switchyard.serial.Serializer;
+import org.switchyard.serial.SerializerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpRemoteInvokerTest {
+
+    private final AtomicReference<String> requestFormat = new AtomicReference<String>();
+    private final AtomicReference<RemoteMessage> request = new AtomicReference<RemoteMessage>();
+    private HttpServer server;
+    private String address;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // stands in for the remoting servlet: reads the request in the format it names and replies in kind
+        server.createContext("/switchyard-remote", new HttpHandler() {
+            public void handle(HttpExchange http) throws IOException {
+                String format = http.getRequestHeaders().getFirst(SwitchYardRemotingServlet.FORMAT_HEADER);
+                requestFormat.set(format);
+                Serializer serializer = SerializerFactory.create(FormatType.valueOf(format), null, true);
+                RemoteMessage message = serializer.deserialize(http.getRequestBody(), RemoteMessage.class);
+                request.set(message);
+                RemoteMessage reply = new RemoteMessage()
+                    .setService(message.getService())
+                    .setContent("reply:" + message.getContent());
+                http.getResponseHeaders().add(SwitchYardRemotingServlet.FORMAT_HEADER, format);
+                http.sendResponseHeaders(200, 0);
+                OutputStream out = http.getResponseBody();
+                serializer.serialize(reply, RemoteMessage.class, out);
+                out.close();
+            }
+        });
+        server.start();
+        address = "http://127.0.0.1:" + server.getAddress().getPort() + "/switchyard-remote";
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+        System.clearProperty(HttpRemoteInvoker.FORMAT_PROPERTY);
+        System.clearProperty(SwitchYardRemotingServlet.SER_OBJECT_PROPERTY);
+        System.clearProperty(SwitchYardRemotingServlet.CONTEXT_WHITELIST_PROPERTY);
+    }
+
+    @Test
+    public void jsonRoundTripWithTrimmedContext() throws Exception {
+        System.setProperty(SwitchYardRemotingServlet.CONTEXT_WHITELIST_PROPERTY, "kept");
+        Message reply = mockReply();
+        Exchange exchange = mockExchange(reply);
+        exchange.getContext().setProperty("kept", "yes");
+        exchange.getContext().setProperty("dropped", "no");
+
+        new HttpRemoteInvoker().invoke(exchange, address);
+
+        Assert.assertEquals(FormatType.JSON.name(), requestFormat.get());
+        Context context = request.get().getContext();
+        Assert.assertNotNull(context.getProperty("kept"));
+        Assert.assertNull(context.getProperty("dropped"));
+        Assert.assertNotNull(exchange.getContext().getProperty("dropped"));
+        verify(reply).setContent("reply:request");
+        verify(exchange).send(reply);
+    }
+
+    @Test
+    public void serObjectRoundTripWhenAllowed() throws Exception {
+        System.setProperty(HttpRemoteInvoker.FORMAT_PROPERTY, FormatType.SER_OBJECT.name());
+        System.setProperty(SwitchYardRemotingServlet.SER_OBJECT_PROPERTY, "true");
+        Message reply = mockReply();
+        Exchange exchange = mockExchange(reply);
+
+        new HttpRemoteInvoker().invoke(exchange, address);
+
+        Assert.assertEquals(FormatType.SER_OBJECT.name(), requestFormat.get());
+        Assert.assertEquals(new QName("HttpRemoteInvokerTest"), request.get().getService());
+        verify(reply).setContent("reply:request");
+        verify(exchange).send(reply);
+    }
+
+    @Test
+    public void serObjectNeedsFlag() throws Exception {
+        System.setProperty(HttpRemoteInvoker.FORMAT_PROPERTY, FormatType.SER_OBJECT.name());
+        Message reply = mockReply();
+
+        new HttpRemoteInvoker().invoke(mockExchange(reply), address);
+
+        Assert.assertEquals(FormatType.JSON.name(), requestFormat.get());
+        verify(reply).setContent("reply:request");
+    }
+
+    private Message mockReply() {
+        Message reply = mock(Message.class);
+        when(reply.setContent(any())).thenReturn(reply);
+        return reply;
+    }
+
+    private Exchange mockExchange(Message reply) {
+        ServiceDomain domain = mock(ServiceDomain.class);
+        when(domain.getName()).thenReturn(new QName("test"));
+        Service provider = mock(Service.class);
+        when(provider.getDomain()).thenReturn(domain);
+        when(provider.getName()).thenReturn(new QName("HttpRemoteInvokerTest"));
+        ServiceOperation operation = mock(ServiceOperation.class);
+        when(operation.getName()).thenReturn("process");
+        when(operation.getExchangePattern()).thenReturn(ExchangePattern.IN_OUT);
+        ExchangeContract contract = mock(ExchangeContract.class);
+        when(contract.getConsumerOperation()).thenReturn(operation);
+        when(contract.getProviderOperation()).thenReturn(operation);
+        Message in = mock(Message.class);
+        when(in.getContent()).thenReturn("request");
+        Exchange exchange = mock(Exchange.class);
+        when(exchange.getProvider()).thenReturn(provider);
+        when(exchange.getContract()).thenReturn(contract);
+        when(exchange.getContext()).thenReturn(new DefaultContext());
+        when(exchange.getMessage()).thenReturn(in);
+        when(exchange.createMessage()).thenReturn(reply);
+        return exchange;
+    }
+
+}
@@ -1,15 +1,19 @@
 package org.switchyard.component.remote;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.concurrent.TimeUnit;
 
 import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.xml.namespace.QName;
@@ -23,6 +27,7 @@ import org.switchyard.ServiceDomain;
 import org.switchyard.deploy.internal.Deployment;
 import org.switchyard.internal.DomainImpl;
 import org.switchyard.metadata.InOnlyService;
+import org.switchyard.metadata.InOutService;
 import org.switchyard.metadata.java.JavaService;
 import org.switchyard.remote.RemoteMessage;
 import org.switchyard.remote.http.HttpInvoker;
@@ -120,6 +125,116 @@ public class SwitchYardRemotingServletTest {
         Assert.assertEquals("bar", ex.getContract().getConsumerOperation().getName());
     }
     
+    @Test
+    public void unknownFormatFallsBackToJson() throws Exception {
+        MockHandler handler = new MockHandler();
+        domain.registerServiceReference(TEST_SERVICE, new InOnlyService());
+        domain.registerService(TEST_SERVICE, new InOnlyService(), handler);
+        when(request.getHeader(SwitchYardRemotingServlet.FORMAT_HEADER)).thenReturn("NOT_A_FORMAT");
+        
+        RemoteMessage msg = new RemoteMessage()
+            .setService(TEST_SERVICE);
+        setRequestMessage(msg);
+        servlet.doPost(request, response);
+        
+        Exchange ex = handler.getMessages().poll(300, TimeUnit.MILLISECONDS);
+        Assert.assertNotNull(ex);
+    }
+    
+    @Test
+    public void serObjectFormatNeedsFlag() throws Exception {
+        MockHandler handler = new MockHandler();
+        domain.registerServiceReference(TEST_SERVICE, new InOnlyService());
+        domain.registerService(TEST_SERVICE, new InOnlyService(), handler);
+        servlet.setAllowedFormats(EnumSet.allOf(FormatType.class));
+        when(request.getHeader(SwitchYardRemotingServlet.FORMAT_HEADER)).thenReturn(FormatType.SER_OBJECT.name());
+        
+        // the request is read as JSON, not handed to Java deserialization
+        RemoteMessage msg = new RemoteMessage()
+            .setService(TEST_SERVICE);
+        setRequestMessage(msg);
+        servlet.doPost(request, response);
+        
+        Exchange ex = handler.getMessages().poll(300, TimeUnit.MILLISECONDS);
+        Assert.assertNotNull(ex);
+    }
+    
+    @Test
+    public void serObjectRoundTripWhenAllowed() throws Exception {
+        domain.registerServiceReference(TEST_SERVICE, new InOutService());
+        domain.registerService(TEST_SERVICE, new InOutService(), new MockHandler().forwardInToOut());
+        servlet.setSerObjectAllowed(true);
+        when(request.getHeader(SwitchYardRemotingServlet.FORMAT_HEADER)).thenReturn(FormatType.SER_OBJECT.name());
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            public void write(int b) throws IOException {
+                output.write(b);
+            }
+        });
+        
+        Serializer binary = SerializerFactory.create(FormatType.SER_OBJECT, null, true);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        binary.serialize(new RemoteMessage().setService(TEST_SERVICE).setContent("binary"), RemoteMessage.class, bos);
+        input = new ByteArrayInputStream(bos.toByteArray());
+        servlet.doPost(request, response);
+        
+        verify(response).setHeader(SwitchYardRemotingServlet.FORMAT_HEADER, FormatType.SER_OBJECT.name());
+        RemoteMessage reply = binary.deserialize(new ByteArrayInputStream(output.toByteArray()), RemoteMessage.class);
+        Assert.assertEquals("binary", reply.getContent());
+    }
+    
+    @Test
+    public void disallowedFormatFallsBackToJson() throws Exception {
+        MockHandler handler = new MockHandler();
+        domain.registerServiceReference(TEST_SERVICE, new InOnlyService());
+        domain.registerService(TEST_SERVICE, new InOnlyService(), handler);
+        servlet.setAllowedFormats(Collections.<FormatType>emptySet());
+        when(request.getHeader(SwitchYardRemotingServlet.FORMAT_HEADER)).thenReturn(FormatType.XML_BEAN.name());
+        
+        RemoteMessage msg = new RemoteMessage()
+            .setService(TEST_SERVICE);
+        setRequestMessage(msg);
+        servlet.doPost(request, response);
+        
+        Exchange ex = handler.getMessages().poll(300, TimeUnit.MILLISECONDS);
+        Assert.assertNotNull(ex);
+    }
+    
+    @Test
+    public void replyContextWhitelistLeavesExchangeContextAlone() throws Exception {
+        MockHandler handler = new MockHandler();
+        domain.registerServiceReference(TEST_SERVICE, new InOnlyService());
+        domain.registerService(TEST_SERVICE, new InOnlyService(), handler);
+        RemoteMessage msg = new RemoteMessage()
+            .setService(TEST_SERVICE);
+        setRequestMessage(msg);
+        servlet.doPost(request, response);
+        Exchange ex = handler.getMessages().poll(300, TimeUnit.MILLISECONDS);
+        ex.getContext().setProperty("kept", "yes");
+        ex.getContext().setProperty("dropped", "no");
+        
+        servlet.setContextWhitelist(Collections.singletonList("kept"));
+        RemoteMessage reply = servlet.createReplyMessage(ex);
+        Assert.assertNotNull(reply.getContext().getProperty("kept"));
+        Assert.assertNull(reply.getContext().getProperty("dropped"));
+        Assert.assertNotNull(ex.getContext().getProperty("dropped"));
+    }
+    
+    @Test
+    public void cachedServiceReference() throws Exception {
+        MockHandler handler = new MockHandler();
+        domain.registerServiceReference(TEST_SERVICE, new InOnlyService());
+        domain.registerService(TEST_SERVICE, new InOnlyService(), handler);
+        
+        for (int i = 0; i < 2; i++) {
+            RemoteMessage msg = new RemoteMessage()
+                .setService(TEST_SERVICE);
+            setRequestMessage(msg);
+            servlet.doPost(request, response);
+            Assert.assertNotNull(handler.getMessages().poll(300, TimeUnit.MILLISECONDS));
+        }
+    }
+    
     private void setRequestMessage(RemoteMessage message) throws Exception {
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         serializer.serialize(message, RemoteMessage.class, bos);
@@ -0,0 +1,125 @@
+package org.switchyard.component.remote;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.switchyard.Exchange;
+import org.switchyard.ExchangePattern;
+import org.switchyard.Message;
+import org.switchyard.Service;
+import org.switchyard.ServiceDomain;
+import org.switchyard.ServiceReference;
+import org.switchyard.internal.DefaultContext;
+import org.switchyard.metadata.ExchangeContract;
+import org.switchyard.metadata.ServiceOperation;
+import org.switchyard.remote.RemoteMessage;
+import org.switchyard.serial.FormatType;
+
+public class TcpInvokerTest {
+
+    private ServerSocket server;
+
+    @Before
+    public void setUp() throws Exception {
+        System.setProperty(TcpInvoker.REPLY_TIMEOUT_PROPERTY, "200");
+        server = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(TcpInvoker.REPLY_TIMEOUT_PROPERTY);
+        server.close();
+    }
+
+    @Test
+    public void missingReplyTimesOut() throws Exception {
+        TcpInvoker invoker = TcpInvoker.getInvoker("tcp://127.0.0.1:" + server.getLocalPort());
+        Exchange exchange = mockExchange();
+        invoker.invoke(exchange);
+        Socket socket = server.accept();
+        try {
+            // the server reads the request but never answers it
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            Assert.assertEquals(FormatType.JSON.name(), in.readUTF());
+            TcpFrames.Frame frame = TcpFrames.read(in, TcpFrames.DEFAULT_MAX_FRAME_LENGTH);
+            Assert.assertEquals(TcpFrames.REQUEST, frame.getType());
+            verify(exchange, timeout(5000)).sendFault(any(Message.class));
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void requestContextIsTrimmed() throws Exception {
+        System.setProperty(SwitchYardRemotingServlet.CONTEXT_WHITELIST_PROPERTY, "kept*");
+        try {
+            TcpInvoker invoker = TcpInvoker.getInvoker("tcp://127.0.0.1:" + server.getLocalPort());
+            Exchange exchange = mockExchange();
+            exchange.getContext().setProperty("kept.one", "yes");
+            exchange.getContext().setProperty("dropped", "no");
+            invoker.invoke(exchange);
+            Socket socket = server.accept();
+            try {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                Assert.assertEquals(FormatType.JSON.name(), in.readUTF());
+                TcpFrames.Frame frame = TcpFrames.read(in, TcpFrames.DEFAULT_MAX_FRAME_LENGTH);
+                DataInputStream payload = new DataInputStream(new ByteArrayInputStream(frame.getPayload()));
+                Assert.assertEquals("TcpInvokerTest", payload.readUTF());
+                RemoteMessage request = TcpFrames.newSerializer(FormatType.JSON).deserialize(payload, RemoteMessage.class);
+                Assert.assertEquals("request", request.getContent());
+                Assert.assertNotNull(request.getContext().getProperty("kept.one"));
+                Assert.assertNull(request.getContext().getProperty("dropped"));
+                Assert.assertNotNull(exchange.getContext().getProperty("dropped"));
+            } finally {
+                socket.close();
+            }
+        } finally {
+            System.clearProperty(SwitchYardRemotingServlet.CONTEXT_WHITELIST_PROPERTY);
+        }
+    }
+
+    private Exchange mockExchange() {
+        ServiceDomain domain = mock(ServiceDomain.class);
+        when(domain.getName()).thenReturn(new QName("test"));
+        Service provider = mock(Service.class);
+        when(provider.getDomain()).thenReturn(domain);
+        when(provider.getName()).thenReturn(new QName("TcpInvokerTest"));
+        ServiceReference consumer = mock(ServiceReference.class);
+        when(consumer.getName()).thenReturn(new QName("TcpInvokerTest"));
+        ServiceOperation operation = mock(ServiceOperation.class);
+        when(operation.getName()).thenReturn("process");
+        when(operation.getExchangePattern()).thenReturn(ExchangePattern.IN_OUT);
+        ExchangeContract contract = mock(ExchangeContract.class);
+        when(contract.getConsumerOperation()).thenReturn(operation);
+        when(contract.getProviderOperation()).thenReturn(operation);
+        Message in = mock(Message.class);
+        when(in.getContent()).thenReturn("request");
+        Message fault = mock(Message.class);
+        when(fault.setContent(any())).thenReturn(fault);
+        Exchange exchange = mock(Exchange.class);
+        when(exchange.getProvider()).thenReturn(provider);
+        when(exchange.getConsumer()).thenReturn(consumer);
+        when(exchange.getContract()).thenReturn(contract);
+        when(exchange.getContext()).thenReturn(new DefaultContext());
+        when(exchange.getMessage()).thenReturn(in);
+        when(exchange.createMessage()).thenReturn(fault);
+        return exchange;
+    }
+
+}
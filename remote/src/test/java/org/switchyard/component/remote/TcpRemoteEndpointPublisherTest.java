@@ -0,0 +1,236 @@
+package org.switchyard.component.remote;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.switchyard.BaseHandler;
+import org.switchyard.Exchange;
+import org.switchyard.HandlerException;
+import org.switchyard.ServiceDomain;
+import org.switchyard.SwitchYardException;
+import org.switchyard.deploy.internal.Deployment;
+import org.switchyard.internal.DomainImpl;
+import org.switchyard.metadata.InOnlyService;
+import org.switchyard.remote.RemoteMessage;
+import org.switchyard.serial.FormatType;
+import org.switchyard.serial.Serializer;
+import org.switchyard.test.MockHandler;
+
+public class TcpRemoteEndpointPublisherTest {
+
+    private static final int MAX = TcpFrames.DEFAULT_MAX_FRAME_LENGTH;
+
+    private final QName TEST_SERVICE = new QName("TcpRemotingTest");
+
+    private TcpRemoteEndpointPublisher publisher;
+    private ServiceDomain domain;
+
+    @Before
+    public void setUp() throws Exception {
+        System.setProperty(TcpRemoteEndpointPublisher.HOST_PROPERTY, "127.0.0.1");
+        System.setProperty(TcpRemoteEndpointPublisher.PORT_PROPERTY, "0");
+        domain = new DomainImpl(new QName("test"));
+        domain.getProperties().put(Deployment.CLASSLOADER_PROPERTY, getClass().getClassLoader());
+        publisher = new TcpRemoteEndpointPublisher();
+        publisher.init("switchyard-remote");
+        publisher.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        publisher.stop();
+        System.clearProperty(TcpRemoteEndpointPublisher.HOST_PROPERTY);
+        System.clearProperty(TcpRemoteEndpointPublisher.PORT_PROPERTY);
+    }
+
+    @Test
+    public void pipelinedOneWayRequests() throws Exception {
+        MockHandler handler = new MockHandler();
+        domain.registerServiceReference(TEST_SERVICE, new InOnlyService());
+        domain.registerService(TEST_SERVICE, new InOnlyService(), handler);
+        publisher.addService(TEST_SERVICE, domain);
+
+        URI address = URI.create(publisher.getAddress());
+        Assert.assertEquals(TcpRemoteEndpointPublisher.SCHEME, address.getScheme());
+        Socket socket = new Socket(address.getHost(), address.getPort());
+        try {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeUTF(FormatType.JSON.name());
+            Serializer serializer = TcpFrames.newSerializer(FormatType.JSON);
+            // write both requests before reading any acknowledgement
+            for (long id = 1; id <= 2; id++) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                DataOutputStream payload = new DataOutputStream(baos);
+                payload.writeUTF(TEST_SERVICE.toString());
+                serializer.serialize(new RemoteMessage().setService(TEST_SERVICE), RemoteMessage.class, payload);
+                payload.flush();
+                TcpFrames.write(out, id, TcpFrames.REQUEST, baos.toByteArray(), MAX);
+            }
+            long acked = 0;
+            for (int i = 0; i < 2; i++) {
+                TcpFrames.Frame frame = TcpFrames.read(in, MAX);
+                Assert.assertEquals(TcpFrames.ACK, frame.getType());
+                acked += frame.getId();
+            }
+            Assert.assertEquals(3, acked);
+            Assert.assertNotNull(handler.getMessages().poll(300, TimeUnit.MILLISECONDS));
+            Assert.assertNotNull(handler.getMessages().poll(300, TimeUnit.MILLISECONDS));
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void floodedConnectionIsRefusedWhenQueueIsFull() throws Exception {
+        publisher.stop();
+        System.setProperty(TcpRemoteEndpointPublisher.WORKERS_PROPERTY, "1");
+        System.setProperty(TcpRemoteEndpointPublisher.QUEUE_FACTOR_PROPERTY, "1");
+        try {
+            publisher = new TcpRemoteEndpointPublisher();
+            publisher.init("switchyard-remote");
+            publisher.start();
+        } finally {
+            System.clearProperty(TcpRemoteEndpointPublisher.WORKERS_PROPERTY);
+            System.clearProperty(TcpRemoteEndpointPublisher.QUEUE_FACTOR_PROPERTY);
+        }
+        final CountDownLatch release = new CountDownLatch(1);
+        domain.registerServiceReference(TEST_SERVICE, new InOnlyService());
+        domain.registerService(TEST_SERVICE, new InOnlyService(), new BaseHandler() {
+            @Override
+            public void handleMessage(Exchange exchange) throws HandlerException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        publisher.addService(TEST_SERVICE, domain);
+
+        URI address = URI.create(publisher.getAddress());
+        Socket socket = new Socket(address.getHost(), address.getPort());
+        try {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeUTF(FormatType.JSON.name());
+            Serializer serializer = TcpFrames.newSerializer(FormatType.JSON);
+            // the first request holds the only worker, the second fills the queue, the rest are refused
+            for (long id = 1; id <= 5; id++) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                DataOutputStream payload = new DataOutputStream(baos);
+                payload.writeUTF(TEST_SERVICE.toString());
+                serializer.serialize(new RemoteMessage().setService(TEST_SERVICE), RemoteMessage.class, payload);
+                payload.flush();
+                TcpFrames.write(out, id, TcpFrames.REQUEST, baos.toByteArray(), MAX);
+            }
+            for (long id = 3; id <= 5; id++) {
+                TcpFrames.Frame frame = TcpFrames.read(in, MAX);
+                Assert.assertEquals(id, frame.getId());
+                Assert.assertEquals(TcpFrames.ERROR, frame.getType());
+                Assert.assertEquals("Remote endpoint busy", new String(frame.getPayload(), "UTF-8"));
+            }
+            release.countDown();
+            long acked = 0;
+            for (int i = 0; i < 2; i++) {
+                TcpFrames.Frame frame = TcpFrames.read(in, MAX);
+                Assert.assertEquals(TcpFrames.ACK, frame.getType());
+                acked += frame.getId();
+            }
+            Assert.assertEquals(3, acked);
+        } finally {
+            release.countDown();
+            socket.close();
+        }
+    }
+
+    @Test
+    public void unknownService() throws Exception {
+        URI address = URI.create(publisher.getAddress());
+        Socket socket = new Socket(address.getHost(), address.getPort());
+        try {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeUTF(FormatType.JSON.name());
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            new DataOutputStream(baos).writeUTF(TEST_SERVICE.toString());
+            TcpFrames.write(out, 7, TcpFrames.REQUEST, baos.toByteArray(), MAX);
+            TcpFrames.Frame frame = TcpFrames.read(in, MAX);
+            Assert.assertEquals(7, frame.getId());
+            Assert.assertEquals(TcpFrames.ERROR, frame.getType());
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void clientCannotChooseFormat() throws Exception {
+        URI address = URI.create(publisher.getAddress());
+        Socket socket = new Socket(address.getHost(), address.getPort());
+        try {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeUTF(FormatType.SER_OBJECT.name());
+            out.flush();
+            TcpFrames.Frame frame = TcpFrames.read(in, MAX);
+            Assert.assertEquals(TcpFrames.ERROR, frame.getType());
+            Assert.assertEquals(-1, in.read());
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void oversizedFrameClosesConnection() throws Exception {
+        URI address = URI.create(publisher.getAddress());
+        Socket socket = new Socket(address.getHost(), address.getPort());
+        try {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeUTF(FormatType.JSON.name());
+            out.writeInt(MAX + 1);
+            out.flush();
+            Assert.assertEquals(-1, in.read());
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void oversizedFrameIsNotWritten() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            TcpFrames.write(new DataOutputStream(baos), 1, TcpFrames.REQUEST, new byte[100], 100);
+            Assert.fail("Expected the frame to be refused");
+        } catch (TcpFrames.FrameTooLongException ftle) {
+            Assert.assertEquals(0, baos.size());
+        }
+    }
+
+    @Test
+    public void listenerRequiresBindAddress() throws Exception {
+        System.clearProperty(TcpRemoteEndpointPublisher.HOST_PROPERTY);
+        TcpRemoteEndpointPublisher unbound = new TcpRemoteEndpointPublisher();
+        unbound.init("switchyard-remote");
+        try {
+            unbound.start();
+            Assert.fail("Expected the listener to refuse to start without a bind address");
+        } catch (SwitchYardException sye) {
+            // expected
+        } finally {
+            unbound.stop();
+        }
+    }
+}
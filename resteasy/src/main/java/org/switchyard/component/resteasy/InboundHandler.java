@@ -33,7 +33,9 @@ import org.switchyard.component.resteasy.composer.RESTEasyComposition;
 import org.switchyard.component.resteasy.composer.RESTEasyBindingData;
 import org.switchyard.component.resteasy.config.model.RESTEasyBindingModel;
 import org.switchyard.component.resteasy.resource.Resource;
+import org.switchyard.component.resteasy.resource.ResourcePublisher;
 import org.switchyard.component.resteasy.resource.ResourcePublisherFactory;
+import org.switchyard.component.resteasy.resource.StandaloneResourcePublisher;
 import org.switchyard.component.resteasy.util.ClassUtil;
 import org.switchyard.deploy.BaseServiceHandler;
 
@@ -77,7 +79,13 @@ public class InboundHandler extends BaseServiceHandler {
                 contextPath = "/";
             }
             // Add as singleton instances
-            _resource = ResourcePublisherFactory.getPublisher().publish(contextPath, instances);
+            ResourcePublisher publisher = ResourcePublisherFactory.getPublisher();
+            if (publisher instanceof StandaloneResourcePublisher) {
+                // outside a container the binding also configures the shared server
+                _resource = ((StandaloneResourcePublisher)publisher).publish(contextPath, instances, _config);
+            } else {
+                _resource = publisher.publish(contextPath, instances);
+            }
             // Create and configure the RESTEasy message composer
             _messageComposer = RESTEasyComposition.getMessageComposer(_config);
         } catch (Exception e) {
@@ -19,21 +19,43 @@
  
 package org.switchyard.component.resteasy;
 
-import java.io.StringWriter;
-import java.io.Writer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Marshaller;
+import javax.xml.bind.JAXBException;
 
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.HttpConnectionParams;
 import org.apache.log4j.Logger;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.jboss.resteasy.client.ClientRequest;
+import org.jboss.resteasy.client.ClientExecutor;
 import org.jboss.resteasy.client.ClientResponse;
+import org.jboss.resteasy.client.core.executors.ApacheHttpClient4Executor;
 import org.switchyard.Exchange;
 import org.switchyard.HandlerException;
 import org.switchyard.Message;
+import org.switchyard.common.type.Classes;
 import org.switchyard.component.common.composer.MessageComposer;
 import org.switchyard.component.common.rest.RsMethod;
 import org.switchyard.component.common.rest.RsMethodUtil;
@@ -55,6 +77,22 @@ public class OutboundHandler extends BaseServiceHandler {
     private String _baseAddress = "http://localhost:8080";
     private Map<String, RsMethod> _resourcePaths;
     private MessageComposer<RESTEasyBindingData> _messageComposer;
+    private String _requestBase;
+    private DefaultHttpClient _httpClient;
+    private ClientExecutor _clientExecutor;
+    private ExecutorService _asyncExecutor;
+    private ScheduledExecutorService _replyTimer;
+    private long _replyTimeout;
+    private final Map<String, JAXBContext> _jaxbContexts = new ConcurrentHashMap<String, JAXBContext>();
+    // ObjectMapper is thread-safe once configured, so one instance serves every method
+    private final ObjectMapper _objectMapper = new ObjectMapper();
+
+    /** The default maximum number of pooled connections per binding. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    /** The maximum number of async requests queued per binding while all pool threads are busy. */
+    public static final int MAX_QUEUED_ASYNC_REQUESTS = 1000;
+    /** The time in milliseconds an async request waits for its reply when no socket timeout is configured. */
+    public static final long DEFAULT_ASYNC_REPLY_TIMEOUT = 60000L;
 
     /**
      * Constructor.
@@ -62,6 +100,8 @@ public class OutboundHandler extends BaseServiceHandler {
      */
     public OutboundHandler(final RESTEasyBindingModel config) {
         _config = config;
+        // leave the request stream for RESTEasy to close
+        _objectMapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
     }
 
     /**
@@ -76,14 +116,99 @@ public class OutboundHandler extends BaseServiceHandler {
         if (address != null) {
             _baseAddress = address;
         }
+        String contextPath = _config.getContextPath();
+        _requestBase = contextPath != null ? _baseAddress + "/" + contextPath : _baseAddress;
         // Create and configure the RESTEasy message composer
         _messageComposer = RESTEasyComposition.getMessageComposer(_config);
+        // One pooled, keep-alive HTTP client per binding, shared by every request
+        int maxConnections = _config.getMaxConnections() != null ? _config.getMaxConnections() : DEFAULT_MAX_CONNECTIONS;
+        ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        _httpClient = new DefaultHttpClient(connectionManager);
+        if (_config.getConnectionTimeout() != null) {
+            HttpConnectionParams.setConnectionTimeout(_httpClient.getParams(), _config.getConnectionTimeout());
+        }
+        if (_config.getSocketTimeout() != null) {
+            HttpConnectionParams.setSoTimeout(_httpClient.getParams(), _config.getSocketTimeout());
+        }
+        _clientExecutor = new ApacheHttpClient4Executor(_httpClient);
+        if (_config.isAsync()) {
+            final String prefix = "RESTEasy:" + _config.getServiceName().getLocalPart() + "-";
+            // bounded, so a slow endpoint makes callers fail fast instead of queueing without limit
+            ThreadPoolExecutor asyncExecutor = new ThreadPoolExecutor(maxConnections, maxConnections, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(MAX_QUEUED_ASYNC_REQUESTS), newThreadFactory(prefix),
+                    new ThreadPoolExecutor.AbortPolicy());
+            asyncExecutor.allowCoreThreadTimeOut(true);
+            _asyncExecutor = asyncExecutor;
+            // the socket timeout bounds each read, but not a reply trickling in, so bound the whole reply too
+            _replyTimeout = _config.getSocketTimeout() != null && _config.getSocketTimeout() > 0
+                ? _config.getSocketTimeout().longValue() : DEFAULT_ASYNC_REPLY_TIMEOUT;
+            _replyTimer = new ScheduledThreadPoolExecutor(1, newThreadFactory(prefix + "timer-"));
+        }
+        // JAXBContexts are expensive to create but thread-safe, so build them once per method
+        _jaxbContexts.clear();
+        for (Map.Entry<String, RsMethod> entry : _resourcePaths.entrySet()) {
+            RsMethod restMethod = entry.getValue();
+            if (restMethod.getRequestType() != null && !restMethod.hasParam() && consumesXml(restMethod)) {
+                try {
+                    _jaxbContexts.put(entry.getKey(), JAXBContext.newInstance(restMethod.getRequestType()));
+                } catch (JAXBException e) {
+                    // not necessarily an error; the request might never carry XML content
+                    LOGGER.debug("Unable to create JAXBContext for " + restMethod.getRequestType() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static ThreadFactory newThreadFactory(final String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger _count = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + _count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    private static boolean consumesXml(RsMethod restMethod) {
+        return restMethod.getConsumes().contains(MediaType.APPLICATION_XML_TYPE)
+            || restMethod.getConsumes().contains(MediaType.WILDCARD_TYPE)
+            || restMethod.getConsumes().contains(MediaType.TEXT_XML_TYPE);
+    }
+
+    JAXBContext getJAXBContext(String key, RsMethod restMethod) throws JAXBException {
+        JAXBContext jaxbContext = _jaxbContexts.get(key);
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(restMethod.getRequestType());
+            _jaxbContexts.put(key, jaxbContext);
+        }
+        return jaxbContext;
+    }
+
+    ObjectMapper getObjectMapper() {
+        return _objectMapper;
     }
 
     /**
      * Stop lifecycle.
      */
     public void stop() {
+        if (_asyncExecutor != null) {
+            _asyncExecutor.shutdown();
+            _asyncExecutor = null;
+        }
+        if (_replyTimer != null) {
+            _replyTimer.shutdownNow();
+            _replyTimer = null;
+        }
+        if (_httpClient != null) {
+            _httpClient.getConnectionManager().shutdown();
+            _httpClient = null;
+            _clientExecutor = null;
+        }
     }
 
     /**
@@ -94,18 +219,70 @@ public class OutboundHandler extends BaseServiceHandler {
      */
     @Override
     public void handleMessage(final Exchange exchange) throws HandlerException {
-        final RsMethod restMethod = _resourcePaths.get(exchange.getContract().getProviderOperation().toString());
+        final String key = exchange.getContract().getProviderOperation().toString();
+        final RsMethod restMethod = _resourcePaths.get(key);
         final String opName = exchange.getContract().getProviderOperation().getName();
         if (restMethod == null) {
             throw new RuntimeException("Could not map " + opName + " to any RESTEasy method.");
         }
+        ExecutorService asyncExecutor = _asyncExecutor;
+        ScheduledExecutorService replyTimer = _replyTimer;
+        if (asyncExecutor != null && replyTimer != null) {
+            invokeAsync(exchange, key, restMethod, asyncExecutor, replyTimer);
+        } else {
+            invoke(exchange, key, restMethod, null);
+        }
+    }
+
+    private void invokeAsync(final Exchange exchange, final String key, final RsMethod restMethod,
+            ExecutorService asyncExecutor, ScheduledExecutorService replyTimer) throws HandlerException {
+        final String opName = exchange.getContract().getProviderOperation().getName();
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        // whoever sets this first, the request or its timeout, is the one to reply
+        final AtomicBoolean replied = new AtomicBoolean();
+        final Future<?> request;
         try {
-            String path = RsMethodUtil.getPath(restMethod, exchange);
-            String contextPath = _config.getContextPath();
+            request = asyncExecutor.submit(new Runnable() {
+                public void run() {
+                    ClassLoader setTCCL = Classes.setTCCL(loader);
+                    try {
+                        invoke(exchange, key, restMethod, replied);
+                    } catch (HandlerException he) {
+                        if (replied.compareAndSet(false, true)) {
+                            exchange.sendFault(exchange.createMessage().setContent(he));
+                        }
+                    } finally {
+                        // nothing left to time out, even if there was no reply to send
+                        replied.set(true);
+                        Classes.setTCCL(setTCCL);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            throw new HandlerException("Too many pending requests for " + opName + "; rejecting the request", ree);
+        }
+        final long replyTimeout = _replyTimeout;
+        try {
+            replyTimer.schedule(new Runnable() {
+                public void run() {
+                    if (replied.compareAndSet(false, true)) {
+                        request.cancel(true);
+                        String m = "No reply for " + opName + " within " + replyTimeout + "ms";
+                        LOGGER.warn(m);
+                        exchange.sendFault(exchange.createMessage().setContent(new HandlerException(m)));
+                    }
+                }
+            }, replyTimeout, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ree) {
+            // the handler is stopping, and the request with it
+            LOGGER.debug("Not timing " + opName + " out; the handler is stopping");
+        }
+    }
 
-            if (contextPath != null) {
-                path = "/" + contextPath + path;
-            }
+    private void invoke(final Exchange exchange, final String key, final RsMethod restMethod, AtomicBoolean replied)
+        throws HandlerException {
+        try {
+            String path = RsMethodUtil.getPath(restMethod, exchange);
 
             // Support for proxy client may be added later, please do not remove this commented code, which is for reference.
             /*Object restProxy = ProxyFactory.create(restMethod.getResource(), _baseAddress);
@@ -123,7 +300,7 @@ public class OutboundHandler extends BaseServiceHandler {
             exchange.send(out);*/
 
             // Support for manual client
-            ClientRequest request = new ClientRequest(_baseAddress + path);
+            ClientRequest request = new ClientRequest(_requestBase + path, _clientExecutor);
             RESTEasyBindingData restRequest = _messageComposer.decompose(exchange, new RESTEasyBindingData());
             Object content = restRequest.getContent();
             if ((restMethod.getRequestType() != null) && (content != null) && !restMethod.hasParam()) {
@@ -131,22 +308,11 @@ public class OutboundHandler extends BaseServiceHandler {
                 if (restMethod.getConsumes().contains(MediaType.TEXT_PLAIN_TYPE)) {
                     request.body(MediaType.TEXT_PLAIN, content);
                 } else if (restMethod.getConsumes().contains(MediaType.APPLICATION_XML_TYPE) || restMethod.getConsumes().contains(MediaType.WILDCARD_TYPE)) {
-                    JAXBContext jaxbContext = JAXBContext.newInstance(restMethod.getRequestType());
-                    Marshaller marshaller = jaxbContext.createMarshaller();
-                    Writer sw = new StringWriter();
-                    marshaller.marshal(content, sw);
-                    request.body(MediaType.APPLICATION_XML, sw.toString());
+                    request.body(MediaType.APPLICATION_XML, new JAXBEntity(getJAXBContext(key, restMethod), content));
                 } else if (restMethod.getConsumes().contains(MediaType.TEXT_XML_TYPE)) {
-                    JAXBContext jaxbContext = JAXBContext.newInstance(restMethod.getRequestType());
-                    Marshaller marshaller = jaxbContext.createMarshaller();
-                    Writer sw = new StringWriter();
-                    marshaller.marshal(content, sw);
-                    request.body(MediaType.TEXT_XML, sw.toString());
+                    request.body(MediaType.TEXT_XML, new JAXBEntity(getJAXBContext(key, restMethod), content));
                 } else if (restMethod.getConsumes().contains(MediaType.APPLICATION_JSON_TYPE)) {
-                    ObjectMapper mapper = new ObjectMapper();
-                    Writer sw = new StringWriter();
-                    mapper.writeValue(sw, content);
-                    request.body(MediaType.APPLICATION_JSON, sw.toString());
+                    request.body(MediaType.APPLICATION_JSON, new JSONEntity(_objectMapper, content));
                 }
                 // Other types coming soon
             } else if (restMethod.hasQueryParam()) {
@@ -158,13 +324,29 @@ public class OutboundHandler extends BaseServiceHandler {
             }
             request.getHeaders().putAll(restRequest.getHeaders());
             ClientResponse<?> response = request.httpMethod(restMethod.getMethod(), restMethod.getResponseType());
-            if (response.getStatus() == 200) {
-                RESTEasyBindingData restResponse = new RESTEasyBindingData();
-                restResponse.setContent(response.getEntity());
-                restResponse.setHeaders(response.getHeaders());
-                Message out = _messageComposer.compose(restResponse, exchange, true);
-                // Our transformer magic transforms the entity appropriately here :)
-                exchange.send(out);
+            boolean streamed = false;
+            try {
+                if (response.getStatus() == 200) {
+                    RESTEasyBindingData restResponse = new RESTEasyBindingData();
+                    Object entity = response.getEntity();
+                    restResponse.setContent(entity);
+                    restResponse.setHeaders(response.getHeaders());
+                    Message out = _messageComposer.compose(restResponse, exchange, true);
+                    if (replied == null || replied.compareAndSet(false, true)) {
+                        // Our transformer magic transforms the entity appropriately here :)
+                        exchange.send(out);
+                        streamed = isStreamed(entity);
+                    } else {
+                        LOGGER.debug("Dropping the reply to " + exchange.getContract().getProviderOperation().getName()
+                            + ", which came after its timeout");
+                    }
+                }
+            } finally {
+                // hand the connection back to the pool even if the entity was never read, unless the
+                // reply is still reading it; closing the stream then releases the connection
+                if (!streamed) {
+                    response.releaseConnection();
+                }
             }
         } catch (Exception e) {
             final String m = "Unexpected exception handling outbound REST request";
@@ -172,4 +354,45 @@ public class OutboundHandler extends BaseServiceHandler {
             throw new HandlerException(m, e);
         }
     }
+
+    static boolean isStreamed(Object entity) {
+        return entity instanceof InputStream || entity instanceof Reader;
+    }
+
+    /**
+     * Marshals the content straight onto the request stream.
+     */
+    static final class JAXBEntity implements StreamingOutput {
+        private final JAXBContext _jaxbContext;
+        private final Object _content;
+        JAXBEntity(JAXBContext jaxbContext, Object content) {
+            _jaxbContext = jaxbContext;
+            _content = content;
+        }
+        @Override
+        public void write(OutputStream output) throws IOException {
+            try {
+                // Marshallers are cheap but not thread-safe, so one per request
+                _jaxbContext.createMarshaller().marshal(_content, output);
+            } catch (JAXBException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes the content as JSON straight onto the request stream.
+     */
+    static final class JSONEntity implements StreamingOutput {
+        private final ObjectMapper _mapper;
+        private final Object _content;
+        JSONEntity(ObjectMapper mapper, Object content) {
+            _mapper = mapper;
+            _content = content;
+        }
+        @Override
+        public void write(OutputStream output) throws IOException {
+            _mapper.writeValue(output, _content);
+        }
+    }
 }
@@ -51,6 +51,12 @@ public class RESTEasyBindingModel extends V1BindingModel {
     private static final String ADDRESS = "address";
     private static final String CONTEXT_PATH = "contextPath";
     private static final String RESOURCE_INTERFACES = "interfaces";
+    private static final String MAX_CONNECTIONS = "maxConnections";
+    private static final String CONNECTION_TIMEOUT = "connectionTimeout";
+    private static final String SOCKET_TIMEOUT = "socketTimeout";
+    private static final String ASYNC = "async";
+    private static final String SERVER_THREADS = "serverThreads";
+    private static final String SERVER_BACKLOG = "serverBacklog";
 
     private QName _serviceName;
     private String _address;
@@ -64,7 +70,8 @@ public class RESTEasyBindingModel extends V1BindingModel {
      */
     public RESTEasyBindingModel() {
         super(RESTEASY, DEFAULT_NAMESPACE);
-        setModelChildrenOrder(RESOURCE_INTERFACES, ADDRESS, CONTEXT_PATH);
+        setModelChildrenOrder(RESOURCE_INTERFACES, ADDRESS, CONTEXT_PATH, MAX_CONNECTIONS, CONNECTION_TIMEOUT, SOCKET_TIMEOUT, ASYNC,
+                SERVER_THREADS, SERVER_BACKLOG);
     }
 
     /**
@@ -214,6 +221,141 @@ public class RESTEasyBindingModel extends V1BindingModel {
         }
     }
 
+    /**
+     * Gets the maximum number of pooled HTTP connections used by the Reference binding.
+     * 
+     * @return the maximum number of connections, or null for the default
+     */
+    public Integer getMaxConnections() {
+        String value = getChildValue(MAX_CONNECTIONS);
+        return value != null ? Integer.valueOf(value) : null;
+    }
+
+    /**
+     * Sets the maximum number of pooled HTTP connections used by the Reference binding.
+     * 
+     * @param maxConnections the maximum number of connections
+     */
+    public void setMaxConnections(Integer maxConnections) {
+        setChildValue(MAX_CONNECTIONS, maxConnections != null ? maxConnections.toString() : null);
+    }
+
+    /**
+     * Gets the timeout, in milliseconds, for establishing a connection.
+     * 
+     * @return the connection timeout, or null for the default
+     */
+    public Integer getConnectionTimeout() {
+        String value = getChildValue(CONNECTION_TIMEOUT);
+        return value != null ? Integer.valueOf(value) : null;
+    }
+
+    /**
+     * Sets the timeout, in milliseconds, for establishing a connection.
+     * 
+     * @param connectionTimeout the connection timeout
+     */
+    public void setConnectionTimeout(Integer connectionTimeout) {
+        setChildValue(CONNECTION_TIMEOUT, connectionTimeout != null ? connectionTimeout.toString() : null);
+    }
+
+    /**
+     * Gets the timeout, in milliseconds, for waiting for data on a connection.
+     * 
+     * @return the socket timeout, or null for the default
+     */
+    public Integer getSocketTimeout() {
+        String value = getChildValue(SOCKET_TIMEOUT);
+        return value != null ? Integer.valueOf(value) : null;
+    }
+
+    /**
+     * Sets the timeout, in milliseconds, for waiting for data on a connection.
+     * 
+     * @param socketTimeout the socket timeout
+     */
+    public void setSocketTimeout(Integer socketTimeout) {
+        setChildValue(SOCKET_TIMEOUT, socketTimeout != null ? socketTimeout.toString() : null);
+    }
+
+    /**
+     * Whether the Reference binding invokes the REST endpoint asynchronously, sending the reply
+     * from a pool thread instead of blocking the exchange thread. A fault is sent instead if no reply
+     * has arrived within the socket timeout, or within a minute if none is set.
+     * 
+     * @return true if asynchronous
+     */
+    public boolean isAsync() {
+        return Boolean.parseBoolean(getChildValue(ASYNC));
+    }
+
+    /**
+     * Sets whether the Reference binding invokes the REST endpoint asynchronously.
+     * 
+     * @param async true if asynchronous
+     */
+    public void setAsync(boolean async) {
+        setChildValue(ASYNC, Boolean.toString(async));
+    }
+
+    /**
+     * Gets the request threads of the standalone server hosting Service bindings: a number for a fixed pool,
+     * or "virtual" for a thread per request where the JVM supports virtual threads.
+     * 
+     * @return the request threads, or null for the default
+     */
+    public String getServerThreads() {
+        return getChildValue(SERVER_THREADS);
+    }
+
+    /**
+     * Sets the request threads of the standalone server hosting Service bindings.
+     * 
+     * @param serverThreads a number for a fixed pool, or "virtual"
+     */
+    public void setServerThreads(String serverThreads) {
+        setChildValue(SERVER_THREADS, serverThreads);
+    }
+
+    /**
+     * Gets the connection backlog of the standalone server hosting Service bindings.
+     * 
+     * @return the backlog, or null for the default
+     */
+    public Integer getServerBacklog() {
+        String value = getChildValue(SERVER_BACKLOG);
+        return value != null ? Integer.valueOf(value) : null;
+    }
+
+    /**
+     * Sets the connection backlog of the standalone server hosting Service bindings.
+     * 
+     * @param serverBacklog the backlog
+     */
+    public void setServerBacklog(Integer serverBacklog) {
+        setChildValue(SERVER_BACKLOG, serverBacklog != null ? serverBacklog.toString() : null);
+    }
+
+    private String getChildValue(String name) {
+        Configuration childConfig = getModelConfiguration().getFirstChild(name);
+        if (childConfig != null && childConfig.getValue() != null) {
+            String value = childConfig.getValue().trim();
+            return value.length() > 0 ? value : null;
+        }
+        return null;
+    }
+
+    private void setChildValue(String name, String value) {
+        Configuration childConfig = getModelConfiguration().getFirstChild(name);
+        if (childConfig == null) {
+            ValueModel valueConfig = new ValueModel(name);
+            valueConfig.setValue(value);
+            setChildModel(valueConfig);
+        } else {
+            childConfig.setValue(value);
+        }
+    }
+
     /**
      * Sets the global configuration.
      * 
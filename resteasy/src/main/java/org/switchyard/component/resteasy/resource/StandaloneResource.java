@@ -19,6 +19,8 @@
  
 package org.switchyard.component.resteasy.resource;
 
+import java.util.List;
+
 /**
  * A standalone RESTEasy resource.
  *
@@ -26,10 +28,23 @@ package org.switchyard.component.resteasy.resource;
  */
 public class StandaloneResource implements Resource {
 
+    private final String _context;
+    private final List<Object> _instances;
+
+    /**
+     * Constructs a new StandaloneResource.
+     * @param context the web context root the resource was published to
+     * @param instances the JAX-RS resource instances
+     */
+    public StandaloneResource(String context, List<Object> instances) {
+        _context = context;
+        _instances = instances;
+    }
+
     /**
      * {@inheritDoc}
      */
     public void stop() {
-        // NO OP
+        StandaloneResourcePublisher.unpublish(_context, _instances);
     }
 }
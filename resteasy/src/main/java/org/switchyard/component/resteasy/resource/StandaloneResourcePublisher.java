@@ -16,61 +16,183 @@
  * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
  * MA  02110-1301, USA.
  */
- 
 package org.switchyard.component.resteasy.resource;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import com.sun.net.httpserver.HttpServer;
 import org.jboss.resteasy.plugins.server.sun.http.HttpContextBuilder;
+import org.jboss.resteasy.spi.Registry;
+import org.switchyard.component.resteasy.config.model.RESTEasyBindingModel;
 
 /**
  * Publishes standalone RESTEasy resource.
+ * <p/>
+ * All contexts share one HttpServer, but each context gets its own RESTEasy deployment, so publishing
+ * or stopping one context leaves the others alone. The server listens on {@link #PORT_PROPERTY}; its
+ * request threads and backlog are taken from the binding that first publishes to it.
  *
  * @author Magesh Kumar B <mageshbk@jboss.com> (C) 2012 Red Hat Inc.
  */
 public class StandaloneResourcePublisher implements ResourcePublisher {
+
+    /** System property holding the port of the standalone server. */
+    public static final String PORT_PROPERTY = "org.switchyard.component.resteasy.standalone.port";
+    /** The default port. */
+    public static final int DEFAULT_PORT = 8080;
+    /** The default backlog. */
+    public static final int DEFAULT_BACKLOG = 128;
+    /** The default number of request threads. */
+    public static final int DEFAULT_THREADS = 16;
+
     private static final Logger LOGGER = Logger.getLogger(StandaloneResourcePublisher.class);
 
-    // The global standalone HttpServer
+    // The global standalone HttpServer, started by the first publish
     private static HttpServer _httpServer;
-    private static HttpContextBuilder _contextBuilder;
-
-    static {
-        try {
-            _contextBuilder = new HttpContextBuilder();
-            _httpServer = HttpServer.create(new InetSocketAddress(8080), 10);
-            _httpServer.setExecutor(null); // creates a default executor
-            _httpServer.start();
-        } catch (IOException ioe) {
-            LOGGER.error("Unable to launch standalone http server", ioe);
-        }
-    }
+    private static final Map<String, HttpContextBuilder> CONTEXT_BUILDERS = new HashMap<String, HttpContextBuilder>();
+    // the instances published to each context, so that stopping one resource can spare the others
+    private static final Map<String, List<Object>> CONTEXT_INSTANCES = new HashMap<String, List<Object>>();
 
     /**
      * {@inheritDoc}
      */
     public Resource publish(String context, List<Object> instances) throws Exception {
-        if (_contextBuilder.getPath().equals(context)) {
-            _contextBuilder.cleanup();
-            try {
-                _httpServer.removeContext(_contextBuilder.getPath());
-            } catch (IllegalArgumentException iae) {
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug(iae);
+        return publish(context, instances, null);
+    }
+
+    /**
+     * Publishes the resource, starting the standalone server with the binding's settings if it is not running yet.
+     * @param context the web context root
+     * @param instances the JAX-RS resource instances
+     * @param config the binding configuration, or null for the default server settings
+     * @return the published resource
+     * @throws Exception if the server cannot be started or the resource cannot be published
+     */
+    public Resource publish(String context, List<Object> instances, RESTEasyBindingModel config) throws Exception {
+        synchronized (CONTEXT_BUILDERS) {
+            HttpServer httpServer = getServer(config);
+            HttpContextBuilder contextBuilder = CONTEXT_BUILDERS.get(context);
+            if (contextBuilder == null) {
+                contextBuilder = new HttpContextBuilder();
+                contextBuilder.setPath(context);
+                // Add as singleton instance
+                for (Object instance : instances) {
+                    contextBuilder.getDeployment().getResources().add(instance);
+                }
+                contextBuilder.bind(httpServer);
+                CONTEXT_BUILDERS.put(context, contextBuilder);
+                CONTEXT_INSTANCES.put(context, new ArrayList<Object>(instances));
+            } else {
+                // the context is already deployed, so register with its running deployment
+                Registry registry = contextBuilder.getDeployment().getRegistry();
+                for (Object instance : instances) {
+                    registry.addSingletonResource(instance);
                 }
+                CONTEXT_INSTANCES.get(context).addAll(instances);
             }
-            _contextBuilder.getDeployment().getDefaultContextObjects().clear();
-            _contextBuilder.setPath(context);
         }
-        // Add as singleton instance
-        for (Object instance : instances) {
-            _contextBuilder.getDeployment().getResources().add(instance);
+        return new StandaloneResource(context, instances);
+    }
+
+    static void unpublish(String context, List<Object> instances) {
+        synchronized (CONTEXT_BUILDERS) {
+            HttpContextBuilder contextBuilder = CONTEXT_BUILDERS.get(context);
+            if (contextBuilder == null) {
+                return;
+            }
+            List<Object> remaining = CONTEXT_INSTANCES.get(context);
+            Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+            for (Object instance : instances) {
+                removeInstance(remaining, instance);
+                classes.add(instance.getClass());
+            }
+            if (remaining.isEmpty()) {
+                CONTEXT_BUILDERS.remove(context);
+                CONTEXT_INSTANCES.remove(context);
+                contextBuilder.cleanup();
+                try {
+                    _httpServer.removeContext(contextBuilder.getPath());
+                } catch (IllegalArgumentException iae) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug(iae);
+                    }
+                }
+                return;
+            }
+            // the registry can only remove by class, so put back other resources' instances of the same classes
+            Registry registry = contextBuilder.getDeployment().getRegistry();
+            for (Class<?> clazz : classes) {
+                registry.removeRegistrations(clazz);
+                for (Object instance : remaining) {
+                    if (instance.getClass() == clazz) {
+                        registry.addSingletonResource(instance);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void removeInstance(List<Object> instances, Object instance) {
+        for (int i = 0; i < instances.size(); i++) {
+            if (instances.get(i) == instance) {
+                instances.remove(i);
+                return;
+            }
         }
-        _contextBuilder.bind(_httpServer);
-        return new StandaloneResource();
+    }
+
+    private static HttpServer getServer(RESTEasyBindingModel config) throws IOException {
+        if (_httpServer == null) {
+            int port = Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT).intValue();
+            Integer backlog = config != null ? config.getServerBacklog() : null;
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress(port), backlog != null ? backlog.intValue() : DEFAULT_BACKLOG);
+            httpServer.setExecutor(createExecutor(config != null ? config.getServerThreads() : null));
+            httpServer.start();
+            _httpServer = httpServer;
+        } else if (config != null && (config.getServerThreads() != null || config.getServerBacklog() != null)) {
+            LOGGER.warn("Standalone http server is already running; ignoring the server settings of " + config.getServiceName());
+        }
+        return _httpServer;
+    }
+
+    private static ExecutorService createExecutor(String threads) {
+        if ("virtual".equalsIgnoreCase(threads)) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService)factory.invoke(null);
+            } catch (Exception e) {
+                LOGGER.warn("Virtual threads are not available on this JVM; using a fixed pool of " + DEFAULT_THREADS + " threads");
+                threads = null;
+            }
+        }
+        int size = DEFAULT_THREADS;
+        if (threads != null) {
+            try {
+                size = Math.max(1, Integer.parseInt(threads.trim()));
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Invalid serverThreads value [" + threads + "]; using " + DEFAULT_THREADS);
+            }
+        }
+        return Executors.newFixedThreadPool(size, new ThreadFactory() {
+            private final AtomicInteger _count = new AtomicInteger();
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "RESTEasy-standalone-" + _count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 }
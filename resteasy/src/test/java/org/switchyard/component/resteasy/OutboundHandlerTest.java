@@ -0,0 +1,98 @@
+/* 
+ * JBoss, Home of Professional Open Source 
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved. 
+ * See the copyright.txt in the distribution for a 
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, 
+ * modify, copy, or redistribute it subject to the terms and conditions 
+ * of the GNU Lesser General Public License, v. 2.1. 
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details. 
+ * You should have received a copy of the GNU Lesser General Public License, 
+ * v.2.1 along with this distribution; if not, write to the Free Software 
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ */
+ 
+package org.switchyard.component.resteasy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.switchyard.component.common.rest.RsMethod;
+
+/**
+ * Tests for the OutboundHandler's cached contexts and streamed entities.
+ */
+public class OutboundHandlerTest {
+
+    @Test
+    public void jaxbContextIsCachedPerMethod() throws Exception {
+        OutboundHandler handler = new OutboundHandler(null);
+        RsMethod restMethod = new RsMethod(HelloResource.class);
+        restMethod.setRequestType(Greeting.class);
+        JAXBContext jaxbContext = handler.getJAXBContext("sayHello", restMethod);
+        Assert.assertSame(jaxbContext, handler.getJAXBContext("sayHello", restMethod));
+    }
+
+    @Test
+    public void xmlEntityIsMarshalledOntoTheStream() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new OutboundHandler.JAXBEntity(JAXBContext.newInstance(Greeting.class), new Greeting("magesh")).write(output);
+        String xml = output.toString("UTF-8");
+        Assert.assertTrue(xml, xml.contains("<greeting>"));
+        Assert.assertTrue(xml, xml.contains("<name>magesh</name>"));
+    }
+
+    @Test
+    public void jsonEntityLeavesTheStreamOpen() throws Exception {
+        OutboundHandler handler = new OutboundHandler(null);
+        CloseTrackingStream output = new CloseTrackingStream();
+        new OutboundHandler.JSONEntity(handler.getObjectMapper(), new Greeting("keith")).write(output);
+        Assert.assertEquals("{\"name\":\"keith\"}", output.toString("UTF-8"));
+        Assert.assertFalse(output._closed);
+    }
+
+    @Test
+    public void onlyStreamedEntitiesKeepTheConnection() throws Exception {
+        Assert.assertTrue(OutboundHandler.isStreamed(new ByteArrayInputStream(new byte[0])));
+        Assert.assertTrue(OutboundHandler.isStreamed(new StringReader("")));
+        Assert.assertFalse(OutboundHandler.isStreamed("keith"));
+        Assert.assertFalse(OutboundHandler.isStreamed(null));
+    }
+
+    @XmlRootElement(name = "greeting")
+    public static class Greeting {
+        private String _name;
+        public Greeting() {
+        }
+        public Greeting(String name) {
+            _name = name;
+        }
+        public String getName() {
+            return _name;
+        }
+        public void setName(String name) {
+            _name = name;
+        }
+    }
+
+    private static final class CloseTrackingStream extends ByteArrayOutputStream {
+        private boolean _closed;
+        @Override
+        public void close() throws IOException {
+            _closed = true;
+            super.close();
+        }
+    }
+}
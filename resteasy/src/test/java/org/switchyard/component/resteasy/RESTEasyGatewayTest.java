@@ -19,8 +19,12 @@
 
 package org.switchyard.component.resteasy;
 
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.xml.namespace.QName;
 
@@ -28,6 +32,7 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.switchyard.HandlerException;
 import org.switchyard.Message;
 import org.switchyard.ServiceDomain;
 import org.switchyard.component.resteasy.config.model.RESTEasyBindingModel;
@@ -39,6 +44,7 @@ import org.switchyard.deploy.ServiceDomainManager;
 import org.switchyard.metadata.BaseService;
 import org.switchyard.metadata.InOutOperation;
 import org.switchyard.metadata.ServiceOperation;
+import org.switchyard.test.InvocationFaultException;
 import org.switchyard.test.Invoker;
 import org.switchyard.test.MockHandler;
 import org.switchyard.component.test.mixins.http.HTTPMixIn;
@@ -125,6 +131,64 @@ public class RESTEasyGatewayTest {
         Assert.assertEquals("keith", responseMsg.getContent(String.class));*/
     }
 
+    @Test
+    public void restGatewayAsyncReferenceTest() throws Exception {
+        _restOutbound.stop();
+        _configRef.setAsync(true);
+        _restOutbound.start();
+        Message responseMsg = _consumerService.operation("addGreeter").sendInOut("magesh");
+        Assert.assertEquals("magesh", responseMsg.getContent(String.class));
+        responseMsg = _consumerService.operation("greeterInfo").sendInOut("keith");
+        Assert.assertEquals("keith", responseMsg.getContent(String.class));
+    }
+
+    @Test
+    public void restGatewayAsyncReferenceTimesOut() throws Exception {
+        final ServerSocket server = new ServerSocket(0);
+        final AtomicBoolean done = new AtomicBoolean();
+        // answers with a header every 100ms, never tripping the socket timeout, but never finishing either
+        Thread trickler = new Thread() {
+            public void run() {
+                try {
+                    Socket socket = server.accept();
+                    try {
+                        OutputStream out = socket.getOutputStream();
+                        out.write("HTTP/1.1 200 OK\r\n".getBytes("US-ASCII"));
+                        while (!done.get()) {
+                            out.write("X-Trickle: 1\r\n".getBytes("US-ASCII"));
+                            out.flush();
+                            Thread.sleep(100);
+                        }
+                    } finally {
+                        socket.close();
+                    }
+                } catch (Exception e) {
+                    // the client went away
+                }
+            }
+        };
+        trickler.setDaemon(true);
+        trickler.start();
+        try {
+            _restOutbound.stop();
+            _configRef.setAsync(true);
+            _configRef.setSocketTimeout(500);
+            _configRef.setAddress("http://localhost:" + server.getLocalPort());
+            _restOutbound.start();
+            long start = System.currentTimeMillis();
+            try {
+                _consumerService.operation("greeterInfo").sendInOut("keith");
+                Assert.fail("expected the reply to time out");
+            } catch (InvocationFaultException ife) {
+                Assert.assertTrue(ife.getFaultMessage().getContent() instanceof HandlerException);
+            }
+            Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+        } finally {
+            done.set(true);
+            server.close();
+        }
+    }
+
     private static class HelloRESTEasyInterface extends BaseService {
         private static Set<ServiceOperation> _operations = new HashSet<ServiceOperation>(3);
         static {
@@ -33,6 +33,7 @@ public class RESTEasyConfigModelTest {
 
     private static final String REST_BINDING = "rest-binding.xml";
     private static final String REST_BINDING_INVALID = "rest-binding-invalid.xml";
+    private static final String REST_BINDING_POOLED = "rest-binding-pooled.xml";
 
     @Test
     public void testReadConfigBinding() throws Exception {
@@ -42,4 +43,39 @@ public class RESTEasyConfigModelTest {
         model = puller.pull(REST_BINDING_INVALID, getClass());
         Assert.assertFalse(model.isModelValid());
     }
+
+    @Test
+    public void testReadPoolSettings() throws Exception {
+        ModelPuller<RESTEasyBindingModel> puller = new ModelPuller<RESTEasyBindingModel>();
+        RESTEasyBindingModel model = puller.pull(REST_BINDING_POOLED, getClass());
+        Assert.assertTrue(model.isModelValid());
+        Assert.assertEquals(Integer.valueOf(5), model.getMaxConnections());
+        Assert.assertEquals(Integer.valueOf(1000), model.getConnectionTimeout());
+        Assert.assertEquals(Integer.valueOf(2000), model.getSocketTimeout());
+        Assert.assertTrue(model.isAsync());
+        Assert.assertEquals("virtual", model.getServerThreads());
+        Assert.assertEquals(Integer.valueOf(64), model.getServerBacklog());
+        model = puller.pull(REST_BINDING, getClass());
+        Assert.assertNull(model.getServerThreads());
+        Assert.assertNull(model.getServerBacklog());
+        Assert.assertNull(model.getMaxConnections());
+        Assert.assertNull(model.getConnectionTimeout());
+        Assert.assertNull(model.getSocketTimeout());
+        Assert.assertFalse(model.isAsync());
+    }
+
+    @Test
+    public void testWritePoolSettings() throws Exception {
+        ModelPuller<RESTEasyBindingModel> puller = new ModelPuller<RESTEasyBindingModel>();
+        RESTEasyBindingModel model = puller.pull(REST_BINDING, getClass());
+        model.setMaxConnections(8);
+        model.setSocketTimeout(300);
+        model.setAsync(true);
+        Assert.assertTrue(model.isModelValid());
+        Assert.assertEquals(Integer.valueOf(8), model.getMaxConnections());
+        Assert.assertEquals(Integer.valueOf(300), model.getSocketTimeout());
+        Assert.assertTrue(model.isAsync());
+        model.setAsync(false);
+        Assert.assertFalse(model.isAsync());
+    }
 }
@@ -0,0 +1,129 @@
+/* 
+ * JBoss, Home of Professional Open Source 
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved. 
+ * See the copyright.txt in the distribution for a 
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, 
+ * modify, copy, or redistribute it subject to the terms and conditions 
+ * of the GNU Lesser General Public License, v. 2.1. 
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details. 
+ * You should have received a copy of the GNU Lesser General Public License, 
+ * v.2.1 along with this distribution; if not, write to the Free Software 
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ */
+ 
+package org.switchyard.component.resteasy.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for StandaloneResourcePublisher.
+ */
+public class StandaloneResourcePublisherTest {
+
+    private static final String CONTEXT = "/standalone-test";
+    private static final String BASE = "http://localhost:" + StandaloneResourcePublisher.DEFAULT_PORT + CONTEXT;
+
+    private final StandaloneResourcePublisher _publisher = new StandaloneResourcePublisher();
+
+    @Test
+    public void stoppingOneResourceLeavesTheOthers() throws Exception {
+        Resource first = _publisher.publish(CONTEXT, Collections.<Object>singletonList(new FirstResource()));
+        Resource second = _publisher.publish(CONTEXT, Collections.<Object>singletonList(new SecondResource()));
+        try {
+            Assert.assertEquals("first", get("/first"));
+            Assert.assertEquals("second", get("/second"));
+            first.stop();
+            Assert.assertEquals(404, status("/first"));
+            Assert.assertEquals("second", get("/second"));
+        } finally {
+            first.stop();
+            second.stop();
+        }
+        Assert.assertEquals(404, status("/second"));
+    }
+
+    @Test
+    public void stoppingOneInstanceKeepsAnotherOfTheSameClass() throws Exception {
+        Resource first = _publisher.publish(CONTEXT, Collections.<Object>singletonList(new NamedResource("one")));
+        Resource second = _publisher.publish(CONTEXT, Collections.<Object>singletonList(new NamedResource("two")));
+        try {
+            first.stop();
+            Assert.assertEquals("two", get("/named"));
+        } finally {
+            second.stop();
+        }
+    }
+
+    private static String get(String path) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection)new URL(BASE + path).openConnection();
+        try {
+            Assert.assertEquals(200, connection.getResponseCode());
+            InputStream in = connection.getInputStream();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[256];
+            for (int n; (n = in.read(buffer)) != -1;) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static int status(String path) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection)new URL(BASE + path).openConnection();
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Path("/first")
+    public static class FirstResource {
+        @GET
+        @Produces("text/plain")
+        public String get() {
+            return "first";
+        }
+    }
+
+    @Path("/second")
+    public static class SecondResource {
+        @GET
+        @Produces("text/plain")
+        public String get() {
+            return "second";
+        }
+    }
+
+    @Path("/named")
+    public static class NamedResource {
+        private final String _name;
+        public NamedResource(String name) {
+            _name = name;
+        }
+        @GET
+        @Produces("text/plain")
+        public String get() {
+            return _name;
+        }
+    }
+}
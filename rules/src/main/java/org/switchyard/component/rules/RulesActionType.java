@@ -33,6 +33,8 @@ public enum RulesActionType implements ActionType {
     INSERT,
     /** The fire all rules type. */
     FIRE_ALL_RULES,
+    /** The batched fire all rules type. */
+    FIRE_ALL_RULES_BATCH,
     /** The fire until halt type. */
     FIRE_UNTIL_HALT;
 
@@ -40,6 +40,20 @@ public final class RulesConstants {
     /** {urn:switchyard-component-rules:rules:1.0}dispose . */
     public static final String DISPOSE_PROPERTY = new QName(RULES_NAMESPACE, DISPOSE).toString();
 
+    /** batchSize . */
+    public static final String BATCH_SIZE = "batchSize";
+    /** {urn:switchyard-component-rules:rules:1.0}batchSize . */
+    public static final String BATCH_SIZE_PROPERTY = new QName(RULES_NAMESPACE, BATCH_SIZE).toString();
+    /** The default batch size. */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** batchTimeout . */
+    public static final String BATCH_TIMEOUT = "batchTimeout";
+    /** {urn:switchyard-component-rules:rules:1.0}batchTimeout . */
+    public static final String BATCH_TIMEOUT_PROPERTY = new QName(RULES_NAMESPACE, BATCH_TIMEOUT).toString();
+    /** The default batch timeout, in milliseconds. */
+    public static final long DEFAULT_BATCH_TIMEOUT = 10L;
+
     private RulesConstants() {}
 
 }
@@ -25,11 +25,9 @@ import static org.switchyard.component.rules.config.model.RulesComponentImplemen
 
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.net.URL;
 import java.util.List;
 
 import org.switchyard.common.lang.Strings;
-import org.switchyard.common.type.classpath.ClasspathScanner;
 import org.switchyard.common.type.classpath.IsAnnotationPresentFilter;
 import org.switchyard.component.common.knowledge.annotation.Mapping;
 import org.switchyard.component.common.knowledge.config.model.ActionModel;
@@ -39,6 +37,7 @@ import org.switchyard.component.common.knowledge.config.model.v1.V1ActionsModel;
 import org.switchyard.component.rules.RulesActionType;
 import org.switchyard.component.rules.annotation.Execute;
 import org.switchyard.component.rules.annotation.FireAllRules;
+import org.switchyard.component.rules.annotation.FireAllRulesBatch;
 import org.switchyard.component.rules.annotation.FireUntilHalt;
 import org.switchyard.component.rules.annotation.Insert;
 import org.switchyard.component.rules.annotation.Rules;
@@ -69,10 +68,9 @@ public class RulesSwitchYardScanner extends KnowledgeSwitchYardScanner {
     private static final IsAnnotationPresentFilter EXECUTE_FILTER = new IsAnnotationPresentFilter(Execute.class);
     private static final IsAnnotationPresentFilter INSERT_FILTER = new IsAnnotationPresentFilter(Insert.class);
     private static final IsAnnotationPresentFilter FIRE_ALL_RULES_FILTER = new IsAnnotationPresentFilter(FireAllRules.class);
+    private static final IsAnnotationPresentFilter FIRE_ALL_RULES_BATCH_FILTER = new IsAnnotationPresentFilter(FireAllRulesBatch.class);
     private static final IsAnnotationPresentFilter FIRE_UNTIL_HALT_FILTER = new IsAnnotationPresentFilter(FireUntilHalt.class);
 
-    private final IsAnnotationPresentFilter _rulesFilter = new IsAnnotationPresentFilter(Rules.class);
-
     /**
      * {@inheritDoc}
      */
@@ -81,11 +79,7 @@ public class RulesSwitchYardScanner extends KnowledgeSwitchYardScanner {
         SwitchYardModel switchyardModel = new V1SwitchYardModel();
         CompositeModel compositeModel = new V1CompositeModel();
         compositeModel.setName(input.getName());
-        ClasspathScanner rulesScanner = new ClasspathScanner(_rulesFilter);
-        for (URL url : input.getURLs()) {
-            rulesScanner.scan(url);
-        }
-        List<Class<?>> rulesClasses = _rulesFilter.getMatchedTypes();
+        List<Class<?>> rulesClasses = scanForAnnotatedTypes(input.getURLs(), Rules.class);
         for (Class<?> rulesClass : rulesClasses) {
             compositeModel.addComponent(scan(rulesClass));
         }
@@ -143,6 +137,12 @@ public class RulesSwitchYardScanner extends KnowledgeSwitchYardScanner {
                 globalMappingAnnotations = fireAllRulesAnnotation.globals();
                 inputMappingAnnotations = fireAllRulesAnnotation.inputs();
                 outputMappingAnnotations = fireAllRulesAnnotation.outputs();
+            } else if (FIRE_ALL_RULES_BATCH_FILTER.matches(method)) {
+                actionType = RulesActionType.FIRE_ALL_RULES_BATCH;
+                FireAllRulesBatch fireAllRulesBatchAnnotation = method.getAnnotation(FireAllRulesBatch.class);
+                globalMappingAnnotations = fireAllRulesBatchAnnotation.globals();
+                inputMappingAnnotations = fireAllRulesBatchAnnotation.inputs();
+                outputMappingAnnotations = fireAllRulesBatchAnnotation.outputs();
             } else if (FIRE_UNTIL_HALT_FILTER.matches(method)) {
                 actionType = RulesActionType.FIRE_UNTIL_HALT;
                 FireUntilHalt fireUntilHaltAnnotation = method.getAnnotation(FireUntilHalt.class);
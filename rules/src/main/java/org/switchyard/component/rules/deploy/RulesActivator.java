@@ -18,12 +18,14 @@
  */
 package org.switchyard.component.rules.deploy;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.namespace.QName;
 
 import org.switchyard.component.rules.config.model.RulesComponentImplementationModel;
+import org.switchyard.component.rules.exchange.FireUntilHaltExecutor;
+import org.switchyard.component.rules.exchange.FireUntilHaltMetrics;
 import org.switchyard.component.rules.exchange.RulesExchangeHandler;
 import org.switchyard.config.model.composite.ComponentModel;
 import org.switchyard.deploy.BaseActivator;
@@ -41,7 +43,8 @@ public class RulesActivator extends BaseActivator {
      */
     public static final String RULES_TYPE = "rules";
 
-    private Map<QName, RulesExchangeHandler> _handlers = new HashMap<QName, RulesExchangeHandler>();
+    private Map<QName, RulesExchangeHandler> _handlers = new ConcurrentHashMap<QName, RulesExchangeHandler>();
+    private FireUntilHaltExecutor _fireUntilHaltExecutor;
 
     /**
      * Constructs a new Activator of type "rules".
@@ -56,6 +59,7 @@ public class RulesActivator extends BaseActivator {
     @Override
     public ServiceHandler activateService(QName name, ComponentModel config) {
         RulesExchangeHandler handler = new RulesExchangeHandler((RulesComponentImplementationModel)config.getImplementation(), getServiceDomain());
+        handler.setFireUntilHaltExecutor(_fireUntilHaltExecutor);
         _handlers.put(name, handler);
         return handler;
     }
@@ -68,4 +72,22 @@ public class RulesActivator extends BaseActivator {
         _handlers.remove(name);
     }
 
+    /**
+     * Sets the executor shared by this activator's fireUntilHalt sessions.
+     * @param fireUntilHaltExecutor the executor
+     */
+    public void setFireUntilHaltExecutor(FireUntilHaltExecutor fireUntilHaltExecutor) {
+        _fireUntilHaltExecutor = fireUntilHaltExecutor;
+    }
+
+    /**
+     * Gets the fireUntilHalt metrics of an activated service.
+     * @param name the service name
+     * @return the metrics, or null if the service is not active
+     */
+    public FireUntilHaltMetrics getFireUntilHaltMetrics(QName name) {
+        RulesExchangeHandler handler = _handlers.get(name);
+        return handler != null ? handler.getFireUntilHaltMetrics() : null;
+    }
+
 }
@@ -19,6 +19,9 @@
 package org.switchyard.component.rules.deploy;
 
 import org.switchyard.ServiceDomain;
+import org.switchyard.common.lang.Strings;
+import org.switchyard.component.rules.exchange.FireUntilHaltExecutor;
+import org.switchyard.config.Configuration;
 import org.switchyard.deploy.Activator;
 import org.switchyard.deploy.BaseComponent;
 
@@ -29,6 +32,11 @@ import org.switchyard.deploy.BaseComponent;
  */
 public class RulesComponent extends BaseComponent {
 
+    /** The component configuration element holding the maximum number of concurrent fireUntilHalt sessions. */
+    public static final String FIRE_UNTIL_HALT_MAX_SESSIONS = "fireUntilHaltMaxSessions";
+
+    private FireUntilHaltExecutor _fireUntilHaltExecutor;
+
     /**
      * Default constructor.
      */
@@ -44,7 +52,40 @@ public class RulesComponent extends BaseComponent {
     public Activator createActivator(ServiceDomain domain) {
         RulesActivator activator = new RulesActivator();
         activator.setServiceDomain(domain);
+        activator.setFireUntilHaltExecutor(getFireUntilHaltExecutor());
         return activator;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        try {
+            synchronized (this) {
+                if (_fireUntilHaltExecutor != null) {
+                    _fireUntilHaltExecutor.shutdown();
+                    _fireUntilHaltExecutor = null;
+                }
+            }
+        } finally {
+            super.destroy();
+        }
+    }
+
+    private synchronized FireUntilHaltExecutor getFireUntilHaltExecutor() {
+        if (_fireUntilHaltExecutor == null) {
+            int maxSessions = FireUntilHaltExecutor.DEFAULT_MAX_SESSIONS;
+            Configuration config = getConfig() != null ? getConfig().getFirstChild(FIRE_UNTIL_HALT_MAX_SESSIONS) : null;
+            if (config != null) {
+                String value = Strings.trimToNull(config.getValue());
+                if (value != null) {
+                    maxSessions = Integer.parseInt(value);
+                }
+            }
+            _fireUntilHaltExecutor = new FireUntilHaltExecutor(maxSessions);
+        }
+        return _fireUntilHaltExecutor;
+    }
+
 }
@@ -0,0 +1,170 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.rules.exchange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.switchyard.HandlerException;
+
+/**
+ * Buffers items (typically one per exchange, each carrying some facts) until either a size or a time limit is
+ * reached, then hands them to a {@link Flusher} in one go. The calling threads block until the batch their
+ * item was added to has been flushed, so each exchange can still produce its own reply.
+ * <p/>
+ * No background thread is used: the exchange that fills a batch flushes it, or, if the batch times out
+ * first, the first waiting exchange to notice does. Batches are flushed one at a time.
+ *
+ * @param <T> the item type
+ */
+final class FactBatcher<T> {
+
+    /**
+     * Flushes a batch of items.
+     *
+     * @param <T> the item type
+     */
+    interface Flusher<T> {
+        /**
+         * Flushes the items.
+         * @param items the items
+         * @throws Exception if the flush fails; every exchange in the batch will see the failure
+         */
+        void flush(List<T> items) throws Exception;
+    }
+
+    private final int _size;
+    private final long _timeout;
+    private final Flusher<T> _flusher;
+    private final Object _batchLock = new Object();
+    private final Object _flushLock = new Object();
+    private Batch _current;
+    private boolean _closed;
+
+    /**
+     * Constructs a new FactBatcher.
+     * @param size the number of facts that triggers a flush
+     * @param timeout the maximum time in milliseconds a fact waits before being flushed
+     * @param flusher the flusher
+     */
+    FactBatcher(int size, long timeout, Flusher<T> flusher) {
+        _size = Math.max(1, size);
+        _timeout = Math.max(0L, timeout);
+        _flusher = flusher;
+    }
+
+    /**
+     * Adds an item to the current batch and waits for that batch to be flushed.
+     * @param item the item
+     * @param facts the number of facts the item counts for towards the batch size
+     * @throws HandlerException if the batch could not be flushed, the wait was interrupted, or the batcher is closed
+     */
+    void submit(T item, int facts) throws HandlerException {
+        Batch batch;
+        boolean flusherThread = false;
+        synchronized (_batchLock) {
+            if (_closed) {
+                throw new HandlerException("Fact batcher is closed");
+            }
+            if (_current == null) {
+                _current = new Batch(System.currentTimeMillis() + _timeout);
+            }
+            batch = _current;
+            batch._items.add(item);
+            batch._facts += Math.max(0, facts);
+            if (batch._facts >= _size) {
+                _current = null;
+                flusherThread = true;
+            }
+        }
+        try {
+            if (!flusherThread) {
+                long remaining = batch._deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !batch._done.await(remaining, TimeUnit.MILLISECONDS)) {
+                    synchronized (_batchLock) {
+                        if (_current == batch) {
+                            _current = null;
+                            flusherThread = true;
+                        }
+                    }
+                    if (!flusherThread) {
+                        batch._done.await();
+                    }
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new HandlerException("Interrupted waiting for fact batch to be flushed", ie);
+        }
+        if (flusherThread) {
+            batch.flush();
+        }
+        if (batch._failure != null) {
+            throw new HandlerException("Problem flushing fact batch: " + batch._failure.getMessage(), batch._failure);
+        }
+    }
+
+    /**
+     * Closes the batcher: further submissions are rejected, the pending batch is flushed, and this only
+     * returns once no batch is being flushed any more.
+     */
+    void close() {
+        Batch batch;
+        synchronized (_batchLock) {
+            _closed = true;
+            batch = _current;
+            _current = null;
+        }
+        // holding the flush lock also waits out a batch another thread may still be flushing
+        synchronized (_flushLock) {
+            if (batch != null) {
+                batch.flush();
+            }
+        }
+    }
+
+    private final class Batch {
+
+        private final long _deadline;
+        private final List<T> _items = new ArrayList<T>();
+        private final CountDownLatch _done = new CountDownLatch(1);
+        private int _facts;
+        private volatile Throwable _failure;
+
+        private Batch(long deadline) {
+            _deadline = deadline;
+        }
+
+        private void flush() {
+            try {
+                synchronized (_flushLock) {
+                    _flusher.flush(_items);
+                }
+            } catch (Throwable t) {
+                _failure = t;
+            } finally {
+                _done.countDown();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.rules.exchange;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded executor shared by all fireUntilHalt sessions of a rules component.
+ * <p/>
+ * Each fireUntilHalt session occupies one thread until it is halted, so sessions are never queued:
+ * once the maximum number of sessions are running, further sessions are rejected.
+ */
+public class FireUntilHaltExecutor {
+
+    /** The default maximum number of concurrently running fireUntilHalt sessions. */
+    public static final int DEFAULT_MAX_SESSIONS = 64;
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+    private static FireUntilHaltExecutor _default;
+
+    private final ThreadPoolExecutor _executor;
+
+    /**
+     * Constructs a new FireUntilHaltExecutor.
+     * @param maxSessions the maximum number of concurrently running sessions
+     */
+    public FireUntilHaltExecutor(int maxSessions) {
+        final String prefix = new StringBuilder()
+            .append(RulesExchangeHandler.class.getSimpleName())
+            .append(":FireUntilHalt-")
+            .append(POOL_COUNT.incrementAndGet())
+            .append(':')
+            .toString();
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger _count = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + _count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        _executor = new ThreadPoolExecutor(0, Math.max(1, maxSessions), 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), threadFactory);
+    }
+
+    /**
+     * Gets the executor used by handlers that have not been given one by their component.
+     * @return the default executor
+     */
+    public static synchronized FireUntilHaltExecutor getDefault() {
+        if (_default == null) {
+            _default = new FireUntilHaltExecutor(DEFAULT_MAX_SESSIONS);
+        }
+        return _default;
+    }
+
+    /**
+     * Submits a fireUntilHalt task.
+     * @param task the task
+     * @return the task's future
+     * @throws RejectedExecutionException if the maximum number of sessions are already running
+     */
+    public Future<?> submit(Runnable task) throws RejectedExecutionException {
+        return _executor.submit(task);
+    }
+
+    /**
+     * Gets the maximum number of concurrently running sessions.
+     * @return the maximum
+     */
+    public int getMaxSessions() {
+        return _executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Gets the number of currently running sessions.
+     * @return the number
+     */
+    public int getActiveSessions() {
+        return _executor.getActiveCount();
+    }
+
+    /**
+     * Shuts down the executor; running sessions are expected to have been halted by their handlers.
+     */
+    public void shutdown() {
+        _executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.rules.exchange;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kie.event.rule.AfterMatchFiredEvent;
+import org.kie.event.rule.AgendaEventListener;
+import org.kie.event.rule.BeforeMatchFiredEvent;
+import org.kie.event.rule.DefaultAgendaEventListener;
+import org.kie.event.rule.MatchCancelledEvent;
+import org.kie.event.rule.MatchCreatedEvent;
+
+/**
+ * Metrics for the fireUntilHalt sessions of a rules service.
+ */
+public class FireUntilHaltMetrics {
+
+    /** The name used for facts inserted into the default entry point. */
+    public static final String DEFAULT_ENTRY_POINT = "DEFAULT";
+
+    private final ConcurrentMap<String, AtomicLong> _factsInserted = new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicLong _rulesFired = new AtomicLong();
+    private final AtomicInteger _agendaSize = new AtomicInteger();
+    private final AtomicLong _completedNanos = new AtomicLong();
+    private volatile long _runningSince = 0L;
+
+    /**
+     * Gets the number of facts inserted, keyed by entry point.
+     * @return the counts
+     */
+    public Map<String, Long> getFactsInserted() {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        for (Entry<String, AtomicLong> entry : _factsInserted.entrySet()) {
+            counts.put(entry.getKey(), Long.valueOf(entry.getValue().get()));
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the total number of rules fired.
+     * @return the count
+     */
+    public long getRulesFired() {
+        return _rulesFired.get();
+    }
+
+    /**
+     * Gets the average number of rules fired per second of fireUntilHalt time.
+     * @return the rate
+     */
+    public double getRulesFiredPerSecond() {
+        long millis = getFireUntilHaltTime();
+        return millis > 0 ? (getRulesFired() * 1000d) / millis : 0d;
+    }
+
+    /**
+     * Gets the approximate number of activations currently on the agenda.
+     * @return the agenda size
+     */
+    public int getAgendaSize() {
+        return Math.max(0, _agendaSize.get());
+    }
+
+    /**
+     * Gets the total time spent in fireUntilHalt, including any currently running session.
+     * @return the time in milliseconds
+     */
+    public long getFireUntilHaltTime() {
+        long nanos = _completedNanos.get();
+        long since = _runningSince;
+        if (since != 0L) {
+            nanos += System.nanoTime() - since;
+        }
+        return nanos / 1000000L;
+    }
+
+    /**
+     * Creates the agenda listener for one session; what it still counts on the agenda is taken off the
+     * agenda size once that session has {@link #stopped(AgendaEventListener) stopped}.
+     * @return the listener
+     */
+    AgendaEventListener newAgendaEventListener() {
+        return new SessionAgendaListener();
+    }
+
+    void factsInserted(String entryPoint, int count) {
+        AtomicLong counter = _factsInserted.get(entryPoint);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = _factsInserted.putIfAbsent(entryPoint, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.addAndGet(count);
+    }
+
+    void started() {
+        _runningSince = System.nanoTime();
+    }
+
+    void stopped(AgendaEventListener listener) {
+        if (listener instanceof SessionAgendaListener) {
+            // activations left on a stopped session's agenda will never fire
+            ((SessionAgendaListener)listener).stop();
+        }
+        long since = _runningSince;
+        if (since != 0L) {
+            _completedNanos.addAndGet(System.nanoTime() - since);
+            _runningSince = 0L;
+        }
+    }
+
+    private final class SessionAgendaListener extends DefaultAgendaEventListener {
+
+        private int _pending = 0;
+        private boolean _stopped = false;
+
+        private synchronized void stop() {
+            _stopped = true;
+            _agendaSize.addAndGet(-_pending);
+            _pending = 0;
+        }
+
+        private synchronized void pending(int delta) {
+            if (!_stopped) {
+                _pending += delta;
+                _agendaSize.addAndGet(delta);
+            }
+        }
+
+        @Override
+        public void matchCreated(MatchCreatedEvent event) {
+            pending(1);
+        }
+
+        @Override
+        public void matchCancelled(MatchCancelledEvent event) {
+            pending(-1);
+        }
+
+        @Override
+        public void beforeMatchFired(BeforeMatchFiredEvent event) {
+            pending(-1);
+        }
+
+        @Override
+        public void afterMatchFired(AfterMatchFiredEvent event) {
+            _rulesFired.incrementAndGet();
+        }
+
+    }
+
+}
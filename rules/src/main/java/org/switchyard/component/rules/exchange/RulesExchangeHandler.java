@@ -19,7 +19,6 @@
 package org.switchyard.component.rules.exchange;
 
 import static org.switchyard.component.common.knowledge.util.Mappings.getInputList;
-import static org.switchyard.component.common.knowledge.util.Mappings.getListMap;
 import static org.switchyard.component.common.knowledge.util.Mappings.getOutput;
 import static org.switchyard.component.common.knowledge.util.Mappings.setGlobals;
 import static org.switchyard.component.common.knowledge.util.Mappings.toVariable;
@@ -27,8 +26,16 @@ import static org.switchyard.component.common.knowledge.util.Mappings.toVariable
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import org.apache.log4j.Logger;
+import org.kie.event.rule.AgendaEventListener;
+import org.kie.runtime.KieSession;
 import org.kie.runtime.rule.SessionEntryPoint;
 import org.switchyard.Exchange;
 import org.switchyard.ExchangePattern;
@@ -41,6 +48,7 @@ import org.switchyard.component.common.knowledge.exchange.KnowledgeAction;
 import org.switchyard.component.common.knowledge.exchange.KnowledgeExchangeHandler;
 import org.switchyard.component.common.knowledge.session.KnowledgeDisposal;
 import org.switchyard.component.common.knowledge.session.KnowledgeSession;
+import org.switchyard.component.common.knowledge.util.Propertys;
 import org.switchyard.component.rules.RulesActionType;
 import org.switchyard.component.rules.RulesConstants;
 import org.switchyard.component.rules.config.model.RulesComponentImplementationModel;
@@ -52,10 +60,14 @@ import org.switchyard.component.rules.config.model.RulesComponentImplementationM
  */
 public class RulesExchangeHandler extends KnowledgeExchangeHandler<RulesComponentImplementationModel> {
 
-    private static final AtomicInteger FIRE_UNTIL_HALT_COUNT = new AtomicInteger();
+    private static final Logger LOGGER = Logger.getLogger(RulesExchangeHandler.class);
+    private static final long HALT_TIMEOUT = 30000L;
     private static final KnowledgeAction DEFAULT_ACTION = new KnowledgeAction(null, RulesActionType.EXECUTE);
 
-    private Thread _fireUntilHaltThread = null;
+    private volatile FactBatcher<BatchItem> _factBatcher = null;
+    private FireUntilHaltExecutor _fireUntilHaltExecutor = FireUntilHaltExecutor.getDefault();
+    private final FireUntilHaltMetrics _fireUntilHaltMetrics = new FireUntilHaltMetrics();
+    private FireUntilHalt _fireUntilHalt = null;
 
     /**
      * Constructs a new RulesExchangeHandler with the specified model and service domain.
@@ -66,6 +78,59 @@ public class RulesExchangeHandler extends KnowledgeExchangeHandler<RulesComponen
         super(model, domain);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start() {
+        super.start();
+        Properties properties = Propertys.getProperties(getModel(), getPropertyOverrides());
+        int batchSize = RulesConstants.DEFAULT_BATCH_SIZE;
+        String size = Strings.trimToNull(properties.getProperty(RulesConstants.BATCH_SIZE_PROPERTY));
+        if (size != null) {
+            batchSize = Integer.parseInt(size);
+        }
+        long batchTimeout = RulesConstants.DEFAULT_BATCH_TIMEOUT;
+        String timeout = Strings.trimToNull(properties.getProperty(RulesConstants.BATCH_TIMEOUT_PROPERTY));
+        if (timeout != null) {
+            batchTimeout = Long.parseLong(timeout);
+        }
+        _factBatcher = new FactBatcher<BatchItem>(batchSize, batchTimeout, new BatchFlusher());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stop() {
+        // exchanges still arriving are rejected by the closed batcher; pending batches are flushed first
+        FactBatcher<BatchItem> factBatcher = _factBatcher;
+        if (factBatcher != null) {
+            factBatcher.close();
+        }
+        try {
+            haltFireUntilHalt();
+        } finally {
+            super.stop();
+        }
+    }
+
+    /**
+     * Sets the executor fireUntilHalt sessions run on.
+     * @param fireUntilHaltExecutor the executor
+     */
+    public void setFireUntilHaltExecutor(FireUntilHaltExecutor fireUntilHaltExecutor) {
+        _fireUntilHaltExecutor = fireUntilHaltExecutor != null ? fireUntilHaltExecutor : FireUntilHaltExecutor.getDefault();
+    }
+
+    /**
+     * Gets the fireUntilHalt metrics.
+     * @return the metrics
+     */
+    public FireUntilHaltMetrics getFireUntilHaltMetrics() {
+        return _fireUntilHaltMetrics;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -109,6 +174,18 @@ public class RulesExchangeHandler extends KnowledgeExchangeHandler<RulesComponen
                 }
                 break;
             }
+            case FIRE_ALL_RULES_BATCH: {
+                FactBatcher<BatchItem> factBatcher = _factBatcher;
+                if (factBatcher == null) {
+                    throw new HandlerException("Rules service is not started");
+                }
+                BatchItem item = new BatchItem(exchange, action, getInputList(exchange, action), isDispose(exchange));
+                // blocks until the batch holding this exchange's facts has been inserted and fired,
+                // and this exchange's output evaluated
+                factBatcher.submit(item, item._facts.size());
+                reply(exchange, item._output);
+                return;
+            }
             case FIRE_UNTIL_HALT: {
                 /*
                 if (!isContinue(exchange)) {
@@ -117,13 +194,21 @@ public class RulesExchangeHandler extends KnowledgeExchangeHandler<RulesComponen
                 */
                 KnowledgeSession session = getStatefulSession();
                 setGlobals(exchange, action, session, false);
-                if (_fireUntilHaltThread == null) {
+                if (_fireUntilHalt == null) {
                     FireUntilHalt fireUntilHalt = new FireUntilHalt(this, session, getLoader());
                     session.addDisposals(fireUntilHalt);
-                    _fireUntilHaltThread = fireUntilHalt.startThread();
+                    session.getStateful().addEventListener(fireUntilHalt._agendaListener);
+                    try {
+                        fireUntilHalt._future = _fireUntilHaltExecutor.submit(fireUntilHalt);
+                        _fireUntilHalt = fireUntilHalt;
+                    } catch (RejectedExecutionException ree) {
+                        disposeStatefulSession();
+                        throw new HandlerException("Too many fireUntilHalt sessions running (maximum "
+                            + _fireUntilHaltExecutor.getMaxSessions() + ")", ree);
+                    }
                 }
                 final String undefinedVariable = toVariable(exchange);
-                Map<String, List<Object>> listMap = getListMap(exchange, action.getInputExpressionMappings(), true, undefinedVariable);
+                Map<String, List<Object>> listMap = action.getInputEvaluator().evaluateListMap(exchange, true, undefinedVariable);
                 if (listMap.size() > 0) {
                     for (Entry<String, List<Object>> entry : listMap.entrySet()) {
                         String key = entry.getKey();
@@ -138,12 +223,14 @@ public class RulesExchangeHandler extends KnowledgeExchangeHandler<RulesComponen
                             for (Object fact : input) {
                                 session.getStateful().insert(fact);
                             }
+                            _fireUntilHaltMetrics.factsInserted(FireUntilHaltMetrics.DEFAULT_ENTRY_POINT, input.size());
                         } else {
                             SessionEntryPoint sep = session.getStateful().getEntryPoint(key);
                             if (sep != null) {
                                 for (Object fact : input) {
                                     sep.insert(fact);
                                 }
+                                _fireUntilHaltMetrics.factsInserted(key, input.size());
                             } else {
                                 throw new HandlerException("Unknown entry point: " + sep + "; please check your rules source.");
                             }
@@ -153,6 +240,7 @@ public class RulesExchangeHandler extends KnowledgeExchangeHandler<RulesComponen
                     Object content = exchange.getMessage().getContent();
                     if (content != null) {
                         session.getStateful().insert(content);
+                        _fireUntilHaltMetrics.factsInserted(FireUntilHaltMetrics.DEFAULT_ENTRY_POINT, 1);
                     }
                 }
                 if (isDispose(exchange)) {
@@ -164,7 +252,10 @@ public class RulesExchangeHandler extends KnowledgeExchangeHandler<RulesComponen
                 throw new HandlerException("Unsupported action type: " + actionType);
             }
         }
-        Object output = getOutput(exchange, action);
+        reply(exchange, getOutput(exchange, action));
+    }
+
+    private void reply(Exchange exchange, Object output) {
         if (ExchangePattern.IN_OUT.equals(exchange.getContract().getProviderOperation().getExchangePattern())) {
             Message message = exchange.createMessage().setContent(output);
             exchange.send(message);
@@ -181,24 +272,92 @@ public class RulesExchangeHandler extends KnowledgeExchangeHandler<RulesComponen
         return isBoolean(exchange, RulesConstants.DISPOSE_PROPERTY);
     }
 
+    /**
+     * One exchange's part of a fact batch.
+     */
+    private static final class BatchItem {
+
+        private final Exchange _exchange;
+        private final KnowledgeAction _action;
+        private final List<Object> _facts;
+        private final boolean _dispose;
+        private Object _output;
+
+        private BatchItem(Exchange exchange, KnowledgeAction action, List<Object> facts, boolean dispose) {
+            _exchange = exchange;
+            _action = action;
+            _facts = facts;
+            _dispose = dispose;
+        }
+
+    }
+
+    /**
+     * Inserts and fires a batch against one stateful session. The batcher flushes one batch at a time, so
+     * globals, inserts, the fire, output evaluation and any disposal of a batch never interleave with another.
+     * <p/>
+     * Global mappings are applied per exchange as its facts are inserted, but all consequences run in the
+     * batch's single fireAllRules, so batched rules should record their results on the facts rather than on
+     * globals that vary per exchange; the exchange, context and message globals are not set.
+     */
+    private final class BatchFlusher implements FactBatcher.Flusher<BatchItem> {
+
+        @Override
+        public void flush(List<BatchItem> items) {
+            KnowledgeSession session = getStatefulSession();
+            KieSession stateful = session.getStateful();
+            boolean dispose = false;
+            try {
+                for (BatchItem item : items) {
+                    setGlobals(item._exchange, item._action, session, false);
+                    for (Object fact : item._facts) {
+                        stateful.insert(fact);
+                    }
+                }
+                stateful.fireAllRules();
+                for (BatchItem item : items) {
+                    item._output = getOutput(item._exchange, item._action);
+                    dispose = dispose || item._dispose;
+                }
+            } finally {
+                if (dispose) {
+                    disposeStatefulSession();
+                }
+            }
+        }
+
+    }
+
+    private void haltFireUntilHalt() {
+        FireUntilHalt fireUntilHalt = _fireUntilHalt;
+        if (fireUntilHalt != null) {
+            fireUntilHalt.halt();
+        }
+    }
+
     private final class FireUntilHalt implements Runnable, KnowledgeDisposal {
 
         private final RulesExchangeHandler _handler;
         private final KnowledgeSession _session;
         private final ClassLoader _loader;
+        private final AgendaEventListener _agendaListener;
+        private volatile Future<?> _future;
 
         private FireUntilHalt(RulesExchangeHandler handler, KnowledgeSession session, ClassLoader loader) {
             _handler = handler;
             _session = session;
             _loader = loader;
+            _agendaListener = handler._fireUntilHaltMetrics.newAgendaEventListener();
         }
 
         @Override
         public void run() {
             ClassLoader originalLoader = Classes.setTCCL(_loader);
+            _handler._fireUntilHaltMetrics.started();
             try {
                 _session.getStateful().fireUntilHalt();
             } finally {
+                _handler._fireUntilHaltMetrics.stopped(_agendaListener);
                 try {
                     _handler.disposeStatefulSession();
                 } finally {
@@ -209,22 +368,26 @@ public class RulesExchangeHandler extends KnowledgeExchangeHandler<RulesComponen
 
         @Override
         public void dispose() {
-            _handler._fireUntilHaltThread = null;
+            if (_handler._fireUntilHalt == this) {
+                _handler._fireUntilHalt = null;
+            }
         }
 
-        private Thread startThread() {
-            Thread thread = new Thread(this);
-            String name = new StringBuilder()
-                .append(_handler.getClass().getSimpleName())
-                .append(':')
-                .append(getClass().getSimpleName())
-                .append(':')
-                .append(FIRE_UNTIL_HALT_COUNT.incrementAndGet())
-                .toString();
-            thread.setName(name);
-            thread.setDaemon(true);
-            thread.start();
-            return thread;
+        private void halt() {
+            _session.getStateful().halt();
+            Future<?> future = _future;
+            if (future != null) {
+                try {
+                    future.get(HALT_TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException te) {
+                    LOGGER.warn("fireUntilHalt did not halt within " + HALT_TIMEOUT + "ms; cancelling");
+                    future.cancel(true);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ee) {
+                    LOGGER.warn("problem running fireUntilHalt: " + ee.getCause());
+                }
+            }
         }
 
     }
@@ -0,0 +1,160 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.rules.exchange;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.switchyard.HandlerException;
+
+/**
+ * Tests the FactBatcher.
+ */
+public class FactBatcherTests {
+
+    @Test
+    public void testSizeTriggeredFlush() throws Exception {
+        final AtomicInteger flushes = new AtomicInteger();
+        final List<Object> flushed = Collections.synchronizedList(new ArrayList<Object>());
+        final FactBatcher<Object> batcher = new FactBatcher<Object>(4, 60000L, new FactBatcher.Flusher<Object>() {
+            @Override
+            public void flush(List<Object> items) {
+                flushes.incrementAndGet();
+                flushed.addAll(items);
+            }
+        });
+        List<Throwable> failures = submitConcurrently(batcher, 4);
+        Assert.assertTrue("unexpected failures: " + failures, failures.isEmpty());
+        Assert.assertEquals(1, flushes.get());
+        Assert.assertEquals(4, flushed.size());
+    }
+
+    @Test
+    public void testTimeoutTriggeredFlush() throws Exception {
+        final List<Object> flushed = new ArrayList<Object>();
+        FactBatcher<Object> batcher = new FactBatcher<Object>(100, 10L, new FactBatcher.Flusher<Object>() {
+            @Override
+            public void flush(List<Object> items) {
+                flushed.addAll(items);
+            }
+        });
+        batcher.submit("fact", 1);
+        Assert.assertEquals(1, flushed.size());
+    }
+
+    @Test
+    public void testFlushFailurePropagatesToEveryItem() throws Exception {
+        FactBatcher<Object> batcher = new FactBatcher<Object>(3, 60000L, new FactBatcher.Flusher<Object>() {
+            @Override
+            public void flush(List<Object> items) throws Exception {
+                throw new Exception("boom");
+            }
+        });
+        List<Throwable> failures = submitConcurrently(batcher, 3);
+        Assert.assertEquals(3, failures.size());
+        for (Throwable failure : failures) {
+            Assert.assertTrue(failure instanceof HandlerException);
+            Assert.assertEquals("boom", failure.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testBatchesAreFlushedOneAtATime() throws Exception {
+        final AtomicInteger flushing = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        FactBatcher<Object> batcher = new FactBatcher<Object>(1, 60000L, new FactBatcher.Flusher<Object>() {
+            @Override
+            public void flush(List<Object> items) throws Exception {
+                if (flushing.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                Thread.sleep(5L);
+                flushing.decrementAndGet();
+            }
+        });
+        List<Throwable> failures = submitConcurrently(batcher, 8);
+        Assert.assertTrue("unexpected failures: " + failures, failures.isEmpty());
+        Assert.assertEquals(0, overlaps.get());
+    }
+
+    @Test
+    public void testCloseFlushesPendingBatchAndRejectsSubmissions() throws Exception {
+        final List<Object> flushed = Collections.synchronizedList(new ArrayList<Object>());
+        final FactBatcher<Object> batcher = new FactBatcher<Object>(100, 60000L, new FactBatcher.Flusher<Object>() {
+            @Override
+            public void flush(List<Object> items) {
+                flushed.addAll(items);
+            }
+        });
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread submitter = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    batcher.submit("pending", 1);
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }
+        });
+        submitter.start();
+        while (submitter.getState() != Thread.State.TIMED_WAITING && submitter.isAlive()) {
+            Thread.sleep(1L);
+        }
+        batcher.close();
+        submitter.join(10000L);
+        Assert.assertFalse(submitter.isAlive());
+        Assert.assertTrue("unexpected failures: " + failures, failures.isEmpty());
+        Assert.assertEquals(Collections.<Object>singletonList("pending"), flushed);
+        try {
+            batcher.submit("late", 1);
+            Assert.fail("closed batcher accepted a submission");
+        } catch (HandlerException he) {
+            Assert.assertEquals(1, flushed.size());
+        }
+    }
+
+    private static List<Throwable> submitConcurrently(final FactBatcher<Object> batcher, int count) throws InterruptedException {
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        final CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            final Integer fact = Integer.valueOf(i);
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        batcher.submit(fact, 1);
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        Assert.assertTrue("submissions did not complete", done.await(30L, TimeUnit.SECONDS));
+        return failures;
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.rules.exchange;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Tests the FireUntilHaltExecutor.
+ */
+public class FireUntilHaltExecutorTests {
+
+    @Test
+    public void testRejectsBeyondMaxSessions() throws Exception {
+        FireUntilHaltExecutor executor = new FireUntilHaltExecutor(2);
+        final CountDownLatch running = new CountDownLatch(2);
+        final CountDownLatch halt = new CountDownLatch(1);
+        Runnable session = new Runnable() {
+            public void run() {
+                running.countDown();
+                try {
+                    halt.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        try {
+            Assert.assertEquals(2, executor.getMaxSessions());
+            executor.submit(session);
+            executor.submit(session);
+            Assert.assertTrue(running.await(10L, TimeUnit.SECONDS));
+            Assert.assertEquals(2, executor.getActiveSessions());
+            try {
+                executor.submit(session);
+                Assert.fail("a third session was accepted");
+            } catch (RejectedExecutionException ree) {
+                Assert.assertEquals(2, executor.getActiveSessions());
+            }
+            halt.countDown();
+            long deadline = System.currentTimeMillis() + 10000L;
+            while (executor.getActiveSessions() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5L);
+            }
+            Assert.assertEquals(0, executor.getActiveSessions());
+            executor.submit(new Runnable() {
+                public void run() {
+                }
+            }).get(10L, TimeUnit.SECONDS);
+        } finally {
+            halt.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDaemonThreads() throws Exception {
+        FireUntilHaltExecutor executor = new FireUntilHaltExecutor(0);
+        final Thread[] thread = new Thread[1];
+        try {
+            Assert.assertEquals(1, executor.getMaxSessions());
+            executor.submit(new Runnable() {
+                public void run() {
+                    thread[0] = Thread.currentThread();
+                }
+            }).get(10L, TimeUnit.SECONDS);
+            Assert.assertTrue(thread[0].isDaemon());
+            Assert.assertTrue(thread[0].getName().startsWith("RulesExchangeHandler:FireUntilHalt-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDefaultIsShared() throws Exception {
+        Assert.assertSame(FireUntilHaltExecutor.getDefault(), FireUntilHaltExecutor.getDefault());
+        Assert.assertEquals(FireUntilHaltExecutor.DEFAULT_MAX_SESSIONS, FireUntilHaltExecutor.getDefault().getMaxSessions());
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.rules.exchange;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.kie.event.rule.AgendaEventListener;
+
+/**
+ * Tests the FireUntilHaltMetrics.
+ */
+public class FireUntilHaltMetricsTests {
+
+    @Test
+    public void testAgendaSizeAndRulesFired() throws Exception {
+        FireUntilHaltMetrics metrics = new FireUntilHaltMetrics();
+        AgendaEventListener listener = metrics.newAgendaEventListener();
+        metrics.started();
+        listener.matchCreated(null);
+        listener.matchCreated(null);
+        listener.matchCreated(null);
+        Assert.assertEquals(3, metrics.getAgendaSize());
+        listener.beforeMatchFired(null);
+        listener.afterMatchFired(null);
+        listener.matchCancelled(null);
+        Assert.assertEquals(1, metrics.getAgendaSize());
+        Assert.assertEquals(1L, metrics.getRulesFired());
+        metrics.stopped(listener);
+        Assert.assertEquals(0, metrics.getAgendaSize());
+    }
+
+    @Test
+    public void testAgendaSizeSurvivesRestart() throws Exception {
+        FireUntilHaltMetrics metrics = new FireUntilHaltMetrics();
+        AgendaEventListener first = metrics.newAgendaEventListener();
+        metrics.started();
+        first.matchCreated(null);
+        first.matchCreated(null);
+        metrics.stopped(first);
+        AgendaEventListener second = metrics.newAgendaEventListener();
+        metrics.started();
+        second.matchCreated(null);
+        Assert.assertEquals(1, metrics.getAgendaSize());
+        // late events from the first session must not push the gauge off
+        first.beforeMatchFired(null);
+        second.beforeMatchFired(null);
+        second.afterMatchFired(null);
+        metrics.stopped(second);
+        Assert.assertEquals(0, metrics.getAgendaSize());
+        Assert.assertEquals(1L, metrics.getRulesFired());
+    }
+
+    @Test
+    public void testFactsInsertedAndTime() throws Exception {
+        FireUntilHaltMetrics metrics = new FireUntilHaltMetrics();
+        metrics.factsInserted(FireUntilHaltMetrics.DEFAULT_ENTRY_POINT, 2);
+        metrics.factsInserted("stream", 3);
+        metrics.factsInserted("stream", 1);
+        Assert.assertEquals(Long.valueOf(2L), metrics.getFactsInserted().get(FireUntilHaltMetrics.DEFAULT_ENTRY_POINT));
+        Assert.assertEquals(Long.valueOf(4L), metrics.getFactsInserted().get("stream"));
+        Assert.assertEquals(0L, metrics.getFireUntilHaltTime());
+        metrics.started();
+        Thread.sleep(20L);
+        Assert.assertTrue(metrics.getFireUntilHaltTime() >= 10L);
+        metrics.stopped(null);
+        long time = metrics.getFireUntilHaltTime();
+        Thread.sleep(20L);
+        Assert.assertEquals(time, metrics.getFireUntilHaltTime());
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.rules.session;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.switchyard.component.common.knowledge.session.KnowledgeBaseCache;
+import org.switchyard.component.common.knowledge.session.KnowledgeSession;
+import org.switchyard.component.common.knowledge.session.KnowledgeSessionFactory;
+import org.switchyard.component.rules.config.model.RulesComponentImplementationModel;
+import org.switchyard.config.model.ModelPuller;
+import org.switchyard.config.model.switchyard.SwitchYardModel;
+
+/**
+ * Tests the on-disk KieBase cache, including a simple cold vs. warm startup timing.
+ */
+public class KnowledgeBaseCacheTests {
+
+    private static final Logger LOGGER = Logger.getLogger(KnowledgeBaseCacheTests.class);
+    private static final String XML = "/org/switchyard/component/rules/session/KnowledgeBaseCacheTests.xml";
+
+    @Rule
+    public TemporaryFolder _folder = new TemporaryFolder();
+
+    private ClassLoader _loader;
+    private RulesComponentImplementationModel _model;
+    private Properties _overrides;
+
+    @Before
+    public void before() throws Exception {
+        _loader = getClass().getClassLoader();
+        SwitchYardModel switchyard = new ModelPuller<SwitchYardModel>().pull(XML, _loader);
+        _model = (RulesComponentImplementationModel)switchyard.getComposite().getComponents().get(0).getImplementation();
+        _overrides = new Properties();
+        _overrides.setProperty(KnowledgeBaseCache.DIRECTORY_PROPERTY, _folder.getRoot().getAbsolutePath());
+    }
+
+    @Test
+    public void testStartupTiming() throws Exception {
+        long cold = timeStartup();
+        File[] entries = getEntries();
+        Assert.assertEquals(1, entries.length);
+        // only a rebuilt knowledge base is stored, so an untouched entry means the warm startup was a cache hit
+        Assert.assertTrue(entries[0].setLastModified(0L));
+        long warm = timeStartup();
+        entries = getEntries();
+        Assert.assertEquals(1, entries.length);
+        Assert.assertEquals(0L, entries[0].lastModified());
+        LOGGER.info(String.format("KieBase startup: cold=%dms, warm=%dms", cold, warm));
+    }
+
+    @Test
+    public void testFactClassChangeRebuilds() throws Exception {
+        timeStartup();
+        // the rules reference java.util.List as a global; a loader that serves different bytecode for it stands in
+        // for a redeployed application whose fact classes changed while its rules did not
+        final File changed = _folder.newFile("List.class");
+        FileOutputStream fos = new FileOutputStream(changed);
+        try {
+            fos.write("changed".getBytes());
+        } finally {
+            fos.close();
+        }
+        _loader = new ClassLoader(_loader) {
+            @Override
+            public URL getResource(String name) {
+                if ("java/util/List.class".equals(name)) {
+                    try {
+                        return changed.toURI().toURL();
+                    } catch (MalformedURLException mue) {
+                        throw new IllegalStateException(mue);
+                    }
+                }
+                return super.getResource(name);
+            }
+        };
+        timeStartup();
+        Assert.assertEquals(2, getEntries().length);
+    }
+
+    @Test
+    public void testCorruptEntryRebuilt() throws Exception {
+        timeStartup();
+        File entry = getEntries()[0];
+        FileOutputStream fos = new FileOutputStream(entry);
+        try {
+            fos.write("garbage".getBytes());
+        } finally {
+            fos.close();
+        }
+        timeStartup();
+        File[] entries = getEntries();
+        Assert.assertEquals(1, entries.length);
+        Assert.assertTrue(entries[0].length() > "garbage".length());
+    }
+
+    @Test
+    public void testConfigurationChangeRebuilds() throws Exception {
+        timeStartup();
+        _overrides.setProperty("drools.sequential", "true");
+        timeStartup();
+        Assert.assertEquals(2, getEntries().length);
+    }
+
+    private long timeStartup() {
+        long start = System.nanoTime();
+        KnowledgeSessionFactory factory = KnowledgeSessionFactory.newSessionFactory(_model, _loader, null, _overrides);
+        long elapsed = (System.nanoTime() - start) / 1000000L;
+        try {
+            KnowledgeSession session = factory.newStatelessSession();
+            List<Object> list = new ArrayList<Object>();
+            session.getStateless().setGlobal("list", list);
+            session.getStateless().execute("fact");
+            Assert.assertEquals(1, list.size());
+            session.dispose();
+        } finally {
+            factory.dispose();
+        }
+        return elapsed;
+    }
+
+    private File[] getEntries() {
+        return _folder.getRoot().listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".kbase");
+            }
+        });
+    }
+
+}
@@ -227,7 +227,18 @@ public class HornetQMixIn extends AbstractTestMixIn {
      */
     public ClientSession createClientSession() {
         closeSession(_clientSession);
-        
+        _clientSession = openClientSession();
+        return _clientSession;
+    }
+
+    /**
+     * Create an additional, started ClientSession which is owned by the caller and left
+     * untouched by {@link #createClientSession()}; the caller must close it.
+     * <p/>
+     * ClientSessions are not thread-safe, so tests that send from several threads need one each.
+     * @return ClientSession instance
+     */
+    public ClientSession openClientSession() {
         try {
             if (_serverLocator == null || _clientSessionFactory == null) {
                 if (_startEmbedded) {
@@ -242,15 +253,15 @@ public class HornetQMixIn extends AbstractTestMixIn {
                 }
             }
             
-            _clientSession = _clientSessionFactory.createSession(_user,
+            ClientSession session = _clientSessionFactory.createSession(_user,
                                                                 _passwd,
                                                                 false,
                                                                 true,
                                                                 true,
                                                                 _serverLocator.isPreAcknowledge(),
                                                                 _serverLocator.getAckBatchSize());
-            _clientSession.start();
-            return _clientSession;
+            session.start();
+            return session;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
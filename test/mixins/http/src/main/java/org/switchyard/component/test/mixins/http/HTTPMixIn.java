@@ -90,6 +90,7 @@ public class HTTPMixIn extends AbstractTestMixIn {
     private HashMap<String,String> _requestHeaders = new HashMap<String,String>();
     private HashMap<String,String> _expectedHeaders = new HashMap<String,String>();
     private boolean _dumpMessages = false;
+    private int _maxConnections = 0;
     
     /**
      * Set the content type.
@@ -104,9 +105,36 @@ public class HTTPMixIn extends AbstractTestMixIn {
         return this;
     }
 
+    /**
+     * Set the maximum number of pooled connections.
+     * <p/>
+     * By default a single connection is used, which only supports sending from one thread at a time.
+     * A positive value switches to a thread-safe connection pool of that size, so requests can be
+     * sent concurrently through {@link #execute(HttpMethod)}; callers must then release each method's
+     * connection themselves.  Changing the value on an initialized MixIn replaces its client.
+     *
+     * @param maxConnections The maximum number of connections, or 0 for a single connection.
+     * @return This HTTPMixIn instance.
+     */
+    public HTTPMixIn setMaxConnections(int maxConnections) {
+        _maxConnections = maxConnections;
+        if (_httpClient != null) {
+            uninitialize();
+            initialize();
+        }
+        return this;
+    }
+
     @Override
     public void initialize() {
-        _httpClient = new HttpClient();
+        if (_maxConnections > 0) {
+            MultiThreadedHttpConnectionManager connectionManager = new MultiThreadedHttpConnectionManager();
+            connectionManager.getParams().setDefaultMaxConnectionsPerHost(_maxConnections);
+            connectionManager.getParams().setMaxTotalConnections(_maxConnections);
+            _httpClient = new HttpClient(connectionManager);
+        } else {
+            _httpClient = new HttpClient();
+        }
     }
 
     /**
@@ -103,6 +103,22 @@ public class MockResourceAdapter implements ResourceAdapter {
         }
     }
     
+    /**
+     * create an additional endpoint which is owned by the caller, e.g. one per delivering thread.
+     * 
+     * @return a new {@link MessageEndpoint} for the activated endpoint factory
+     */
+    public MessageEndpoint createEndpoint() {
+        if (_factory == null) {
+            throw new IllegalStateException("No endpoint has been activated on this resource adapter");
+        }
+        try {
+            return _factory.createEndpoint(new MockXAResource(), 0);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
     /**
      * fire beforeDelivery().
      */
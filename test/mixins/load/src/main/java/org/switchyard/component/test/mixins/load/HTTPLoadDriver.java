@@ -0,0 +1,124 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.test.mixins.load;
+
+import java.io.IOException;
+
+import org.apache.commons.httpclient.HttpMethodBase;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.PutMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.switchyard.component.test.mixins.http.HTTPMixIn;
+
+/**
+ * Drives HTTP based bindings (HTTP, SOAP, RESTEasy) through an {@link HTTPMixIn}.
+ * <p/>
+ * The MixIn is switched to a connection pool with one connection per worker for the run, so its
+ * request headers and expected response headers apply to every request. Responses with a status
+ * of 400 or above count as errors.
+ */
+public class HTTPLoadDriver implements LoadDriver {
+
+    private final HTTPMixIn _httpMixIn;
+    private final String _endpointURL;
+    private final byte[] _request;
+    private String _method = HTTPMixIn.HTTP_POST;
+    private String _contentType = "text/xml;charset=UTF-8";
+    private RequestEntity _requestEntity;
+
+    /**
+     * Creates a new driver.
+     * @param httpMixIn the initialized HTTP MixIn
+     * @param endpointURL the endpoint to send to
+     * @param request the request payload
+     */
+    public HTTPLoadDriver(HTTPMixIn httpMixIn, String endpointURL, String request) {
+        _httpMixIn = httpMixIn;
+        _endpointURL = endpointURL;
+        try {
+            _request = request != null ? request.getBytes("UTF-8") : new byte[0];
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        }
+    }
+
+    /**
+     * Set the request method, one of HTTPMixIn.HTTP_POST, HTTP_PUT or HTTP_GET.
+     * <p/>
+     * Default is POST.
+     * @param method the method
+     * @return this instance
+     */
+    public HTTPLoadDriver setMethod(String method) {
+        if (!HTTPMixIn.HTTP_POST.equals(method) && !HTTPMixIn.HTTP_PUT.equals(method) && !HTTPMixIn.HTTP_GET.equals(method)) {
+            throw new IllegalArgumentException("Unsupported HTTP method for load tests: " + method);
+        }
+        _method = method;
+        return this;
+    }
+
+    /**
+     * Set the content type of the request payload.
+     * <p/>
+     * Default is "text/xml;charset=UTF-8".
+     * @param contentType the content type
+     * @return this instance
+     */
+    public HTTPLoadDriver setContentType(String contentType) {
+        _contentType = contentType;
+        return this;
+    }
+
+    @Override
+    public void start(int workers) {
+        // the payload is sent unchanged, so one repeatable entity serves every request
+        _requestEntity = new ByteArrayRequestEntity(_request, _contentType);
+        _httpMixIn.setMaxConnections(workers);
+    }
+
+    @Override
+    public void invoke(int worker) throws Exception {
+        HttpMethodBase method;
+        if (HTTPMixIn.HTTP_GET.equals(_method)) {
+            method = new GetMethod(_endpointURL);
+        } else {
+            EntityEnclosingMethod entityMethod = HTTPMixIn.HTTP_PUT.equals(_method) ? new PutMethod(_endpointURL) : new PostMethod(_endpointURL);
+            entityMethod.setRequestEntity(_requestEntity);
+            method = entityMethod;
+        }
+        try {
+            _httpMixIn.execute(method);
+            int status = method.getStatusCode();
+            if (status >= 400) {
+                throw new IOException("HTTP " + status + " " + method.getStatusText() + " from " + _endpointURL);
+            }
+        } finally {
+            method.releaseConnection();
+        }
+    }
+
+    @Override
+    public void stop() {
+        _httpMixIn.setMaxConnections(0);
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.test.mixins.load;
+
+import java.io.IOException;
+
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.switchyard.component.test.mixins.hornetq.HornetQMixIn;
+
+/**
+ * Drives HornetQ based bindings (HornetQ, and JCA or Camel JMS against embedded HornetQ) through a
+ * {@link HornetQMixIn}.
+ * <p/>
+ * Each worker sends from its own session. Without a result queue a request completes once it has
+ * been sent, which measures how fast the binding accepts messages. With a result queue each worker
+ * also waits for one message on that queue, for applications that forward every request there;
+ * results are not correlated to requests, so the service must produce exactly one result for each.
+ */
+public class HornetQLoadDriver implements LoadDriver {
+
+    private final HornetQMixIn _hornetQMixIn;
+    private final String _address;
+    private final byte[] _body;
+    private String _resultQueue;
+    private long _receiveTimeout = 30000L;
+    private ClientSession[] _sessions;
+    private ClientProducer[] _producers;
+    private ClientConsumer[] _consumers;
+
+    /**
+     * Creates a new driver.
+     * @param hornetQMixIn the initialized HornetQ MixIn
+     * @param address the address to send to
+     * @param body the message body
+     */
+    public HornetQLoadDriver(HornetQMixIn hornetQMixIn, String address, String body) {
+        _hornetQMixIn = hornetQMixIn;
+        _address = address;
+        _body = body != null ? body.getBytes() : new byte[0];
+    }
+
+    /**
+     * Set a queue to wait for one result on after each request.
+     * @param resultQueue the queue, or null to complete requests once they are sent
+     * @return this instance
+     */
+    public HornetQLoadDriver setResultQueue(String resultQueue) {
+        _resultQueue = resultQueue;
+        return this;
+    }
+
+    /**
+     * Set how long to wait for a result before the request counts as failed.
+     * <p/>
+     * Default is 30 seconds.
+     * @param receiveTimeout the timeout in milliseconds
+     * @return this instance
+     */
+    public HornetQLoadDriver setReceiveTimeout(long receiveTimeout) {
+        _receiveTimeout = receiveTimeout;
+        return this;
+    }
+
+    @Override
+    public void start(int workers) throws Exception {
+        _sessions = new ClientSession[workers];
+        _producers = new ClientProducer[workers];
+        _consumers = new ClientConsumer[workers];
+        for (int i = 0; i < workers; i++) {
+            _sessions[i] = _hornetQMixIn.openClientSession();
+            _producers[i] = _sessions[i].createProducer(_address);
+            if (_resultQueue != null) {
+                _consumers[i] = _sessions[i].createConsumer(_resultQueue);
+            }
+        }
+    }
+
+    @Override
+    public void invoke(int worker) throws Exception {
+        ClientMessage message = _sessions[worker].createMessage(true);
+        message.getBodyBuffer().writeBytes(_body);
+        _producers[worker].send(message);
+        if (_consumers[worker] != null) {
+            ClientMessage result = _consumers[worker].receive(_receiveTimeout);
+            if (result == null) {
+                throw new IOException("No result on " + _resultQueue + " within " + _receiveTimeout + " ms");
+            }
+            result.acknowledge();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (_sessions == null) {
+            return;
+        }
+        for (int i = 0; i < _sessions.length; i++) {
+            HornetQMixIn.closeClientConsumer(_consumers[i]);
+            HornetQMixIn.closeClientProducer(_producers[i]);
+            HornetQMixIn.closeSession(_sessions[i]);
+        }
+        _sessions = null;
+        _producers = null;
+        _consumers = null;
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.test.mixins.load;
+
+import javax.resource.cci.MessageListener;
+import javax.resource.cci.Record;
+import javax.resource.spi.endpoint.MessageEndpoint;
+
+import org.switchyard.component.test.mixins.jca.MockResourceAdapter;
+
+/**
+ * Drives JCA CCI service bindings by delivering records to the endpoint activated on a
+ * {@link MockResourceAdapter} deployed by the JCA MixIn.
+ * <p/>
+ * Each worker delivers through its own endpoint, bracketed by beforeDelivery and afterDelivery as a
+ * resource adapter would. The same request record is delivered every time, so the binding must
+ * only read it. JMS service bindings are driven through embedded HornetQ with the
+ * {@link HornetQLoadDriver} instead.
+ */
+public class JCALoadDriver implements LoadDriver {
+
+    private final MockResourceAdapter _resourceAdapter;
+    private final Record _request;
+    private MessageEndpoint[] _endpoints;
+
+    /**
+     * Creates a new driver.
+     * @param resourceAdapter the resource adapter the service binding was activated on
+     * @param request the record to deliver
+     */
+    public JCALoadDriver(MockResourceAdapter resourceAdapter, Record request) {
+        _resourceAdapter = resourceAdapter;
+        _request = request;
+    }
+
+    @Override
+    public void start(int workers) {
+        _endpoints = new MessageEndpoint[workers];
+        for (int i = 0; i < workers; i++) {
+            _endpoints[i] = _resourceAdapter.createEndpoint();
+        }
+    }
+
+    @Override
+    public void invoke(int worker) throws Exception {
+        MessageEndpoint endpoint = _endpoints[worker];
+        endpoint.beforeDelivery(null);
+        try {
+            ((MessageListener)endpoint).onMessage(_request);
+        } finally {
+            endpoint.afterDelivery();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (_endpoints == null) {
+            return;
+        }
+        for (MessageEndpoint endpoint : _endpoints) {
+            if (endpoint != null) {
+                endpoint.release();
+            }
+        }
+        _endpoints = null;
+    }
+
+}
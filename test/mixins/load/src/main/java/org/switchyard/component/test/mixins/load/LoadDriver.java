@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.test.mixins.load;
+
+/**
+ * Sends requests to a deployed application through one binding, on behalf of {@link LoadMixIn}.
+ * <p/>
+ * A driver is started once per run with the number of workers which will call it; each worker
+ * only ever calls {@link #invoke(int)} with its own index, so per-worker resources such as
+ * sessions or endpoints can be kept in an array without further synchronization.
+ */
+public interface LoadDriver {
+
+    /**
+     * Prepares the driver before any request is sent.
+     * @param workers the number of workers which will invoke the driver
+     * @throws Exception if the driver could not be prepared
+     */
+    void start(int workers) throws Exception;
+
+    /**
+     * Sends one request and waits for it to complete.
+     * @param worker the index of the calling worker, from 0 to workers - 1
+     * @throws Exception if the request failed, which is counted as an error
+     */
+    void invoke(int worker) throws Exception;
+
+    /**
+     * Releases any resources held by the driver once the run is over.
+     */
+    void stop();
+
+}
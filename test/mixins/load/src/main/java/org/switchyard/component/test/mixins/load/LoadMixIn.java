@@ -0,0 +1,417 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.test.mixins.load;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.apache.log4j.Logger;
+import org.switchyard.test.mixins.AbstractTestMixIn;
+
+/**
+ * Load Test Mix In.
+ * <p/>
+ * Drives a deployed test application through a {@link LoadDriver} from a number of concurrent
+ * workers, either as fast as they can (closed model) or at a fixed total rate (open model), and
+ * records latency percentiles, throughput and allocation rate for each run. Used together with the
+ * other MixIns everything runs in-process, e.g. with the {@link HTTPLoadDriver} against the
+ * standalone HTTP server or the {@link HornetQLoadDriver} against embedded HornetQ, so runs of
+ * different bindings of the same application can be compared.
+ * <p/>
+ * At a fixed rate each request is timed from when it was scheduled to be sent rather than from
+ * when it actually was, so a stalled service shows up in the percentiles instead of only slowing
+ * the workers down.
+ */
+public class LoadMixIn extends AbstractTestMixIn {
+
+    private static final Logger LOGGER = Logger.getLogger(LoadMixIn.class);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private int _concurrency = 1;
+    private int _rate = 0;
+    private long _warmup = TimeUnit.SECONDS.toMillis(5);
+    private long _duration = TimeUnit.SECONDS.toMillis(30);
+    private long _maxLatency = TimeUnit.MINUTES.toMillis(1);
+    private File _reportFile;
+    private final Map<String, LoadResult> _results = new LinkedHashMap<String, LoadResult>();
+
+    /**
+     * Set the number of concurrent workers.
+     * <p/>
+     * Default is 1.
+     *
+     * @param concurrency The number of workers.
+     * @return This LoadMixIn instance.
+     */
+    public LoadMixIn setConcurrency(int concurrency) {
+        _concurrency = Math.max(1, concurrency);
+        return this;
+    }
+
+    /**
+     * Set the total rate at which the workers send requests.
+     * <p/>
+     * Default is 0, which sends each worker's next request as soon as the previous one completes.
+     *
+     * @param rate The rate in requests per second, or 0.
+     * @return This LoadMixIn instance.
+     */
+    public LoadMixIn setRate(int rate) {
+        _rate = Math.max(0, rate);
+        return this;
+    }
+
+    /**
+     * Set how long requests are sent before measuring starts.
+     * <p/>
+     * Default is 5 seconds.
+     *
+     * @param warmup The warmup time in milliseconds, or 0 for none.
+     * @return This LoadMixIn instance.
+     */
+    public LoadMixIn setWarmup(long warmup) {
+        _warmup = Math.max(0L, warmup);
+        return this;
+    }
+
+    /**
+     * Set how long requests are measured for.
+     * <p/>
+     * Default is 30 seconds.
+     *
+     * @param duration The measured time in milliseconds.
+     * @return This LoadMixIn instance.
+     */
+    public LoadMixIn setDuration(long duration) {
+        _duration = Math.max(1L, duration);
+        return this;
+    }
+
+    /**
+     * Set the highest latency that can be recorded; higher latencies are recorded as this value.
+     * <p/>
+     * Default is 1 minute.
+     *
+     * @param maxLatency The latency in milliseconds.
+     * @return This LoadMixIn instance.
+     */
+    public LoadMixIn setMaxLatency(long maxLatency) {
+        _maxLatency = Math.max(1L, maxLatency);
+        return this;
+    }
+
+    /**
+     * Set a file the results of all runs are written to, as CSV, when the MixIn is uninitialized.
+     *
+     * @param reportFile The report file, or null for none.
+     * @return This LoadMixIn instance.
+     */
+    public LoadMixIn setReportFile(File reportFile) {
+        _reportFile = reportFile;
+        return this;
+    }
+
+    /**
+     * Run the configured load through a driver.
+     * <p/>
+     * The driver is started, warmed up, measured and stopped again; the result is logged and kept
+     * under the given name, replacing any earlier result of that name.
+     *
+     * @param name The name to report the run under, usually the binding.
+     * @param driver The driver.
+     * @return The result.
+     */
+    public LoadResult run(String name, LoadDriver driver) {
+        try {
+            driver.start(_concurrency);
+        } catch (Exception e) {
+            driver.stop();
+            throw new RuntimeException("Failed to start load driver for " + name, e);
+        }
+        LoadResult result;
+        try {
+            if (_warmup > 0) {
+                execute(name + " (warmup)", driver, _warmup);
+            }
+            result = execute(name, driver, _duration);
+        } finally {
+            driver.stop();
+        }
+        synchronized (_results) {
+            _results.put(name, result);
+        }
+        LOGGER.info(result);
+        return result;
+    }
+
+    /**
+     * Get the result of an earlier run.
+     *
+     * @param name The name the run was reported under.
+     * @return The result, or null if there was no such run.
+     */
+    public LoadResult getResult(String name) {
+        synchronized (_results) {
+            return _results.get(name);
+        }
+    }
+
+    /**
+     * Get the results of all runs, in the order they were run.
+     *
+     * @return The results.
+     */
+    public Collection<LoadResult> getResults() {
+        synchronized (_results) {
+            return Collections.unmodifiableCollection(new ArrayList<LoadResult>(_results.values()));
+        }
+    }
+
+    /**
+     * Write the results of all runs to a file as CSV, one line per run.
+     *
+     * @param file The file.
+     * @throws IOException If the file could not be written.
+     */
+    public void writeReport(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory);
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(LoadResult.CSV_HEADER);
+            writer.write('\n');
+            for (LoadResult result : getResults()) {
+                writer.write(result.toCSV());
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Override
+    public void uninitialize() {
+        try {
+            if (_reportFile != null && !getResults().isEmpty()) {
+                writeReport(_reportFile);
+                LOGGER.info("Load test results written to " + _reportFile.getAbsolutePath());
+            }
+        } catch (IOException ioe) {
+            LOGGER.warn("Failed to write load test results to " + _reportFile + ": " + ioe.getMessage());
+        } finally {
+            synchronized (_results) {
+                _results.clear();
+            }
+        }
+    }
+
+    private LoadResult execute(String name, LoadDriver driver, long millis) {
+        long interval = _rate > 0 ? TimeUnit.SECONDS.toNanos(_concurrency) / _rate : 0L;
+        long maxLatency = TimeUnit.MILLISECONDS.toNanos(_maxLatency);
+        Worker[] workers = new Worker[_concurrency];
+        Thread[] threads = new Thread[_concurrency];
+        // threads already running, such as those of in-process servers, are sampled from here
+        long[] threadIds = ManagementFactory.getThreadMXBean().getAllThreadIds();
+        long[] allocatedBefore = allocatedBytes(threadIds);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(millis);
+        for (int i = 0; i < workers.length; i++) {
+            // stagger the schedules, so the workers together send at an even rate
+            workers[i] = new Worker(driver, i, start + (interval * i) / workers.length, interval, end, maxLatency);
+            threads[i] = new Thread(workers[i], getClass().getSimpleName() + ":" + name + ":" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException ie) {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running load for " + name, ie);
+        }
+        long duration = System.nanoTime() - start;
+        long allocated = allocatedBytes(allocatedBefore, allocatedBytes(threadIds));
+
+        Histogram histogram = new Histogram(maxLatency, SIGNIFICANT_DIGITS);
+        long operations = 0L;
+        long errors = 0L;
+        Throwable failure = null;
+        for (Worker worker : workers) {
+            histogram.add(worker._histogram);
+            operations += worker._operations;
+            errors += worker._errors;
+            allocated = allocated >= 0 && worker._allocated >= 0 ? allocated + worker._allocated : -1L;
+            if (failure == null) {
+                failure = worker._failure;
+            }
+        }
+        if (failure != null) {
+            LOGGER.warn(errors + " requests failed for " + name + ", the first with: " + failure, failure);
+        }
+        return new LoadResult(name, _concurrency, _rate, histogram, operations, errors, duration, allocated);
+    }
+
+    /**
+     * Gets the bytes allocated so far by each of the given threads.
+     *
+     * @return the bytes, -1 for threads which have ended, or null if the JVM does not support thread
+     * allocation accounting
+     */
+    private static long[] allocatedBytes(long[] threadIds) {
+        com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+        return allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadIds) : null;
+    }
+
+    /**
+     * Sums what the threads allocated between two samples, leaving out threads which ended in between
+     * and so took their allocations with them.
+     */
+    private static long allocatedBytes(long[] before, long[] after) {
+        if (before == null || after == null) {
+            return -1L;
+        }
+        long total = 0L;
+        for (int i = 0; i < before.length; i++) {
+            if (before[i] >= 0 && after[i] >= 0) {
+                total += Math.max(0L, after[i] - before[i]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gets the bytes allocated so far by the current thread.
+     *
+     * @return the bytes, or -1 if the JVM does not support thread allocation accounting
+     */
+    private static long currentThreadAllocatedBytes() {
+        com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+        return allocationBean != null ? allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1L;
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)threadBean;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean;
+            }
+        }
+        return null;
+    }
+
+    private static final class Worker implements Runnable {
+
+        private final LoadDriver _driver;
+        private final int _index;
+        private final long _interval;
+        private final long _end;
+        private final long _maxLatency;
+        private final Histogram _histogram;
+        private long _next;
+        private long _operations;
+        private long _errors;
+        private Throwable _failure;
+        private long _allocated;
+
+        private Worker(LoadDriver driver, int index, long first, long interval, long end, long maxLatency) {
+            _driver = driver;
+            _index = index;
+            _next = first;
+            _interval = interval;
+            _end = end;
+            _maxLatency = maxLatency;
+            _histogram = new Histogram(maxLatency, SIGNIFICANT_DIGITS);
+        }
+
+        @Override
+        public void run() {
+            // the worker's thread ends with the run, so it counts its own allocations
+            long allocatedBefore = currentThreadAllocatedBytes();
+            try {
+                send();
+            } finally {
+                long allocatedAfter = currentThreadAllocatedBytes();
+                _allocated = allocatedBefore >= 0 && allocatedAfter >= 0 ? allocatedAfter - allocatedBefore : -1L;
+            }
+        }
+
+        private void send() {
+            while (!Thread.currentThread().isInterrupted()) {
+                long start;
+                if (_interval > 0) {
+                    if (_next - _end >= 0) {
+                        break;
+                    }
+                    long now;
+                    while ((now = System.nanoTime()) - _next < 0) {
+                        LockSupport.parkNanos(_next - now);
+                    }
+                    start = _next;
+                    _next += _interval;
+                } else {
+                    start = System.nanoTime();
+                    if (start - _end >= 0) {
+                        break;
+                    }
+                }
+                try {
+                    _driver.invoke(_index);
+                } catch (Exception e) {
+                    failed(e);
+                    continue;
+                } catch (AssertionError ae) {
+                    // the functional MixIns report failures as assertions
+                    failed(ae);
+                    continue;
+                }
+                _operations++;
+                _histogram.recordValue(Math.min(System.nanoTime() - start, _maxLatency));
+            }
+        }
+
+        private void failed(Throwable t) {
+            _errors++;
+            if (_failure == null) {
+                _failure = t;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.test.mixins.load;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * The outcome of one {@link LoadMixIn} run against one binding.
+ * <p/>
+ * Latencies are recorded in nanoseconds and reported in microseconds. Only successful requests
+ * contribute to the latency distribution; failed requests are counted as errors.
+ */
+public class LoadResult {
+
+    /** The column names of {@link #toCSV()}. */
+    public static final String CSV_HEADER =
+        "name,concurrency,rate,operations,errors,durationMillis,throughput,"
+        + "meanMicros,p50Micros,p90Micros,p99Micros,p999Micros,maxMicros,allocatedBytes,allocationRate";
+
+    private static final double NANOS_PER_MICRO = 1000d;
+
+    private final String _name;
+    private final int _concurrency;
+    private final int _rate;
+    private final Histogram _histogram;
+    private final long _operations;
+    private final long _errors;
+    private final long _durationNanos;
+    private final long _allocatedBytes;
+
+    LoadResult(String name, int concurrency, int rate, Histogram histogram,
+            long operations, long errors, long durationNanos, long allocatedBytes) {
+        _name = name;
+        _concurrency = concurrency;
+        _rate = rate;
+        _histogram = histogram;
+        _operations = operations;
+        _errors = errors;
+        _durationNanos = durationNanos;
+        _allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Gets the name the run was reported under, usually the binding.
+     * @return the name
+     */
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * Gets the number of concurrent workers.
+     * @return the concurrency
+     */
+    public int getConcurrency() {
+        return _concurrency;
+    }
+
+    /**
+     * Gets the target rate in requests per second.
+     * @return the rate, or 0 if requests were sent as fast as possible
+     */
+    public int getRate() {
+        return _rate;
+    }
+
+    /**
+     * Gets the number of successful requests.
+     * @return the count
+     */
+    public long getOperations() {
+        return _operations;
+    }
+
+    /**
+     * Gets the number of failed requests.
+     * @return the count
+     */
+    public long getErrors() {
+        return _errors;
+    }
+
+    /**
+     * Gets the measured duration.
+     * @return the duration in milliseconds
+     */
+    public long getDuration() {
+        return TimeUnit.NANOSECONDS.toMillis(_durationNanos);
+    }
+
+    /**
+     * Gets the number of successful requests per second.
+     * @return the throughput
+     */
+    public double getThroughput() {
+        return _durationNanos > 0 ? _operations * (double)TimeUnit.SECONDS.toNanos(1) / _durationNanos : 0d;
+    }
+
+    /**
+     * Gets the latency at a percentile.
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in microseconds
+     */
+    public double getLatency(double percentile) {
+        return _histogram.getValueAtPercentile(percentile) / NANOS_PER_MICRO;
+    }
+
+    /**
+     * Gets the mean latency.
+     * @return the latency in microseconds
+     */
+    public double getMeanLatency() {
+        return _histogram.getMean() / NANOS_PER_MICRO;
+    }
+
+    /**
+     * Gets the highest latency.
+     * @return the latency in microseconds
+     */
+    public double getMaxLatency() {
+        return _histogram.getMaxValue() / NANOS_PER_MICRO;
+    }
+
+    /**
+     * Gets a copy of the latency distribution, e.g. to output its full percentile distribution.
+     * @return the histogram, in nanoseconds
+     */
+    public Histogram getHistogram() {
+        return _histogram.copy();
+    }
+
+    /**
+     * Gets the number of bytes allocated while the run was measured by the workers, and by the threads
+     * which lived throughout the run, such as the in-process server threads handling the requests.
+     * @return the bytes, or -1 if the JVM does not support thread allocation accounting
+     */
+    public long getAllocatedBytes() {
+        return _allocatedBytes;
+    }
+
+    /**
+     * Gets the rate of the allocations counted by {@link #getAllocatedBytes()}.
+     * @return the rate in bytes per second, or -1 if the JVM does not support thread allocation accounting
+     */
+    public double getAllocationRate() {
+        if (_allocatedBytes < 0) {
+            return -1d;
+        }
+        return _durationNanos > 0 ? _allocatedBytes * (double)TimeUnit.SECONDS.toNanos(1) / _durationNanos : 0d;
+    }
+
+    /**
+     * Formats the result as one CSV line, with the columns of {@link #CSV_HEADER}.
+     * @return the line
+     */
+    public String toCSV() {
+        return String.format(Locale.ENGLISH, "%s,%d,%d,%d,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%d,%.0f",
+            _name, _concurrency, _rate, _operations, _errors, getDuration(), getThroughput(),
+            getMeanLatency(), getLatency(50d), getLatency(90d), getLatency(99d), getLatency(99.9d), getMaxLatency(),
+            _allocatedBytes, getAllocationRate());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH,
+            "%s: %d ops, %d errors in %d ms (%.1f ops/s), latency us p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f, allocation %s",
+            _name, _operations, _errors, getDuration(), getThroughput(),
+            getLatency(50d), getLatency(90d), getLatency(99d), getLatency(99.9d), getMaxLatency(),
+            _allocatedBytes < 0 ? "n/a" : String.format(Locale.ENGLISH, "%.1f MB/s", getAllocationRate() / (1024d * 1024d)));
+    }
+
+}
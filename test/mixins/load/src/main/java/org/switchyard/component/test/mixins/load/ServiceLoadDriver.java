@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.test.mixins.load;
+
+import org.switchyard.test.Invoker;
+import org.switchyard.test.SwitchYardTestKit;
+
+/**
+ * Drives a service directly through the test kit, without a binding.
+ * <p/>
+ * Useful as a baseline for the binding drivers, and for implementations such as Bean (with the CDI
+ * MixIn) or BPM (with the BPM MixIn) that have no binding in the test application. Each worker
+ * sends through its own {@link Invoker}.
+ */
+public class ServiceLoadDriver implements LoadDriver {
+
+    private final SwitchYardTestKit _testKit;
+    private final String _serviceOperation;
+    private final Object _content;
+    private boolean _inOnly;
+    private Invoker[] _invokers;
+
+    /**
+     * Creates a new driver.
+     * @param testKit the test kit of the running test
+     * @param serviceOperation the service to invoke, as "Service.operation" or "Service"
+     * @param content the message content
+     */
+    public ServiceLoadDriver(SwitchYardTestKit testKit, String serviceOperation, Object content) {
+        _testKit = testKit;
+        _serviceOperation = serviceOperation;
+        _content = content;
+    }
+
+    /**
+     * Send one way messages instead of waiting for a reply.
+     * @param inOnly true for in-only invocations
+     * @return this instance
+     */
+    public ServiceLoadDriver setInOnly(boolean inOnly) {
+        _inOnly = inOnly;
+        return this;
+    }
+
+    @Override
+    public void start(int workers) {
+        _invokers = new Invoker[workers];
+        for (int i = 0; i < workers; i++) {
+            _invokers[i] = _testKit.newInvoker(_serviceOperation);
+        }
+    }
+
+    @Override
+    public void invoke(int worker) throws Exception {
+        if (_inOnly) {
+            _invokers[worker].sendInOnly(_content);
+        } else {
+            _invokers[worker].sendInOut(_content);
+        }
+    }
+
+    @Override
+    public void stop() {
+        _invokers = null;
+    }
+
+}
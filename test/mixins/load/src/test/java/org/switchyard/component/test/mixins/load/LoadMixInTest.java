@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.test.mixins.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link LoadMixIn}.
+ */
+public class LoadMixInTest {
+
+    private LoadMixIn _loadMixIn;
+
+    @Before
+    public void setUp() {
+        _loadMixIn = new LoadMixIn().setWarmup(0L).setDuration(500L);
+        _loadMixIn.initialize();
+    }
+
+    @After
+    public void tearDown() {
+        _loadMixIn.uninitialize();
+    }
+
+    @Test
+    public void closedModelCountsEveryRequest() {
+        CountingDriver driver = new CountingDriver(false);
+        LoadResult result = _loadMixIn.setConcurrency(4).run("counting", driver);
+        assertEquals(4, driver._workers);
+        assertTrue(driver._stopped);
+        assertEquals(driver._invocations.get(), result.getOperations());
+        assertEquals(0L, result.getErrors());
+        assertTrue(result.getOperations() > 0);
+        assertTrue(result.getThroughput() > 0d);
+        assertTrue(result.getLatency(50d) <= result.getMaxLatency());
+    }
+
+    @Test
+    public void failedRequestsAreErrors() {
+        CountingDriver driver = new CountingDriver(true);
+        LoadResult result = _loadMixIn.setConcurrency(2).run("failing", driver);
+        assertEquals(0L, result.getOperations());
+        assertEquals(driver._invocations.get(), result.getErrors());
+        assertTrue(result.getErrors() > 0);
+    }
+
+    @Test
+    public void openModelKeepsToTheRate() {
+        CountingDriver driver = new CountingDriver(false);
+        LoadResult result = _loadMixIn.setConcurrency(2).setRate(100).setDuration(1000L).run("rated", driver);
+        // 100 requests per second for one second, allowing for scheduling slack
+        assertTrue(result.getOperations() >= 90 && result.getOperations() <= 101);
+    }
+
+    @Test
+    public void reportHasOneLinePerRun() throws Exception {
+        File report = new File("target/load/report.csv");
+        _loadMixIn.run("first", new CountingDriver(false));
+        _loadMixIn.run("second", new CountingDriver(false));
+        _loadMixIn.writeReport(report);
+        BufferedReader reader = new BufferedReader(new FileReader(report));
+        try {
+            assertEquals(LoadResult.CSV_HEADER, reader.readLine());
+            assertTrue(reader.readLine().startsWith("first,"));
+            assertTrue(reader.readLine().startsWith("second,"));
+            assertEquals(null, reader.readLine());
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static final class CountingDriver implements LoadDriver {
+
+        private final boolean _fail;
+        private final AtomicInteger _invocations = new AtomicInteger();
+        private int _workers;
+        private boolean _stopped;
+
+        private CountingDriver(boolean fail) {
+            _fail = fail;
+        }
+
+        @Override
+        public void start(int workers) {
+            _workers = workers;
+        }
+
+        @Override
+        public void invoke(int worker) throws Exception {
+            _invocations.incrementAndGet();
+            if (_fail) {
+                throw new Exception("failed on purpose");
+            }
+        }
+
+        @Override
+        public void stop() {
+            _stopped = true;
+        }
+
+    }
+
+}
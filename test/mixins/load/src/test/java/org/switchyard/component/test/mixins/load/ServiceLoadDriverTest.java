@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.switchyard.component.test.mixins.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.switchyard.test.MockHandler;
+import org.switchyard.test.SwitchYardRunner;
+import org.switchyard.test.SwitchYardTestCaseConfig;
+import org.switchyard.test.SwitchYardTestKit;
+
+/**
+ * Unit test for {@link ServiceLoadDriver} driven by the {@link LoadMixIn}.
+ */
+@RunWith(SwitchYardRunner.class)
+@SwitchYardTestCaseConfig(mixins = LoadMixIn.class)
+public class ServiceLoadDriverTest {
+
+    private SwitchYardTestKit _testKit;
+    private LoadMixIn _loadMixIn;
+
+    @Test
+    public void invokesServiceFromEveryWorker() {
+        MockHandler service = _testKit.registerInOutService("EchoService");
+        service.forwardInToOut();
+
+        LoadResult result = _loadMixIn.setWarmup(0L).setDuration(500L).setConcurrency(2)
+            .run("service", new ServiceLoadDriver(_testKit, "EchoService", "payload"));
+
+        assertEquals(0L, result.getErrors());
+        assertTrue(result.getOperations() > 0);
+        assertEquals(result.getOperations(), service.getMessages().size());
+    }
+
+    @Test
+    public void countsAllocationsOfTheWorkers() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean()).isThreadAllocatedMemoryEnabled());
+        _testKit.registerInOutService("EchoService").forwardInToOut();
+
+        LoadResult result = _loadMixIn.setWarmup(0L).setDuration(500L).setConcurrency(2)
+            .run("service", new ServiceLoadDriver(_testKit, "EchoService", "payload"));
+
+        // each invocation creates at least an exchange and its messages on the worker's thread
+        assertTrue(result.getOperations() > 0);
+        assertTrue(result.getAllocatedBytes() >= result.getOperations() * 100L);
+        assertTrue(result.getAllocationRate() > 0d);
+    }
+
+}